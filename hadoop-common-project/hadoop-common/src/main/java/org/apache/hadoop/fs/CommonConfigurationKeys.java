@@ -78,6 +78,24 @@ public class CommonConfigurationKeys extends CommonConfigurationKeysPublic {
   public static final int IPC_SERVER_RPC_READ_CONNECTION_QUEUE_SIZE_DEFAULT =
       100;
 
+  /**
+   * Maximum number of requests a socket reader reads from a connection each
+   * time it is selected as readable.
+   */
+  public static final String IPC_SERVER_RPC_READ_MAX_REQUESTS_KEY =
+      "ipc.server.read.max-requests-per-select";
+  /** Default value for IPC_SERVER_RPC_READ_MAX_REQUESTS_KEY */
+  public static final int IPC_SERVER_RPC_READ_MAX_REQUESTS_DEFAULT = 1;
+
+  /**
+   * Whether socket readers watch connections with a native epoll instance
+   * rather than a JDK selector, when libhadoop supports it.
+   */
+  public static final String IPC_SERVER_RPC_READ_NATIVE_EPOLL_KEY =
+      "ipc.server.read.native-epoll.enabled";
+  /** Default value for IPC_SERVER_RPC_READ_NATIVE_EPOLL_KEY */
+  public static final boolean IPC_SERVER_RPC_READ_NATIVE_EPOLL_DEFAULT = false;
+
   /** Max request size a server will accept. */
   public static final String IPC_MAXIMUM_DATA_LENGTH =
       "ipc.maximum.data.length";
@@ -97,6 +115,50 @@ public class CommonConfigurationKeys extends CommonConfigurationKeysPublic {
   /** Default value for IPC_SERVER_HANDLER_QUEUE_SIZE_KEY */
   public static final int     IPC_SERVER_HANDLER_QUEUE_SIZE_DEFAULT = 100;
 
+  /**
+   * Whether handlers run each call on its own virtual thread (JDK 21+)
+   * instead of running calls themselves.
+   */
+  public static final String IPC_SERVER_HANDLER_VIRTUAL_THREADS_ENABLED_KEY =
+      "ipc.server.handler.virtual-threads.enabled";
+  /** Default value for IPC_SERVER_HANDLER_VIRTUAL_THREADS_ENABLED_KEY. */
+  public static final boolean
+      IPC_SERVER_HANDLER_VIRTUAL_THREADS_ENABLED_DEFAULT = false;
+  /** Max number of calls running on virtual threads at once. */
+  public static final String
+      IPC_SERVER_HANDLER_VIRTUAL_THREADS_MAX_INFLIGHT_KEY =
+      "ipc.server.handler.virtual-threads.max-inflight";
+  /** Default value for IPC_SERVER_HANDLER_VIRTUAL_THREADS_MAX_INFLIGHT_KEY. */
+  public static final int
+      IPC_SERVER_HANDLER_VIRTUAL_THREADS_MAX_INFLIGHT_DEFAULT = 10000;
+
+  /** Number of pooled direct buffers for RPC responses, 0 to disable. */
+  public static final String IPC_SERVER_RESPONSE_DIRECT_BUFFERS_KEY =
+      "ipc.server.response.direct-buffers";
+  /** Default value for IPC_SERVER_RESPONSE_DIRECT_BUFFERS_KEY. */
+  public static final int IPC_SERVER_RESPONSE_DIRECT_BUFFERS_DEFAULT = 0;
+  /** Size in bytes of each pooled direct buffer for RPC responses. */
+  public static final String IPC_SERVER_RESPONSE_DIRECT_BUFFER_SIZE_KEY =
+      "ipc.server.response.direct-buffer.size";
+  /** Default value for IPC_SERVER_RESPONSE_DIRECT_BUFFER_SIZE_KEY. */
+  public static final int IPC_SERVER_RESPONSE_DIRECT_BUFFER_SIZE_DEFAULT =
+      256 * 1024;
+
+  /**
+   * Methods whose identical in-flight calls are executed once, each as the
+   * protocol name followed by a dot and the method name.
+   */
+  public static final String IPC_SERVER_COALESCED_METHODS_KEY =
+      "ipc.server.coalesced-methods";
+  /**
+   * Protocols whose calls are written to an audit log by the methods they
+   * run. Their methods are not coalesced unless the server has an auditor
+   * for the protocol, since a call answered with the result of another one
+   * does not run the method.
+   */
+  public static final String IPC_SERVER_COALESCED_METHODS_AUDITED_PROTOCOLS_KEY
+      = "ipc.server.coalesced-methods.audited-protocols";
+
   /**
    * CallQueue related settings. These are not used directly, but rather
    * combined with a namespace and port. For instance:
@@ -168,6 +230,17 @@ public class CommonConfigurationKeys extends CommonConfigurationKeysPublic {
   public static final int
       IO_COMPRESSION_CODEC_ZSTD_BUFFER_SIZE_DEFAULT = 0;
 
+  /**
+   * Maximum uncompressed size of the independent frames written by
+   * {@link org.apache.hadoop.io.compress.SeekableZStandardCodec}.
+   */
+  public static final String IO_COMPRESSION_CODEC_ZSTD_SEEKABLE_FRAME_SIZE_KEY =
+      "io.compression.codec.zstd.seekable.frame.size";
+
+  /** Default value for IO_COMPRESSION_CODEC_ZSTD_SEEKABLE_FRAME_SIZE_KEY. */
+  public static final int IO_COMPRESSION_CODEC_ZSTD_SEEKABLE_FRAME_SIZE_DEFAULT =
+      4 * 1024 * 1024;
+
   /** Internal buffer size for Lz4 compressor/decompressors */
   public static final String IO_COMPRESSION_CODEC_LZ4_BUFFERSIZE_KEY =
       "io.compression.codec.lz4.buffersize";
@@ -184,6 +257,28 @@ public class CommonConfigurationKeys extends CommonConfigurationKeysPublic {
   public static final boolean IO_COMPRESSION_CODEC_LZ4_USELZ4HC_DEFAULT =
       false;
 
+  /**
+   * Number of worker threads used by a
+   * {@link org.apache.hadoop.io.compress.ParallelCompressorStream}.
+   */
+  public static final String IO_COMPRESSION_PARALLEL_THREADS_KEY =
+      "io.compression.parallel.threads";
+
+  /** Default value for IO_COMPRESSION_PARALLEL_THREADS_KEY. */
+  public static final int IO_COMPRESSION_PARALLEL_THREADS_DEFAULT = 4;
+
+  /**
+   * Size of the uncompressed blocks a
+   * {@link org.apache.hadoop.io.compress.ParallelCompressorStream}
+   * compresses independently.
+   */
+  public static final String IO_COMPRESSION_PARALLEL_BLOCK_SIZE_KEY =
+      "io.compression.parallel.block.size";
+
+  /** Default value for IO_COMPRESSION_PARALLEL_BLOCK_SIZE_KEY. */
+  public static final int IO_COMPRESSION_PARALLEL_BLOCK_SIZE_DEFAULT =
+      1024 * 1024;
+
 
 
   /**
@@ -355,6 +450,11 @@ public class CommonConfigurationKeys extends CommonConfigurationKeysPublic {
   public static final String  IPC_CLIENT_ASYNC_CALLS_MAX_KEY =
       "ipc.client.async.calls.max";
   public static final int     IPC_CLIENT_ASYNC_CALLS_MAX_DEFAULT = 100;
+  /** Number of connections calls to the same server are spread over. */
+  public static final String  IPC_CLIENT_CONNECTION_POOL_SIZE_KEY =
+      "ipc.client.connection.pool-size";
+  /** Default value for IPC_CLIENT_CONNECTION_POOL_SIZE_KEY. */
+  public static final int     IPC_CLIENT_CONNECTION_POOL_SIZE_DEFAULT = 1;
   public static final String  IPC_CLIENT_FALLBACK_TO_SIMPLE_AUTH_ALLOWED_KEY = "ipc.client.fallback-to-simple-auth-allowed";
   public static final boolean IPC_CLIENT_FALLBACK_TO_SIMPLE_AUTH_ALLOWED_DEFAULT = false;
 
@@ -381,6 +481,22 @@ public class CommonConfigurationKeys extends CommonConfigurationKeysPublic {
   public static final boolean RPC_METRICS_QUANTILE_ENABLE_DEFAULT = false;
   public static final String  RPC_METRICS_PERCENTILES_INTERVALS_KEY =
       "rpc.metrics.percentiles.intervals";
+  /** Whether to publish RPC latency histograms per method and priority. */
+  public static final String RPC_METRICS_HISTOGRAMS_ENABLE =
+      "rpc.metrics.histograms.enable";
+  public static final boolean RPC_METRICS_HISTOGRAMS_ENABLE_DEFAULT = false;
+  /** Interval in seconds of the RPC latency histograms. */
+  public static final String RPC_METRICS_HISTOGRAMS_INTERVAL_KEY =
+      "rpc.metrics.histograms.interval";
+  public static final int RPC_METRICS_HISTOGRAMS_INTERVAL_DEFAULT = 60;
+  /**
+   * Whether IPC clients publish call latency histograms per connection. They
+   * use the interval of the RPC latency histograms.
+   */
+  public static final String IPC_CLIENT_METRICS_HISTOGRAMS_ENABLE =
+      "ipc.client.metrics.histograms.enable";
+  public static final boolean IPC_CLIENT_METRICS_HISTOGRAMS_ENABLE_DEFAULT =
+      false;
   
   /** Allowed hosts for nfs exports */
   public static final String NFS_EXPORTS_ALLOWED_HOSTS_SEPARATOR = ";";
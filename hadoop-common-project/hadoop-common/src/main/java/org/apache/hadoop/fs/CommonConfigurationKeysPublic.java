@@ -247,6 +247,15 @@ public class CommonConfigurationKeysPublic {
     "io.seqfile.compress.blocksize";
   /** Default value for IO_SEQFILE_COMPRESS_BLOCKSIZE_KEY */
   public static final int     IO_SEQFILE_COMPRESS_BLOCKSIZE_DEFAULT = 1000000;
+  /**
+   * @see
+   * <a href="{@docRoot}/../hadoop-project-dist/hadoop-common/core-default.xml">
+   * core-default.xml</a>
+   */
+  public static final String  IO_SEQFILE_READ_PREFETCH_KEY =
+    "io.seqfile.read.prefetch";
+  /** Default value for IO_SEQFILE_READ_PREFETCH_KEY */
+  public static final boolean IO_SEQFILE_READ_PREFETCH_DEFAULT = false;
   /**
    * @see
    * <a href="{@docRoot}/../hadoop-project-dist/hadoop-common/core-default.xml">
@@ -71,6 +71,13 @@ public interface StreamCapabilities {
    */
   String PREADBYTEBUFFER = "in:preadbytebuffer";
 
+  /**
+   * Stream readVectored capability implemented by
+   * {@link PositionedReadable#readVectored(java.util.List,
+   * java.util.function.IntFunction)} with a native, parallel implementation.
+   */
+  String VECTOREDIO = "in:readvectored";
+
   /**
    * Capabilities that a stream can support and be queried for.
    */
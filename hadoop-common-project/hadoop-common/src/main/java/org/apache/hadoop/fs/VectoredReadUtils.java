@@ -0,0 +1,327 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.fs;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.IntFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.classification.InterfaceStability;
+import org.apache.hadoop.fs.impl.CombinedFileRange;
+
+/**
+ * Utility class which implements helper methods used
+ * in vectored IO implementation.
+ */
+@InterfaceAudience.LimitedPrivate("Filesystems")
+@InterfaceStability.Unstable
+public final class VectoredReadUtils {
+
+  private static final Logger LOG =
+      LoggerFactory.getLogger(VectoredReadUtils.class);
+
+  /**
+   * Size of the temporary buffer used when copying into a direct buffer
+   * from a stream which only supports byte array reads.
+   */
+  private static final int TMP_BUFFER_MAX_SIZE = 64 * 1024;
+
+  private VectoredReadUtils() {
+  }
+
+  /**
+   * Validate a single range.
+   * @param range file range.
+   * @throws EOFException any EOF Exception.
+   */
+  public static void validateRangeRequest(FileRange range)
+      throws EOFException {
+    if (range.getLength() < 0) {
+      throw new IllegalArgumentException("length is negative in " + range);
+    }
+    if (range.getOffset() < 0) {
+      throw new EOFException("position is negative in range " + range);
+    }
+  }
+
+  /**
+   * Validate a list of vectored read ranges.
+   * @param ranges list of ranges.
+   * @throws EOFException any EOF exception.
+   */
+  public static void validateVectoredReadRanges(
+      List<? extends FileRange> ranges) throws EOFException {
+    for (FileRange range : ranges) {
+      validateRangeRequest(range);
+    }
+  }
+
+  /**
+   * Read the ranges synchronously in the calling thread, merging nearby
+   * ranges as described by the stream's
+   * {@link PositionedReadable#minSeekForVectorReads()} and
+   * {@link PositionedReadable#maxReadSizeForVectorReads()}.
+   * @param stream the stream to read the data from
+   * @param ranges the byte ranges to read
+   * @param allocate the function to allocate ByteBuffer
+   * @throws IOException if the ranges are invalid.
+   */
+  public static void readVectored(PositionedReadable stream,
+      List<? extends FileRange> ranges,
+      IntFunction<ByteBuffer> allocate) throws IOException {
+    readVectored(stream, ranges, allocate, null);
+  }
+
+  /**
+   * Read the ranges, merging nearby ranges as described by the stream's
+   * {@link PositionedReadable#minSeekForVectorReads()} and
+   * {@link PositionedReadable#maxReadSizeForVectorReads()} and issuing
+   * one positioned read per merged range.
+   * The futures of all ranges are set before this method returns.
+   * If an executor is supplied the merged reads are submitted to it,
+   * so the stream's positioned reads must be thread-safe; if it is null
+   * or rejects the task, the read is executed in the calling thread.
+   * @param stream the stream to read the data from
+   * @param ranges the byte ranges to read
+   * @param allocate the function to allocate ByteBuffer
+   * @param executor executor for the merged reads; may be null.
+   * @throws IOException if the ranges are invalid.
+   */
+  public static void readVectored(PositionedReadable stream,
+      List<? extends FileRange> ranges,
+      IntFunction<ByteBuffer> allocate,
+      Executor executor) throws IOException {
+    readVectored(ranges, allocate, stream.minSeekForVectorReads(),
+        stream.maxReadSizeForVectorReads(),
+        (position, buffer) -> readInto(stream, position, buffer),
+        executor);
+  }
+
+  /**
+   * Read the ranges through a {@link RangeReader}, merging the ranges
+   * which are closer than {@code minSeek} into reads of at most
+   * {@code maxSize} bytes.
+   * The futures of all ranges are set before this method returns.
+   * If an executor is supplied the merged reads are submitted to it;
+   * if it is null or rejects the task, the read is executed in the
+   * calling thread.
+   * @param ranges the byte ranges to read
+   * @param allocate the function to allocate ByteBuffer
+   * @param minSeek the smallest gap that we should seek over in bytes
+   * @param maxSize the largest combined file range in bytes
+   * @param reader reader of each merged range
+   * @param executor executor for the merged reads; may be null.
+   * @throws IOException if the ranges are invalid.
+   */
+  public static void readVectored(List<? extends FileRange> ranges,
+      IntFunction<ByteBuffer> allocate,
+      int minSeek,
+      int maxSize,
+      RangeReader reader,
+      Executor executor) throws IOException {
+    validateVectoredReadRanges(ranges);
+    if (ranges.isEmpty()) {
+      return;
+    }
+    List<CombinedFileRange> combinedRanges = mergeSortedRanges(
+        sortRanges(ranges), minSeek, maxSize);
+    LOG.debug("Number of original ranges {}; number of combined ranges {}",
+        ranges.size(), combinedRanges.size());
+    for (CombinedFileRange combined : combinedRanges) {
+      for (FileRange child : combined.getUnderlying()) {
+        child.setData(new CompletableFuture<>());
+      }
+    }
+    for (CombinedFileRange combined : combinedRanges) {
+      Runnable task = () -> readCombinedRange(reader, combined, allocate);
+      if (executor == null) {
+        task.run();
+        continue;
+      }
+      try {
+        executor.execute(task);
+      } catch (RejectedExecutionException e) {
+        LOG.debug("Vectored read rejected by executor; reading {} inline",
+            combined);
+        task.run();
+      }
+    }
+  }
+
+  /**
+   * Read a combined range and complete the futures of all the underlying
+   * ranges with slices of the data read.
+   * On failure, every underlying future is completed exceptionally.
+   * @param reader reader of the range
+   * @param combined the combined range
+   * @param allocate the function to allocate ByteBuffer
+   */
+  private static void readCombinedRange(RangeReader reader,
+      CombinedFileRange combined, IntFunction<ByteBuffer> allocate) {
+    try {
+      ByteBuffer buffer = allocate.apply(combined.getLength());
+      buffer.limit(buffer.position() + combined.getLength());
+      reader.readRange(combined.getOffset(), buffer);
+      for (FileRange child : combined.getUnderlying()) {
+        child.getData().complete(
+            sliceTo(buffer, combined.getOffset(), child));
+      }
+    } catch (Throwable t) {
+      LOG.debug("Failed to read {}", combined, t);
+      for (FileRange child : combined.getUnderlying()) {
+        child.getData().completeExceptionally(t);
+      }
+    }
+  }
+
+  /**
+   * Read exactly {@code buffer.remaining()} bytes into the buffer from the
+   * given position. Direct buffers are read through
+   * {@link ByteBufferPositionedReadable} when the stream supports it,
+   * otherwise the data is copied through a temporary array.
+   * On return the buffer is flipped, ready to be read.
+   * @param stream the stream to read the data from
+   * @param position position within the file
+   * @param buffer the destination buffer
+   * @throws IOException any IOE.
+   */
+  public static void readInto(PositionedReadable stream, long position,
+      ByteBuffer buffer) throws IOException {
+    int length = buffer.remaining();
+    if (buffer.hasArray()) {
+      stream.readFully(position, buffer.array(),
+          buffer.arrayOffset() + buffer.position(), length);
+      buffer.position(buffer.position() + length);
+    } else if (supportsByteBufferPread(stream)) {
+      ((ByteBufferPositionedReadable) stream).readFully(position, buffer);
+    } else {
+      byte[] tmp = new byte[Math.min(TMP_BUFFER_MAX_SIZE, length)];
+      long offset = position;
+      while (buffer.hasRemaining()) {
+        int chunk = Math.min(tmp.length, buffer.remaining());
+        stream.readFully(offset, tmp, 0, chunk);
+        buffer.put(tmp, 0, chunk);
+        offset += chunk;
+      }
+    }
+    buffer.flip();
+  }
+
+  private static boolean supportsByteBufferPread(PositionedReadable stream) {
+    if (!(stream instanceof ByteBufferPositionedReadable)) {
+      return false;
+    }
+    return !(stream instanceof StreamCapabilities)
+        || ((StreamCapabilities) stream).hasCapability(
+            StreamCapabilities.PREADBYTEBUFFER);
+  }
+
+  /**
+   * Slice the data that was read to the user's request.
+   * This function assumes that the user's request is completely subsumed by
+   * the read data. This always creates a new buffer pointing to the same
+   * underlying data but with its own mark and position fields.
+   * @param readData the buffer with the readData
+   * @param readOffset the offset in the file for the readData
+   * @param request the user's request
+   * @return the readData buffer that is sliced to the user's request
+   */
+  public static ByteBuffer sliceTo(ByteBuffer readData, long readOffset,
+      FileRange request) {
+    int offsetChange = (int) (request.getOffset() - readOffset);
+    int requestLength = request.getLength();
+    ByteBuffer slice = readData.duplicate();
+    slice.position(readData.position() + offsetChange);
+    slice.limit(readData.position() + offsetChange + requestLength);
+    return slice.slice();
+  }
+
+  /**
+   * Sort the input ranges by offset.
+   * @param input input ranges.
+   * @return a new list of the ranges, sorted by offset.
+   */
+  public static List<? extends FileRange> sortRanges(
+      List<? extends FileRange> input) {
+    FileRange[] sortedRanges = input.toArray(new FileRange[0]);
+    Arrays.sort(sortedRanges, Comparator.comparingLong(FileRange::getOffset));
+    return Arrays.asList(sortedRanges);
+  }
+
+  /**
+   * Merge sorted ranges to optimize the access from the underlying file
+   * system. The motivations are that:
+   * <ul>
+   *   <li>Upper layers want to pass down logical file ranges.</li>
+   *   <li>Fewer reads have better performance.</li>
+   *   <li>Applications want callbacks as ranges are read.</li>
+   *   <li>Some file systems want to round ranges to be at checksum
+   *   boundaries.</li>
+   * </ul>
+   * Overlapping ranges are merged as long as the result does not exceed
+   * the maximum size.
+   * @param sortedRanges already sorted list of ranges based on offset.
+   * @param minimumSeek the smallest gap that we should seek over in bytes
+   * @param maxSize the largest combined file range in bytes
+   * @return the list of sorted CombinedFileRanges that cover the input
+   */
+  public static List<CombinedFileRange> mergeSortedRanges(
+      List<? extends FileRange> sortedRanges, int minimumSeek, int maxSize) {
+    CombinedFileRange current = null;
+    List<CombinedFileRange> result = new ArrayList<>(sortedRanges.size());
+    for (FileRange range : sortedRanges) {
+      long start = range.getOffset();
+      long end = range.getOffset() + range.getLength();
+      if (current == null
+          || !current.merge(start, end, range, minimumSeek, maxSize)) {
+        current = new CombinedFileRange(start, end, range);
+        result.add(current);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Reader of a single contiguous range of a file.
+   */
+  @FunctionalInterface
+  public interface RangeReader {
+
+    /**
+     * Read exactly {@code buffer.remaining()} bytes from the given position.
+     * On return the buffer must be flipped, ready to be read.
+     * @param position position within the file
+     * @param buffer the destination buffer
+     * @throws IOException any IOE.
+     */
+    void readRange(long position, ByteBuffer buffer) throws IOException;
+  }
+}
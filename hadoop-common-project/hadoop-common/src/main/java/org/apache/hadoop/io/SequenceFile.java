@@ -23,8 +23,13 @@
 import java.util.*;
 import java.rmi.server.UID;
 import java.security.MessageDigest;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
 import org.apache.hadoop.util.Options;
 import org.apache.hadoop.fs.*;
 import org.apache.hadoop.fs.Options.CreateOpts;
@@ -50,6 +55,7 @@
 import org.apache.hadoop.util.MergeSort;
 import org.apache.hadoop.util.PriorityQueue;
 import org.apache.hadoop.util.Time;
+import org.apache.hadoop.util.concurrent.HadoopExecutors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -57,6 +63,8 @@
 import static org.apache.hadoop.fs.CommonConfigurationKeysPublic.IO_FILE_BUFFER_SIZE_KEY;
 import static org.apache.hadoop.fs.CommonConfigurationKeysPublic.IO_SEQFILE_COMPRESS_BLOCKSIZE_DEFAULT;
 import static org.apache.hadoop.fs.CommonConfigurationKeysPublic.IO_SEQFILE_COMPRESS_BLOCKSIZE_KEY;
+import static org.apache.hadoop.fs.CommonConfigurationKeysPublic.IO_SEQFILE_READ_PREFETCH_DEFAULT;
+import static org.apache.hadoop.fs.CommonConfigurationKeysPublic.IO_SEQFILE_READ_PREFETCH_KEY;
 import static org.apache.hadoop.fs.CommonConfigurationKeysPublic.IO_SKIP_CHECKSUM_ERRORS_DEFAULT;
 import static org.apache.hadoop.fs.CommonConfigurationKeysPublic.IO_SKIP_CHECKSUM_ERRORS_KEY;
 
@@ -1738,6 +1746,20 @@ public static class Reader implements java.io.Closeable {
     private Deserializer keyDeserializer;
     private Deserializer valDeserializer;
 
+    /** Reads ahead the blocks of prefetching readers. */
+    private static final ExecutorService PREFETCH_EXECUTOR =
+        HadoopExecutors.newCachedThreadPool(new ThreadFactoryBuilder()
+            .setDaemon(true).setNameFormat("SequenceFile prefetch #%d")
+            .build());
+
+    private boolean prefetch;
+    /** The block whose records are being read, when prefetching. */
+    private RawBlock currentBlock = null;
+    /** A block buffer that is free for the next read, when prefetching. */
+    private RawBlock spareBlock = null;
+    /** The read of the block after the current one, if any. */
+    private Future<RawBlock> prefetchedBlock = null;
+
     /**
      * A tag interface for all of the Reader options
      */
@@ -1788,6 +1810,18 @@ public static Option bufferSize(int value) {
       return new BufferSizeOption(value);
     }
 
+    /**
+     * Create an option to read the next block of a block compressed file on
+     * a background thread while the records of the current block are
+     * decompressed. Defaults to
+     * {@value org.apache.hadoop.fs.CommonConfigurationKeysPublic#IO_SEQFILE_READ_PREFETCH_KEY}.
+     * @param value whether to prefetch blocks
+     * @return a new option
+     */
+    public static Option prefetch(boolean value) {
+      return new PrefetchOption(value);
+    }
+
     private static class FileOption extends Options.PathOption 
                                     implements Option {
       private FileOption(Path value) {
@@ -1824,6 +1858,13 @@ private BufferSizeOption(int value) {
       }
     }
 
+    private static class PrefetchOption extends Options.BooleanOption
+                                        implements Option {
+      private PrefetchOption(boolean value) {
+        super(value);
+      }
+    }
+
     // only used directly
     private static class OnlyHeaderOption extends Options.BooleanOption 
                                           implements Option {
@@ -1842,6 +1883,8 @@ public Reader(Configuration conf, Option... opts) throws IOException {
       BufferSizeOption bufOpt = Options.getOption(BufferSizeOption.class,opts);
       OnlyHeaderOption headerOnly = 
         Options.getOption(OnlyHeaderOption.class, opts);
+      PrefetchOption prefetchOpt =
+        Options.getOption(PrefetchOption.class, opts);
       // check for consistency
       if ((fileOpt == null) == (streamOpt == null)) {
         throw new 
@@ -1868,6 +1911,10 @@ public Reader(Configuration conf, Option... opts) throws IOException {
         file = streamOpt.getValue();
       }
       long start = startOpt == null ? 0 : startOpt.getValue();
+      prefetch = prefetchOpt == null
+        ? conf.getBoolean(IO_SEQFILE_READ_PREFETCH_KEY,
+            IO_SEQFILE_READ_PREFETCH_DEFAULT)
+        : prefetchOpt.getValue();
       // really set up
       initialize(filename, file, start, len, conf, headerOnly != null);
     }
@@ -2102,6 +2149,8 @@ private Deserializer getDeserializer(SerializationFactory sf, Class c) {
     /** Close the file. */
     @Override
     public synchronized void close() throws IOException {
+      discardPrefetchedBlock();
+
       // Return the decompressors to the pool
       CodecPool.returnDecompressor(keyLenDecompressor);
       CodecPool.returnDecompressor(keyDecompressor);
@@ -2214,6 +2263,11 @@ private synchronized void readBuffer(DataInputBuffer buffer,
     
     /** Read the next 'compressed' block */
     private synchronized void readBlock() throws IOException {
+      if (prefetch) {
+        readPrefetchedBlock();
+        return;
+      }
+
       // Check if we need to throw away a whole block of 
       // 'values' due to 'lazy decompression' 
       if (lazyDecompress && !valuesDecompressed) {
@@ -2231,8 +2285,8 @@ private synchronized void readBlock() throws IOException {
         in.readFully(syncCheck);                // read syncCheck
         if (!Arrays.equals(sync, syncCheck))    // check it
           throw new IOException("File is corrupt!");
+        syncSeen = true;
       }
-      syncSeen = true;
 
       // Read number of records in this block
       noBufferedRecords = WritableUtils.readVInt(in);
@@ -2251,6 +2305,130 @@ private synchronized void readBlock() throws IOException {
       }
     }
 
+    /**
+     * The raw, still compressed contents of a block, as read ahead by a
+     * prefetching reader.
+     */
+    private static final class RawBlock {
+      private final byte[] syncCheck = new byte[SYNC_HASH_SIZE];
+      private final DataOutputBuffer keyLens = new DataOutputBuffer();
+      private final DataOutputBuffer keys = new DataOutputBuffer();
+      private final DataOutputBuffer valLens = new DataOutputBuffer();
+      private final DataOutputBuffer vals = new DataOutputBuffer();
+      private int records;
+      /** Stream position after the keys, where lazy reads would stop. */
+      private long keysEnd;
+      private long end;
+
+      private void read(FSDataInputStream in, byte[] sync)
+          throws IOException {
+        if (sync != null) {
+          in.readInt();
+          in.readFully(syncCheck);
+          if (!Arrays.equals(sync, syncCheck)) {
+            throw new IOException("File is corrupt!");
+          }
+        }
+        records = WritableUtils.readVInt(in);
+        readBuffer(in, keyLens);
+        readBuffer(in, keys);
+        keysEnd = in.getPos();
+        readBuffer(in, valLens);
+        readBuffer(in, vals);
+        end = in.getPos();
+      }
+
+      private static void readBuffer(DataInputStream in,
+          DataOutputBuffer buffer) throws IOException {
+        buffer.reset();
+        buffer.write(in, WritableUtils.readVInt(in));
+      }
+    }
+
+    /**
+     * Read the next block, taking it from the background read if one is in
+     * progress, and start reading the one after it. The stream is only
+     * touched by the background thread while a read is in progress, so every
+     * other use of it must wait for the read first.
+     */
+    private synchronized void readPrefetchedBlock() throws IOException {
+      noBufferedKeys = 0; noBufferedValues = 0; noBufferedRecords = 0;
+      valuesDecompressed = false;
+
+      RawBlock block;
+      if (prefetchedBlock != null) {
+        block = awaitPrefetchedBlock();
+      } else {
+        block = spareBlock != null ? spareBlock : new RawBlock();
+        spareBlock = null;
+        block.read(in, sync);
+      }
+      if (currentBlock != null) {
+        spareBlock = currentBlock;
+      }
+      currentBlock = block;
+      if (sync != null) {
+        syncSeen = true;
+      }
+
+      noBufferedRecords = block.records;
+      resetBuffer(keyLenBuffer, keyLenInFilter, block.keyLens);
+      resetBuffer(keyBuffer, keyInFilter, block.keys);
+      noBufferedKeys = noBufferedRecords;
+      if (!lazyDecompress) {
+        resetBuffer(valLenBuffer, valLenInFilter, block.valLens);
+        resetBuffer(valBuffer, valInFilter, block.vals);
+        noBufferedValues = noBufferedRecords;
+        valuesDecompressed = true;
+      }
+
+      if (block.end < end) {
+        final RawBlock next = spareBlock != null ? spareBlock : new RawBlock();
+        spareBlock = null;
+        prefetchedBlock = PREFETCH_EXECUTOR.submit(() -> {
+          next.read(in, sync);
+          return next;
+        });
+      }
+    }
+
+    private RawBlock awaitPrefetchedBlock() throws IOException {
+      Future<RawBlock> future = prefetchedBlock;
+      prefetchedBlock = null;
+      try {
+        return Uninterruptibles.getUninterruptibly(future);
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException) {
+          throw (IOException) cause;
+        }
+        throw new IOException("Failed to read block of " + this, cause);
+      }
+    }
+
+    /**
+     * Wait for any background read and forget the buffered blocks, before
+     * the stream is repositioned or closed.
+     */
+    private synchronized void discardPrefetchedBlock() {
+      if (prefetchedBlock != null) {
+        try {
+          spareBlock = awaitPrefetchedBlock();
+        } catch (IOException e) {
+          // the block is read again, or not at all
+          LOG.debug("Discarding failed read ahead of {}", this, e);
+        }
+      }
+      currentBlock = null;
+    }
+
+    private static void resetBuffer(DataInputBuffer buffer,
+        CompressionInputStream filter, DataOutputBuffer data)
+        throws IOException {
+      buffer.reset(data.getData(), 0, data.getLength());
+      filter.resetState();
+    }
+
     /** 
      * Position valLenIn/valIn to the 'value' 
      * corresponding to the 'current' key 
@@ -2265,8 +2443,13 @@ private synchronized void seekToCurrentValue() throws IOException {
         // Check if this is the first value in the 'block' to be read
         if (lazyDecompress && !valuesDecompressed) {
           // Read the value lengths and values
-          readBuffer(valLenBuffer, valLenInFilter);
-          readBuffer(valBuffer, valInFilter);
+          if (currentBlock != null) {
+            resetBuffer(valLenBuffer, valLenInFilter, currentBlock.valLens);
+            resetBuffer(valBuffer, valInFilter, currentBlock.vals);
+          } else {
+            readBuffer(valLenBuffer, valLenInFilter);
+            readBuffer(valBuffer, valInFilter);
+          }
           noBufferedValues = noBufferedRecords;
           valuesDecompressed = true;
         }
@@ -2535,7 +2718,7 @@ public synchronized int nextRaw(DataOutputBuffer key, ValueBytes val)
         
         // Read 'key'
         if (noBufferedKeys == 0) {
-          if (in.getPos() >= end) 
+          if (getPosition() >= end) 
             return -1;
 
           try { 
@@ -2585,7 +2768,7 @@ public synchronized int nextRawKey(DataOutputBuffer key)
         
         // Read 'key'
         if (noBufferedKeys == 0) {
-          if (in.getPos() >= end) 
+          if (getPosition() >= end) 
             return -1;
 
           try { 
@@ -2716,6 +2899,7 @@ synchronized void ignoreSync() {
      * position, use {@link SequenceFile.Reader#sync(long)}.
      */
     public synchronized void seek(long position) throws IOException {
+      discardPrefetchedBlock();
       in.seek(position);
       if (blockCompressed) {                      // trigger block read
         noBufferedKeys = 0;
@@ -2725,6 +2909,7 @@ public synchronized void seek(long position) throws IOException {
 
     /** Seek to the next sync mark past a given position.*/
     public synchronized void sync(long position) throws IOException {
+      discardPrefetchedBlock();
       if (position+SYNC_SIZE >= end) {
         seek(end);
         return;
@@ -2764,6 +2949,10 @@ public synchronized void sync(long position) throws IOException {
 
     /** Return the current byte position in the input file. */
     public synchronized long getPosition() throws IOException {
+      if (currentBlock != null) {
+        // the stream may already be past the block being read
+        return valuesDecompressed ? currentBlock.end : currentBlock.keysEnd;
+      }
       return in.getPos();
     }
 
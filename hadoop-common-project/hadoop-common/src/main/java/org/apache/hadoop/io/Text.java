@@ -212,6 +212,17 @@ public int find(String what, int start) {
    * Set to contain the contents of a string.
    */
   public void set(String string) {
+    if (isAscii(string)) {
+      // ASCII is its own UTF-8 encoding, copy it into the current buffer
+      int len = string.length();
+      ensureCapacity(len);
+      for (int i = 0; i < len; i++) {
+        bytes[i] = (byte) string.charAt(i);
+      }
+      length = len;
+      textLength = len;
+      return;
+    }
     try {
       ByteBuffer bb = encode(string, true);
       bytes = bb.array();
@@ -411,12 +422,12 @@ public int compare(byte[] b1, int s1, int l1,
    * replace by a default value.
    */
   public static String decode(byte[] utf8) throws CharacterCodingException {
-    return decode(ByteBuffer.wrap(utf8), true);
+    return decode(utf8, 0, utf8.length, true);
   }
 
   public static String decode(byte[] utf8, int start, int length) 
     throws CharacterCodingException {
-    return decode(ByteBuffer.wrap(utf8, start, length), true);
+    return decode(utf8, start, length, true);
   }
 
   /**
@@ -428,9 +439,34 @@ public static String decode(byte[] utf8, int start, int length)
    */
   public static String decode(byte[] utf8, int start, int length, boolean replace) 
     throws CharacterCodingException {
+    if (isAscii(utf8, start, length)) {
+      // no decoder needed, and ASCII is never malformed
+      return new String(utf8, start, length, StandardCharsets.ISO_8859_1);
+    }
     return decode(ByteBuffer.wrap(utf8, start, length), replace);
   }
 
+  /** Returns true if the bytes are all 7-bit ASCII. */
+  private static boolean isAscii(byte[] utf8, int start, int length) {
+    int end = start + length;
+    for (int i = start; i < end; i++) {
+      if (utf8[i] < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Returns true if the chars are all 7-bit ASCII. */
+  private static boolean isAscii(String string) {
+    for (int i = 0; i < string.length(); i++) {
+      if (string.charAt(i) >= 0x80) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private static String decode(ByteBuffer utf8, boolean replace) 
     throws CharacterCodingException {
     CharsetDecoder decoder = DECODER_FACTORY.get();
@@ -472,6 +508,9 @@ public static ByteBuffer encode(String string)
    */
   public static ByteBuffer encode(String string, boolean replace)
     throws CharacterCodingException {
+    if (isAscii(string)) {
+      return ByteBuffer.wrap(string.getBytes(StandardCharsets.ISO_8859_1));
+    }
     CharsetEncoder encoder = ENCODER_FACTORY.get();
     if (replace) {
       encoder.onMalformedInput(CodingErrorAction.REPLACE);
@@ -565,6 +604,11 @@ public static void validateUTF8(byte[] utf8, int start, int len)
     int length = 0;
     int state = LEAD_BYTE;
     while (count < start+len) {
+      if (state == LEAD_BYTE && utf8[count] >= 0) {
+        // ASCII needs no further checks
+        count++;
+        continue;
+      }
       int aByte = utf8[count] & 0xFF;
 
       switch (state) {
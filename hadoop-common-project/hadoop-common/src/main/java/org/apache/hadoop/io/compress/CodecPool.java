@@ -21,6 +21,7 @@
 import java.util.HashMap;
 import java.util.Set;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.hadoop.classification.InterfaceAudience;
@@ -57,6 +58,25 @@ public class CodecPool {
   private static final Map<Class<Decompressor>, Set<Decompressor>> decompressorPool =
     new HashMap<Class<Decompressor>, Set<Decompressor>>();
 
+  /**
+   * A global pool of compressors for direct bytebuffers.
+   */
+  private static final Map<Class<DirectCompressor>, Set<DirectCompressor>>
+      directCompressorPool = new HashMap<>();
+
+  /**
+   * A global pool of decompressors for direct bytebuffers.
+   */
+  private static final Map<Class<DirectDecompressor>, Set<DirectDecompressor>>
+      directDecompressorPool = new HashMap<>();
+
+  /**
+   * Types of the direct decompressors of codecs which do not report their
+   * decompressor type. They could never be borrowed, so they are not pooled.
+   */
+  private static final Set<Class<?>> unpooledDirectDecompressorTypes =
+      ConcurrentHashMap.newKeySet();
+
   private static <T> LoadingCache<Class<T>, AtomicInteger> createCache(
       Class<T> klass) {
     return CacheBuilder.newBuilder().build(
@@ -233,6 +253,104 @@ public static void returnDecompressor(Decompressor decompressor) {
     }
   }
 
+  /**
+   * Get a {@link DirectCompressor} for the given
+   * {@link DirectCompressionCodec} from the pool or a new one.
+   *
+   * @param codec the <code>DirectCompressionCodec</code> for which to get the
+   *              <code>DirectCompressor</code>
+   * @param conf the <code>Configuration</code> object which contains confs
+   *             for creating or reinit the compressor
+   * @return <code>DirectCompressor</code> for the given codec from the pool
+   *         or a new one, or null if the codec cannot compress direct
+   *         bytebuffers
+   */
+  public static DirectCompressor getDirectCompressor(
+      DirectCompressionCodec codec, Configuration conf) {
+    DirectCompressor compressor =
+        borrow(directCompressorPool, codec.getDirectCompressorType());
+    if (compressor == null) {
+      compressor = codec.createDirectCompressor();
+      LOG.info("Got brand-new direct compressor ["
+          + codec.getDefaultExtension() + "]");
+    } else {
+      if (compressor instanceof Compressor) {
+        ((Compressor) compressor).reinit(conf);
+      }
+      LOG.debug("Got recycled direct compressor");
+    }
+    return compressor;
+  }
+
+  /**
+   * Get a {@link DirectDecompressor} for the given
+   * {@link DirectDecompressionCodec} from the pool or a new one.
+   *
+   * @param codec the <code>DirectDecompressionCodec</code> for which to get
+   *              the <code>DirectDecompressor</code>
+   * @return <code>DirectDecompressor</code> for the given codec from the pool
+   *         or a new one, or null if the codec cannot decompress direct
+   *         bytebuffers
+   */
+  public static DirectDecompressor getDirectDecompressor(
+      DirectDecompressionCodec codec) {
+    Class<? extends DirectDecompressor> type =
+        codec.getDirectDecompressorType();
+    DirectDecompressor decompressor =
+        type != null ? borrow(directDecompressorPool, type) : null;
+    if (decompressor == null) {
+      decompressor = codec.createDirectDecompressor();
+      if (type == null && decompressor != null) {
+        unpooledDirectDecompressorTypes.add(decompressor.getClass());
+      }
+      LOG.info("Got brand-new direct decompressor ["
+          + codec.getDefaultExtension() + "]");
+    } else {
+      LOG.debug("Got recycled direct decompressor");
+    }
+    return decompressor;
+  }
+
+  /**
+   * Return the {@link DirectCompressor} to the pool.
+   *
+   * @param compressor the <code>DirectCompressor</code> to be returned to the
+   *                   pool
+   */
+  public static void returnDirectCompressor(DirectCompressor compressor) {
+    if (compressor == null) {
+      return;
+    }
+    // if the compressor can't be reused, don't pool it.
+    if (compressor.getClass().isAnnotationPresent(DoNotPool.class)) {
+      return;
+    }
+    compressor.reset();
+    payback(directCompressorPool, compressor);
+  }
+
+  /**
+   * Return the {@link DirectDecompressor} to the pool.
+   *
+   * @param decompressor the <code>DirectDecompressor</code> to be returned to
+   *                     the pool
+   */
+  public static void returnDirectDecompressor(
+      DirectDecompressor decompressor) {
+    if (decompressor == null) {
+      return;
+    }
+    // if the decompressor can't be reused, don't pool it.
+    if (decompressor.getClass().isAnnotationPresent(DoNotPool.class)
+        || unpooledDirectDecompressorTypes.contains(decompressor.getClass())) {
+      return;
+    }
+    if (decompressor instanceof Decompressor) {
+      ((Decompressor) decompressor).reset();
+    }
+    payback(directDecompressorPool, decompressor);
+  }
+
   /**
    * Return the number of leased {@link Compressor}s for this
    * {@link CompressionCodec}
@@ -26,6 +26,7 @@
 import org.apache.hadoop.classification.InterfaceStability;
 import org.apache.hadoop.conf.Configurable;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.compress.zlib.ZlibCompressor;
 import org.apache.hadoop.io.compress.zlib.ZlibDecompressor;
 import org.apache.hadoop.io.compress.zlib.ZlibFactory;
 import org.slf4j.Logger;
@@ -36,7 +37,8 @@
 
 @InterfaceAudience.Public
 @InterfaceStability.Evolving
-public class DefaultCodec implements Configurable, CompressionCodec, DirectDecompressionCodec {
+public class DefaultCodec implements Configurable, CompressionCodec,
+    DirectCompressionCodec, DirectDecompressionCodec {
   private static final Logger LOG = LoggerFactory.getLogger(DefaultCodec.class);
   
   Configuration conf;
@@ -110,8 +112,25 @@ public Decompressor createDecompressor() {
   public DirectDecompressor createDirectDecompressor() {
     return ZlibFactory.getZlibDirectDecompressor(conf);
   }
-  
-  
+
+  @Override
+  public Class<? extends DirectDecompressor> getDirectDecompressorType() {
+    return ZlibDecompressor.ZlibDirectDecompressor.class;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DirectCompressor createDirectCompressor() {
+    return ZlibFactory.getZlibDirectCompressor(conf);
+  }
+
+  @Override
+  public Class<? extends DirectCompressor> getDirectCompressorType() {
+    return ZlibCompressor.ZlibDirectCompressor.class;
+  }
+
   @Override
   public String getDefaultExtension() {
     return CodecConstants.DEFAULT_CODEC_EXTENSION;
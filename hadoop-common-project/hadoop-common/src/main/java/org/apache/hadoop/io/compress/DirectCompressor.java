@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.io.compress;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.classification.InterfaceStability;
+
+/**
+ * Specification of a direct ByteBuffer 'compressor'.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Evolving
+public interface DirectCompressor {
+  /**
+   * This exposes a direct interface for record compression with direct byte
+   * buffers.
+   *
+   * The operation is modelled around dst.put(src), like
+   * {@link DirectDecompressor#decompress(ByteBuffer, ByteBuffer)}. The end
+   * result will move src.position() by the bytes-read and dst.position() by
+   * the bytes-written, without modifying src.limit() or dst.limit().
+   *
+   * Block codecs such as {@link SnappyCodec} and {@link Lz4Codec} compress
+   * all of src into a single block, and need enough space in the destination
+   * buffer for the compressed block. Streaming codecs may consume only part
+   * of src, and hold the compression context internally; to end the stream,
+   * call {@link #finish()} and then compress until {@link #finished()}.
+   *
+   * @param src Source direct {@link ByteBuffer} for reading from. Requires src
+   * != null
+   *
+   * @param dst Destination direct {@link ByteBuffer} for storing the results
+   * into. Requires dst != null and dst.remaining() to be > 0
+   *
+   * @throws IOException if compression fails
+   */
+  void compress(ByteBuffer src, ByteBuffer dst) throws IOException;
+
+  /**
+   * Indicates that the current stream should end with the data given to the
+   * next calls of {@link #compress(ByteBuffer, ByteBuffer)}.
+   */
+  void finish();
+
+  /**
+   * @return true if the end of the compressed stream has been reached, after
+   *         {@link #finish()} was called.
+   */
+  boolean finished();
+
+  /**
+   * Resets the compressor so that a new stream can be compressed.
+   */
+  void reset();
+}
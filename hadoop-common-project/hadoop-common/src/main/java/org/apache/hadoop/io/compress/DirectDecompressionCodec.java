@@ -32,4 +32,16 @@ public interface DirectDecompressionCodec extends CompressionCodec {
    * @return a new direct decompressor for use by this codec
    */
   DirectDecompressor createDirectDecompressor();
+
+  /**
+   * Get the type of {@link DirectDecompressor} needed by this
+   * {@link DirectDecompressionCodec}. The decompressors of codecs which do
+   * not override this are not pooled by {@link CodecPool}.
+   *
+   * @return the type of direct decompressor needed by this codec, or null
+   *         if it is unknown.
+   */
+  default Class<? extends DirectDecompressor> getDirectDecompressorType() {
+    return null;
+  }
 }
@@ -199,9 +199,24 @@ public Class<? extends Decompressor> getDecompressorType() {
     
   @Override
   public DirectDecompressor createDirectDecompressor() {
-    return ZlibFactory.isNativeZlibLoaded(conf) 
-        ? new ZlibDecompressor.ZlibDirectDecompressor(
-          ZlibDecompressor.CompressionHeader.AUTODETECT_GZIP_ZLIB, 0) : null;
+    return ZlibFactory.isNativeZlibLoaded(conf)
+        ? new GzipZlibDirectDecompressor() : null;
+  }
+
+  @Override
+  public Class<? extends DirectDecompressor> getDirectDecompressorType() {
+    return GzipZlibDirectDecompressor.class;
+  }
+
+  @Override
+  public DirectCompressor createDirectCompressor() {
+    return ZlibFactory.isNativeZlibLoaded(conf)
+        ? new GzipZlibDirectCompressor(conf) : null;
+  }
+
+  @Override
+  public Class<? extends DirectCompressor> getDirectCompressorType() {
+    return GzipZlibDirectCompressor.class;
   }
 
   @Override
@@ -230,4 +245,20 @@ public GzipZlibDecompressor() {
     }
   }
 
+  static final class GzipZlibDirectCompressor
+      extends ZlibCompressor.ZlibDirectCompressor {
+    GzipZlibDirectCompressor(Configuration conf) {
+      super(ZlibFactory.getCompressionLevel(conf),
+          ZlibFactory.getCompressionStrategy(conf),
+          ZlibCompressor.CompressionHeader.GZIP_FORMAT);
+    }
+  }
+
+  static final class GzipZlibDirectDecompressor
+      extends ZlibDecompressor.ZlibDirectDecompressor {
+    GzipZlibDirectDecompressor() {
+      super(ZlibDecompressor.CompressionHeader.AUTODETECT_GZIP_ZLIB, 0);
+    }
+  }
+
 }
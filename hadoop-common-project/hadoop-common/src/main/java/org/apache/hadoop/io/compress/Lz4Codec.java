@@ -32,7 +32,8 @@
 /**
  * This class creates lz4 compressors/decompressors.
  */
-public class Lz4Codec implements Configurable, CompressionCodec {
+public class Lz4Codec implements Configurable, CompressionCodec,
+    DirectCompressionCodec, DirectDecompressionCodec {
 
   static {
     NativeCodeLoader.isNativeCodeLoaded();
@@ -214,6 +215,39 @@ public Decompressor createDecompressor() {
     return new Lz4Decompressor(bufferSize);
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DirectCompressor createDirectCompressor() {
+    if (!isNativeCodeLoaded()) {
+      return null;
+    }
+    boolean useLz4HC = conf.getBoolean(
+        CommonConfigurationKeys.IO_COMPRESSION_CODEC_LZ4_USELZ4HC_KEY,
+        CommonConfigurationKeys.IO_COMPRESSION_CODEC_LZ4_USELZ4HC_DEFAULT);
+    return new Lz4Compressor.Lz4DirectCompressor(useLz4HC);
+  }
+
+  @Override
+  public Class<? extends DirectCompressor> getDirectCompressorType() {
+    return Lz4Compressor.Lz4DirectCompressor.class;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DirectDecompressor createDirectDecompressor() {
+    return isNativeCodeLoaded()
+        ? new Lz4Decompressor.Lz4DirectDecompressor() : null;
+  }
+
+  @Override
+  public Class<? extends DirectDecompressor> getDirectDecompressorType() {
+    return Lz4Decompressor.Lz4DirectDecompressor.class;
+  }
+
   /**
    * Get the default filename extension for this kind of compression.
    *
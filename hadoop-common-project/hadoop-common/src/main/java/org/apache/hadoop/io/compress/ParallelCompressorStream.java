@@ -0,0 +1,290 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.io.compress;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.classification.InterfaceStability;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.util.concurrent.HadoopExecutors;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import static org.apache.hadoop.fs.CommonConfigurationKeys.IO_COMPRESSION_PARALLEL_BLOCK_SIZE_DEFAULT;
+import static org.apache.hadoop.fs.CommonConfigurationKeys.IO_COMPRESSION_PARALLEL_BLOCK_SIZE_KEY;
+import static org.apache.hadoop.fs.CommonConfigurationKeys.IO_COMPRESSION_PARALLEL_THREADS_DEFAULT;
+import static org.apache.hadoop.fs.CommonConfigurationKeys.IO_COMPRESSION_PARALLEL_THREADS_KEY;
+
+/**
+ * A {@link CompressionOutputStream} that splits its input into fixed size
+ * blocks and compresses them concurrently on a bounded pool of worker
+ * threads.
+ * <p>
+ * Every block is compressed into a complete, self-contained stream of the
+ * wrapped codec, and the results are written to the underlying stream in
+ * order. The output is therefore a concatenation of gzip members, zstd frames
+ * or bzip2 streams, all of which are valid by their specifications and are
+ * read back by the standard command line tools as well as by the codecs'
+ * own input streams. Codecs whose format cannot be concatenated, such as
+ * snappy or lz4 framed by {@link BlockCompressorStream}, also round trip
+ * through Hadoop but are not readable by external tools.
+ * <p>
+ * Because blocks share no history, the compression ratio is slightly lower
+ * than that of a single stream; larger blocks narrow the gap. At most
+ * twice as many blocks as there are threads are buffered at any time, so a
+ * slow sink applies back-pressure to the writer instead of growing memory.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Evolving
+public class ParallelCompressorStream extends CompressionOutputStream {
+
+  private final CompressionCodec codec;
+  private final Configuration conf;
+  private final ExecutorService executor;
+  private final boolean ownExecutor;
+  private final int blockSize;
+  private final int maxPendingBlocks;
+
+  /** Blocks submitted for compression, in output order. */
+  private final Deque<Future<DataOutputBuffer>> pending = new ArrayDeque<>();
+  /** Input buffers of written blocks, reused for later blocks. */
+  private final Deque<byte[]> freeBuffers = new ArrayDeque<>();
+
+  private byte[] buffer;
+  private int buffered;
+  /** Whether nothing has been submitted since creation or reset. */
+  private boolean empty = true;
+  private boolean closed;
+  private final byte[] oneByte = new byte[1];
+
+  /**
+   * Create a stream that compresses with its own worker pool, sized by
+   * {@value org.apache.hadoop.fs.CommonConfigurationKeys#IO_COMPRESSION_PARALLEL_THREADS_KEY}
+   * and {@value org.apache.hadoop.fs.CommonConfigurationKeys#IO_COMPRESSION_PARALLEL_BLOCK_SIZE_KEY}.
+   * The pool is shut down when the stream is closed.
+   *
+   * @param codec the codec to compress each block with
+   * @param conf configuration used to obtain compressors
+   * @param out the stream to write the compressed blocks to
+   */
+  public ParallelCompressorStream(CompressionCodec codec, Configuration conf,
+      OutputStream out) {
+    this(codec, conf, out, createExecutor(conf.getInt(
+        IO_COMPRESSION_PARALLEL_THREADS_KEY,
+        IO_COMPRESSION_PARALLEL_THREADS_DEFAULT)), true,
+        conf.getInt(IO_COMPRESSION_PARALLEL_BLOCK_SIZE_KEY,
+            IO_COMPRESSION_PARALLEL_BLOCK_SIZE_DEFAULT),
+        2 * Math.max(1, conf.getInt(IO_COMPRESSION_PARALLEL_THREADS_KEY,
+            IO_COMPRESSION_PARALLEL_THREADS_DEFAULT)));
+  }
+
+  /**
+   * Create a stream that compresses on a caller supplied executor, which
+   * may be shared by several streams and is not shut down by this one.
+   *
+   * @param codec the codec to compress each block with
+   * @param conf configuration used to obtain compressors
+   * @param out the stream to write the compressed blocks to
+   * @param executor the executor to compress blocks on
+   * @param blockSize the uncompressed size of each block
+   * @param maxPendingBlocks the maximum number of blocks buffered before
+   *                         the writer blocks on the oldest one
+   */
+  public ParallelCompressorStream(CompressionCodec codec, Configuration conf,
+      OutputStream out, ExecutorService executor, int blockSize,
+      int maxPendingBlocks) {
+    this(codec, conf, out, executor, false, blockSize, maxPendingBlocks);
+  }
+
+  private ParallelCompressorStream(CompressionCodec codec,
+      Configuration conf, OutputStream out, ExecutorService executor,
+      boolean ownExecutor, int blockSize, int maxPendingBlocks) {
+    super(out);
+    Preconditions.checkArgument(blockSize > 0,
+        "Illegal block size: %s", blockSize);
+    Preconditions.checkArgument(maxPendingBlocks > 0,
+        "Illegal number of pending blocks: %s", maxPendingBlocks);
+    this.codec = codec;
+    this.conf = conf;
+    this.executor = executor;
+    this.ownExecutor = ownExecutor;
+    this.blockSize = blockSize;
+    this.maxPendingBlocks = maxPendingBlocks;
+  }
+
+  private static ExecutorService createExecutor(int threads) {
+    return HadoopExecutors.newFixedThreadPool(Math.max(1, threads),
+        new ThreadFactoryBuilder().setDaemon(true)
+            .setNameFormat("ParallelCompressor-%d").build());
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    oneByte[0] = (byte) (b & 0xff);
+    write(oneByte, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    if (closed) {
+      throw new IOException("Stream is closed");
+    }
+    if ((off | len | (off + len) | (b.length - (off + len))) < 0) {
+      throw new IndexOutOfBoundsException();
+    }
+    while (len > 0) {
+      if (buffer == null) {
+        synchronized (freeBuffers) {
+          buffer = freeBuffers.pollFirst();
+        }
+        if (buffer == null) {
+          buffer = new byte[blockSize];
+        }
+      }
+      int n = Math.min(len, blockSize - buffered);
+      System.arraycopy(b, off, buffer, buffered, n);
+      buffered += n;
+      off += n;
+      len -= n;
+      if (buffered == blockSize) {
+        submitBlock();
+      }
+    }
+  }
+
+  /**
+   * Hand the buffered block to the executor, first writing out completed
+   * blocks until there is room for another one.
+   */
+  private void submitBlock() throws IOException {
+    while (pending.size() >= maxPendingBlocks) {
+      writeOldestBlock();
+    }
+    final byte[] data = buffer == null ? new byte[0] : buffer;
+    final int length = buffered;
+    pending.add(executor.submit(new Callable<DataOutputBuffer>() {
+      @Override
+      public DataOutputBuffer call() throws IOException {
+        DataOutputBuffer compressed = compressBlock(data, length);
+        if (data.length == blockSize) {
+          synchronized (freeBuffers) {
+            freeBuffers.addFirst(data);
+          }
+        }
+        return compressed;
+      }
+    }));
+    buffer = null;
+    buffered = 0;
+    empty = false;
+  }
+
+  private DataOutputBuffer compressBlock(byte[] data, int length)
+      throws IOException {
+    DataOutputBuffer compressed = new DataOutputBuffer(length / 2 + 64);
+    Compressor compressor = CodecPool.getCompressor(codec, conf);
+    try {
+      CompressionOutputStream stream =
+          codec.createOutputStream(compressed, compressor);
+      stream.write(data, 0, length);
+      stream.finish();
+    } finally {
+      CodecPool.returnCompressor(compressor);
+    }
+    return compressed;
+  }
+
+  private void writeOldestBlock() throws IOException {
+    DataOutputBuffer compressed;
+    try {
+      compressed = pending.peek().get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw (IOException) new InterruptedIOException(
+          "Interrupted while compressing").initCause(e);
+    } catch (ExecutionException e) {
+      cancelPending();
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      throw new IOException("Failed to compress block", cause);
+    }
+    pending.remove();
+    out.write(compressed.getData(), 0, compressed.getLength());
+  }
+
+  private void cancelPending() {
+    for (Future<DataOutputBuffer> f : pending) {
+      f.cancel(true);
+    }
+    pending.clear();
+  }
+
+  /**
+   * Compress any buffered input and write out all pending blocks. An empty
+   * stream still produces one empty compressed block so that the output is
+   * recognized by decompressors.
+   */
+  @Override
+  public void finish() throws IOException {
+    if (buffered > 0 || empty) {
+      submitBlock();
+    }
+    while (!pending.isEmpty()) {
+      writeOldestBlock();
+    }
+  }
+
+  /**
+   * Discard input that has not yet been handed to a worker. Blocks already
+   * submitted are still written in order.
+   */
+  @Override
+  public void resetState() throws IOException {
+    buffered = 0;
+    empty = true;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    try {
+      super.close();
+    } finally {
+      closed = true;
+      cancelPending();
+      if (ownExecutor) {
+        executor.shutdownNow();
+      }
+    }
+  }
+}
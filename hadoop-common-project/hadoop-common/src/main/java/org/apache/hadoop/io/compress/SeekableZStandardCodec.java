@@ -0,0 +1,496 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.io.compress;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.rmi.server.UID;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.classification.InterfaceStability;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Seekable;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.util.Time;
+
+import static org.apache.hadoop.fs.CommonConfigurationKeys.IO_COMPRESSION_CODEC_ZSTD_SEEKABLE_FRAME_SIZE_DEFAULT;
+import static org.apache.hadoop.fs.CommonConfigurationKeys.IO_COMPRESSION_CODEC_ZSTD_SEEKABLE_FRAME_SIZE_KEY;
+
+/**
+ * A splittable variant of {@link ZStandardCodec}.
+ * <p>
+ * The input is compressed into independent zstd frames of at most
+ * {@value org.apache.hadoop.fs.CommonConfigurationKeys#IO_COMPRESSION_CODEC_ZSTD_SEEKABLE_FRAME_SIZE_KEY}
+ * uncompressed bytes. Every frame is preceded by a 32 byte skippable frame
+ * that holds a per-file sync marker and the compressed and uncompressed
+ * sizes of the frame, and the stream ends with the seek table of the zstd
+ * seekable format. Decoders skip skippable frames, so the output is a valid
+ * zstd stream that the zstd tools, the seekable zstd library and
+ * {@link ZStandardCodec} all read.
+ * <p>
+ * A split starting at an arbitrary offset locates its first frame by
+ * scanning for the sync marker, in the same way as the sync marks of
+ * {@link org.apache.hadoop.io.SequenceFile}; the split API does not expose
+ * the file length, so the trailing seek table cannot be used for that.
+ * Frames belong to the split their header starts in, and in
+ * {@link SplittableCompressionCodec.READ_MODE#BYBLOCK} mode the reported
+ * position advances one byte past a frame start once its first byte has
+ * been read, matching the contract of {@link BZip2Codec}.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Evolving
+public class SeekableZStandardCodec extends ZStandardCodec
+    implements SplittableCompressionCodec {
+
+  /** Skippable frame magic of the per-frame header. */
+  static final int HEADER_MAGIC = 0x184D2A50;
+  /** Skippable frame magic of the seek table. */
+  static final int SEEK_TABLE_MAGIC = 0x184D2A5E;
+  /** Magic at the very end of the seek table footer. */
+  static final int SEEKABLE_MAGIC = 0x8F92EAB1;
+  static final int SYNC_SIZE = 16;
+  /** Offset of the sync marker within a frame header. */
+  static final int SYNC_OFFSET = 8;
+  static final int HEADER_SIZE = SYNC_OFFSET + SYNC_SIZE + 8;
+  private static final int SKIPPABLE_MAGIC_MASK = 0xFFFFFFF0;
+
+  static int getFrameSize(Configuration conf) {
+    return conf.getInt(IO_COMPRESSION_CODEC_ZSTD_SEEKABLE_FRAME_SIZE_KEY,
+        IO_COMPRESSION_CODEC_ZSTD_SEEKABLE_FRAME_SIZE_DEFAULT);
+  }
+
+  @Override
+  public CompressionOutputStream createOutputStream(OutputStream out,
+      Compressor compressor) throws IOException {
+    checkNativeCodeLoaded();
+    return new SeekableZStandardOutputStream(out, compressor,
+        getFrameSize(getConf()));
+  }
+
+  @Override
+  public CompressionInputStream createInputStream(InputStream in,
+      Decompressor decompressor) throws IOException {
+    checkNativeCodeLoaded();
+    return new SeekableZStandardInputStream(in, decompressor, 0,
+        Long.MAX_VALUE, READ_MODE.CONTINUOUS);
+  }
+
+  @Override
+  public SplitCompressionInputStream createInputStream(InputStream seekableIn,
+      Decompressor decompressor, long start, long end, READ_MODE readMode)
+      throws IOException {
+    if (!(seekableIn instanceof Seekable)) {
+      throw new IOException("seekableIn must be an instance of " +
+          Seekable.class.getName());
+    }
+    checkNativeCodeLoaded();
+    ((Seekable) seekableIn).seek(start);
+    return new SeekableZStandardInputStream(seekableIn, decompressor, start,
+        end, readMode);
+  }
+
+  /**
+   * Get the default filename extension for this kind of compression.
+   *
+   * @return <code>.szst</code>.
+   */
+  @Override
+  public String getDefaultExtension() {
+    return CodecConstants.SEEKABLE_ZSTANDARD_CODEC_EXTENSION;
+  }
+
+  private static void writeIntLE(OutputStream out, int v) throws IOException {
+    out.write(v);
+    out.write(v >>> 8);
+    out.write(v >>> 16);
+    out.write(v >>> 24);
+  }
+
+  private static int readIntLE(DataInputStream in) throws IOException {
+    return Integer.reverseBytes(in.readInt());
+  }
+
+  /**
+   * Writes the input as a sequence of independently compressed frames,
+   * followed by a seek table when finished.
+   */
+  static class SeekableZStandardOutputStream extends CompressionOutputStream {
+    private final Compressor compressor;
+    private final byte[] sync;
+    private final byte[] frame;
+    private int frameLength;
+    private byte[] compressed;
+    /** Seek table entries written since the last finish. */
+    private final DataOutputBuffer seekTable = new DataOutputBuffer();
+    private int numFrames;
+    /** Even an empty stream gets a seek table, to be valid zstd. */
+    private boolean finished = false;
+    private final byte[] oneByte = new byte[1];
+
+    SeekableZStandardOutputStream(OutputStream out, Compressor compressor,
+        int frameSize) {
+      super(out);
+      this.compressor = compressor;
+      this.frame = new byte[frameSize];
+      this.compressed = new byte[Math.max(frameSize / 2, 64 * 1024)];
+      try {
+        MessageDigest digester = MessageDigest.getInstance("MD5");
+        long time = Time.now();
+        digester.update((new UID() + "@" + time)
+            .getBytes(StandardCharsets.UTF_8));
+        this.sync = digester.digest();
+      } catch (NoSuchAlgorithmException e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      oneByte[0] = (byte) (b & 0xff);
+      write(oneByte, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      if ((off | len | (off + len) | (b.length - (off + len))) < 0) {
+        throw new IndexOutOfBoundsException();
+      }
+      if (len > 0) {
+        finished = false;
+      }
+      while (len > 0) {
+        int n = Math.min(len, frame.length - frameLength);
+        System.arraycopy(b, off, frame, frameLength, n);
+        frameLength += n;
+        off += n;
+        len -= n;
+        if (frameLength == frame.length) {
+          writeFrame();
+        }
+      }
+    }
+
+    private void writeFrame() throws IOException {
+      compressor.reset();
+      compressor.setInput(frame, 0, frameLength);
+      int length = 0;
+      while (!compressor.needsInput()) {
+        length = compressInto(length);
+      }
+      compressor.finish();
+      while (!compressor.finished()) {
+        length = compressInto(length);
+      }
+
+      writeIntLE(out, HEADER_MAGIC);
+      writeIntLE(out, HEADER_SIZE - SYNC_OFFSET);
+      out.write(sync);
+      writeIntLE(out, length);
+      writeIntLE(out, frameLength);
+      out.write(compressed, 0, length);
+
+      // the header is accounted to the frame it describes
+      writeIntLE(seekTable, HEADER_SIZE + length);
+      writeIntLE(seekTable, frameLength);
+      numFrames++;
+      frameLength = 0;
+    }
+
+    private int compressInto(int length) throws IOException {
+      if (length == compressed.length) {
+        compressed = Arrays.copyOf(compressed, compressed.length * 2);
+      }
+      return length + compressor.compress(compressed, length,
+          compressed.length - length);
+    }
+
+    @Override
+    public void finish() throws IOException {
+      if (finished) {
+        return;
+      }
+      if (frameLength > 0) {
+        writeFrame();
+      }
+      writeIntLE(out, SEEK_TABLE_MAGIC);
+      writeIntLE(out, seekTable.getLength() + 9);
+      out.write(seekTable.getData(), 0, seekTable.getLength());
+      writeIntLE(out, numFrames);
+      out.write(0); // no checksums
+      writeIntLE(out, SEEKABLE_MAGIC);
+      seekTable.reset();
+      numFrames = 0;
+      finished = true;
+    }
+
+    @Override
+    public void resetState() throws IOException {
+      frameLength = 0;
+      compressor.reset();
+    }
+  }
+
+  /**
+   * Reads the frames written by {@link SeekableZStandardOutputStream},
+   * starting at the first frame header at or after the requested offset.
+   */
+  static class SeekableZStandardInputStream extends
+      SplitCompressionInputStream {
+    private final Decompressor decompressor;
+    private final READ_MODE readMode;
+    private DataInputStream data;
+    /** Sync marker of the file, only known when splitting. */
+    private byte[] sync;
+    /** Offset in the underlying stream of the next unread byte. */
+    private long inputPos;
+    private long reportedPos;
+
+    private byte[] compressed = new byte[0];
+    private byte[] frame = new byte[0];
+    private int frameLength;
+    private int framePos;
+    private long frameStart;
+    private boolean eof;
+    private final byte[] oneByte = new byte[1];
+
+    SeekableZStandardInputStream(InputStream in, Decompressor decompressor,
+        long start, long end, READ_MODE readMode) throws IOException {
+      super(in, start, end);
+      this.decompressor = decompressor;
+      this.readMode = readMode;
+      if (start == 0) {
+        data = new DataInputStream(new BufferedInputStream(in));
+        inputPos = 0;
+        reportedPos = 0;
+        return;
+      }
+
+      // a frame whose header starts before this split belongs to the
+      // previous one, so look for a sync marker at least SYNC_OFFSET in
+      sync = readSync(in);
+      ((Seekable) in).seek(start);
+      data = new DataInputStream(new BufferedInputStream(in));
+      inputPos = start;
+      if (sync != null && skipSyncOffset() && scanForSync()) {
+        setStart(inputPos - SYNC_OFFSET - SYNC_SIZE);
+        readFrameSizesAndData(inputPos - SYNC_OFFSET - SYNC_SIZE);
+      } else {
+        setStart(inputPos);
+        eof = true;
+      }
+      reportedPos = getAdjustedStart();
+    }
+
+    /** Read the sync marker from the first frame header of the file. */
+    private static byte[] readSync(InputStream in) throws IOException {
+      ((Seekable) in).seek(0);
+      DataInputStream header = new DataInputStream(in);
+      try {
+        if (readIntLE(header) != HEADER_MAGIC) {
+          return null;
+        }
+        header.readInt();
+        byte[] sync = new byte[SYNC_SIZE];
+        header.readFully(sync);
+        return sync;
+      } catch (EOFException e) {
+        return null;
+      }
+    }
+
+    private boolean skipSyncOffset() throws IOException {
+      for (int i = 0; i < SYNC_OFFSET; i++) {
+        if (data.read() < 0) {
+          return false;
+        }
+        inputPos++;
+      }
+      return true;
+    }
+
+    /**
+     * Advance to just past the next occurrence of the sync marker.
+     *
+     * @return false if the end of the stream was reached first
+     */
+    private boolean scanForSync() throws IOException {
+      byte[] syncCheck = new byte[SYNC_SIZE];
+      for (int i = 0; i < SYNC_SIZE; i++) {
+        int b = data.read();
+        if (b < 0) {
+          return false;
+        }
+        syncCheck[i] = (byte) b;
+        inputPos++;
+      }
+      for (int i = 0; ; i++) {
+        int j = 0;
+        for (; j < SYNC_SIZE; j++) {
+          if (sync[j] != syncCheck[(i + j) % SYNC_SIZE]) {
+            break;
+          }
+        }
+        if (j == SYNC_SIZE) {
+          return true;
+        }
+        int b = data.read();
+        if (b < 0) {
+          return false;
+        }
+        syncCheck[i % SYNC_SIZE] = (byte) b;
+        inputPos++;
+      }
+    }
+
+    /**
+     * Load the next data frame, skipping other skippable frames such as
+     * the seek table.
+     *
+     * @return false at the end of the stream
+     */
+    private boolean nextFrame() throws IOException {
+      while (true) {
+        long headerStart = inputPos;
+        int magic;
+        try {
+          magic = readIntLE(data);
+        } catch (EOFException e) {
+          return false;
+        }
+        int size = readIntLE(data);
+        inputPos += 8;
+        if ((magic & SKIPPABLE_MAGIC_MASK) != HEADER_MAGIC) {
+          throw new IOException("Not a seekable zstd frame at offset "
+              + headerStart);
+        }
+        if (magic != HEADER_MAGIC) {
+          skipFully(size & 0xFFFFFFFFL);
+          continue;
+        }
+        if (size != HEADER_SIZE - SYNC_OFFSET) {
+          throw new IOException("Invalid frame header size " + size
+              + " at offset " + headerStart);
+        }
+        byte[] frameSync = new byte[SYNC_SIZE];
+        data.readFully(frameSync);
+        inputPos += SYNC_SIZE;
+        if (sync != null && !Arrays.equals(sync, frameSync)) {
+          // frames of another file cannot be located by later splits
+          throw new IOException("Sync marker mismatch at offset "
+              + headerStart + ", concatenated files cannot be split");
+        }
+        readFrameSizesAndData(headerStart);
+        return true;
+      }
+    }
+
+    private void skipFully(long n) throws IOException {
+      while (n > 0) {
+        int skipped = data.skipBytes((int) Math.min(n, Integer.MAX_VALUE));
+        if (skipped <= 0) {
+          throw new EOFException("Truncated skippable frame");
+        }
+        n -= skipped;
+        inputPos += skipped;
+      }
+    }
+
+    /** Read and decompress the rest of a frame whose sync was consumed. */
+    private void readFrameSizesAndData(long headerStart) throws IOException {
+      int compressedLength = readIntLE(data);
+      int length = readIntLE(data);
+      inputPos += 8;
+      if (compressedLength < 0 || length < 0) {
+        throw new IOException("Invalid frame sizes at offset " + headerStart);
+      }
+      if (compressed.length < compressedLength) {
+        compressed = new byte[compressedLength];
+      }
+      data.readFully(compressed, 0, compressedLength);
+      inputPos += compressedLength;
+      if (frame.length < length) {
+        frame = new byte[length];
+      }
+
+      decompressor.reset();
+      decompressor.setInput(compressed, 0, compressedLength);
+      int n = 0;
+      while (n < length) {
+        int m = decompressor.decompress(frame, n, length - n);
+        if (m == 0 && (decompressor.finished() || decompressor.needsInput())) {
+          throw new IOException("Corrupt frame at offset " + headerStart);
+        }
+        n += m;
+      }
+      frameStart = headerStart;
+      frameLength = length;
+      framePos = 0;
+    }
+
+    @Override
+    public int read() throws IOException {
+      return (read(oneByte, 0, 1) < 0) ? -1 : (oneByte[0] & 0xff);
+    }
+
+    /**
+     * Never returns bytes of more than one frame, so that callers see the
+     * position change exactly at frame boundaries.
+     */
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if ((off | len | (off + len) | (b.length - (off + len))) < 0) {
+        throw new IndexOutOfBoundsException();
+      }
+      if (len == 0) {
+        return 0;
+      }
+      while (framePos == frameLength) {
+        if (eof || !nextFrame()) {
+          eof = true;
+          return -1;
+        }
+      }
+      if (framePos == 0) {
+        reportedPos = frameStart + 1;
+      }
+      int n = Math.min(len, frameLength - framePos);
+      System.arraycopy(frame, framePos, b, off, n);
+      framePos += n;
+      return n;
+    }
+
+    @Override
+    public long getPos() {
+      return readMode == READ_MODE.BYBLOCK ? reportedPos : inputPos;
+    }
+
+    @Override
+    public void resetState() throws IOException {
+      decompressor.reset();
+    }
+  }
+}
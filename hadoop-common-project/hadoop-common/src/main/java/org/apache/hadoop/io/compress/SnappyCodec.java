@@ -25,6 +25,7 @@
 import org.apache.hadoop.conf.Configurable;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.compress.snappy.SnappyCompressor;
+import org.apache.hadoop.io.compress.snappy.SnappyCompressor.SnappyDirectCompressor;
 import org.apache.hadoop.io.compress.snappy.SnappyDecompressor;
 import org.apache.hadoop.io.compress.snappy.SnappyDecompressor.SnappyDirectDecompressor;
 import org.apache.hadoop.fs.CommonConfigurationKeys;
@@ -33,7 +34,8 @@
 /**
  * This class creates snappy compressors/decompressors.
  */
-public class SnappyCodec implements Configurable, CompressionCodec, DirectDecompressionCodec {
+public class SnappyCodec implements Configurable, CompressionCodec,
+    DirectCompressionCodec, DirectDecompressionCodec {
   Configuration conf;
 
   /**
@@ -218,6 +220,24 @@ public DirectDecompressor createDirectDecompressor() {
     return isNativeCodeLoaded() ? new SnappyDirectDecompressor() : null;
   }
 
+  @Override
+  public Class<? extends DirectDecompressor> getDirectDecompressorType() {
+    return SnappyDirectDecompressor.class;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public DirectCompressor createDirectCompressor() {
+    return isNativeCodeLoaded() ? new SnappyDirectCompressor() : null;
+  }
+
+  @Override
+  public Class<? extends DirectCompressor> getDirectCompressorType() {
+    return SnappyDirectCompressor.class;
+  }
+
   /**
    * Get the default filename extension for this kind of compression.
    *
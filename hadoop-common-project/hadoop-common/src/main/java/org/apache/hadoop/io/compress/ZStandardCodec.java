@@ -36,7 +36,8 @@
  * This class creates zstd compressors/decompressors.
  */
 public class ZStandardCodec implements
-    Configurable, CompressionCodec, DirectDecompressionCodec  {
+    Configurable, CompressionCodec, DirectCompressionCodec,
+    DirectDecompressionCodec  {
   private Configuration conf;
 
   /**
@@ -235,8 +236,25 @@ public String getDefaultExtension() {
 
   @Override
   public DirectDecompressor createDirectDecompressor() {
-    return new ZStandardDecompressor.ZStandardDirectDecompressor(
-        getDecompressionBufferSize(conf)
-    );
+    return isNativeCodeLoaded()
+        ? new ZStandardDecompressor.ZStandardDirectDecompressor(
+            getDecompressionBufferSize(conf)) : null;
+  }
+
+  @Override
+  public Class<? extends DirectDecompressor> getDirectDecompressorType() {
+    return ZStandardDecompressor.ZStandardDirectDecompressor.class;
+  }
+
+  @Override
+  public DirectCompressor createDirectCompressor() {
+    return isNativeCodeLoaded()
+        ? new ZStandardCompressor.ZStandardDirectCompressor(
+            getCompressionLevel(conf)) : null;
+  }
+
+  @Override
+  public Class<? extends DirectCompressor> getDirectCompressorType() {
+    return ZStandardCompressor.ZStandardDirectCompressor.class;
   }
 }
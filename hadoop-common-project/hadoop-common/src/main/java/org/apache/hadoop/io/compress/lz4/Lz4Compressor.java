@@ -24,6 +24,7 @@
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.compress.Compressor;
+import org.apache.hadoop.io.compress.DirectCompressor;
 import org.apache.hadoop.util.NativeCodeLoader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -302,6 +303,86 @@ public synchronized long getBytesWritten() {
   public synchronized void end() {
   }
 
+  /**
+   * @return the largest size of the lz4 block compressed from the given
+   *         number of bytes, as LZ4_compressBound computes it.
+   */
+  public static int maxCompressedLength(int uncompressedLength) {
+    return uncompressedLength + uncompressedLength / 255 + 16;
+  }
+
+  int compressDirect(ByteBuffer src, ByteBuffer dst) throws IOException {
+    assert (this instanceof Lz4DirectCompressor);
+
+    int required = maxCompressedLength(src.remaining());
+    if (dst.remaining() < required) {
+      throw new IOException("Insufficient space in the destination buffer: "
+          + dst.remaining() + " bytes, while " + required
+          + " bytes may be needed to compress " + src.remaining() + " bytes");
+    }
+    Buffer originalCompressed = compressedDirectBuf;
+    Buffer originalUncompressed = uncompressedDirectBuf;
+    int originalBufferSize = directBufferSize;
+    uncompressedDirectBuf = src.slice();
+    uncompressedDirectBufLen = src.remaining();
+    compressedDirectBuf = dst.slice();
+    directBufferSize = dst.remaining();
+    int n = 0;
+    try {
+      n = useLz4HC ? compressBytesDirectHC() : compressBytesDirect();
+      dst.position(dst.position() + n);
+      bytesRead += src.remaining();
+      bytesWritten += n;
+      // lz4 always consumes the whole buffer or throws an exception
+      src.position(src.limit());
+      finished = true;
+    } finally {
+      compressedDirectBuf = originalCompressed;
+      uncompressedDirectBuf = originalUncompressed;
+      uncompressedDirectBufLen = 0;
+      directBufferSize = originalBufferSize;
+    }
+    return n;
+  }
+
+  /**
+   * A {@link DirectCompressor} for lz4, which compresses each source
+   * buffer into a single lz4 block.
+   */
+  public static class Lz4DirectCompressor extends Lz4Compressor
+      implements DirectCompressor {
+
+    public Lz4DirectCompressor() {
+      this(false);
+    }
+
+    public Lz4DirectCompressor(boolean useLz4HC) {
+      // the direct buffers of the compressor itself are not used
+      super(0, useLz4HC);
+    }
+
+    @Override
+    public synchronized void compress(ByteBuffer src, ByteBuffer dst)
+        throws IOException {
+      assert dst.isDirect() : "dst.isDirect()";
+      assert src.isDirect() : "src.isDirect()";
+      assert dst.remaining() > 0 : "dst.remaining() > 0";
+      this.compressDirect(src, dst);
+    }
+
+    @Override
+    public synchronized void setInput(byte[] b, int off, int len) {
+      throw new UnsupportedOperationException(
+          "byte[] arrays are not supported for DirectCompressor");
+    }
+
+    @Override
+    public synchronized int compress(byte[] b, int off, int len) {
+      throw new UnsupportedOperationException(
+          "byte[] arrays are not supported for DirectCompressor");
+    }
+  }
+
   private native static void initIDs();
 
   private native int compressBytesDirect();
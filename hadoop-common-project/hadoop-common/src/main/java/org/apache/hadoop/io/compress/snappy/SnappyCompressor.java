@@ -24,6 +24,7 @@
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.compress.Compressor;
+import org.apache.hadoop.io.compress.DirectCompressor;
 import org.apache.hadoop.util.NativeCodeLoader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -291,6 +292,81 @@ public long getBytesWritten() {
   public void end() {
   }
 
+  /**
+   * @return the largest size of the snappy block compressed from the given
+   *         number of bytes, as computed by the snappy library.
+   */
+  public static int maxCompressedLength(int uncompressedLength) {
+    return 32 + uncompressedLength + uncompressedLength / 6;
+  }
+
+  int compressDirect(ByteBuffer src, ByteBuffer dst) throws IOException {
+    assert (this instanceof SnappyDirectCompressor);
+
+    int required = maxCompressedLength(src.remaining());
+    if (dst.remaining() < required) {
+      throw new IOException("Insufficient space in the destination buffer: "
+          + dst.remaining() + " bytes, while " + required
+          + " bytes may be needed to compress " + src.remaining() + " bytes");
+    }
+    Buffer originalCompressed = compressedDirectBuf;
+    Buffer originalUncompressed = uncompressedDirectBuf;
+    int originalBufferSize = directBufferSize;
+    uncompressedDirectBuf = src.slice();
+    uncompressedDirectBufLen = src.remaining();
+    compressedDirectBuf = dst.slice();
+    directBufferSize = dst.remaining();
+    int n = 0;
+    try {
+      n = compressBytesDirect();
+      dst.position(dst.position() + n);
+      bytesRead += src.remaining();
+      bytesWritten += n;
+      // snappy always consumes the whole buffer or throws an exception
+      src.position(src.limit());
+      finished = true;
+    } finally {
+      compressedDirectBuf = originalCompressed;
+      uncompressedDirectBuf = originalUncompressed;
+      uncompressedDirectBufLen = 0;
+      directBufferSize = originalBufferSize;
+    }
+    return n;
+  }
+
+  /**
+   * A {@link DirectCompressor} for snappy, which compresses each source
+   * buffer into a single snappy block.
+   */
+  public static class SnappyDirectCompressor extends SnappyCompressor
+      implements DirectCompressor {
+
+    public SnappyDirectCompressor() {
+      // the direct buffers of the compressor itself are not used
+      super(0);
+    }
+
+    @Override
+    public void compress(ByteBuffer src, ByteBuffer dst) throws IOException {
+      assert dst.isDirect() : "dst.isDirect()";
+      assert src.isDirect() : "src.isDirect()";
+      assert dst.remaining() > 0 : "dst.remaining() > 0";
+      this.compressDirect(src, dst);
+    }
+
+    @Override
+    public void setInput(byte[] b, int off, int len) {
+      throw new UnsupportedOperationException(
+          "byte[] arrays are not supported for DirectCompressor");
+    }
+
+    @Override
+    public int compress(byte[] b, int off, int len) {
+      throw new UnsupportedOperationException(
+          "byte[] arrays are not supported for DirectCompressor");
+    }
+  }
+
   private native static void initIDs();
 
   private native int compressBytesDirect();
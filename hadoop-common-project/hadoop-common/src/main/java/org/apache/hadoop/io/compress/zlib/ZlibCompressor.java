@@ -24,6 +24,7 @@
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.compress.Compressor;
+import org.apache.hadoop.io.compress.DirectCompressor;
 import org.apache.hadoop.util.NativeCodeLoader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -483,4 +484,79 @@ private native static void setDictionary(long strm, byte[] b, int off,
   private native static void end(long strm);
 
   public native static String getLibraryName();
+
+  int deflateDirect(ByteBuffer src, ByteBuffer dst) {
+    assert (this instanceof ZlibDirectCompressor);
+    checkStream();
+
+    Buffer originalCompressed = compressedDirectBuf;
+    Buffer originalUncompressed = uncompressedDirectBuf;
+    int originalBufferSize = directBufferSize;
+    uncompressedDirectBuf = src;
+    uncompressedDirectBufOff = src.position();
+    uncompressedDirectBufLen = src.remaining();
+    compressedDirectBuf = dst.slice();
+    directBufferSize = dst.remaining();
+    int n = 0;
+    try {
+      n = deflateBytesDirect();
+      dst.position(dst.position() + n);
+      if (uncompressedDirectBufLen > 0) {
+        src.position(uncompressedDirectBufOff);
+      } else {
+        src.position(src.limit());
+      }
+    } finally {
+      compressedDirectBuf = originalCompressed;
+      uncompressedDirectBuf = originalUncompressed;
+      uncompressedDirectBufOff = 0;
+      uncompressedDirectBufLen = 0;
+      directBufferSize = originalBufferSize;
+    }
+    return n;
+  }
+
+  /**
+   * A {@link DirectCompressor} for zlib.
+   */
+  public static class ZlibDirectCompressor
+      extends ZlibCompressor implements DirectCompressor {
+    public ZlibDirectCompressor() {
+      this(CompressionLevel.DEFAULT_COMPRESSION,
+          CompressionStrategy.DEFAULT_STRATEGY,
+          CompressionHeader.DEFAULT_HEADER);
+    }
+
+    public ZlibDirectCompressor(CompressionLevel level,
+        CompressionStrategy strategy, CompressionHeader header) {
+      // the direct buffers of the compressor itself are not used
+      super(level, strategy, header, 0);
+    }
+
+    @Override
+    public void compress(ByteBuffer src, ByteBuffer dst) {
+      assert dst.isDirect() : "dst.isDirect()";
+      assert src.isDirect() : "src.isDirect()";
+      assert dst.remaining() > 0 : "dst.remaining() > 0";
+      this.deflateDirect(src, dst);
+    }
+
+    @Override
+    public void setInput(byte[] b, int off, int len) {
+      throw new UnsupportedOperationException(
+          "byte[] arrays are not supported for DirectCompressor");
+    }
+
+    @Override
+    public void setDictionary(byte[] b, int off, int len) {
+      throw new UnsupportedOperationException(
+          "byte[] arrays are not supported for DirectCompressor");
+    }
+
+    @Override
+    public int compress(byte[] b, int off, int len) {
+      throw new UnsupportedOperationException(
+          "byte[] arrays are not supported for DirectCompressor");
+    }
+  }
 }
@@ -23,6 +23,7 @@
 import org.apache.hadoop.fs.CommonConfigurationKeys;
 import org.apache.hadoop.fs.CommonConfigurationKeysPublic;
 import org.apache.hadoop.io.compress.Compressor;
+import org.apache.hadoop.io.compress.DirectCompressor;
 import org.apache.hadoop.io.compress.ZStandardCodec;
 import org.apache.hadoop.util.NativeCodeLoader;
 import org.slf4j.Logger;
@@ -302,4 +303,52 @@ private native int deflateBytesDirect(ByteBuffer src, int srcOffset,
   private native static void end(long strm);
   private native static void initIDs();
   public native static String getLibraryName();
+
+  int compressDirect(ByteBuffer src, ByteBuffer dst) {
+    assert (this instanceof ZStandardDirectCompressor);
+    checkStream();
+
+    ByteBuffer out = dst.slice();
+    int n = deflateBytesDirect(
+        src, src.position(), src.limit(), out, out.remaining());
+    dst.position(dst.position() + n);
+    // the native code reports how far it read the source buffer
+    src.position(uncompressedDirectBufOff);
+    uncompressedDirectBufOff = 0;
+    uncompressedDirectBufLen = 0;
+    return n;
+  }
+
+  /**
+   * A {@link DirectCompressor} for ZStandard
+   * https://github.com/facebook/zstd.
+   */
+  public static class ZStandardDirectCompressor
+      extends ZStandardCompressor implements DirectCompressor {
+
+    public ZStandardDirectCompressor(int level) {
+      // the direct buffers of the compressor itself are not used
+      super(level, 0, 0);
+    }
+
+    @Override
+    public void compress(ByteBuffer src, ByteBuffer dst) {
+      assert dst.isDirect() : "dst.isDirect()";
+      assert src.isDirect() : "src.isDirect()";
+      assert dst.remaining() > 0 : "dst.remaining() > 0";
+      this.compressDirect(src, dst);
+    }
+
+    @Override
+    public void setInput(byte[] b, int off, int len) {
+      throw new UnsupportedOperationException(
+          "byte[] arrays are not supported for DirectCompressor");
+    }
+
+    @Override
+    public int compress(byte[] b, int off, int len) {
+      throw new UnsupportedOperationException(
+          "byte[] arrays are not supported for DirectCompressor");
+    }
+  }
 }
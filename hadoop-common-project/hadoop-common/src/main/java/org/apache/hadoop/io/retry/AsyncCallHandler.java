@@ -18,6 +18,7 @@
 package org.apache.hadoop.io.retry;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Defaults;
 import com.google.common.base.Preconditions;
 import org.apache.hadoop.classification.InterfaceAudience;
 import org.apache.hadoop.classification.InterfaceStability;
@@ -31,7 +32,9 @@
 import java.io.InterruptedIOException;
 import java.lang.reflect.Method;
 import java.util.Iterator;
+import java.util.Objects;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -62,6 +65,28 @@ public static <R, T extends  Throwable> AsyncGet<R, T> getAsyncReturn() {
     }
   }
 
+  /**
+   * Similar to {@link #getAsyncReturn()} but return the value as a
+   * {@link CompletableFuture}, which is completed by the async call
+   * processor once the call, including any retries and failovers, is done.
+   * Dependent actions run in the processor thread unless the async variants
+   * of the {@link CompletableFuture} methods are used,
+   * so they must not block.
+   *
+   * @return the async return value from {@link AsyncCallHandler}.
+   * @throws IllegalStateException if the previous call was not made through
+   *         a {@link RetryInvocationHandler} in async mode.
+   */
+  @InterfaceStability.Unstable
+  @SuppressWarnings("unchecked")
+  public static <R> CompletableFuture<R> getAsyncReturnFuture() {
+    final AsyncGet<Object, Throwable> asyncGet = ASYNC_RETURN.get();
+    Preconditions.checkState(asyncGet instanceof AsyncCallReturn,
+        "No async call was made through a retry proxy");
+    ASYNC_RETURN.set(null);
+    return (CompletableFuture<R>) ((AsyncCallReturn) asyncGet).toFuture();
+  }
+
   /** For the lower rpc layers to set the async return value. */
   @InterfaceStability.Unstable
   public static void setLowerLayerAsyncReturn(
@@ -195,6 +220,7 @@ void kill(Daemon d) {
 
   static class AsyncValue<V> {
     private V value;
+    private final CompletableFuture<V> future = new CompletableFuture<>();
 
     synchronized V waitAsyncValue(long timeout, TimeUnit unit)
         throws InterruptedException, TimeoutException {
@@ -210,11 +236,19 @@ synchronized V waitAsyncValue(long timeout, TimeUnit unit)
           + timeout + " " + unit);
     }
 
-    synchronized void set(V v) {
-      Preconditions.checkNotNull(v);
-      Preconditions.checkState(value == null);
-      value = v;
-      notify();
+    void set(V v) {
+      synchronized (this) {
+        Preconditions.checkNotNull(v);
+        Preconditions.checkState(value == null);
+        value = v;
+        notify();
+      }
+      // complete outside the lock since it runs the dependent actions.
+      future.complete(v);
+    }
+
+    CompletableFuture<V> getFuture() {
+      return future;
     }
 
     synchronized boolean isDone() {
@@ -224,6 +258,7 @@ synchronized boolean isDone() {
 
   static class AsyncCall extends RetryInvocationHandler.Call {
     private final AsyncCallHandler asyncCallHandler;
+    private final Class<?> returnType;
 
     private final AsyncValue<CallReturn> asyncCallReturn = new AsyncValue<>();
     private AsyncGet<?, Exception> lowerLayerAsyncGet;
@@ -234,6 +269,7 @@ static class AsyncCall extends RetryInvocationHandler.Call {
       super(method, args, isRpc, callId, retryInvocationHandler);
 
       this.asyncCallHandler = asyncCallHandler;
+      this.returnType = method.getReturnType();
     }
 
     /** @return true if the call is done; otherwise, return false. */
@@ -294,8 +330,10 @@ CallReturn invoke() throws Throwable {
       try {
         Client.setAsynchronousMode(true);
         final Object r = invokeMethod();
-        // invokeMethod should set LOWER_LAYER_ASYNC_RETURN and return null.
-        Preconditions.checkState(r == null);
+        // invokeMethod should set LOWER_LAYER_ASYNC_RETURN and return null,
+        // or the default value of a primitive return type.
+        Preconditions.checkState(
+            Objects.equals(r, Defaults.defaultValue(returnType)));
         lowerLayerAsyncGet = getLowerLayerAsyncReturn();
 
         if (getCounters().isZeros()) {
@@ -328,22 +366,43 @@ private void initAsyncCall(final AsyncCall asyncCall,
                              final AsyncValue<CallReturn> asyncCallReturn) {
     asyncCalls.addCall(asyncCall);
 
-    final AsyncGet<Object, Throwable> asyncGet
-        = new AsyncGet<Object, Throwable>() {
-      @Override
-      public Object get(long timeout, TimeUnit unit) throws Throwable {
-        final CallReturn c = asyncCallReturn.waitAsyncValue(timeout, unit);
-        final Object r = c.getReturnValue();
-        hasSuccessfulCall = true;
-        return r;
-      }
+    ASYNC_RETURN.set(new AsyncCallReturn(asyncCallReturn));
+  }
 
-      @Override
-      public boolean isDone() {
-        return asyncCallReturn.isDone();
-      }
-    };
-    ASYNC_RETURN.set(asyncGet);
+  /** The async return value of an {@link AsyncCall}. */
+  private class AsyncCallReturn implements AsyncGet<Object, Throwable> {
+    private final AsyncValue<CallReturn> asyncCallReturn;
+
+    AsyncCallReturn(AsyncValue<CallReturn> asyncCallReturn) {
+      this.asyncCallReturn = asyncCallReturn;
+    }
+
+    @Override
+    public Object get(long timeout, TimeUnit unit) throws Throwable {
+      final CallReturn c = asyncCallReturn.waitAsyncValue(timeout, unit);
+      final Object r = c.getReturnValue();
+      hasSuccessfulCall = true;
+      return r;
+    }
+
+    @Override
+    public boolean isDone() {
+      return asyncCallReturn.isDone();
+    }
+
+    CompletableFuture<Object> toFuture() {
+      final CompletableFuture<Object> future = new CompletableFuture<>();
+      asyncCallReturn.getFuture().whenComplete((c, t) -> {
+        try {
+          final Object r = c.getReturnValue();
+          hasSuccessfulCall = true;
+          future.complete(r);
+        } catch (Throwable e) {
+          future.completeExceptionally(e);
+        }
+      });
+      return future;
+    }
   }
 
   @VisibleForTesting
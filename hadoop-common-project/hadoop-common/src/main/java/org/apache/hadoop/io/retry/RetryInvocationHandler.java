@@ -18,6 +18,7 @@
 package org.apache.hadoop.io.retry;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Defaults;
 import org.apache.hadoop.classification.InterfaceAudience;
 import org.apache.hadoop.io.retry.FailoverProxyProvider.ProxyInfo;
 import org.apache.hadoop.io.retry.RetryPolicy.RetryAction;
@@ -362,7 +363,8 @@ public Object invoke(Object proxy, Method method, Object[] args)
       final CallReturn c = call.invokeOnce();
       final CallReturn.State state = c.getState();
       if (state == CallReturn.State.ASYNC_INVOKED) {
-        return null; // return null for async calls
+        // return null (or the default of a primitive type) for async calls
+        return Defaults.defaultValue(method.getReturnType());
       } else if (c.getState() != CallReturn.State.RETRY) {
         return c.getReturnValue();
       }
@@ -0,0 +1,121 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.ipc;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.hadoop.conf.Configuration;
+
+import static org.apache.hadoop.ipc.ProcessingDetails.Timing;
+
+/**
+ * A {@link WeightedTimeCostProvider} whose lock weights follow the observed
+ * lock contention. Holding a lock only costs other callers when they have to
+ * wait for it, so the configured {@link ProcessingDetails.Timing#LOCKSHARED}
+ * and {@link ProcessingDetails.Timing#LOCKEXCLUSIVE} weights are treated as
+ * upper bounds. They apply in full when calls spend nearly all of their lock
+ * time waiting, and fall to the {@link ProcessingDetails.Timing#LOCKFREE}
+ * weight when the lock is uncontended.
+ *
+ * <p/>Contention is the share of {@link ProcessingDetails.Timing#LOCKWAIT}
+ * in the total lock wait and hold time, averaged over recent calls with an
+ * exponential moving average. How quickly it follows changes can be set
+ * with {@link #SMOOTHING_CONFIG_KEY}, for example:
+ * <pre>
+ *   ipc.8020.cost-provider.impl=org.apache.hadoop.ipc.AdaptiveWeightedTimeCostProvider
+ *   ipc.8020.weighted-cost.contention.smoothing=0.01
+ * </pre>
+ */
+public class AdaptiveWeightedTimeCostProvider extends WeightedTimeCostProvider {
+
+  /**
+   * The weight of each new call in the moving averages of lock wait and hold
+   * time, between 0 and 1, suffixed to the IPC namespace.
+   */
+  public static final String SMOOTHING_CONFIG_KEY =
+      WEIGHT_CONFIG_PREFIX + "contention.smoothing";
+  static final double DEFAULT_SMOOTHING = 0.01;
+
+  private double smoothing;
+  private long lockFreeWeight;
+  // Doubles, as raw long bits, so they can be updated without locking.
+  private final AtomicLong avgLockWait = new AtomicLong();
+  private final AtomicLong avgLockHeld = new AtomicLong();
+
+  @Override
+  public void init(String namespace, Configuration conf) {
+    super.init(namespace, conf);
+    smoothing = conf.getDouble(namespace + SMOOTHING_CONFIG_KEY,
+        DEFAULT_SMOOTHING);
+    if (smoothing <= 0 || smoothing > 1) {
+      throw new IllegalArgumentException(namespace + SMOOTHING_CONFIG_KEY
+          + " must be in (0, 1], but was " + smoothing);
+    }
+    lockFreeWeight = getWeight(Timing.LOCKFREE);
+  }
+
+  /**
+   * Records the lock times of the call, then calculates its cost as a
+   * weighted sum of its times, with the lock weights scaled by the current
+   * contention.
+   *
+   * @param details Processing details
+   * @return The weighted sum of the times. The returned unit is the same
+   *         as the default unit used by the provided processing details.
+   */
+  @Override
+  public long getCost(ProcessingDetails details) {
+    long lockShared = details.get(Timing.LOCKSHARED);
+    long lockExclusive = details.get(Timing.LOCKEXCLUSIVE);
+    long lockWait = details.get(Timing.LOCKWAIT);
+    if (lockShared + lockExclusive + lockWait > 0) {
+      updateAverage(avgLockWait, lockWait);
+      updateAverage(avgLockHeld, lockShared + lockExclusive);
+    }
+    double contention = getContention();
+    double cost = 0;
+    for (Timing timing : Timing.values()) {
+      double weight = getWeight(timing);
+      if (timing == Timing.LOCKSHARED || timing == Timing.LOCKEXCLUSIVE) {
+        weight = lockFreeWeight + (weight - lockFreeWeight) * contention;
+      }
+      cost += details.get(timing) * weight;
+    }
+    return Math.round(cost);
+  }
+
+  /**
+   * @return the recent share of lock time spent waiting, between 0 and 1.
+   */
+  double getContention() {
+    double wait = Double.longBitsToDouble(avgLockWait.get());
+    double held = Double.longBitsToDouble(avgLockHeld.get());
+    return wait + held > 0 ? wait / (wait + held) : 0;
+  }
+
+  private void updateAverage(AtomicLong average, long sample) {
+    long bits;
+    long newBits;
+    do {
+      bits = average.get();
+      double value = Double.longBitsToDouble(bits);
+      newBits = Double.doubleToLongBits(
+          value + smoothing * (sample - value));
+    } while (!average.compareAndSet(bits, newBits));
+  }
+}
@@ -0,0 +1,241 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.ipc;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.hadoop.util.Time;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coalesces identical calls of selected methods that are in flight at the
+ * same time. The first call executes, and the others defer their responses
+ * and are answered with its result once it completes.
+ *
+ * Calls are identical if they are for the same method of the same protocol,
+ * from the same effective and real user, with equal request parameters.
+ * A call only joins one that started executing after the call was received,
+ * so it still observes everything that completed before it was sent. A call
+ * carrying a client state id also only joins one that started executing at a
+ * server state id at least as recent, so that it reads its own writes.
+ *
+ * Only read-only methods whose result depends on nothing but the request and
+ * the calling user may be coalesced. The methods of audited protocols are
+ * only coalesced if the protocol has a {@link CoalescedCallAuditor}, which
+ * audits the answered calls.
+ */
+@InterfaceAudience.Private
+class CallCoalescer {
+  private static final Logger LOG =
+      LoggerFactory.getLogger(CallCoalescer.class);
+
+  private final Set<String> methods;
+  private final Set<String> auditedProtocols;
+  private final ConcurrentMap<String, CoalescedCallAuditor> auditors =
+      new ConcurrentHashMap<>();
+  private final ConcurrentMap<Key, Flight> flights =
+      new ConcurrentHashMap<>();
+
+  /**
+   * @param methods the coalesced methods, each as the protocol name followed
+   *                by a dot and the method name.
+   * @param auditedProtocols the protocols whose methods are not coalesced
+   *                         without an auditor.
+   */
+  CallCoalescer(Collection<String> methods,
+      Collection<String> auditedProtocols) {
+    this.methods = new HashSet<>(methods);
+    this.auditedProtocols = new HashSet<>(auditedProtocols);
+  }
+
+  void setAuditor(String protocol, CoalescedCallAuditor auditor) {
+    auditors.put(protocol, auditor);
+  }
+
+  boolean isCoalesced(String protocol, String method) {
+    if (!methods.contains(protocol + "." + method)) {
+      return false;
+    }
+    CoalescedCallAuditor auditor = auditors.get(protocol);
+    return auditor != null ? auditor.canAudit(method)
+        : !auditedProtocols.contains(protocol);
+  }
+
+  /**
+   * Join an identical call in flight, or become the call that executes.
+   * @param call the call
+   * @param protocol the protocol name
+   * @param method the method name
+   * @param request the request parameters, which must implement equals
+   * @param stateId the last state id seen by the server, at which the call
+   *                executes if it does not join another one
+   * @return the flight the call must complete once executed, or null if the
+   *         call joined another one and its response was deferred.
+   */
+  Flight join(Server.Call call, String protocol, String method,
+      Object request, long stateId) {
+    Key key = new Key(call.getRemoteUser(), protocol, method, request);
+    while (true) {
+      Flight flight = flights.get(key);
+      if (flight != null && flight.startNanos >= call.timestampNanos
+          && (!call.isCallCoordinated()
+              || flight.stateId >= call.getClientStateId())
+          && flight.addWaiter(call)) {
+        return null;
+      }
+      // Either nothing is in flight, or the call in flight started too early
+      // for this call to use its result. Later calls can join this one.
+      Flight newFlight = new Flight(key, stateId);
+      if (flight == null ? flights.putIfAbsent(key, newFlight) == null
+          : flights.replace(key, flight, newFlight)) {
+        return newFlight;
+      }
+    }
+  }
+
+  int getNumInFlight() {
+    return flights.size();
+  }
+
+  /** An executing call and the identical calls waiting for its result. */
+  final class Flight {
+    private final Key key;
+    private final long startNanos = Time.monotonicNowNanos();
+    private final long stateId;
+    private List<Server.Call> waiters = new ArrayList<>();
+
+    private Flight(Key key, long stateId) {
+      this.key = key;
+      this.stateId = stateId;
+    }
+
+    private synchronized boolean addWaiter(Server.Call call) {
+      if (waiters == null) {
+        return false;
+      }
+      call.deferResponse();
+      waiters.add(call);
+      return true;
+    }
+
+    private synchronized List<Server.Call> finish() {
+      flights.remove(key, this);
+      List<Server.Call> calls = waiters;
+      waiters = null;
+      return calls;
+    }
+
+    /**
+     * Send the result of the call to the waiting calls.
+     * @param response the response
+     */
+    void complete(Writable response) {
+      for (Server.Call call : finish()) {
+        audit(call, null);
+        call.setDeferredResponse(response);
+      }
+    }
+
+    /**
+     * Send the error of the call to the waiting calls.
+     * @param t the error
+     */
+    void fail(Throwable t) {
+      for (Server.Call call : finish()) {
+        audit(call, t);
+        call.setDeferredError(t);
+      }
+    }
+
+    /**
+     * Audit a waiting call with the auditor of its protocol, as the current
+     * call and with its caller context.
+     */
+    private void audit(Server.Call call, Throwable error) {
+      CoalescedCallAuditor auditor = auditors.get(key.protocol);
+      if (auditor == null) {
+        return;
+      }
+      ThreadLocal<Server.Call> curCall = Server.getCurCall();
+      Server.Call executedCall = curCall.get();
+      CallerContext callerContext = CallerContext.getCurrent();
+      curCall.set(call);
+      CallerContext.setCurrent(call.getCallerContext());
+      try {
+        auditor.audit(key.method, key.request, error);
+      } catch (RuntimeException e) {
+        LOG.warn("Failed to audit coalesced call {} of {}.{}", call,
+            key.protocol, key.method, e);
+      } finally {
+        curCall.set(executedCall);
+        CallerContext.setCurrent(callerContext);
+      }
+    }
+  }
+
+  private static final class Key {
+    private final String user;
+    private final String realUser;
+    private final String protocol;
+    private final String method;
+    private final Object request;
+    private final int hash;
+
+    Key(UserGroupInformation ugi, String protocol, String method,
+        Object request) {
+      this.user = ugi == null ? null : ugi.getUserName();
+      this.realUser = ugi == null || ugi.getRealUser() == null ? null
+          : ugi.getRealUser().getUserName();
+      this.protocol = protocol;
+      this.method = method;
+      this.request = request;
+      this.hash = Objects.hash(user, realUser, protocol, method, request);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return hash == other.hash && Objects.equals(user, other.user)
+          && Objects.equals(realUser, other.realUser)
+          && protocol.equals(other.protocol) && method.equals(other.method)
+          && request.equals(other.request);
+    }
+  }
+}
@@ -205,6 +205,11 @@ boolean shouldBackOff(Schedulable e) {
 
   void addResponseTime(String name, Schedulable e, ProcessingDetails details) {
     scheduler.addResponseTime(name, e, details);
+    BlockingQueue<E> q = takeRef.get();
+    if (q instanceof FairCallQueue) {
+      ((FairCallQueue<E>) q).addQueueTime(e.getPriorityLevel(),
+          details.get(ProcessingDetails.Timing.QUEUE, TimeUnit.MILLISECONDS));
+    }
   }
 
   // This should be only called once per call and cached in the call object
@@ -35,6 +35,8 @@
 import org.apache.hadoop.io.retry.RetryPolicy;
 import org.apache.hadoop.io.retry.RetryPolicy.RetryAction;
 import org.apache.hadoop.ipc.RPC.RpcKind;
+import org.apache.hadoop.ipc.metrics.RpcClientMetrics;
+import org.apache.hadoop.metrics2.lib.MutableHistogram;
 import org.apache.hadoop.ipc.Server.AuthProtocol;
 import org.apache.hadoop.ipc.protobuf.IpcConnectionContextProtos.IpcConnectionContextProto;
 import org.apache.hadoop.ipc.protobuf.RpcHeaderProtos.RpcRequestHeaderProto;
@@ -142,6 +144,7 @@ public static void setCallIdAndRetryCount(int cid, int rc,
   private final byte[] clientId;
   private final int maxAsyncCalls;
   private final AtomicInteger asyncCallCounter = new AtomicInteger(0);
+  private final RpcClientMetrics metrics; // null if disabled
 
   /**
    * Executor on which IPC calls' parameters are sent.
@@ -332,6 +335,7 @@ static class Call {
     boolean done;               // true when call is done
     private final Object externalHandler;
     private AlignmentContext alignmentContext;
+    private long sendTimeNanos; // when the request was queued for sending
 
     private Call(RPC.RpcKind rpcKind, Writable param) {
       this.rpcKind = rpcKind;
@@ -440,7 +444,15 @@ private class Connection extends Thread {
     private AtomicBoolean shouldCloseConnection = new AtomicBoolean();  // indicate if the connection is closed
     private IOException closeException; // close reason
     
-    private final Object sendRpcRequestLock = new Object();
+    // Serialized requests waiting to be written, in the order of their calls.
+    private final Queue<ResponseBuffer> pendingRequests =
+        new ConcurrentLinkedQueue<>();
+    // Set while a sendParamsExecutor task writes the pending requests.
+    private final AtomicBoolean sendingRequests = new AtomicBoolean();
+    // Name of the call latency histogram, or null if metrics are disabled.
+    private final String metricsName;
+    // The histogram this connection registered, null once it is closed.
+    private volatile MutableHistogram callTimeHistogram;
 
     private AtomicReference<Thread> connectingThread = new AtomicReference<>();
     private final Consumer<Connection> removeMethod;
@@ -487,6 +499,13 @@ private class Connection extends Thread {
       }
       this.serviceClass = serviceClass;
       this.removeMethod = removeMethod;
+      if (metrics != null) {
+        metricsName = ("Connection" + remoteId.index + "To"
+            + server.getHostString() + "_" + server.getPort())
+            .replaceAll("[^A-Za-z0-9_]", "_");
+      } else {
+        metricsName = null;
+      }
 
       if (LOG.isDebugEnabled()) {
         LOG.debug("The ping interval is " + this.pingInterval + " ms.");
@@ -503,6 +522,9 @@ private class Connection extends Thread {
           server.toString() +
           " from " + ((ticket==null)?"an unknown user":ticket.getUserName()));
       this.setDaemon(true);
+      if (metricsName != null) {
+        callTimeHistogram = metrics.addConnection(metricsName);
+      }
     }
 
     /** Update lastActivity with the current time. */
@@ -1113,10 +1135,15 @@ public void run() {
     /** Initiates a rpc call by sending the rpc request to the remote server.
      * Note: this is not called from the Connection thread, but by other
      * threads.
+     * <p>
+     * The request is queued rather than written by the caller thread, and
+     * the call returns without waiting for it to be written. Requests that
+     * are queued concurrently are written by one sendParamsExecutor task
+     * and flushed together. The socket is never written by the caller, so
+     * interrupting the caller cannot close the connection.
      * @param call - the rpc request
      */
-    public void sendRpcRequest(final Call call)
-        throws InterruptedException, IOException {
+    public void sendRpcRequest(final Call call) throws IOException {
       if (shouldCloseConnection.get()) {
         return;
       }
@@ -1141,50 +1168,69 @@ public void sendRpcRequest(final Call call)
       header.writeDelimitedTo(buf);
       RpcWritable.wrap(call.rpcRequest).writeTo(buf);
 
-      synchronized (sendRpcRequestLock) {
-        Future<?> senderFuture = sendParamsExecutor.submit(new Runnable() {
-          @Override
-          public void run() {
-            try {
-              synchronized (ipcStreams.out) {
-                if (shouldCloseConnection.get()) {
-                  return;
-                }
-                if (LOG.isDebugEnabled()) {
-                  LOG.debug(getName() + " sending #" + call.id
-                      + " " + call.rpcRequest);
+      if (LOG.isDebugEnabled()) {
+        LOG.debug(getName() + " queueing #" + call.id + " " + call.rpcRequest);
+      }
+      call.sendTimeNanos = Time.monotonicNowNanos();
+      pendingRequests.add(buf);
+      if (sendingRequests.compareAndSet(false, true)) {
+        try {
+          sendParamsExecutor.execute(this::sendPendingRequests);
+        } catch (RejectedExecutionException e) {
+          // Nothing will write the requests queued by other callers either,
+          // so close the connection, failing all of its calls.
+          markClosed(new IOException("connection has been closed", e));
+          pendingRequests.clear();
+          sendingRequests.set(false);
+          throw e;
+        }
+      }
+    }
+
+    /**
+     * Write all queued requests and flush them once. Runs in a
+     * sendParamsExecutor thread, and in only one thread at a time for each
+     * connection.
+     */
+    private void sendPendingRequests() {
+      do {
+        try {
+          synchronized (ipcStreams.out) {
+            boolean sent = false;
+            ResponseBuffer buf;
+            while ((buf = pendingRequests.poll()) != null) {
+              try {
+                if (!shouldCloseConnection.get()) {
+                  // RpcRequestHeader + RpcRequest
+                  ipcStreams.sendRequest(buf.toByteArray());
+                  sent = true;
                 }
-                // RpcRequestHeader + RpcRequest
-                ipcStreams.sendRequest(buf.toByteArray());
-                ipcStreams.flush();
+              } finally {
+                //the buffer is just an in-memory buffer, but it is still
+                // polite to close early
+                IOUtils.closeStream(buf);
               }
-            } catch (IOException e) {
-              // exception at this point would leave the connection in an
-              // unrecoverable state (eg half a call left on the wire).
-              // So, close the connection, killing any outstanding calls
-              markClosed(e);
-            } finally {
-              //the buffer is just an in-memory buffer, but it is still polite to
-              // close early
-              IOUtils.closeStream(buf);
+            }
+            if (sent) {
+              ipcStreams.flush();
             }
           }
-        });
-      
-        try {
-          senderFuture.get();
-        } catch (ExecutionException e) {
-          Throwable cause = e.getCause();
-          
-          // cause should only be a RuntimeException as the Runnable above
-          // catches IOException
-          if (cause instanceof RuntimeException) {
-            throw (RuntimeException) cause;
-          } else {
-            throw new RuntimeException("unexpected checked exception", cause);
-          }
+        } catch (IOException e) {
+          // exception at this point would leave the connection in an
+          // unrecoverable state (eg half a call left on the wire).
+          // So, close the connection, killing any outstanding calls
+          markClosed(e);
+        } catch (Throwable t) {
+          // the requests polled so far are lost, and nothing passes the
+          // exception to their callers, so close the connection to fail them.
+          markClosed(new IOException("Failed to send requests", t));
+        } finally {
+          sendingRequests.set(false);
         }
-      }
+        // a request queued after the last poll found the flag still set, so
+        // it is this task's job to send it.
+      } while (!pendingRequests.isEmpty()
+          && sendingRequests.compareAndSet(false, true));
     }
 
     /* Receive a response.
@@ -1211,6 +1257,7 @@ private void receiveRpcResponse() {
         if (status == RpcStatusProto.SUCCESS) {
           Writable value = packet.newInstance(valueClass, conf);
           final Call call = calls.remove(callId);
+          addCallTime(call);
           call.setRpcResponse(value);
           if (call.alignmentContext != null) {
             call.alignmentContext.receiveResponseState(header);
@@ -1234,6 +1281,7 @@ private void receiveRpcResponse() {
           RemoteException re = new RemoteException(exceptionClassName, errorMsg, erCode);
           if (status == RpcStatusProto.ERROR) {
             final Call call = calls.remove(callId);
+            addCallTime(call);
             call.setException(re);
           } else if (status == RpcStatusProto.FATAL) {
             // Close the connection
@@ -1245,6 +1293,13 @@ private void receiveRpcResponse() {
       }
     }
     
+    private void addCallTime(Call call) {
+      MutableHistogram histogram = callTimeHistogram;
+      if (histogram != null) {
+        histogram.add((Time.monotonicNowNanos() - call.sendTimeNanos) / 1000);
+      }
+    }
+
     private synchronized void markClosed(IOException e) {
       if (shouldCloseConnection.compareAndSet(false, true)) {
         closeException = e;
@@ -1270,6 +1325,10 @@ private synchronized void close() {
       // already known it and replace this closedConnection with a new one.
       // We should only remove this closedConnection.
       removeMethod.accept(this);
+      if (callTimeHistogram != null) {
+        metrics.removeConnection(metricsName, callTimeHistogram);
+        callTimeHistogram = null;
+      }
 
       // close the streams and therefore the socket
       IOUtils.closeStream(ipcStreams);
@@ -1331,6 +1390,8 @@ public Client(Class<? extends Writable> valueClass, Configuration conf,
     this.maxAsyncCalls = conf.getInt(
         CommonConfigurationKeys.IPC_CLIENT_ASYNC_CALLS_MAX_KEY,
         CommonConfigurationKeys.IPC_CLIENT_ASYNC_CALLS_MAX_DEFAULT);
+    this.metrics = RpcClientMetrics.create(
+        StringUtils.byteToHexString(clientId), conf);
   }
 
   /**
@@ -1385,6 +1446,14 @@ public void stop() {
       }
     }
     clientExcecutorFactory.unrefAndCleanup();
+    if (metrics != null) {
+      metrics.shutdown();
+    }
+  }
+
+  @VisibleForTesting
+  RpcClientMetrics getMetrics() {
+    return metrics;
   }
 
   /** 
@@ -1467,12 +1536,6 @@ Writable call(RPC.RpcKind rpcKind, Writable rpcRequest,
         connection.sendRpcRequest(call);                 // send the rpc request
       } catch (RejectedExecutionException e) {
         throw new IOException("connection has been closed", e);
-      } catch (InterruptedException ie) {
-        Thread.currentThread().interrupt();
-        IOException ioe = new InterruptedIOException(
-            "Interrupted waiting to send RPC request to server");
-        ioe.initCause(ie);
-        throw ioe;
       }
     } catch(Exception e) {
       if (isAsynchronousMode()) {
@@ -1593,9 +1656,10 @@ Set<ConnectionId> getConnectionIds() {
   
   /** Get a connection from the pool, or create a new one and add it to the
    * pool.  Connections to a given ConnectionId are reused. */
-  private Connection getConnection(ConnectionId remoteId,
+  private Connection getConnection(ConnectionId connectionId,
       Call call, int serviceClass, AtomicBoolean fallbackToSimpleAuth)
       throws IOException {
+    final ConnectionId remoteId = connectionId.forCall(call.id);
     final InetSocketAddress address = remoteId.getAddress();
     if (address.isUnresolved()) {
       throw NetUtils.wrapException(address.getHostName(),
@@ -1669,6 +1733,8 @@ public static class ConnectionId {
     private final boolean tcpLowLatency; // if T then use low-delay QoS
     private final boolean doPing; //do we need to send ping message
     private final int pingInterval; // how often sends ping to the server in msecs
+    private final int poolSize; // number of connections calls are spread over
+    private final int index; // which of the poolSize connections this is
     private String saslQop; // here for testing
     private final Configuration conf; // used to get the expected kerberos principal name
     
@@ -1701,8 +1767,42 @@ public static class ConnectionId {
           CommonConfigurationKeys.IPC_CLIENT_PING_KEY,
           CommonConfigurationKeys.IPC_CLIENT_PING_DEFAULT);
       this.pingInterval = (doPing ? Client.getPingInterval(conf) : 0);
+      this.poolSize = Math.max(1, conf.getInt(
+          CommonConfigurationKeys.IPC_CLIENT_CONNECTION_POOL_SIZE_KEY,
+          CommonConfigurationKeys.IPC_CLIENT_CONNECTION_POOL_SIZE_DEFAULT));
+      this.index = 0;
       this.conf = conf;
     }
+
+    private ConnectionId(ConnectionId other, int index) {
+      this.protocol = other.protocol;
+      this.address = other.address;
+      this.ticket = other.ticket;
+      this.rpcTimeout = other.rpcTimeout;
+      this.connectionRetryPolicy = other.connectionRetryPolicy;
+      this.maxIdleTime = other.maxIdleTime;
+      this.maxRetriesOnSasl = other.maxRetriesOnSasl;
+      this.maxRetriesOnSocketTimeouts = other.maxRetriesOnSocketTimeouts;
+      this.tcpNoDelay = other.tcpNoDelay;
+      this.tcpLowLatency = other.tcpLowLatency;
+      this.doPing = other.doPing;
+      this.pingInterval = other.pingInterval;
+      this.poolSize = other.poolSize;
+      this.index = index;
+      this.conf = other.conf;
+    }
+
+    /**
+     * Get the id of the pooled connection that a call should use. Calls are
+     * spread round robin by call id over the poolSize connections.
+     */
+    ConnectionId forCall(int callId) {
+      if (poolSize == 1) {
+        return this;
+      }
+      int i = Math.floorMod(callId, poolSize);
+      return i == index ? this : new ConnectionId(this, i);
+    }
     
     InetSocketAddress getAddress() {
       return address;
@@ -1803,6 +1903,8 @@ public boolean equals(Object obj) {
             && this.maxIdleTime == that.maxIdleTime
             && isEqual(this.connectionRetryPolicy, that.connectionRetryPolicy)
             && this.pingInterval == that.pingInterval
+            && this.poolSize == that.poolSize
+            && this.index == that.index
             && isEqual(this.protocol, that.protocol)
             && this.rpcTimeout == that.rpcTimeout
             && this.tcpNoDelay == that.tcpNoDelay
@@ -1818,6 +1920,8 @@ public int hashCode() {
       result = PRIME * result + (doPing ? 1231 : 1237);
       result = PRIME * result + maxIdleTime;
       result = PRIME * result + pingInterval;
+      result = PRIME * result + poolSize;
+      result = PRIME * result + index;
       result = PRIME * result + ((protocol == null) ? 0 : protocol.hashCode());
       result = PRIME * result + rpcTimeout;
       result = PRIME * result + (tcpNoDelay ? 1231 : 1237);
@@ -0,0 +1,52 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.ipc;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.classification.InterfaceStability;
+
+/**
+ * Writes the audit log entries of calls which were answered with the result
+ * of an identical call, see {@link Server#setCoalescedCallAuditor}. Such a
+ * call does not run the server method, which would otherwise audit it.
+ *
+ * The audit methods run with the answered call as the current call, so
+ * {@link Server#getRemoteUser()}, {@link Server#getRemoteIp()} and
+ * {@link org.apache.hadoop.ipc.CallerContext#getCurrent()} return the values
+ * of that call.
+ */
+@InterfaceAudience.LimitedPrivate({"HDFS"})
+@InterfaceStability.Unstable
+public interface CoalescedCallAuditor {
+
+  /**
+   * @param method the method name
+   * @return true if the calls of the method can be audited by
+   *         {@link #audit}. The calls of other methods are not coalesced.
+   */
+  boolean canAudit(String method);
+
+  /**
+   * Audit a call answered with the result of an identical call.
+   * @param method the method name
+   * @param request the request parameters
+   * @param error the error of the call, or null if it succeeded
+   */
+  void audit(String method, Object request, Throwable error);
+}
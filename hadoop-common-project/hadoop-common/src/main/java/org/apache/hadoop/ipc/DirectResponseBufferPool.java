@@ -0,0 +1,101 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.ipc;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+
+/**
+ * A bounded pool of equally sized direct buffers that RPC responses are
+ * serialized into, so that they are neither allocated on the heap nor copied
+ * into a temporary direct buffer by the JDK when written to the socket.
+ *
+ * At most maxBuffers buffers are ever allocated. When all of them are in use,
+ * or the response does not fit, {@link #get(int)} returns null and the caller
+ * falls back to a heap buffer.
+ */
+@InterfaceAudience.Private
+class DirectResponseBufferPool {
+  private final int bufferSize;
+  private final int maxBuffers;
+  private final Queue<ByteBuffer> idleBuffers = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger numAllocated = new AtomicInteger();
+  private final AtomicInteger numInUse = new AtomicInteger();
+
+  DirectResponseBufferPool(int bufferSize, int maxBuffers) {
+    this.bufferSize = bufferSize;
+    this.maxBuffers = maxBuffers;
+  }
+
+  /**
+   * Get a buffer with the given number of bytes remaining.
+   *
+   * @param length the response length.
+   * @return a pooled direct buffer, or null if none is available.
+   */
+  ByteBuffer get(int length) {
+    if (length > bufferSize) {
+      return null;
+    }
+    ByteBuffer buffer = idleBuffers.poll();
+    if (buffer == null) {
+      int allocated = numAllocated.get();
+      while (allocated < maxBuffers) {
+        if (numAllocated.compareAndSet(allocated, allocated + 1)) {
+          buffer = ByteBuffer.allocateDirect(bufferSize);
+          break;
+        }
+        allocated = numAllocated.get();
+      }
+      if (buffer == null) {
+        return null;
+      }
+    }
+    numInUse.incrementAndGet();
+    buffer.clear();
+    buffer.limit(length);
+    return buffer;
+  }
+
+  /**
+   * Return a buffer obtained from {@link #get(int)} to the pool.
+   *
+   * @param buffer the buffer, which must not be used afterwards.
+   */
+  void release(ByteBuffer buffer) {
+    numInUse.decrementAndGet();
+    idleBuffers.offer(buffer);
+  }
+
+  int getBufferSize() {
+    return bufferSize;
+  }
+
+  int getNumAllocated() {
+    return numAllocated.get();
+  }
+
+  int getNumInUse() {
+    return numInUse.get();
+  }
+}
@@ -482,6 +482,15 @@ public long[] getOverflowedCalls() {
     return calls;
   }
 
+  /**
+   * Report how long a call of the given priority waited in the queue.
+   * @param priority the priority level of the call
+   * @param queueTimeMs the queue time in milliseconds
+   */
+  public void addQueueTime(int priority, long queueTimeMs) {
+    multiplexer.addQueueTime(priority, queueTimeMs);
+  }
+
   @VisibleForTesting
   public void setMultiplexer(RpcMultiplexer newMux) {
     this.multiplexer = newMux;
@@ -525,6 +525,22 @@ public Writable call(RPC.Server server, String connectionProtocolName,
 
         Message result;
         Call currentCall = Server.getCurCall().get();
+        CallCoalescer coalescer = server.getCallCoalescer();
+        CallCoalescer.Flight flight = null;
+        if (coalescer != null
+            && coalescer.isCoalesced(declaringClassProtoName, methodName)) {
+          flight = coalescer.join(currentCall, declaringClassProtoName,
+              methodName, param, server.getLastSeenStateId());
+          if (flight == null) {
+            // answered with the result of an identical call in flight
+            currentCall.setDetailedMetricsName(methodName);
+            server.getRpcMetrics().incrCoalescedCalls();
+            return null;
+          }
+        }
+        Writable response = null;
+        // the error sent to the waiting calls if no response is available.
+        Throwable failure = null;
         try {
           server.rpcDetailedMetrics.init(protocolImpl.protocolClass);
           CURRENT_CALL_INFO.set(new CallInfo(server, methodName));
@@ -535,20 +551,37 @@ public Writable call(RPC.Server server, String connectionProtocolName,
           if (CURRENT_CALLBACK.get() != null) {
             currentCall.deferResponse();
             CURRENT_CALLBACK.set(null);
+            // The result is not available to share; let the waiting
+            // calls retry.
+            failure = new RetriableException(
+                "Coalesced call " + methodName + " was deferred");
             return null;
           }
+          response = RpcWritable.wrap(result);
         } catch (ServiceException e) {
           Exception exception = (Exception) e.getCause();
           currentCall.setDetailedMetricsName(
               exception.getClass().getSimpleName());
+          failure = exception;
           throw (Exception) e.getCause();
         } catch (Exception e) {
           currentCall.setDetailedMetricsName(e.getClass().getSimpleName());
+          failure = e;
           throw e;
         } finally {
           CURRENT_CALL_INFO.set(null);
+          // Always release the waiting calls, even if the call failed with
+          // an Error.
+          if (flight != null) {
+            if (response != null) {
+              flight.complete(response);
+            } else {
+              flight.fail(failure != null ? failure : new RetriableException(
+                  "Coalesced call " + methodName + " failed"));
+            }
+          }
         }
-        return RpcWritable.wrap(result);
+        return response;
       }
     }
   }
@@ -557,6 +590,9 @@ public Writable call(RPC.Server server, String connectionProtocolName,
   // which uses the rpc header.  in the normal case we want to defer decoding
   // the rpc header until needed by the rpc engine.
   static class RpcProtobufRequest extends RpcWritable.Buffer {
+    private static final RequestHeaderCache HEADER_CACHE =
+        new RequestHeaderCache(RequestHeaderCache.DEFAULT_SIZE);
+
     private volatile RequestHeaderProto requestHeader;
     private Message payload;
 
@@ -570,7 +606,7 @@ static class RpcProtobufRequest extends RpcWritable.Buffer {
 
     RequestHeaderProto getRequestHeader() throws IOException {
       if (getByteBuffer() != null && requestHeader == null) {
-        requestHeader = getValue(RequestHeaderProto.getDefaultInstance());
+        requestHeader = HEADER_CACHE.decode(getByteBuffer());
       }
       return requestHeader;
     }
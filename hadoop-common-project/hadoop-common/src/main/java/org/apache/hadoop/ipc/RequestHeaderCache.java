@@ -0,0 +1,138 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.ipc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import com.google.common.base.Preconditions;
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.ipc.protobuf.ProtobufRpcEngine2Protos.RequestHeaderProto;
+
+/**
+ * Decodes the {@link RequestHeaderProto} of protobuf calls, reusing
+ * previously decoded headers.
+ *
+ * The request header only carries the method name, the name of the protocol
+ * declaring it and the protocol version, so every call of a method sends the
+ * same bytes. Those bytes are looked up in a small table, and on a hit the
+ * header decoded earlier is returned, with its names already converted to
+ * strings, instead of parsing a new message and allocating new strings.
+ *
+ * The table is direct mapped and bounded, and a header simply replaces the
+ * one occupying its slot. Entries are immutable, so a racing reader at worst
+ * misses an entry and decodes the header again.
+ */
+@InterfaceAudience.Private
+final class RequestHeaderCache {
+  static final int DEFAULT_SIZE = 4096;
+  /** Longer headers are decoded but not cached. */
+  static final int MAX_CACHED_LENGTH = 512;
+
+  private final Entry[] table;
+  private final int mask;
+
+  RequestHeaderCache(int size) {
+    Preconditions.checkArgument(size > 0 && Integer.bitCount(size) == 1,
+        "size %s is not a power of two", size);
+    this.table = new Entry[size];
+    this.mask = size - 1;
+  }
+
+  /**
+   * Decode the length delimited header at the position of the buffer, and
+   * advance the buffer over it. Only buffers backed by an accessible array
+   * are looked up in the cache; others are always parsed.
+   */
+  RequestHeaderProto decode(ByteBuffer bb) throws IOException {
+    if (!bb.hasArray()) {
+      return parse(bb);
+    }
+    final byte[] buf = bb.array();
+    final int start = bb.arrayOffset() + bb.position();
+    final int end = start + bb.remaining();
+    int pos = start;
+    int length = 0;
+    for (int shift = 0;; shift += 7) {
+      if (pos == end || shift == 35) {
+        // leave reporting truncated or malformed input to protobuf.
+        return parse(bb);
+      }
+      byte b = buf[pos++];
+      length |= (b & 0x7f) << shift;
+      if (b >= 0) {
+        break;
+      }
+    }
+    if (length < 0 || length > end - pos || length > MAX_CACHED_LENGTH) {
+      return parse(bb);
+    }
+    int hash = hash(buf, pos, length);
+    int slot = hash & mask;
+    Entry entry = table[slot];
+    if (entry != null && entry.matches(hash, buf, pos, length)) {
+      bb.position(bb.position() + pos - start + length);
+      return entry.header;
+    }
+    RequestHeaderProto header = parse(bb);
+    // convert the names once, so that every hit returns the same strings.
+    header.getMethodName();
+    header.getDeclaringClassProtocolName();
+    table[slot] = new Entry(hash,
+        Arrays.copyOfRange(buf, pos, pos + length), header);
+    return header;
+  }
+
+  private static RequestHeaderProto parse(ByteBuffer bb) throws IOException {
+    return RpcWritable.wrap(RequestHeaderProto.getDefaultInstance())
+        .readFrom(bb);
+  }
+
+  private static int hash(byte[] buf, int off, int len) {
+    int h = 1;
+    for (int i = off; i < off + len; i++) {
+      h = 31 * h + buf[i];
+    }
+    return h ^ (h >>> 16);
+  }
+
+  private static final class Entry {
+    private final int hash;
+    private final byte[] bytes;
+    private final RequestHeaderProto header;
+
+    Entry(int hash, byte[] bytes, RequestHeaderProto header) {
+      this.hash = hash;
+      this.bytes = bytes;
+      this.header = header;
+    }
+
+    boolean matches(int h, byte[] buf, int off, int len) {
+      if (hash != h || bytes.length != len) {
+        return false;
+      }
+      for (int i = 0; i < len; i++) {
+        if (bytes[i] != buf[off + i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
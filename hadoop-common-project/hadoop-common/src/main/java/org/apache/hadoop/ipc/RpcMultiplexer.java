@@ -29,4 +29,13 @@ public interface RpcMultiplexer {
    * @return current index
    */
   int getAndAdvanceCurrentIndex();
+
+  /**
+   * Report how long a call of the given priority waited in the queue, for
+   * multiplexers that adapt to it.
+   * @param priority the priority level of the call
+   * @param queueTimeMs the queue time in milliseconds
+   */
+  default void addQueueTime(int priority, long queueTimeMs) {
+  }
 }
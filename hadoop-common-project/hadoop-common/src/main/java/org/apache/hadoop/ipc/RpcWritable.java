@@ -120,8 +120,10 @@ <T> T readFrom(ByteBuffer bb) throws IOException {
       // most efficient way to deserialize a protobuf.  it has a direct
       // path to the PB ctor that doesn't create multi-layered streams
       // that internally buffer.
-      CodedInputStream cis = CodedInputStream.newInstance(
-          bb.array(), bb.position() + bb.arrayOffset(), bb.remaining());
+      CodedInputStream cis = bb.hasArray()
+          ? CodedInputStream.newInstance(
+              bb.array(), bb.position() + bb.arrayOffset(), bb.remaining())
+          : CodedInputStream.newInstance(bb);
       try {
         cis.pushLimit(cis.readRawVarint32());
         message = message.getParserForType().parseFrom(cis);
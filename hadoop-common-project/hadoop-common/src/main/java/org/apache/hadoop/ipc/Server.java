@@ -52,6 +52,7 @@
 import java.security.PrivilegedExceptionAction;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -65,6 +66,8 @@
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -99,6 +102,7 @@
 import org.apache.hadoop.ipc.protobuf.RpcHeaderProtos.RpcSaslProto;
 import org.apache.hadoop.ipc.protobuf.RpcHeaderProtos.RpcSaslProto.SaslAuth;
 import org.apache.hadoop.ipc.protobuf.RpcHeaderProtos.RpcSaslProto.SaslState;
+import org.apache.hadoop.net.NativeEpoll;
 import org.apache.hadoop.net.NetUtils;
 import org.apache.hadoop.security.AccessControlException;
 import org.apache.hadoop.security.SaslPropertiesResolver;
@@ -460,6 +464,8 @@ public static int getPriorityLevel() {
   private int handlerCount;                       // number of handler threads
   private int readThreads;                        // number of read threads
   private int readerPendingConnectionQueue;         // number of connections to queue per read thread
+  private int maxRequestsPerRead;      // requests read per readiness event
+  private boolean useNativeEpoll;      // readers use epoll, not selectors
   private Class<? extends Writable> rpcRequestClass;   // class used for deserializing the rpc request
   final protected RpcMetrics rpcMetrics;
   final protected RpcDetailedMetrics rpcDetailedMetrics;
@@ -480,6 +486,10 @@ protected ResponseBuffer initialValue() {
         }
   };
   private int socketSendBufferSize;
+  // Pool of direct buffers for protobuf responses, or null if disabled.
+  private final DirectResponseBufferPool responseBufferPool;
+  // Coalesces identical in-flight calls, or null if disabled.
+  private final CallCoalescer callCoalescer;
   private final int maxDataLength;
   private final boolean tcpNoDelay; // if T then disable Nagle's Algorithm
 
@@ -495,6 +505,15 @@ protected ResponseBuffer initialValue() {
   private Map<Integer, Listener> auxiliaryListenerMap;
   private Responder responder = null;
   private Handler[] handlers = null;
+  // When set, handlers dispatch each call onto a thread from this factory
+  // (normally a virtual thread factory) instead of running it inline.
+  private ThreadFactory callThreadFactory = null;
+  // Bounds the number of calls dispatched through callThreadFactory.
+  private Semaphore inflightCalls = null;
+  // Threads running dispatched calls, interrupted and joined on stop.
+  private final Set<Thread> callThreads = ConcurrentHashMap.newKeySet();
+  // How long stop() waits for the dispatched calls to finish.
+  private static final long CALL_THREADS_JOIN_TIMEOUT_MS = 10000;
 
   private boolean logSlowRPC = false;
 
@@ -586,6 +605,9 @@ void updateMetrics(Call call, long startTime, boolean connDropped) {
     processingTime -= waitTime;
     String name = call.getDetailedMetricsName();
     rpcDetailedMetrics.addProcessingTime(name, processingTime);
+    rpcDetailedMetrics.addLatencies(name, queueTime, waitTime, processingTime);
+    rpcMetrics.addPriorityLatencies(call.getPriorityLevel(), queueTime,
+        waitTime, processingTime);
     callQueue.addResponseTime(name, call, details);
     if (isLogSlowRPC()) {
       logSlowRpcCalls(name, call, details);
@@ -663,6 +685,34 @@ Iterable<? extends Thread> getHandlers() {
     return Arrays.asList(handlers);
   }
 
+  /**
+   * Run calls on threads from the given factory instead of on the handler
+   * threads. Handlers keep taking calls from the call queue in scheduler
+   * order and block once maxInflightCalls dispatched calls are running.
+   * Must be called before {@link #start()}.
+   */
+  @VisibleForTesting
+  synchronized void setCallThreadFactory(ThreadFactory threadFactory,
+      int maxInflightCalls) {
+    this.callThreadFactory = threadFactory;
+    this.inflightCalls = new Semaphore(maxInflightCalls);
+  }
+
+  @VisibleForTesting
+  boolean isDispatchingCalls() {
+    return callThreadFactory != null;
+  }
+
+  @VisibleForTesting
+  int getDispatchedCallCount() {
+    return callThreads.size();
+  }
+
+  @VisibleForTesting
+  boolean isUsingNativeEpoll() {
+    return useNativeEpoll;
+  }
+
   @VisibleForTesting
   Connection[] getConnections() {
     return connectionManager.toArray();
@@ -832,6 +882,10 @@ public ProcessingDetails getProcessingDetails() {
       return processingDetails;
     }
 
+    CallerContext getCallerContext() {
+      return callerContext;
+    }
+
     @Override
     public String toString() {
       return "Call#" + callId + " Retry#" + retryCount;
@@ -1236,29 +1290,89 @@ void setIsAuxiliary() {
     private class Reader extends Thread {
       final private BlockingQueue<Connection> pendingConnections;
       private final Selector readSelector;
+      // Used instead of readSelector if useNativeEpoll is set.
+      private final NativeEpoll epoll;
+      private final Map<Integer, Connection> epollConnections;
+      // Connections reported by epoll that may have more data to read.
+      private final LinkedList<Connection> readyConnections;
 
       Reader(String name) throws IOException {
         super(name);
 
         this.pendingConnections =
             new LinkedBlockingQueue<Connection>(readerPendingConnectionQueue);
-        this.readSelector = Selector.open();
+        if (useNativeEpoll) {
+          this.readSelector = null;
+          this.epoll = new NativeEpoll();
+          this.epollConnections = new ConcurrentHashMap<>();
+          this.readyConnections = new LinkedList<>();
+        } else {
+          this.readSelector = Selector.open();
+          this.epoll = null;
+          this.epollConnections = null;
+          this.readyConnections = null;
+        }
       }
       
       @Override
       public void run() {
         LOG.info("Starting " + Thread.currentThread().getName());
         try {
-          doRunLoop();
+          if (epoll != null) {
+            doEpollRunLoop();
+          } else {
+            doRunLoop();
+          }
         } finally {
           try {
-            readSelector.close();
+            if (epoll != null) {
+              epoll.close();
+            } else {
+              readSelector.close();
+            }
           } catch (IOException ioe) {
             LOG.error("Error closing read selector in " + Thread.currentThread().getName(), ioe);
           }
         }
       }
 
+      private synchronized void doEpollRunLoop() {
+        while (running) {
+          try {
+            // Only block if no connection is known to have data left.
+            int numReady = epoll.waitForEvents(
+                readyConnections.isEmpty() ? -1 : 0);
+            for (int i = 0; i < numReady; i++) {
+              Connection conn = epollConnections.get(epoll.getReadyFd(i));
+              if (conn != null && !conn.readPending) {
+                conn.readPending = true;
+                readyConnections.add(conn);
+              }
+            }
+            // Edge-triggered epoll does not report a connection again until
+            // new data arrives, so a connection stays ready until a read
+            // finds no data. Each gets one turn per round, like a select.
+            for (int i = readyConnections.size(); i > 0; i--) {
+              Connection conn = readyConnections.poll();
+              if (conn.channel.isOpen() && doRead(conn) > 0) {
+                readyConnections.add(conn);
+              } else {
+                conn.readPending = false;
+              }
+            }
+          } catch (InterruptedException e) {
+            if (running) {                      // unexpected -- log it
+              LOG.info(Thread.currentThread().getName() + " unexpectedly interrupted", e);
+            }
+          } catch (IOException ex) {
+            LOG.error("Error in Reader", ex);
+          } catch (Throwable re) {
+            LOG.error("Bug in read epoll!", re);
+            ExitUtil.terminate(1, "Bug in read epoll!");
+          }
+        }
+      }
+
       private synchronized void doRunLoop() {
         while (running) {
           SelectionKey key = null;
@@ -1305,16 +1419,70 @@ private synchronized void doRunLoop() {
       /**
        * Updating the readSelector while it's being used is not thread-safe,
        * so the connection must be queued.  The reader will drain the queue
-       * and update its readSelector before performing the next select
+       * and update its readSelector before performing the next select.
+       * The reader is not woken up, so the caller must call
+       * {@link #wakeup()} once it has queued its batch of connections.
+       * <p>
+       * An epoll instance can be updated while it is being used, so with
+       * native epoll the connection is watched right away instead.
+       */
+      void queueConnection(Connection conn) throws InterruptedException {
+        if (epoll != null) {
+          // Connection#close stops watching the connection under this lock.
+          synchronized (conn) {
+            if (!conn.channel.isOpen()) {
+              return;
+            }
+            try {
+              conn.epollFd = NativeEpoll.getFd(conn.channel);
+              conn.epollReader = this;
+              epollConnections.put(conn.epollFd, conn);
+              epoll.add(conn.epollFd);
+            } catch (IOException e) {
+              LOG.warn(getName() + ": failed to watch connection " + conn, e);
+              closeConnection(conn);
+            }
+          }
+          return;
+        }
+        if (!pendingConnections.offer(conn)) {
+          // The queue is full, so the reader has to drain it first.
+          readSelector.wakeup();
+          pendingConnections.put(conn);
+        }
+      }
+
+      /**
+       * Stop watching a connection before it is closed. The socket has to be
+       * open, or its file descriptor may have been reused already.
        */
-      public void addConnection(Connection conn) throws InterruptedException {
-        pendingConnections.put(conn);
-        readSelector.wakeup();
+      void removeConnection(Connection conn) {
+        epollConnections.remove(conn.epollFd, conn);
+        try {
+          epoll.remove(conn.epollFd);
+        } catch (IOException e) {
+          LOG.warn(getName() + ": failed to stop watching connection " + conn,
+              e);
+        }
+      }
+
+      void wakeup() {
+        if (readSelector != null) {
+          readSelector.wakeup();
+        }
       }
 
       void shutdown() {
         assert !running;
-        readSelector.wakeup();
+        if (epoll != null) {
+          try {
+            epoll.wakeup();
+          } catch (IOException e) {
+            LOG.warn(getName() + ": failed to wake up", e);
+          }
+        } else {
+          readSelector.wakeup();
+        }
         try {
           super.interrupt();
           super.join();
@@ -1392,38 +1560,66 @@ InetSocketAddress getAddress() {
     void doAccept(SelectionKey key) throws InterruptedException, IOException,  OutOfMemoryError {
       ServerSocketChannel server = (ServerSocketChannel) key.channel();
       SocketChannel channel;
-      while ((channel = server.accept()) != null) {
+      // Wake up each reader once for all the connections accepted here,
+      // rather than once per connection.
+      Set<Reader> queuedReaders = new HashSet<>();
+      try {
+        while ((channel = server.accept()) != null) {
+          acceptChannel(key, channel, queuedReaders);
+        }
+      } finally {
+        for (Reader reader : queuedReaders) {
+          reader.wakeup();
+        }
+      }
+    }
 
-        channel.configureBlocking(false);
-        channel.socket().setTcpNoDelay(tcpNoDelay);
-        channel.socket().setKeepAlive(true);
-        
-        Reader reader = getReader();
-        Connection c = connectionManager.register(channel,
-            this.listenPort, this.isOnAuxiliaryPort);
-        // If the connectionManager can't take it, close the connection.
-        if (c == null) {
-          if (channel.isOpen()) {
-            IOUtils.cleanupWithLogger(LOG, channel);
-          }
-          connectionManager.droppedConnections.getAndIncrement();
-          continue;
+    private void acceptChannel(SelectionKey key, SocketChannel channel,
+        Set<Reader> queuedReaders) throws InterruptedException, IOException {
+      channel.configureBlocking(false);
+      channel.socket().setTcpNoDelay(tcpNoDelay);
+      channel.socket().setKeepAlive(true);
+
+      Reader reader = getReader();
+      Connection c = connectionManager.register(channel,
+          this.listenPort, this.isOnAuxiliaryPort);
+      // If the connectionManager can't take it, close the connection.
+      if (c == null) {
+        if (channel.isOpen()) {
+          IOUtils.cleanupWithLogger(LOG, channel);
         }
-        key.attach(c);  // so closeCurrentConnection can get the object
-        reader.addConnection(c);
+        connectionManager.droppedConnections.getAndIncrement();
+        return;
       }
+      key.attach(c);  // so closeCurrentConnection can get the object
+      reader.queueConnection(c);
+      queuedReaders.add(reader);
     }
 
     void doRead(SelectionKey key) throws InterruptedException {
-      int count;
       Connection c = (Connection)key.attachment();
       if (c == null) {
         return;  
       }
+      doRead(c);
+    }
+
+    /**
+     * Read requests from a connection.
+     * @return the result of the last read, or -1 if the connection was closed
+     */
+    int doRead(Connection c) throws InterruptedException {
+      int count;
       c.setLastContact(Time.now());
       
       try {
+        // Read on while the socket has data, up to maxRequestsPerRead
+        // requests, rather than going back to select for each request.
         count = c.readAndProcess();
+        for (int i = 1; i < maxRequestsPerRead && count > 0
+            && !c.shouldClose(); i++) {
+          count = c.readAndProcess();
+        }
       } catch (InterruptedException ieo) {
         LOG.info(Thread.currentThread().getName() + ": readAndProcess caught InterruptedException", ieo);
         throw ieo;
@@ -1439,11 +1635,12 @@ void doRead(SelectionKey key) throws InterruptedException {
       // fatal response is sent.
       if (count < 0 || c.shouldClose()) {
         closeConnection(c);
-        c = null;
+        return -1;
       }
       else {
         c.setLastContact(Time.now());
       }
+      return count;
     }   
 
     synchronized void doStop() {
@@ -1651,11 +1848,12 @@ private boolean processResponse(LinkedList<RpcCall> responseQueue,
           //
           int numBytes = channelWrite(channel, call.rpcResponse);
           if (numBytes < 0) {
+            releaseResponse(call);
             return true;
           }
           if (!call.rpcResponse.hasRemaining()) {
             //Clear out the response buffer so it can be collected
-            call.rpcResponse = null;
+            releaseResponse(call);
             call.connection.decRpcCount();
             if (numElements == 1) {    // last call fully processes.
               done = true;             // no more data for this channel.
@@ -1701,6 +1899,7 @@ private boolean processResponse(LinkedList<RpcCall> responseQueue,
         if (error && call != null) {
           LOG.warn(Thread.currentThread().getName()+", call " + call + ": output error");
           done = true;               // error. no more data for this channel.
+          releaseResponse(call);
           closeConnection(call.connection);
         }
       }
@@ -1712,6 +1911,12 @@ private boolean processResponse(LinkedList<RpcCall> responseQueue,
     //
     void doRespond(RpcCall call) throws IOException {
       synchronized (call.connection.responseQueue) {
+        // the queue of a closed connection was already drained, and would
+        // never be processed again.
+        if (!call.connection.channel.isOpen()) {
+          releaseResponse(call);
+          return;
+        }
         // must only wrap before adding to the responseQueue to prevent
         // postponed responses from being encrypted and sent out of order.
         if (call.connection.useWrap) {
@@ -1825,6 +2030,10 @@ public class Connection {
     private boolean shouldClose = false;
     private int ingressPort;
     private boolean isOnAuxiliaryPort;
+    // Set if a socket reader watches the connection with native epoll.
+    private Listener.Reader epollReader;
+    private int epollFd;
+    private boolean readPending; // only used by the epollReader
 
     UserGroupInformation user = null;
     public UserGroupInformation attemptingUser = null; // user name before auth
@@ -2844,6 +3053,9 @@ private synchronized void close() {
       data = null;
       if (!channel.isOpen())
         return;
+      if (epollReader != null) {
+        epollReader.removeConnection(this);
+      }
       try {socket.shutdownOutput();} catch(Exception e) {
         LOG.debug("Ignoring socket shutdown exception", e);
       }
@@ -2906,81 +3118,131 @@ public void run() {
       LOG.debug(Thread.currentThread().getName() + ": starting");
       SERVER.set(Server.this);
       while (running) {
-        TraceScope traceScope = null;
-        Call call = null;
-        long startTimeNanos = 0;
-        // True iff the connection for this call has been dropped.
-        // Set to true by default and update to false later if the connection
-        // can be succesfully read.
-        boolean connDropped = true;
-
         try {
-          call = callQueue.take(); // pop the queue; maybe blocked here
-          startTimeNanos = Time.monotonicNowNanos();
-          if (alignmentContext != null && call.isCallCoordinated() &&
-              call.getClientStateId() > alignmentContext.getLastSeenStateId()) {
-            /*
-             * The call processing should be postponed until the client call's
-             * state id is aligned (<=) with the server state id.
-
-             * NOTE:
-             * Inserting the call back to the queue can change the order of call
-             * execution comparing to their original placement into the queue.
-             * This is not a problem, because Hadoop RPC does not have any
-             * constraints on ordering the incoming rpc requests.
-             * In case of Observer, it handles only reads, which are
-             * commutative.
-             */
-            // Re-queue the call and continue
-            requeueCall(call);
-            continue;
-          }
-          if (LOG.isDebugEnabled()) {
-            LOG.debug(Thread.currentThread().getName() + ": " + call + " for RpcKind " + call.rpcKind);
-          }
-          CurCall.set(call);
-          if (call.traceScope != null) {
-            call.traceScope.reattach();
-            traceScope = call.traceScope;
-            traceScope.getSpan().addTimelineAnnotation("called");
-          }
-          // always update the current call context
-          CallerContext.setCurrent(call.callerContext);
-          UserGroupInformation remoteUser = call.getRemoteUser();
-          connDropped = !call.isOpen();
-          if (remoteUser != null) {
-            remoteUser.doAs(call);
+          Call call = callQueue.take(); // pop the queue; maybe blocked here
+          long startTimeNanos = Time.monotonicNowNanos();
+          if (callThreadFactory != null) {
+            dispatchCall(call, startTimeNanos);
           } else {
-            call.run();
+            processCall(call, startTimeNanos);
           }
         } catch (InterruptedException e) {
           if (running) {                          // unexpected -- log it
             LOG.info(Thread.currentThread().getName() + " unexpectedly interrupted", e);
-            if (traceScope != null) {
-              traceScope.getSpan().addTimelineAnnotation("unexpectedly interrupted: " +
-                  StringUtils.stringifyException(e));
-            }
           }
-        } catch (Exception e) {
-          LOG.info(Thread.currentThread().getName() + " caught an exception", e);
+        }
+      }
+      LOG.debug(Thread.currentThread().getName() + ": exiting");
+    }
+
+    private void processCall(Call call, long startTimeNanos) {
+      TraceScope traceScope = null;
+      // True iff the connection for this call has been dropped.
+      // Set to true by default and update to false later if the connection
+      // can be succesfully read.
+      boolean connDropped = true;
+
+      try {
+        if (alignmentContext != null && call.isCallCoordinated() &&
+            call.getClientStateId() > alignmentContext.getLastSeenStateId()) {
+          /*
+           * The call processing should be postponed until the client call's
+           * state id is aligned (<=) with the server state id.
+
+           * NOTE:
+           * Inserting the call back to the queue can change the order of call
+           * execution comparing to their original placement into the queue.
+           * This is not a problem, because Hadoop RPC does not have any
+           * constraints on ordering the incoming rpc requests.
+           * In case of Observer, it handles only reads, which are
+           * commutative.
+           */
+          // Re-queue the call and continue
+          requeueCall(call);
+          return;
+        }
+        if (LOG.isDebugEnabled()) {
+          LOG.debug(Thread.currentThread().getName() + ": " + call + " for RpcKind " + call.rpcKind);
+        }
+        CurCall.set(call);
+        if (call.traceScope != null) {
+          call.traceScope.reattach();
+          traceScope = call.traceScope;
+          traceScope.getSpan().addTimelineAnnotation("called");
+        }
+        // always update the current call context
+        CallerContext.setCurrent(call.callerContext);
+        UserGroupInformation remoteUser = call.getRemoteUser();
+        connDropped = !call.isOpen();
+        if (remoteUser != null) {
+          remoteUser.doAs(call);
+        } else {
+          call.run();
+        }
+      } catch (InterruptedException e) {
+        if (running) {                          // unexpected -- log it
+          LOG.info(Thread.currentThread().getName() + " unexpectedly interrupted", e);
           if (traceScope != null) {
-            traceScope.getSpan().addTimelineAnnotation("Exception: " +
+            traceScope.getSpan().addTimelineAnnotation("unexpectedly interrupted: " +
                 StringUtils.stringifyException(e));
           }
-        } finally {
-          CurCall.set(null);
-          IOUtils.cleanupWithLogger(LOG, traceScope);
-          if (call != null) {
-            updateMetrics(call, startTimeNanos, connDropped);
-            ProcessingDetails.LOG.debug(
-                "Served: [{}]{} name={} user={} details={}",
-                call, (call.isResponseDeferred() ? ", deferred" : ""),
-                call.getDetailedMetricsName(), call.getRemoteUser(),
-                call.getProcessingDetails());
+        }
+      } catch (Exception e) {
+        LOG.info(Thread.currentThread().getName() + " caught an exception", e);
+        if (traceScope != null) {
+          traceScope.getSpan().addTimelineAnnotation("Exception: " +
+              StringUtils.stringifyException(e));
+        }
+      } finally {
+        CurCall.set(null);
+        IOUtils.cleanupWithLogger(LOG, traceScope);
+        if (call != null) {
+          updateMetrics(call, startTimeNanos, connDropped);
+          ProcessingDetails.LOG.debug(
+              "Served: [{}]{} name={} user={} details={}",
+              call, (call.isResponseDeferred() ? ", deferred" : ""),
+              call.getDetailedMetricsName(), call.getRemoteUser(),
+              call.getProcessingDetails());
+        }
+      }
+    }
+
+    /**
+     * Run the call on a thread from {@link #callThreadFactory}, waiting for
+     * a permit if the maximum number of dispatched calls are in progress.
+     */
+    private void dispatchCall(final Call call, final long startTimeNanos)
+        throws InterruptedException {
+      inflightCalls.acquire();
+      Thread thread = null;
+      try {
+        thread = callThreadFactory.newThread(() -> {
+          try {
+            SERVER.set(Server.this);
+            processCall(call, startTimeNanos);
+          } finally {
+            callThreads.remove(Thread.currentThread());
+            inflightCalls.release();
           }
+        });
+        callThreads.add(thread);
+        if (!running) {
+          // stop() may already have interrupted the call threads, so drop
+          // the call like the handlers do once the server is stopped.
+          callThreads.remove(thread);
+          inflightCalls.release();
+          return;
         }
+        thread.start();
+      } catch (RuntimeException | Error e) {
+        if (thread != null) {
+          callThreads.remove(thread);
+        }
+        inflightCalls.release();
+        LOG.warn(Thread.currentThread().getName() +
+            " failed to dispatch " + call + ", running it inline", e);
+        processCall(call, startTimeNanos);
       }
-      LOG.debug(Thread.currentThread().getName() + ": exiting");
     }
 
     private void requeueCall(Call call)
@@ -3073,6 +3335,24 @@ protected Server(String bindAddress, int port,
     this.maxRespSize = conf.getInt(
         CommonConfigurationKeys.IPC_SERVER_RPC_MAX_RESPONSE_SIZE_KEY,
         CommonConfigurationKeys.IPC_SERVER_RPC_MAX_RESPONSE_SIZE_DEFAULT);
+    int numResponseBuffers = conf.getInt(
+        CommonConfigurationKeys.IPC_SERVER_RESPONSE_DIRECT_BUFFERS_KEY,
+        CommonConfigurationKeys.IPC_SERVER_RESPONSE_DIRECT_BUFFERS_DEFAULT);
+    if (numResponseBuffers > 0) {
+      this.responseBufferPool = new DirectResponseBufferPool(conf.getInt(
+          CommonConfigurationKeys.IPC_SERVER_RESPONSE_DIRECT_BUFFER_SIZE_KEY,
+          CommonConfigurationKeys.
+              IPC_SERVER_RESPONSE_DIRECT_BUFFER_SIZE_DEFAULT),
+          numResponseBuffers);
+    } else {
+      this.responseBufferPool = null;
+    }
+    Collection<String> coalescedMethods = conf.getTrimmedStringCollection(
+        CommonConfigurationKeys.IPC_SERVER_COALESCED_METHODS_KEY);
+    this.callCoalescer = coalescedMethods.isEmpty() ? null
+        : new CallCoalescer(coalescedMethods, conf.getTrimmedStringCollection(
+            CommonConfigurationKeys.
+                IPC_SERVER_COALESCED_METHODS_AUDITED_PROTOCOLS_KEY));
     if (numReaders != -1) {
       this.readThreads = numReaders;
     } else {
@@ -3083,6 +3363,18 @@ protected Server(String bindAddress, int port,
     this.readerPendingConnectionQueue = conf.getInt(
         CommonConfigurationKeys.IPC_SERVER_RPC_READ_CONNECTION_QUEUE_SIZE_KEY,
         CommonConfigurationKeys.IPC_SERVER_RPC_READ_CONNECTION_QUEUE_SIZE_DEFAULT);
+    this.maxRequestsPerRead = Math.max(1, conf.getInt(
+        CommonConfigurationKeys.IPC_SERVER_RPC_READ_MAX_REQUESTS_KEY,
+        CommonConfigurationKeys.IPC_SERVER_RPC_READ_MAX_REQUESTS_DEFAULT));
+    if (conf.getBoolean(
+        CommonConfigurationKeys.IPC_SERVER_RPC_READ_NATIVE_EPOLL_KEY,
+        CommonConfigurationKeys.IPC_SERVER_RPC_READ_NATIVE_EPOLL_DEFAULT)) {
+      this.useNativeEpoll = NativeEpoll.isAvailable();
+      if (!useNativeEpoll) {
+        LOG.warn("Socket readers use selectors, since native epoll is not "
+            + "available: " + NativeEpoll.getLoadingFailureReason());
+      }
+    }
 
     // Setup appropriate callqueue
     final String prefix = getQueueClassPrefix();
@@ -3105,7 +3397,7 @@ protected Server(String bindAddress, int port,
     this.port = listener.getAddress().getPort();
     connectionManager = new ConnectionManager();
     this.rpcMetrics = RpcMetrics.create(this, conf);
-    this.rpcDetailedMetrics = RpcDetailedMetrics.create(this.port);
+    this.rpcDetailedMetrics = RpcDetailedMetrics.create(this.port, conf);
     this.tcpNoDelay = conf.getBoolean(
         CommonConfigurationKeysPublic.IPC_SERVER_TCPNODELAY_KEY,
         CommonConfigurationKeysPublic.IPC_SERVER_TCPNODELAY_DEFAULT);
@@ -3114,6 +3406,23 @@ protected Server(String bindAddress, int port,
         CommonConfigurationKeysPublic.IPC_SERVER_LOG_SLOW_RPC,
         CommonConfigurationKeysPublic.IPC_SERVER_LOG_SLOW_RPC_DEFAULT));
 
+    if (conf.getBoolean(
+        CommonConfigurationKeys.IPC_SERVER_HANDLER_VIRTUAL_THREADS_ENABLED_KEY,
+        CommonConfigurationKeys.
+            IPC_SERVER_HANDLER_VIRTUAL_THREADS_ENABLED_DEFAULT)) {
+      ThreadFactory factory = newVirtualThreadFactory(
+          "IPC Server virtual handler on default port " + this.port + " #");
+      if (factory != null) {
+        setCallThreadFactory(factory, conf.getInt(CommonConfigurationKeys.
+                IPC_SERVER_HANDLER_VIRTUAL_THREADS_MAX_INFLIGHT_KEY,
+            CommonConfigurationKeys.
+                IPC_SERVER_HANDLER_VIRTUAL_THREADS_MAX_INFLIGHT_DEFAULT));
+      } else {
+        LOG.warn("Virtual threads are not supported by this JVM, calls on " +
+            "port {} will run on {} handler threads", this.port, handlerCount);
+      }
+    }
+
     // Create the responder here
     responder = new Responder();
     
@@ -3127,6 +3436,28 @@ protected Server(String bindAddress, int port,
         HealthCheckFailedException.class);
   }
 
+  /**
+   * Create a factory for virtual threads named with the given prefix and an
+   * increasing counter. Virtual threads need JDK 21+ and are looked up
+   * reflectively so that the server still builds and runs on older JDKs.
+   *
+   * @param namePrefix prefix of the thread names.
+   * @return the thread factory, or null if virtual threads are unavailable.
+   */
+  @VisibleForTesting
+  static ThreadFactory newVirtualThreadFactory(String namePrefix) {
+    try {
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      builder = builderClass.getMethod("name", String.class, long.class)
+          .invoke(builder, namePrefix, 0L);
+      return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      LOG.debug("Virtual threads are unavailable", e);
+      return null;
+    }
+  }
+
   public synchronized void addAuxiliaryListener(int auxiliaryPort)
       throws IOException {
     if (auxiliaryListenerMap == null) {
@@ -3252,17 +3583,30 @@ private void setupResponse(
 
   private void setupResponse(RpcCall call,
       RpcResponseHeaderProto header, Writable rv) throws IOException {
-    final byte[] response;
+    final ByteBuffer response;
     if (rv == null || (rv instanceof RpcWritable.ProtobufWrapper)) {
-      response = setupResponseForProtobuf(header, rv);
+      response = setupResponseForProtobuf(call, header, rv);
     } else {
-      response = setupResponseForWritable(header, rv);
+      response = ByteBuffer.wrap(setupResponseForWritable(header, rv));
     }
-    if (response.length > maxRespSize) {
-      LOG.warn("Large response size " + response.length + " for call "
+    if (response.remaining() > maxRespSize) {
+      LOG.warn("Large response size " + response.remaining() + " for call "
           + call.toString());
     }
-    call.setResponse(ByteBuffer.wrap(response));
+    call.setResponse(response);
+  }
+
+  /**
+   * Drop the response of the call, returning its buffer to the pool if it
+   * came from there.
+   */
+  private void releaseResponse(RpcCall call) {
+    ByteBuffer response = call.rpcResponse;
+    call.rpcResponse = null;
+    // only pooled responses are direct
+    if (response != null && response.isDirect()) {
+      responseBufferPool.release(response);
+    }
   }
 
   private byte[] setupResponseForWritable(
@@ -3285,8 +3629,9 @@ private byte[] setupResponseForWritable(
 
 
   // writing to a pre-allocated array is the most efficient way to construct
-  // a protobuf response.
-  private byte[] setupResponseForProtobuf(
+  // a protobuf response.  a pooled direct buffer is better still since the
+  // responder can then write it to the socket without another copy.
+  private ByteBuffer setupResponseForProtobuf(RpcCall call,
       RpcResponseHeaderProto header, Writable rv) throws IOException {
     Message payload = (rv != null)
         ? ((RpcWritable.ProtobufWrapper)rv).getMessage() : null;
@@ -3294,18 +3639,43 @@ private byte[] setupResponseForProtobuf(
     if (payload != null) {
       length += getDelimitedLength(payload);
     }
-    byte[] buf = new byte[length + 4];
-    CodedOutputStream cos = CodedOutputStream.newInstance(buf);
-    // the stream only supports little endian ints
-    cos.writeRawByte((byte)((length >>> 24) & 0xFF));
-    cos.writeRawByte((byte)((length >>> 16) & 0xFF));
-    cos.writeRawByte((byte)((length >>>  8) & 0xFF));
-    cos.writeRawByte((byte)((length >>>  0) & 0xFF));
-    cos.writeUInt32NoTag(header.getSerializedSize());
-    header.writeTo(cos);
-    if (payload != null) {
-      cos.writeUInt32NoTag(payload.getSerializedSize());
-      payload.writeTo(cos);
+    ByteBuffer buf = null;
+    // sasl wraps the response array, so it can't be direct.
+    if (responseBufferPool != null && !call.connection.useWrap) {
+      buf = responseBufferPool.get(length + 4);
+      if (buf == null) {
+        rpcMetrics.incrResponseBufferPoolMisses();
+      }
+    }
+    final CodedOutputStream cos;
+    if (buf != null) {
+      cos = CodedOutputStream.newInstance(buf);
+    } else {
+      byte[] array = new byte[length + 4];
+      cos = CodedOutputStream.newInstance(array);
+      buf = ByteBuffer.wrap(array);
+    }
+    try {
+      // the stream only supports little endian ints
+      cos.writeRawByte((byte)((length >>> 24) & 0xFF));
+      cos.writeRawByte((byte)((length >>> 16) & 0xFF));
+      cos.writeRawByte((byte)((length >>>  8) & 0xFF));
+      cos.writeRawByte((byte)((length >>>  0) & 0xFF));
+      cos.writeUInt32NoTag(header.getSerializedSize());
+      header.writeTo(cos);
+      if (payload != null) {
+        cos.writeUInt32NoTag(payload.getSerializedSize());
+        payload.writeTo(cos);
+      }
+      if (buf.isDirect()) {
+        cos.flush();
+        buf.flip();
+      }
+    } catch (IOException | RuntimeException e) {
+      if (buf.isDirect()) {
+        responseBufferPool.release(buf);
+      }
+      throw e;
     }
     return buf;
   }
@@ -3415,11 +3785,38 @@ public synchronized void stop() {
       }
     }
     responder.interrupt();
+    stopCallThreads();
     notifyAll();
     this.rpcMetrics.shutdown();
     this.rpcDetailedMetrics.shutdown();
   }
 
+  /**
+   * Interrupt the threads running dispatched calls and wait, for up to
+   * {@link #CALL_THREADS_JOIN_TIMEOUT_MS} in total, for them to exit.
+   */
+  private void stopCallThreads() {
+    for (Thread thread : callThreads) {
+      thread.interrupt();
+    }
+    long deadline = Time.monotonicNow() + CALL_THREADS_JOIN_TIMEOUT_MS;
+    try {
+      for (Thread thread : callThreads) {
+        long remaining = deadline - Time.monotonicNow();
+        if (remaining <= 0) {
+          break;
+        }
+        thread.join(remaining);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (!callThreads.isEmpty()) {
+      LOG.warn("{} dispatched calls still running after the server stopped",
+          callThreads.size());
+    }
+  }
+
   /** Wait for the server to be stopped.
    * Does not wait for all subthreads to finish.
    *  See {@link #stop()}.
@@ -3559,6 +3956,55 @@ public int getMaxQueueSize() {
     return maxQueueSize;
   }
 
+  /**
+   * The number of direct response buffers the server has allocated.
+   * @return the number of allocated response buffers.
+   */
+  public int getNumResponseBuffersAllocated() {
+    return responseBufferPool == null ? 0
+        : responseBufferPool.getNumAllocated();
+  }
+
+  /**
+   * The number of direct response buffers holding unsent responses.
+   * @return the number of response buffers in use.
+   */
+  public int getNumResponseBuffersInUse() {
+    return responseBufferPool == null ? 0 : responseBufferPool.getNumInUse();
+  }
+
+  /**
+   * @return the coalescer of identical in-flight calls, or null if no
+   *         methods are coalesced.
+   */
+  CallCoalescer getCallCoalescer() {
+    return callCoalescer;
+  }
+
+  /**
+   * Set the auditor of the coalesced calls of a protocol whose methods audit
+   * their calls. Only the methods it can audit are coalesced then, and the
+   * calls answered with the result of an identical call are audited by it.
+   * @param protocol the protocol name
+   * @param auditor the auditor
+   */
+  public void setCoalescedCallAuditor(String protocol,
+      CoalescedCallAuditor auditor) {
+    if (callCoalescer != null) {
+      callCoalescer.setAuditor(protocol, auditor);
+    }
+  }
+
+  /**
+   * @return the last state id seen by the server, or Long.MIN_VALUE if it
+   *         has no alignment context.
+   */
+  long getLastSeenStateId() {
+    AlignmentContext context = alignmentContext;
+    return context == null ? Long.MIN_VALUE
+        : context.getLastSeenStateId();
+  }
+
   /**
    * The number of reader threads for this server.
    * @return The number of reader threads.
@@ -3587,7 +4033,8 @@ public int getNumReaders() {
   private int channelWrite(WritableByteChannel channel, 
                            ByteBuffer buffer) throws IOException {
     
-    int count =  (buffer.remaining() <= NIO_BUFFER_LIMIT) ?
+    // direct buffers are written as is, the jdk only copies heap buffers.
+    int count = (buffer.isDirect() || buffer.remaining() <= NIO_BUFFER_LIMIT) ?
                  channel.write(buffer) : channelIO(null, channel, buffer);
     if (count > 0) {
       rpcMetrics.incrSentBytes(count);
@@ -3785,6 +4232,15 @@ boolean close(Connection connection) {
         // only close if actually removed to avoid double-closing due
         // to possible races
         connection.close();
+        // responses that will never be sent can give back their buffers.
+        // the queue is cleared too, so that later responses are not queued
+        // behind calls that are never processed.
+        synchronized (connection.responseQueue) {
+          for (RpcCall call : connection.responseQueue) {
+            releaseResponse(call);
+          }
+          connection.responseQueue.clear();
+        }
         // Remove authorized users only
         if (connection.user != null && connection.connectionContextRead) {
           decrUserConnections(connection.user.getShortUserName());
@@ -18,7 +18,9 @@
 
 package org.apache.hadoop.ipc;
 
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import org.apache.hadoop.conf.Configuration;
 import org.slf4j.Logger;
@@ -37,11 +39,25 @@
  *
  * There may be more reads than the minimum due to race conditions. This is
  * allowed by design for performance reasons.
+ *
+ * If queue time targets are configured, one per queue in milliseconds, the
+ * weights adapt at the start of each cycle: a queue whose recent average
+ * queue time exceeds its target has its weight multiplied by how far it is
+ * over, up to {@value #MAX_WEIGHT_SCALE} times the configured weight. This
+ * keeps interactive callers within their target even when a heavy user
+ * keeps the lower priority queues full.
  */
 public class WeightedRoundRobinMultiplexer implements RpcMultiplexer {
   // Config keys
   public static final String IPC_CALLQUEUE_WRRMUX_WEIGHTS_KEY =
     "faircallqueue.multiplexer.weights";
+  public static final String IPC_CALLQUEUE_WRRMUX_QUEUE_TIME_TARGETS_KEY =
+    "faircallqueue.multiplexer.queue-time-targets";
+
+  // Bounds how far the adaptive weights move from the configured ones.
+  static final int MAX_WEIGHT_SCALE = 8;
+  // Weight of each new queue time in its queue's moving average.
+  private static final double QUEUE_TIME_SMOOTHING = 0.05;
 
   public static final Logger LOG =
       LoggerFactory.getLogger(WeightedRoundRobinMultiplexer.class);
@@ -52,6 +68,10 @@ public class WeightedRoundRobinMultiplexer implements RpcMultiplexer {
   private final AtomicInteger requestsLeft; // Number of requests left for this queue
 
   private int[] queueWeights; // The weights for each queue
+  private volatile int[] currentWeights; // The weights of the current cycle
+  private final long[] queueTimeTargets; // Target queue time of each queue
+  // Average queue time of each queue, as raw double bits
+  private final AtomicLongArray avgQueueTimes;
 
   public WeightedRoundRobinMultiplexer(int aNumQueues, String ns,
     Configuration conf) {
@@ -72,6 +92,23 @@ public WeightedRoundRobinMultiplexer(int aNumQueues, String ns,
         this.numQueues + " weights: one for each priority level.");
     }
 
+    long[] targets = conf.getTrimmedStringCollection(ns + "." +
+        IPC_CALLQUEUE_WRRMUX_QUEUE_TIME_TARGETS_KEY).stream()
+        .mapToLong(Long::parseLong).toArray();
+    if (targets.length == 0) {
+      this.queueTimeTargets = null;
+      this.avgQueueTimes = null;
+    } else if (targets.length != this.numQueues) {
+      throw new IllegalArgumentException(ns + "." +
+          IPC_CALLQUEUE_WRRMUX_QUEUE_TIME_TARGETS_KEY + " must specify " +
+          "exactly " + this.numQueues + " targets: one for each priority " +
+          "level.");
+    } else {
+      this.queueTimeTargets = targets;
+      this.avgQueueTimes = new AtomicLongArray(this.numQueues);
+    }
+    this.currentWeights = this.queueWeights;
+
     this.currentQueueIndex = new AtomicInteger(0);
     this.requestsLeft = new AtomicInteger(this.queueWeights[0]);
 
@@ -106,9 +143,13 @@ private void moveToNextQueue() {
     // the negatives
     this.currentQueueIndex.set(nextIdx);
 
+    if (nextIdx == 0 && queueTimeTargets != null) {
+      updateWeights();
+    }
+
     // Finally, reset requestsLeft. This will enable moveToNextQueue to be
     // called again, for the new currentQueueIndex
-    this.requestsLeft.set(this.queueWeights[nextIdx]);
+    this.requestsLeft.set(this.currentWeights[nextIdx]);
     LOG.debug("Moving to next queue from queue index {} to index {}, " +
         "number of requests left for current queue: {}.",
         thisIdx, nextIdx, requestsLeft);
@@ -139,6 +180,47 @@ private int getCurrentIndex() {
     return this.currentQueueIndex.get();
   }
 
+  /**
+   * Scale the configured weight of each queue by how far its average queue
+   * time is over its target.
+   */
+  private void updateWeights() {
+    int[] weights = new int[numQueues];
+    for (int i = 0; i < numQueues; i++) {
+      double scale = getAverageQueueTime(i) / Math.max(1, queueTimeTargets[i]);
+      scale = Math.min(Math.max(scale, 1), MAX_WEIGHT_SCALE);
+      weights[i] = (int) Math.round(queueWeights[i] * scale);
+    }
+    if (!Arrays.equals(weights, currentWeights)) {
+      LOG.debug("Adjusting weights from {} to {}.",
+          Arrays.toString(currentWeights), Arrays.toString(weights));
+      currentWeights = weights;
+    }
+  }
+
+  double getAverageQueueTime(int priority) {
+    return Double.longBitsToDouble(avgQueueTimes.get(priority));
+  }
+
+  int[] getCurrentWeights() {
+    return currentWeights;
+  }
+
+  @Override
+  public void addQueueTime(int priority, long queueTimeMs) {
+    if (avgQueueTimes == null || priority < 0 || priority >= numQueues) {
+      return;
+    }
+    long bits;
+    long newBits;
+    do {
+      bits = avgQueueTimes.get(priority);
+      double avg = Double.longBitsToDouble(bits);
+      newBits = Double.doubleToLongBits(
+          avg + QUEUE_TIME_SMOOTHING * (queueTimeMs - avg));
+    } while (!avgQueueTimes.compareAndSet(priority, bits, newBits));
+  }
+
   /**
    * Use the mux by getting and advancing index.
    */
@@ -89,6 +89,14 @@ public void init(String namespace, Configuration conf) {
     }
   }
 
+  /**
+   * @param timing the timing
+   * @return the configured weight of the timing.
+   */
+  long getWeight(Timing timing) {
+    return weights[timing.ordinal()];
+  }
+
   /**
    * Calculates a weighted sum of the times stored on the provided processing
    * details to be used as the cost in {@link DecayRpcScheduler}.
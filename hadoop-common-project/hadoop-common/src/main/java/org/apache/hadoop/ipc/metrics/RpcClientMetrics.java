@@ -0,0 +1,131 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.ipc.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.CommonConfigurationKeys;
+import org.apache.hadoop.metrics2.MetricsCollector;
+import org.apache.hadoop.metrics2.MetricsSource;
+import org.apache.hadoop.metrics2.annotation.Metrics;
+import org.apache.hadoop.metrics2.lib.DefaultMetricsSystem;
+import org.apache.hadoop.metrics2.lib.MetricsRegistry;
+import org.apache.hadoop.metrics2.lib.MutableHistogram;
+import org.apache.hadoop.metrics2.lib.MutableHistograms;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * This class is for maintaining the call latency histograms of the
+ * connections of an IPC client and publishing them through the metrics
+ * interfaces. One source is registered for each client, rather than for
+ * each connection, so reconnecting does not register a new source.
+ */
+@InterfaceAudience.Private
+@Metrics(about="IPC client metrics", context="rpcclient")
+public class RpcClientMetrics implements MetricsSource {
+
+  static final Logger LOG = LoggerFactory.getLogger(RpcClientMetrics.class);
+  final MetricsRegistry registry;
+  final String name;
+  private final MutableHistograms callTimeHistograms;
+  // number of open connections of each name, guarded by this
+  private final Map<String, Integer> connectionCounts = new HashMap<>();
+
+  RpcClientMetrics(String clientId, Configuration conf) {
+    name = "RpcClientActivityForClient" + clientId;
+    registry = new MetricsRegistry("rpcclient")
+        .tag("clientId", "IPC client id", clientId);
+    int interval = conf.getInt(
+        CommonConfigurationKeys.RPC_METRICS_HISTOGRAMS_INTERVAL_KEY,
+        CommonConfigurationKeys.RPC_METRICS_HISTOGRAMS_INTERVAL_DEFAULT);
+    callTimeHistograms = registry.newHistograms("callTimeHistograms",
+        "CallTime", "ops", "latencyMicros", interval,
+        TimeUnit.HOURS.toMicros(1));
+    LOG.debug("Initialized " + registry);
+  }
+
+  public String name() { return name; }
+
+  /**
+   * Create and register the metrics of a client, if enabled.
+   * @param clientId the id of the client
+   * @param conf the configuration of the client
+   * @return the metrics, or null if they are disabled
+   */
+  public static RpcClientMetrics create(String clientId, Configuration conf) {
+    if (!conf.getBoolean(
+        CommonConfigurationKeys.IPC_CLIENT_METRICS_HISTOGRAMS_ENABLE,
+        CommonConfigurationKeys.IPC_CLIENT_METRICS_HISTOGRAMS_ENABLE_DEFAULT)) {
+      return null;
+    }
+    RpcClientMetrics m = new RpcClientMetrics(clientId, conf);
+    return DefaultMetricsSystem.instance().register(m.name, null, m);
+  }
+
+  /**
+   * Register a connection. Connections of the same name, e.g. to the same
+   * server and pool slot for different protocols, share a histogram.
+   * @param connection the name of the connection
+   * @return the histogram to add the latency of the connection's calls to,
+   *         in microseconds from sending the call until its response was
+   *         received.
+   */
+  public synchronized MutableHistogram addConnection(String connection) {
+    connectionCounts.merge(connection, 1, Integer::sum);
+    return callTimeHistograms.getOrCreate(connection);
+  }
+
+  /**
+   * Unregister a closed connection. Its histogram is dropped when no other
+   * connection of the same name uses it.
+   * @param connection the name of the connection
+   * @param histogram the histogram returned by {@link #addConnection}
+   */
+  public synchronized void removeConnection(String connection,
+      MutableHistogram histogram) {
+    if (connectionCounts.merge(connection, -1,
+        (count, delta) -> count + delta == 0 ? null : count + delta) == null) {
+      callTimeHistograms.remove(connection, histogram);
+    }
+  }
+
+  @VisibleForTesting
+  public MutableHistograms getCallTimeHistograms() {
+    return callTimeHistograms;
+  }
+
+  @Override
+  public void getMetrics(MetricsCollector collector, boolean all) {
+    registry.snapshot(collector.addRecord(registry.info()), all);
+  }
+
+  /**
+   * Shutdown the instrumentation for the process
+   */
+  public void shutdown() {
+    DefaultMetricsSystem.instance().unregisterSource(name);
+    callTimeHistograms.stop();
+  }
+}
@@ -18,10 +18,13 @@
 package org.apache.hadoop.ipc.metrics;
 
 import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.CommonConfigurationKeys;
 import org.apache.hadoop.metrics2.annotation.Metric;
 import org.apache.hadoop.metrics2.annotation.Metrics;
 import org.apache.hadoop.metrics2.lib.DefaultMetricsSystem;
 import org.apache.hadoop.metrics2.lib.MetricsRegistry;
+import org.apache.hadoop.metrics2.lib.MutableHistograms;
 import org.apache.hadoop.metrics2.lib.MutableRatesWithAggregation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,6 +43,10 @@ public class RpcDetailedMetrics {
   static final Logger LOG = LoggerFactory.getLogger(RpcDetailedMetrics.class);
   final MetricsRegistry registry;
   final String name;
+  // Per method latency histograms, or null if disabled
+  private MutableHistograms queueTimeHistograms;
+  private MutableHistograms lockWaitTimeHistograms;
+  private MutableHistograms processingTimeHistograms;
 
   RpcDetailedMetrics(int port) {
     name = "RpcDetailedActivityForPort"+ port;
@@ -48,6 +55,22 @@ public class RpcDetailedMetrics {
     LOG.debug(registry.info().toString());
   }
 
+  RpcDetailedMetrics(int port, Configuration conf) {
+    this(port);
+    if (conf.getBoolean(CommonConfigurationKeys.RPC_METRICS_HISTOGRAMS_ENABLE,
+        CommonConfigurationKeys.RPC_METRICS_HISTOGRAMS_ENABLE_DEFAULT)) {
+      int interval = conf.getInt(
+          CommonConfigurationKeys.RPC_METRICS_HISTOGRAMS_INTERVAL_KEY,
+          CommonConfigurationKeys.RPC_METRICS_HISTOGRAMS_INTERVAL_DEFAULT);
+      queueTimeHistograms = RpcMetrics.newLatencyHistograms(registry,
+          "queueTimeHistograms", "QueueTime", interval);
+      lockWaitTimeHistograms = RpcMetrics.newLatencyHistograms(registry,
+          "lockWaitTimeHistograms", "LockWaitTime", interval);
+      processingTimeHistograms = RpcMetrics.newLatencyHistograms(registry,
+          "processingTimeHistograms", "ProcessingTime", interval);
+    }
+  }
+
   public String name() { return name; }
 
   public static RpcDetailedMetrics create(int port) {
@@ -55,6 +78,11 @@ public static RpcDetailedMetrics create(int port) {
     return DefaultMetricsSystem.instance().register(m.name, null, m);
   }
 
+  public static RpcDetailedMetrics create(int port, Configuration conf) {
+    RpcDetailedMetrics m = new RpcDetailedMetrics(port, conf);
+    return DefaultMetricsSystem.instance().register(m.name, null, m);
+  }
+
   /**
    * Initialize the metrics for JMX with protocol methods
    * @param protocol the protocol class
@@ -78,11 +106,33 @@ public void addDeferredProcessingTime(String name, long processingTime) {
     deferredRpcRates.add(name, processingTime);
   }
 
+  /**
+   * Add the latencies of an RPC call to the histograms of its method, if
+   * enabled.
+   * @param rpcCallName of the RPC call
+   * @param queueTime the queue time
+   * @param lockWaitTime the lock wait time
+   * @param processingTime the processing time, excluding lock wait time
+   */
+  public void addLatencies(String rpcCallName, long queueTime,
+      long lockWaitTime, long processingTime) {
+    if (processingTimeHistograms != null) {
+      queueTimeHistograms.add(rpcCallName, queueTime);
+      lockWaitTimeHistograms.add(rpcCallName, lockWaitTime);
+      processingTimeHistograms.add(rpcCallName, processingTime);
+    }
+  }
+
   /**
    * Shutdown the instrumentation for the process
    */
   //@Override // some instrumentation interface
   public void shutdown() {
     DefaultMetricsSystem.instance().unregisterSource(name);
+    if (processingTimeHistograms != null) {
+      queueTimeHistograms.stop();
+      lockWaitTimeHistograms.stop();
+      processingTimeHistograms.stop();
+    }
   }
 }
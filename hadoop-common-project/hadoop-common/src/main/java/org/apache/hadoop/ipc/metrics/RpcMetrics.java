@@ -30,6 +30,7 @@
 import org.apache.hadoop.metrics2.lib.DefaultMetricsSystem;
 import org.apache.hadoop.metrics2.lib.MetricsRegistry;
 import org.apache.hadoop.metrics2.lib.MutableCounterLong;
+import org.apache.hadoop.metrics2.lib.MutableHistograms;
 import org.apache.hadoop.metrics2.lib.MutableQuantiles;
 import org.apache.hadoop.metrics2.lib.MutableRate;
 import org.slf4j.Logger;
@@ -48,6 +49,7 @@ public class RpcMetrics {
   final MetricsRegistry registry;
   final String name;
   final boolean rpcQuantileEnable;
+  final boolean rpcHistogramsEnable;
   /** The time unit used when storing/accessing time durations. */
   public final static TimeUnit TIMEUNIT = TimeUnit.MILLISECONDS;
   
@@ -91,11 +93,34 @@ public class RpcMetrics {
             "latency", interval);
       }
     }
+    rpcHistogramsEnable = conf.getBoolean(
+        CommonConfigurationKeys.RPC_METRICS_HISTOGRAMS_ENABLE,
+        CommonConfigurationKeys.RPC_METRICS_HISTOGRAMS_ENABLE_DEFAULT);
+    if (rpcHistogramsEnable) {
+      int interval = conf.getInt(
+          CommonConfigurationKeys.RPC_METRICS_HISTOGRAMS_INTERVAL_KEY,
+          CommonConfigurationKeys.RPC_METRICS_HISTOGRAMS_INTERVAL_DEFAULT);
+      rpcPriorityQueueTimeHistograms = newLatencyHistograms(registry,
+          "rpcPriorityQueueTimeHistograms", "QueueTime", interval);
+      rpcPriorityLockWaitTimeHistograms = newLatencyHistograms(registry,
+          "rpcPriorityLockWaitTimeHistograms", "LockWaitTime", interval);
+      rpcPriorityProcessingTimeHistograms = newLatencyHistograms(registry,
+          "rpcPriorityProcessingTimeHistograms", "ProcessingTime", interval);
+    }
     LOG.debug("Initialized " + registry);
   }
 
   public String name() { return name; }
 
+  /**
+   * Create histograms of latencies in {@link #TIMEUNIT}, up to an hour.
+   */
+  static MutableHistograms newLatencyHistograms(MetricsRegistry registry,
+      String name, String suffix, int interval) {
+    return registry.newHistograms(name, suffix, "ops", "latency", interval,
+        TimeUnit.HOURS.toMillis(1));
+  }
+
   public static RpcMetrics create(Server server, Configuration conf) {
     RpcMetrics m = new RpcMetrics(server, conf);
     return DefaultMetricsSystem.instance().register(m.name, null, m);
@@ -111,6 +136,9 @@ public static RpcMetrics create(Server server, Configuration conf) {
   MutableQuantiles[] rpcProcessingTimeQuantiles;
   @Metric("Deferred Processing time") MutableRate deferredRpcProcessingTime;
   MutableQuantiles[] deferredRpcProcessingTimeQuantiles;
+  MutableHistograms rpcPriorityQueueTimeHistograms;
+  MutableHistograms rpcPriorityLockWaitTimeHistograms;
+  MutableHistograms rpcPriorityProcessingTimeHistograms;
   @Metric("Number of authentication failures")
   MutableCounterLong rpcAuthenticationFailures;
   @Metric("Number of authentication successes")
@@ -123,6 +151,10 @@ public static RpcMetrics create(Server server, Configuration conf) {
   MutableCounterLong rpcClientBackoff;
   @Metric("Number of Slow RPC calls")
   MutableCounterLong rpcSlowCalls;
+  @Metric("Number of responses that did not get a pooled direct buffer")
+  MutableCounterLong rpcResponseBufferPoolMisses;
+  @Metric("Number of calls answered with the result of an identical call")
+  MutableCounterLong rpcCoalescedCalls;
 
   @Metric("Number of open connections") public int numOpenConnections() {
     return server.getNumOpenConnections();
@@ -141,6 +173,16 @@ public String numOpenConnectionsPerUser() {
     return server.getNumDroppedConnections();
   }
 
+  @Metric("Number of pooled direct response buffers allocated")
+  public int responseBuffersAllocated() {
+    return server.getNumResponseBuffersAllocated();
+  }
+
+  @Metric("Number of pooled direct response buffers in use")
+  public int responseBuffersInUse() {
+    return server.getNumResponseBuffersInUse();
+  }
+
   // Public instrumentation methods that could be extracted to an
   // abstract class if we decide to do custom instrumentation classes a la
   // JobTrackerInstrumentation. The methods with //@Override comment are
@@ -184,6 +226,11 @@ public void incrAuthorizationFailures() {
   //@Override
   public void shutdown() {
     DefaultMetricsSystem.instance().unregisterSource(name);
+    if (rpcHistogramsEnable) {
+      rpcPriorityQueueTimeHistograms.stop();
+      rpcPriorityLockWaitTimeHistograms.stop();
+      rpcPriorityProcessingTimeHistograms.stop();
+    }
   }
 
   /**
@@ -239,6 +286,36 @@ public void addRpcProcessingTime(long processingTime) {
     }
   }
 
+  /**
+   * Add the latencies of a call to the histograms of its priority level, if
+   * enabled.
+   * @param priorityLevel the priority level of the call
+   * @param queueTime the queue time
+   * @param lockWaitTime the lock wait time
+   * @param processingTime the processing time, excluding lock wait time
+   */
+  public void addPriorityLatencies(int priorityLevel, long queueTime,
+      long lockWaitTime, long processingTime) {
+    if (rpcHistogramsEnable) {
+      String priority = priorityName(priorityLevel);
+      rpcPriorityQueueTimeHistograms.add(priority, queueTime);
+      rpcPriorityLockWaitTimeHistograms.add(priority, lockWaitTime);
+      rpcPriorityProcessingTimeHistograms.add(priority, processingTime);
+    }
+  }
+
+  private static final String[] PRIORITY_NAMES = new String[16];
+  static {
+    for (int i = 0; i < PRIORITY_NAMES.length; i++) {
+      PRIORITY_NAMES[i] = "Priority" + i;
+    }
+  }
+
+  private static String priorityName(int priorityLevel) {
+    return priorityLevel >= 0 && priorityLevel < PRIORITY_NAMES.length
+        ? PRIORITY_NAMES[priorityLevel] : "Priority" + priorityLevel;
+  }
+
   public void addDeferredRpcProcessingTime(long processingTime) {
     deferredRpcProcessingTime.add(processingTime);
     if (rpcQuantileEnable) {
@@ -262,6 +339,22 @@ public void incrClientBackoff() {
   public  void incrSlowRpc() {
     rpcSlowCalls.incr();
   }
+
+  /**
+   * Increments the counter of responses that could not be serialized into a
+   * pooled direct buffer.
+   */
+  public void incrResponseBufferPoolMisses() {
+    rpcResponseBufferPoolMisses.incr();
+  }
+
+  /**
+   * Increments the counter of calls answered with the result of an identical
+   * call in flight.
+   */
+  public void incrCoalescedCalls() {
+    rpcCoalescedCalls.incr();
+  }
   /**
    * Returns a MutableRate Counter.
    * @return Mutable Rate
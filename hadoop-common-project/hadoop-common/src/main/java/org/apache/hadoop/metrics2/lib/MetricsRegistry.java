@@ -227,6 +227,32 @@ public synchronized MutableQuantiles newQuantiles(String name, String desc,
     return ret;
   }
 
+  /**
+   * Create a set of mutable histograms, one for each name values are added
+   * for, that publish percentiles of their values.
+   * @param name of the metric
+   * @param suffix of the histogram names (e.g., "QueueTime")
+   * @param sampleName of the metric (e.g., "Ops")
+   * @param valueName of the metric (e.g., "Time" or "Latency")
+   * @param interval rollover interval of the histograms in seconds
+   * @param highestTrackableValue larger values are recorded as this value
+   * @return a new set of histograms
+   * @throws MetricsException if interval is not a positive integer
+   */
+  public synchronized MutableHistograms newHistograms(String name,
+      String suffix, String sampleName, String valueName, int interval,
+      long highestTrackableValue) {
+    checkMetricName(name);
+    if (interval <= 0) {
+      throw new MetricsException("Interval should be positive.  Value passed" +
+          " is: " + interval);
+    }
+    MutableHistograms ret = new MutableHistograms(suffix, sampleName,
+        valueName, interval, highestTrackableValue);
+    metricsMap.put(name, ret);
+    return ret;
+  }
+
   /**
    * Create a mutable metric with stats
    * @param name  of the metric
@@ -0,0 +1,223 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.metrics2.lib;
+
+import static org.apache.hadoop.metrics2.lib.Interns.info;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.classification.InterfaceStability;
+import org.apache.hadoop.metrics2.MetricsInfo;
+import org.apache.hadoop.metrics2.MetricsRecordBuilder;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Records a stream of non-negative long values in a histogram of
+ * logarithmically sized buckets, and publishes its count, percentiles and
+ * maximum for each interval. Values below {@value #SUB_BUCKET_COUNT} are
+ * counted exactly, and larger values in buckets no wider than
+ * 1/{@value #SUB_BUCKET_COUNT} of their value, so reported percentiles are
+ * within about 3% of the true value, the highest ones included.
+ *
+ * Unlike {@link MutableQuantiles}, adding a value does not take a lock: it
+ * increments one counter, so it is cheap enough to keep a histogram for each
+ * of many names, see {@link MutableHistograms}.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Evolving
+public class MutableHistogram extends MutableMetric {
+
+  /** The published percentiles. */
+  @VisibleForTesting
+  public static final double[] PERCENTILES = {50, 75, 90, 95, 99, 99.9};
+
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+  private final MetricsInfo numInfo;
+  private final MetricsInfo[] percentileInfos;
+  private final MetricsInfo maxInfo;
+  private final int interval;
+  private final long highestTrackableValue;
+
+  // Counts since creation; an interval is the difference of two rollovers.
+  private final AtomicLongArray counts;
+  private final LongAccumulator max =
+      new LongAccumulator(Math::max, Long.MIN_VALUE);
+  private final long[] previousCounts;
+  private long previousCount = 0;
+  private long previousMax = 0;
+  private final long[] previousPercentiles;
+  private ScheduledFuture<?> scheduledTask;
+
+  private static final ScheduledExecutorService scheduler = Executors
+      .newScheduledThreadPool(1, new ThreadFactoryBuilder().setDaemon(true)
+          .setNameFormat("MutableHistogram-%d").build());
+
+  /**
+   * Instantiates a new {@link MutableHistogram} for a metric that rolls itself
+   * over on the specified time interval.
+   *
+   * @param name of the metric
+   * @param description long-form textual description of the metric
+   * @param sampleName type of items in the stream (e.g., "Ops")
+   * @param valueName type of the values
+   * @param interval rollover interval (in seconds) of the histogram
+   * @param highestTrackableValue larger values are recorded as this value
+   */
+  public MutableHistogram(String name, String description, String sampleName,
+      String valueName, int interval, long highestTrackableValue) {
+    String ucName = StringUtils.capitalize(name);
+    String usName = StringUtils.capitalize(sampleName);
+    String uvName = StringUtils.capitalize(valueName);
+    String desc = StringUtils.uncapitalize(description);
+    String lsName = StringUtils.uncapitalize(sampleName);
+    String lvName = StringUtils.uncapitalize(valueName);
+
+    numInfo = info(ucName + "Num" + usName, String.format(
+        "Number of %s for %s with %ds interval", lsName, desc, interval));
+    percentileInfos = new MetricsInfo[PERCENTILES.length];
+    for (int i = 0; i < PERCENTILES.length; i++) {
+      double p = PERCENTILES[i];
+      String percentile = p == Math.rint(p) ? String.valueOf((long) p)
+          : String.valueOf(p);
+      // 99.9 is published as 999thPercentile
+      percentileInfos[i] = info(
+          ucName + percentile.replace(".", "") + "thPercentile" + uvName,
+          String.format("%s percentile %s with %d second interval for %s",
+              percentile, lvName, interval, desc));
+    }
+    maxInfo = info(ucName + "Max" + uvName, String.format(
+        "Maximum %s with %d second interval for %s", lvName, interval, desc));
+
+    this.interval = interval;
+    this.highestTrackableValue = Math.max(highestTrackableValue, 0);
+    this.counts = new AtomicLongArray(
+        bucketIndex(this.highestTrackableValue) + 1);
+    this.previousCounts = new long[counts.length()];
+    this.previousPercentiles = new long[PERCENTILES.length];
+    scheduledTask = scheduler.scheduleWithFixedDelay(this::rollover,
+        interval, interval, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Add a value.
+   * @param value the value, negative values are recorded as 0
+   */
+  public void add(long value) {
+    value = Math.min(Math.max(value, 0), highestTrackableValue);
+    counts.incrementAndGet(bucketIndex(value));
+    max.accumulate(value);
+  }
+
+  @Override
+  public synchronized void snapshot(MetricsRecordBuilder builder,
+      boolean all) {
+    if (all || changed()) {
+      builder.addGauge(numInfo, previousCount);
+      for (int i = 0; i < PERCENTILES.length; i++) {
+        builder.addGauge(percentileInfos[i], previousPercentiles[i]);
+      }
+      builder.addGauge(maxInfo, previousMax);
+      if (changed()) {
+        clearChanged();
+      }
+    }
+  }
+
+  /**
+   * Publish the values added since the previous rollover.
+   */
+  @VisibleForTesting
+  synchronized void rollover() {
+    long[] intervalCounts = new long[previousCounts.length];
+    long total = 0;
+    for (int i = 0; i < intervalCounts.length; i++) {
+      long count = counts.get(i);
+      intervalCounts[i] = count - previousCounts[i];
+      previousCounts[i] = count;
+      total += intervalCounts[i];
+    }
+    long intervalMax = max.getThenReset();
+    previousCount = total;
+    previousMax = total == 0 ? 0 : Math.max(intervalMax, 0);
+    int bucket = 0;
+    long seen = 0;
+    for (int i = 0; i < PERCENTILES.length; i++) {
+      if (total == 0) {
+        previousPercentiles[i] = 0;
+        continue;
+      }
+      long rank = Math.max(1, (long) Math.ceil(PERCENTILES[i] / 100 * total));
+      while (seen + intervalCounts[bucket] < rank) {
+        seen += intervalCounts[bucket++];
+      }
+      // The bucket's highest value, but never above the recorded maximum.
+      previousPercentiles[i] = Math.min(highestValue(bucket), previousMax);
+    }
+    setChanged();
+  }
+
+  public int getInterval() {
+    return interval;
+  }
+
+  public synchronized void stop() {
+    if (scheduledTask != null) {
+      scheduledTask.cancel(false);
+    }
+    scheduledTask = null;
+  }
+
+  /**
+   * @param value a non-negative value
+   * @return the index of the bucket counting the value
+   */
+  @VisibleForTesting
+  static int bucketIndex(long value) {
+    if (value < SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+    // value >>> shift has SUB_BUCKET_BITS + 1 significant bits
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return shift * SUB_BUCKET_COUNT + (int) (value >>> shift);
+  }
+
+  /**
+   * @param index the index of a bucket
+   * @return the highest value counted by the bucket
+   */
+  @VisibleForTesting
+  static long highestValue(int index) {
+    if (index < 2 * SUB_BUCKET_COUNT) {
+      return index;
+    }
+    int shift = index / SUB_BUCKET_COUNT - 1;
+    long significand = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+    return ((significand + 1) << shift) - 1;
+  }
+}
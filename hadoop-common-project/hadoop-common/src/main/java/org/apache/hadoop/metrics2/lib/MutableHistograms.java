@@ -0,0 +1,138 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.metrics2.lib;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.classification.InterfaceStability;
+import org.apache.hadoop.metrics2.MetricsRecordBuilder;
+
+/**
+ * A set of {@link MutableHistogram}s with the same interval, created on
+ * first use of each name, e.g. one for each RPC method. The metrics of a
+ * histogram are named after its name followed by the suffix of the set.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Evolving
+public class MutableHistograms extends MutableMetric {
+  private final ConcurrentMap<String, MutableHistogram> histograms =
+      new ConcurrentHashMap<>();
+  private final String suffix;
+  private final String sampleName;
+  private final String valueName;
+  private final int interval;
+  private final long highestTrackableValue;
+  private volatile boolean stopped = false;
+
+  /**
+   * @param suffix of the histogram names (e.g., "QueueTime")
+   * @param sampleName type of items in the streams (e.g., "Ops")
+   * @param valueName type of the values
+   * @param interval rollover interval (in seconds) of the histograms
+   * @param highestTrackableValue larger values are recorded as this value
+   */
+  public MutableHistograms(String suffix, String sampleName,
+      String valueName, int interval, long highestTrackableValue) {
+    this.suffix = suffix;
+    this.sampleName = sampleName;
+    this.valueName = valueName;
+    this.interval = interval;
+    this.highestTrackableValue = highestTrackableValue;
+  }
+
+  /**
+   * Add a value to the histogram of the given name.
+   * @param name of the histogram
+   * @param value the value
+   */
+  public void add(String name, long value) {
+    MutableHistogram histogram = histograms.get(name);
+    if (histogram == null) {
+      if (stopped) {
+        return;
+      }
+      histogram = getOrCreate(name);
+    }
+    histogram.add(value);
+  }
+
+  /**
+   * Get the histogram of the given name, creating it if needed. Once the
+   * set is stopped, a histogram which is not published is returned.
+   * @param name of the histogram
+   * @return the histogram
+   */
+  public MutableHistogram getOrCreate(String name) {
+    MutableHistogram histogram = histograms.get(name);
+    if (histogram == null) {
+      histogram = new MutableHistogram(name + suffix,
+          name + " " + StringUtils.uncapitalize(suffix), sampleName,
+          valueName, interval, highestTrackableValue);
+      if (stopped) {
+        histogram.stop();
+        return histogram;
+      }
+      MutableHistogram existing = histograms.putIfAbsent(name, histogram);
+      if (existing != null) {
+        histogram.stop();
+        histogram = existing;
+      }
+    }
+    return histogram;
+  }
+
+  @Override
+  public void snapshot(MetricsRecordBuilder builder, boolean all) {
+    for (MutableHistogram histogram : histograms.values()) {
+      histogram.snapshot(builder, all);
+    }
+  }
+
+  /**
+   * @param name of the histogram
+   * @return the histogram, or null if no value was added to it.
+   */
+  public MutableHistogram get(String name) {
+    return histograms.get(name);
+  }
+
+  /**
+   * Stop and drop a histogram, if it is still the one of the given name.
+   * A new histogram is created if a value is added to the name again.
+   * @param name of the histogram
+   * @param histogram the histogram, see {@link #getOrCreate(String)}
+   * @return true if the histogram was dropped
+   */
+  public boolean remove(String name, MutableHistogram histogram) {
+    if (histograms.remove(name, histogram)) {
+      histogram.stop();
+      return true;
+    }
+    return false;
+  }
+
+  public void stop() {
+    stopped = true;
+    for (MutableHistogram histogram : histograms.values()) {
+      histogram.stop();
+    }
+  }
+}
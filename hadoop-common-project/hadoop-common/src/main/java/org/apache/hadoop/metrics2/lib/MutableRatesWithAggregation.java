@@ -19,6 +19,9 @@
 package org.apache.hadoop.metrics2.lib;
 
 import com.google.common.collect.Sets;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
 import java.util.Iterator;
@@ -27,6 +30,7 @@
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 import org.apache.hadoop.classification.InterfaceAudience;
 import org.apache.hadoop.classification.InterfaceStability;
 import org.apache.hadoop.metrics2.MetricsRecordBuilder;
@@ -43,7 +47,10 @@
  * should only be used for long running threads, as any metrics
  * produced between the last snapshot and the death of a thread
  * will be lost. This allows for significantly higher concurrency
- * than {@link MutableRates}. See HADOOP-24420.
+ * than {@link MutableRates}. See HADOOP-24420. Samples added from virtual
+ * threads, which are typically short lived, are accumulated in shared
+ * per-name counters instead, which are also merged into the global rate
+ * upon snapshot.
  */
 @InterfaceAudience.Public
 @InterfaceStability.Evolving
@@ -58,8 +65,12 @@ public class MutableRatesWithAggregation extends MutableMetric {
       weakReferenceQueue = new ConcurrentLinkedDeque<>();
   private final ThreadLocal<ConcurrentMap<String, ThreadSafeSampleStat>>
       threadLocalMetricsMap = new ThreadLocal<>();
+  private final ConcurrentMap<String, SharedSampleStat> sharedStats =
+      new ConcurrentHashMap<>();
   // prefix for metric name
   private String typePrefix = "";
+  // Thread#isVirtual(), or null if the JVM does not have virtual threads.
+  private static final MethodHandle IS_VIRTUAL = findIsVirtual();
 
   /**
    * Initialize the registry with all the methods in a protocol
@@ -97,6 +108,14 @@ public void init(String[] names) {
    * @param elapsed time
    */
   public void add(String name, long elapsed) {
+    if (isVirtualThread()) {
+      SharedSampleStat stat = sharedStats.get(name);
+      if (stat == null) {
+        stat = sharedStats.computeIfAbsent(name, k -> new SharedSampleStat());
+      }
+      stat.add(elapsed);
+      return;
+    }
     ConcurrentMap<String, ThreadSafeSampleStat> localStats =
         threadLocalMetricsMap.get();
     if (localStats == null) {
@@ -125,6 +144,7 @@ public synchronized void snapshot(MetricsRecordBuilder rb, boolean all) {
         aggregateLocalStatesToGlobalMetrics(map);
       }
     }
+    aggregateSharedStatsToGlobalMetrics();
     for (MutableRate globalMetric : globalMetrics.values()) {
       globalMetric.snapshot(rb, all);
     }
@@ -139,6 +159,7 @@ synchronized void collectThreadLocalStates() {
     if (localStats != null) {
       aggregateLocalStatesToGlobalMetrics(localStats);
     }
+    aggregateSharedStatsToGlobalMetrics();
   }
 
   /**
@@ -155,6 +176,17 @@ private void aggregateLocalStatesToGlobalMetrics(
     }
   }
 
+  /**
+   * Aggregates the samples added from virtual threads into the global
+   * metrics. The caller should ensure its thread safety.
+   */
+  private void aggregateSharedStatsToGlobalMetrics() {
+    for (Map.Entry<String, SharedSampleStat> entry : sharedStats.entrySet()) {
+      MutableRate globalMetric = addMetricIfNotExists(entry.getKey());
+      entry.getValue().snapshotInto(globalMetric);
+    }
+  }
+
   Map<String, MutableRate> getGlobalMetrics() {
     return globalMetrics;
   }
@@ -168,6 +200,26 @@ private synchronized MutableRate addMetricIfNotExists(String name) {
     return metric;
   }
 
+  private static MethodHandle findIsVirtual() {
+    try {
+      return MethodHandles.publicLookup().findVirtual(Thread.class,
+          "isVirtual", MethodType.methodType(boolean.class));
+    } catch (ReflectiveOperationException e) {
+      return null;
+    }
+  }
+
+  private static boolean isVirtualThread() {
+    if (IS_VIRTUAL == null) {
+      return false;
+    }
+    try {
+      return (boolean) IS_VIRTUAL.invokeExact(Thread.currentThread());
+    } catch (Throwable t) {
+      return false;
+    }
+  }
+
   private static class ThreadSafeSampleStat {
 
     private SampleStat stat = new SampleStat();
@@ -184,6 +236,34 @@ synchronized void snapshotInto(MutableRate metric) {
     }
   }
 
+  /**
+   * Sample count and total shared by all the virtual threads adding samples
+   * for one name. Adding does not take a lock, so a sample added while a
+   * snapshot is taken may have its time reported in the next interval.
+   */
+  private static class SharedSampleStat {
+
+    private final LongAdder numSamples = new LongAdder();
+    private final LongAdder total = new LongAdder();
+
+    void add(long x) {
+      numSamples.increment();
+      total.add(x);
+    }
+
+    void snapshotInto(MutableRate metric) {
+      // Read the total first: a sample racing with the snapshot then has
+      // its count reported now and its time in the next interval.
+      long time = total.sumThenReset();
+      long samples = numSamples.sumThenReset();
+      if (samples > 0) {
+        metric.add(samples, time);
+      } else if (time != 0) {
+        total.add(time);
+      }
+    }
+  }
+
   public void init(Class<?> protocol, String prefix) {
     this.typePrefix = prefix;
     init(protocol);
@@ -0,0 +1,192 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.net;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.SocketChannel;
+
+import org.apache.commons.lang3.SystemUtils;
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.util.NativeCodeLoader;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A Linux epoll instance that watches sockets for data to read.
+ * <p>
+ * Sockets are watched edge-triggered: a socket is reported when new data
+ * arrives, and is not reported again until more data arrives. Whoever
+ * handles the event must read the socket until no data is left.
+ * <p>
+ * Sockets can be added and removed from any thread, without waking up the
+ * thread that waits for events. {@link #waitForEvents(int)} must not be
+ * called by more than one thread at a time.
+ */
+@InterfaceAudience.Private
+public final class NativeEpoll implements Closeable {
+  static {
+    if (!SystemUtils.IS_OS_LINUX) {
+      loadingFailureReason = "epoll is only available on Linux.";
+    } else if (!NativeCodeLoader.isNativeCodeLoaded()) {
+      loadingFailureReason = "libhadoop cannot be loaded.";
+    } else {
+      String problem;
+      try {
+        anchorNative();
+        problem = null;
+      } catch (Throwable t) {
+        problem = "NativeEpoll#anchorNative got error: " + t.getMessage();
+      }
+      loadingFailureReason = problem;
+    }
+  }
+
+  /** Maximum number of sockets reported by one wait. */
+  static final int MAX_EVENTS = 256;
+
+  private final static String loadingFailureReason;
+
+  /**
+   * Initializes the native library code.
+   */
+  private static native void anchorNative();
+
+  public static String getLoadingFailureReason() {
+    return loadingFailureReason;
+  }
+
+  /** @return true if epoll can be used. */
+  public static boolean isAvailable() {
+    return loadingFailureReason == null;
+  }
+
+  private final int epfd;
+  private final int wakeupFd;
+  private final int[] readyFds = new int[MAX_EVENTS];
+  private int numReady = 0;
+  private boolean closed = false;
+
+  public NativeEpoll() throws IOException {
+    if (loadingFailureReason != null) {
+      throw new UnsupportedOperationException(loadingFailureReason);
+    }
+    epfd = create0();
+    int fd;
+    try {
+      fd = createWakeupFd0(epfd);
+    } catch (IOException e) {
+      close0(epfd);
+      throw e;
+    }
+    wakeupFd = fd;
+  }
+
+  /**
+   * Get the file descriptor of a socket channel.
+   *
+   * @param channel the channel.
+   * @return its file descriptor.
+   * @throws IOException if the JDK does not expose the file descriptor.
+   */
+  public static int getFd(SocketChannel channel) throws IOException {
+    Preconditions.checkState(loadingFailureReason == null,
+        loadingFailureReason);
+    return getFd0(channel);
+  }
+
+  /**
+   * Start watching a socket.
+   *
+   * @param fd the file descriptor of the socket.
+   * @throws IOException if the socket cannot be watched.
+   */
+  public void add(int fd) throws IOException {
+    add0(epfd, fd);
+  }
+
+  /**
+   * Stop watching a socket. Closing a socket stops watching it as well, so
+   * a socket that is already closed is ignored.
+   *
+   * @param fd the file descriptor of the socket.
+   * @throws IOException if the socket cannot be removed.
+   */
+  public void remove(int fd) throws IOException {
+    remove0(epfd, fd);
+  }
+
+  /**
+   * Wait for sockets to receive data.
+   *
+   * @param timeoutMs maximum time to wait, 0 to return immediately and -1
+   *                  to wait until a socket is ready or {@link #wakeup()} is
+   *                  called.
+   * @return the number of ready sockets, see {@link #getReadyFd(int)}.
+   * @throws IOException if the wait fails.
+   */
+  public int waitForEvents(int timeoutMs) throws IOException {
+    numReady = wait0(epfd, wakeupFd, readyFds, timeoutMs);
+    return numReady;
+  }
+
+  /**
+   * @param i index of the ready socket, less than the number returned by
+   *          the last {@link #waitForEvents(int)}.
+   * @return the file descriptor of the ready socket.
+   */
+  public int getReadyFd(int i) {
+    Preconditions.checkElementIndex(i, numReady);
+    return readyFds[i];
+  }
+
+  /**
+   * Make the current or next {@link #waitForEvents(int)} return.
+   *
+   * @throws IOException if the waiting thread cannot be woken up.
+   */
+  public void wakeup() throws IOException {
+    wakeup0(wakeupFd);
+  }
+
+  @Override
+  public synchronized void close() {
+    if (!closed) {
+      closed = true;
+      close0(wakeupFd);
+      close0(epfd);
+    }
+  }
+
+  private static native int create0() throws IOException;
+
+  private static native int createWakeupFd0(int epfd) throws IOException;
+
+  private static native int getFd0(SocketChannel channel) throws IOException;
+
+  private static native void add0(int epfd, int fd) throws IOException;
+
+  private static native void remove0(int epfd, int fd) throws IOException;
+
+  private static native int wait0(int epfd, int wakeupFd, int[] readyFds,
+      int timeoutMs) throws IOException;
+
+  private static native void wakeup0(int wakeupFd) throws IOException;
+
+  private static native void close0(int fd);
+}
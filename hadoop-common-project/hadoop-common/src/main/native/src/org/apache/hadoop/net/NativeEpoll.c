@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+#include "exception.h"
+#include "org_apache_hadoop.h"
+#include "org_apache_hadoop_net_NativeEpoll.h"
+
+#include <errno.h>
+#include <jni.h>
+#include <stdint.h>
+#include <unistd.h>
+
+#ifdef __linux__
+#include <sys/epoll.h>
+#include <sys/eventfd.h>
+
+#define MAX_EVENTS org_apache_hadoop_net_NativeEpoll_MAX_EVENTS
+
+JNIEXPORT void JNICALL
+Java_org_apache_hadoop_net_NativeEpoll_anchorNative(
+JNIEnv *env, jclass clazz)
+{
+  // nothing to initialize, but loading the class checks that libhadoop
+  // was built with epoll support.
+}
+
+JNIEXPORT jint JNICALL
+Java_org_apache_hadoop_net_NativeEpoll_create0(
+JNIEnv *env, jclass clazz)
+{
+  int epfd, err;
+
+  epfd = epoll_create1(EPOLL_CLOEXEC);
+  if (epfd < 0) {
+    err = errno;
+    (*env)->Throw(env, newIOException(env,
+            "epoll_create1(2) failed with error code %d: %s",
+            err, terror(err)));
+  }
+  return epfd;
+}
+
+JNIEXPORT jint JNICALL
+Java_org_apache_hadoop_net_NativeEpoll_createWakeupFd0(
+JNIEnv *env, jclass clazz, jint epfd)
+{
+  struct epoll_event event;
+  int fd, err;
+
+  fd = eventfd(0, EFD_NONBLOCK | EFD_CLOEXEC);
+  if (fd < 0) {
+    err = errno;
+    (*env)->Throw(env, newIOException(env,
+            "eventfd(2) failed with error code %d: %s", err, terror(err)));
+    return -1;
+  }
+  // level-triggered, so a wakeup is reported until the wait drains it.
+  event.events = EPOLLIN;
+  event.data.fd = fd;
+  if (epoll_ctl(epfd, EPOLL_CTL_ADD, fd, &event) < 0) {
+    err = errno;
+    close(fd);
+    (*env)->Throw(env, newIOException(env,
+            "epoll_ctl(2) failed to add the wakeup fd with error code "
+            "%d: %s", err, terror(err)));
+    return -1;
+  }
+  return fd;
+}
+
+JNIEXPORT jint JNICALL
+Java_org_apache_hadoop_net_NativeEpoll_getFd0(
+JNIEnv *env, jclass clazz, jobject channel)
+{
+  jclass channel_class;
+  jfieldID fd_val_fid;
+  jthrowable jthr;
+
+  // The JDK socket channels keep their file descriptor in a private field.
+  // JNI field access is not subject to module encapsulation.
+  channel_class = (*env)->GetObjectClass(env, channel);
+  fd_val_fid = (*env)->GetFieldID(env, channel_class, "fdVal", "I");
+  if (!fd_val_fid) {
+    jthr = (*env)->ExceptionOccurred(env);
+    (*env)->ExceptionClear(env);
+    (*env)->DeleteLocalRef(env, jthr);
+    (*env)->Throw(env, newIOException(env, "this JDK does not expose the "
+            "file descriptor of its socket channels"));
+    return -1;
+  }
+  return (*env)->GetIntField(env, channel, fd_val_fid);
+}
+
+JNIEXPORT void JNICALL
+Java_org_apache_hadoop_net_NativeEpoll_add0(
+JNIEnv *env, jclass clazz, jint epfd, jint fd)
+{
+  struct epoll_event event;
+  int err;
+
+  event.events = EPOLLIN | EPOLLRDHUP | EPOLLET;
+  event.data.fd = fd;
+  if (epoll_ctl(epfd, EPOLL_CTL_ADD, fd, &event) < 0) {
+    err = errno;
+    (*env)->Throw(env, newIOException(env,
+            "epoll_ctl(2) failed to add fd %d with error code %d: %s",
+            fd, err, terror(err)));
+  }
+}
+
+JNIEXPORT void JNICALL
+Java_org_apache_hadoop_net_NativeEpoll_remove0(
+JNIEnv *env, jclass clazz, jint epfd, jint fd)
+{
+  struct epoll_event event;
+  int err;
+
+  if (epoll_ctl(epfd, EPOLL_CTL_DEL, fd, &event) < 0) {
+    err = errno;
+    // closing a socket removes it from the epoll set
+    if (err != ENOENT && err != EBADF) {
+      (*env)->Throw(env, newIOException(env,
+              "epoll_ctl(2) failed to remove fd %d with error code %d: %s",
+              fd, err, terror(err)));
+    }
+  }
+}
+
+JNIEXPORT jint JNICALL
+Java_org_apache_hadoop_net_NativeEpoll_wait0(
+JNIEnv *env, jclass clazz, jint epfd, jint wakeupFd, jintArray readyFds,
+jint timeoutMs)
+{
+  struct epoll_event events[MAX_EVENTS];
+  jint fds[MAX_EVENTS];
+  uint64_t count;
+  int ret, err, i, num_ready = 0;
+
+  ret = epoll_wait(epfd, events, MAX_EVENTS, timeoutMs);
+  if (ret < 0) {
+    err = errno;
+    if (err != EINTR) { // treat EINTR as 0 fds ready
+      (*env)->Throw(env, newIOException(env,
+              "epoll_wait(2) failed with error code %d: %s",
+              err, terror(err)));
+    }
+    return 0;
+  }
+  for (i = 0; i < ret; i++) {
+    if (events[i].data.fd == wakeupFd) {
+      // reset the counter, so the wakeup is reported once.
+      if (read(wakeupFd, &count, sizeof(count)) < 0) {
+        // EAGAIN: it was reset already.
+      }
+      continue;
+    }
+    fds[num_ready++] = events[i].data.fd;
+  }
+  if (num_ready > 0) {
+    (*env)->SetIntArrayRegion(env, readyFds, 0, num_ready, fds);
+  }
+  return num_ready;
+}
+
+JNIEXPORT void JNICALL
+Java_org_apache_hadoop_net_NativeEpoll_wakeup0(
+JNIEnv *env, jclass clazz, jint wakeupFd)
+{
+  uint64_t one = 1;
+  int err;
+
+  if (write(wakeupFd, &one, sizeof(one)) < 0) {
+    err = errno;
+    // EAGAIN means the counter is already set.
+    if (err != EAGAIN) {
+      (*env)->Throw(env, newIOException(env,
+              "failed to write to the wakeup fd with error code %d: %s",
+              err, terror(err)));
+    }
+  }
+}
+
+JNIEXPORT void JNICALL
+Java_org_apache_hadoop_net_NativeEpoll_close0(
+JNIEnv *env, jclass clazz, jint fd)
+{
+  close(fd);
+}
+
+#else
+
+JNIEXPORT void JNICALL
+Java_org_apache_hadoop_net_NativeEpoll_anchorNative(
+JNIEnv *env, jclass clazz)
+{
+  THROW(env, "java/lang/UnsupportedOperationException",
+        "libhadoop was built without epoll support");
+}
+
+#endif
@@ -0,0 +1,235 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.fs;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import org.apache.hadoop.fs.impl.CombinedFileRange;
+import org.apache.hadoop.test.LambdaTestUtils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test the vectored read helpers in {@link VectoredReadUtils}.
+ */
+public class TestVectoredReadUtils {
+
+  private static final int FILE_LENGTH = 64 * 1024;
+
+  /**
+   * A positioned readable stream over a byte array which counts the
+   * positioned reads issued against it.
+   */
+  private static class CountingStream extends ByteArrayInputStream
+      implements PositionedReadable {
+    private final AtomicInteger reads = new AtomicInteger();
+
+    CountingStream(byte[] data) {
+      super(data);
+    }
+
+    @Override
+    public int read(long position, byte[] buffer, int offset, int length) {
+      reads.incrementAndGet();
+      if (position >= buf.length) {
+        return -1;
+      }
+      int n = Math.min(length, buf.length - (int) position);
+      System.arraycopy(buf, (int) position, buffer, offset, n);
+      return n;
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer, int offset,
+        int length) throws IOException {
+      if (read(position, buffer, offset, length) < length) {
+        throw new EOFException("EOF at " + position);
+      }
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer) throws IOException {
+      readFully(position, buffer, 0, buffer.length);
+    }
+  }
+
+  private static byte[] testData() {
+    byte[] data = new byte[FILE_LENGTH];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) (i % 251);
+    }
+    return data;
+  }
+
+  private static void assertRangeData(FileRange range)
+      throws InterruptedException, ExecutionException {
+    ByteBuffer buffer = range.getData().get();
+    assertEquals("length of " + range, range.getLength(), buffer.remaining());
+    for (int i = 0; i < range.getLength(); i++) {
+      assertEquals("byte " + i + " of " + range,
+          (byte) ((range.getOffset() + i) % 251), buffer.get());
+    }
+  }
+
+  @Test
+  public void testMergeSortedRanges() {
+    List<FileRange> input = Arrays.asList(
+        FileRange.createFileRange(0, 100),
+        FileRange.createFileRange(200, 100),
+        FileRange.createFileRange(10000, 100),
+        FileRange.createFileRange(10050, 10));
+    List<CombinedFileRange> merged =
+        VectoredReadUtils.mergeSortedRanges(input, 1000, 4096);
+    assertEquals(2, merged.size());
+    assertEquals(0, merged.get(0).getOffset());
+    assertEquals(300, merged.get(0).getLength());
+    assertEquals(2, merged.get(0).getUnderlying().size());
+    assertEquals(10000, merged.get(1).getOffset());
+    assertEquals(100, merged.get(1).getLength());
+    assertEquals(2, merged.get(1).getUnderlying().size());
+  }
+
+  @Test
+  public void testMergeRespectsMaxSize() {
+    List<FileRange> input = Arrays.asList(
+        FileRange.createFileRange(0, 100),
+        FileRange.createFileRange(100, 100),
+        FileRange.createFileRange(200, 100));
+    List<CombinedFileRange> merged =
+        VectoredReadUtils.mergeSortedRanges(input, 1000, 200);
+    assertEquals(2, merged.size());
+    assertEquals(200, merged.get(0).getLength());
+    assertEquals(200, merged.get(1).getOffset());
+  }
+
+  @Test
+  public void testSortRanges() {
+    List<FileRange> input = Arrays.asList(
+        FileRange.createFileRange(3000, 10),
+        FileRange.createFileRange(1000, 10),
+        FileRange.createFileRange(2000, 10));
+    List<? extends FileRange> sorted = VectoredReadUtils.sortRanges(input);
+    assertEquals(1000, sorted.get(0).getOffset());
+    assertEquals(2000, sorted.get(1).getOffset());
+    assertEquals(3000, sorted.get(2).getOffset());
+  }
+
+  @Test
+  public void testSliceTo() {
+    ByteBuffer buffer = ByteBuffer.allocate(100);
+    for (int i = 0; i < 100; i++) {
+      buffer.put((byte) i);
+    }
+    buffer.flip();
+    ByteBuffer slice = VectoredReadUtils.sliceTo(buffer, 1000,
+        FileRange.createFileRange(1010, 20));
+    assertEquals(20, slice.remaining());
+    assertEquals(10, slice.get(0));
+    assertEquals(0, buffer.position());
+  }
+
+  @Test
+  public void testReadVectoredMergesRanges() throws Exception {
+    CountingStream stream = new CountingStream(testData());
+    List<FileRange> ranges = Arrays.asList(
+        FileRange.createFileRange(8192, 100),
+        FileRange.createFileRange(0, 100),
+        FileRange.createFileRange(1000, 100),
+        FileRange.createFileRange(50000, 1000));
+    VectoredReadUtils.readVectored(stream, ranges, ByteBuffer::allocate);
+    // 0, 1000 merge; 8192 and 50000 are too far away with a 4K min seek.
+    assertEquals(3, stream.reads.get());
+    for (FileRange range : ranges) {
+      assertRangeData(range);
+    }
+  }
+
+  @Test
+  public void testReadVectoredDirectBuffers() throws Exception {
+    CountingStream stream = new CountingStream(testData());
+    List<FileRange> ranges = Arrays.asList(
+        FileRange.createFileRange(100, 200),
+        FileRange.createFileRange(20000, 30000));
+    stream.readVectored(ranges, ByteBuffer::allocateDirect);
+    for (FileRange range : ranges) {
+      assertTrue(range.getData().get().isDirect());
+      assertRangeData(range);
+    }
+  }
+
+  @Test
+  public void testReadVectoredWithExecutor() throws Exception {
+    CountingStream stream = new CountingStream(testData());
+    List<FileRange> ranges = Arrays.asList(
+        FileRange.createFileRange(0, 100),
+        FileRange.createFileRange(16384, 100),
+        FileRange.createFileRange(32768, 100),
+        FileRange.createFileRange(49152, 100));
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      VectoredReadUtils.readVectored(stream, ranges, ByteBuffer::allocate,
+          executor);
+      for (FileRange range : ranges) {
+        assertRangeData(range);
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(4, stream.reads.get());
+  }
+
+  @Test
+  public void testReadVectoredFailurePropagates() throws Exception {
+    CountingStream stream = new CountingStream(testData());
+    FileRange pastEof = FileRange.createFileRange(FILE_LENGTH - 10, 100);
+    FileRange neighbour = FileRange.createFileRange(FILE_LENGTH - 200, 10);
+    stream.readVectored(Arrays.asList(pastEof, neighbour),
+        ByteBuffer::allocate);
+    // the ranges were merged, so both fail
+    ExecutionException ex = LambdaTestUtils.intercept(
+        ExecutionException.class, () -> pastEof.getData().get());
+    assertTrue(ex.getCause() instanceof EOFException);
+    LambdaTestUtils.intercept(ExecutionException.class,
+        () -> neighbour.getData().get());
+  }
+
+  @Test
+  public void testInvalidRanges() throws Exception {
+    CountingStream stream = new CountingStream(testData());
+    LambdaTestUtils.intercept(EOFException.class,
+        () -> stream.readVectored(
+            Arrays.asList(FileRange.createFileRange(-1, 10)),
+            ByteBuffer::allocate));
+    LambdaTestUtils.intercept(IllegalArgumentException.class,
+        () -> stream.readVectored(
+            Arrays.asList(FileRange.createFileRange(0, -10)),
+            ByteBuffer::allocate));
+  }
+}
@@ -730,6 +730,86 @@ public void testSerializationAvailability() throws IOException {
     }
   }
 
+  @Test
+  public void testPrefetchReader() throws IOException {
+    Configuration conf = new Configuration();
+    conf.setInt(
+        CommonConfigurationKeysPublic.IO_SEQFILE_COMPRESS_BLOCKSIZE_KEY, 2000);
+    FileSystem fs = FileSystem.getLocal(conf);
+    Path path = new Path(GenericTestUtils.getTempPath("prefetchReader.seq"));
+    try (SequenceFile.Writer writer = SequenceFile.createWriter(conf,
+        SequenceFile.Writer.file(path),
+        SequenceFile.Writer.keyClass(IntWritable.class),
+        SequenceFile.Writer.valueClass(Text.class),
+        SequenceFile.Writer.compression(CompressionType.BLOCK,
+            new DefaultCodec()))) {
+      for (int i = 0; i < 5000; i++) {
+        writer.append(new IntWritable(i), new Text("value-" + i));
+      }
+    }
+    long length = fs.getFileStatus(path).getLen();
+
+    // positions and sync marks must be reported as without read ahead,
+    // as split readers depend on them
+    List<String> expected = readTrace(conf, path, false, length);
+    assertTrue(expected.size() > 5000);
+    assertEquals(expected, readTrace(conf, path, true, length));
+
+    // no sync marks are reported when they are not checked
+    List<String> ignoringSync = readTraceIgnoringSync(conf, path, true);
+    assertEquals(readTraceIgnoringSync(conf, path, false), ignoringSync);
+    for (String entry : ignoringSync) {
+      assertFalse(entry, entry.contains("*"));
+    }
+  }
+
+  /**
+   * Read a file, recording each key with the position before reading it and
+   * whether a sync mark was passed, then repeat from the middle of the file.
+   */
+  private static List<String> readTrace(Configuration conf, Path path,
+      boolean prefetch, long length) throws IOException {
+    List<String> trace = new ArrayList<>();
+    try (SequenceFile.Reader reader = new SequenceFile.Reader(conf,
+        SequenceFile.Reader.file(path),
+        SequenceFile.Reader.prefetch(prefetch))) {
+      readTrace(reader, trace);
+      reader.sync(length / 2);
+      readTrace(reader, trace);
+    }
+    return trace;
+  }
+
+  /** Read a file, recording each key as above, without checking syncs. */
+  private static List<String> readTraceIgnoringSync(Configuration conf,
+      Path path, boolean prefetch) throws IOException {
+    List<String> trace = new ArrayList<>();
+    try (SequenceFile.Reader reader = new SequenceFile.Reader(conf,
+        SequenceFile.Reader.file(path),
+        SequenceFile.Reader.prefetch(prefetch))) {
+      reader.ignoreSync();
+      readTrace(reader, trace);
+    }
+    return trace;
+  }
+
+  private static void readTrace(SequenceFile.Reader reader,
+      List<String> trace) throws IOException {
+    IntWritable key = new IntWritable();
+    Text value = new Text();
+    long pos = reader.getPosition();
+    while (reader.next(key)) {
+      String entry = key.get() + "@" + pos + (reader.syncSeen() ? "*" : "");
+      // leave the values of some blocks unread, so they are skipped lazily
+      if (key.get() < 1000 || key.get() > 2000) {
+        reader.getCurrentValue(value);
+        entry += "=" + value;
+      }
+      trace.add(entry);
+      pos = reader.getPosition();
+    }
+  }
+
   /** For debugging and testing. */
   public static void main(String[] args) throws Exception {
     int count = 1024 * 1024;
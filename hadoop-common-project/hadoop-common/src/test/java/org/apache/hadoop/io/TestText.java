@@ -22,6 +22,7 @@
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.charset.CharacterCodingException;
+import java.nio.charset.MalformedInputException;
 import java.util.Random;
 import com.google.common.base.Charsets;
 import com.google.common.primitives.Bytes;
@@ -257,6 +258,55 @@ public void testValidate() throws Exception {
     Text.validateUTF8(utf8, 0, length);
   }
 
+  @Test
+  public void testAsciiFastPath() throws Exception {
+    byte[] padded = "xxhello, world\u0001\u007fyy".getBytes(Charsets.UTF_8);
+    assertEquals("hello, world\u0001\u007f", Text.decode(padded, 2, 14));
+    assertEquals("", Text.decode(padded, 3, 0));
+    Text.validateUTF8(padded);
+
+    // ASCII strings are encoded into the existing buffer
+    Text text = new Text("a longer string than the next one");
+    byte[] buffer = text.getBytes();
+    text.set("short");
+    assertTrue(buffer == text.getBytes());
+    assertEquals(5, text.getLength());
+    assertEquals("short", text.toString());
+
+    ByteBuffer bb = Text.encode("plain ascii");
+    assertEquals("plain ascii",
+        new String(bb.array(), 0, bb.limit(), Charsets.UTF_8));
+  }
+
+  @Test
+  public void testMixedAsciiAndMultiByte() throws Exception {
+    // a multi-byte character after a run of ASCII is still decoded and
+    // validated
+    String mixed = "abcdefghijklmnop\u20ac\u00e9\ud83d\ude00z";
+    byte[] utf8 = mixed.getBytes(Charsets.UTF_8);
+    assertEquals(mixed, Text.decode(utf8));
+    Text.validateUTF8(utf8);
+    Text text = new Text(mixed);
+    assertEquals(mixed, text.toString());
+    assertEquals(utf8.length, text.getLength());
+
+    byte[] malformed = Bytes.concat("abcdefgh".getBytes(Charsets.UTF_8),
+        new byte[] {(byte) 0xC3, 'a'});
+    try {
+      Text.validateUTF8(malformed);
+      fail("Expected MalformedInputException");
+    } catch (MalformedInputException e) {
+      assertEquals(9, e.getInputLength());
+    }
+    assertEquals("abcdefgh\ufffda", Text.decode(malformed));
+    try {
+      Text.decode(malformed, 0, malformed.length, false);
+      fail("Expected CharacterCodingException");
+    } catch (CharacterCodingException e) {
+      // expected
+    }
+  }
+
   @Test
   public void testClear() throws Exception {
     // Test lengths on an empty text object
@@ -17,8 +17,14 @@
  */
 package org.apache.hadoop.io.compress;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -26,13 +32,17 @@
 import java.util.concurrent.TimeUnit;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.util.ReflectionUtils;
 import org.junit.Before;
 import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.HashSet;
 import java.util.Set;
 
 public class TestCodecPool {
+  private static final Logger LOG = LoggerFactory.getLogger(TestCodecPool.class);
   private final String LEASE_COUNT_ERR =
       "Incorrect number of leased (de)compressors";
   DefaultCodec codec;
@@ -189,4 +199,93 @@ public void testDecompressorNotReturnSameInstance() {
       CodecPool.returnDecompressor(decompressor);
     }
   }
+
+  @Test(timeout = 20000)
+  public void testDirectCompressorPool() throws IOException {
+    Configuration conf = new Configuration();
+    Class<?>[] codecClasses = {DefaultCodec.class, GzipCodec.class,
+        SnappyCodec.class, Lz4Codec.class, ZStandardCodec.class};
+    for (Class<?> codecClass : codecClasses) {
+      Object directCodec = ReflectionUtils.newInstance(codecClass, conf);
+      DirectCompressionCodec compressionCodec =
+          (DirectCompressionCodec) directCodec;
+      DirectDecompressionCodec decompressionCodec =
+          (DirectDecompressionCodec) directCodec;
+      DirectCompressor comp =
+          CodecPool.getDirectCompressor(compressionCodec, conf);
+      DirectDecompressor decomp =
+          CodecPool.getDirectDecompressor(decompressionCodec);
+      if (comp == null || decomp == null) {
+        LOG.warn("Native library not available for direct "
+            + codecClass.getSimpleName());
+        continue;
+      }
+      for (int size : new int[] {1, 4 * 1024, 64 * 1024, 1024 * 1024}) {
+        compressDecompress(comp, decomp, size);
+        CodecPool.returnDirectCompressor(comp);
+        CodecPool.returnDirectDecompressor(decomp);
+        // the instances are reset and reused
+        assertSame(comp, CodecPool.getDirectCompressor(compressionCodec, conf));
+        assertSame(decomp, CodecPool.getDirectDecompressor(decompressionCodec));
+      }
+      CodecPool.returnDirectCompressor(comp);
+      CodecPool.returnDirectDecompressor(decomp);
+    }
+  }
+
+  /** A direct decompressor of a codec which does not report its type. */
+  private static class UntypedDirectDecompressor
+      implements DirectDecompressor {
+    @Override
+    public void decompress(ByteBuffer src, ByteBuffer dst) {
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void testUntypedDirectDecompressorNotPooled() {
+    // like a codec written before getDirectDecompressorType() was added
+    DirectDecompressionCodec untypedCodec = new DefaultCodec() {
+      @Override
+      public DirectDecompressor createDirectDecompressor() {
+        return new UntypedDirectDecompressor();
+      }
+
+      @Override
+      public Class<? extends DirectDecompressor> getDirectDecompressorType() {
+        return null;
+      }
+    };
+    DirectDecompressor decomp = CodecPool.getDirectDecompressor(untypedCodec);
+    CodecPool.returnDirectDecompressor(decomp);
+    assertNotSame(decomp, CodecPool.getDirectDecompressor(untypedCodec));
+  }
+
+  private static void compressDecompress(DirectCompressor comp,
+      DirectDecompressor decomp, int size) throws IOException {
+    Random random = new Random(size);
+    byte[] data = new byte[size];
+    for (int i = 0; i < size; i++) {
+      data[i] = (byte) random.nextInt(16);
+    }
+    ByteBuffer raw = ByteBuffer.allocateDirect(size);
+    raw.put(data);
+    raw.flip();
+    ByteBuffer compressed = ByteBuffer.allocateDirect(size * 2 + 1024);
+    comp.finish();
+    while (!comp.finished()) {
+      comp.compress(raw, compressed);
+    }
+    assertEquals(0, raw.remaining());
+
+    compressed.flip();
+    ByteBuffer result = ByteBuffer.allocateDirect(size + 1);
+    while (!((Decompressor) decomp).finished()) {
+      decomp.decompress(compressed, result);
+    }
+    assertEquals(0, compressed.remaining());
+    result.flip();
+    byte[] decompressed = new byte[result.remaining()];
+    result.get(decompressed);
+    assertArrayEquals(data, decompressed);
+  }
 }
@@ -0,0 +1,149 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.io.compress;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.CommonConfigurationKeys;
+import org.apache.hadoop.io.IOUtils;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestParallelCompressorStream {
+  private Configuration conf;
+
+  @Before
+  public void setup() {
+    conf = new Configuration();
+    conf.setInt(CommonConfigurationKeys.IO_COMPRESSION_PARALLEL_THREADS_KEY,
+        3);
+    conf.setInt(
+        CommonConfigurationKeys.IO_COMPRESSION_PARALLEL_BLOCK_SIZE_KEY,
+        64 * 1024);
+  }
+
+  private static byte[] generateData(int length) {
+    // compressible, but not trivially so
+    Random random = new Random(length);
+    byte[] data = new byte[length];
+    for (int i = 0; i < length; i++) {
+      data[i] = (byte) ('a' + random.nextInt(8));
+    }
+    return data;
+  }
+
+  private byte[] compress(CompressionCodec codec, byte[] data)
+      throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ParallelCompressorStream out =
+             new ParallelCompressorStream(codec, conf, bytes)) {
+      // uneven writes so that blocks span several calls
+      int off = 0;
+      while (off < data.length) {
+        int len = Math.min(data.length - off, 10000);
+        out.write(data, off, len);
+        off += len;
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  private static byte[] readFully(InputStream in, int length)
+      throws IOException {
+    byte[] result = new byte[length];
+    IOUtils.readFully(in, result, 0, length);
+    assertTrue("Unexpected trailing data", in.read() == -1);
+    in.close();
+    return result;
+  }
+
+  private void verifyRoundTrip(Class<? extends CompressionCodec> codecClass,
+      int length) throws IOException {
+    CompressionCodec codec = ReflectionUtils.newInstance(codecClass, conf);
+    byte[] data = generateData(length);
+    byte[] compressed = compress(codec, data);
+    assertArrayEquals(codecClass.getSimpleName() + " " + length, data,
+        readFully(codec.createInputStream(
+            new ByteArrayInputStream(compressed)), length));
+  }
+
+  @Test(timeout = 60000)
+  public void testGzip() throws IOException {
+    for (int length : new int[] {0, 1, 64 * 1024, 1000 * 1000}) {
+      verifyRoundTrip(GzipCodec.class, length);
+    }
+  }
+
+  @Test(timeout = 60000)
+  public void testGzipReadableByJdk() throws IOException {
+    CompressionCodec codec = ReflectionUtils.newInstance(GzipCodec.class, conf);
+    byte[] data = generateData(500 * 1000);
+    byte[] compressed = compress(codec, data);
+    // the output is a sequence of standard gzip members
+    assertArrayEquals(data, readFully(new GZIPInputStream(
+        new ByteArrayInputStream(compressed)), data.length));
+  }
+
+  @Test(timeout = 60000)
+  public void testBZip2() throws IOException {
+    conf.set("io.compression.codec.bzip2.library", "java-builtin");
+    for (int length : new int[] {0, 1, 300 * 1000}) {
+      verifyRoundTrip(BZip2Codec.class, length);
+    }
+  }
+
+  @Test(timeout = 60000)
+  public void testDefault() throws IOException {
+    for (int length : new int[] {0, 1, 1000 * 1000}) {
+      verifyRoundTrip(DefaultCodec.class, length);
+    }
+  }
+
+  @Test(timeout = 60000)
+  public void testSharedExecutor() throws IOException {
+    CompressionCodec codec = ReflectionUtils.newInstance(GzipCodec.class, conf);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      byte[] data = generateData(200 * 1000);
+      for (int i = 0; i < 2; i++) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ParallelCompressorStream out = new ParallelCompressorStream(
+            codec, conf, bytes, executor, 4096, 1)) {
+          out.write(data);
+        }
+        assertArrayEquals(data, readFully(codec.createInputStream(
+            new ByteArrayInputStream(bytes.toByteArray())), data.length));
+      }
+      assertTrue(!executor.isShutdown());
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
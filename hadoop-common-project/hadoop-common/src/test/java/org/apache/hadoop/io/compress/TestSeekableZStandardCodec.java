@@ -0,0 +1,280 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.io.compress;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.CommonConfigurationKeys;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.compress.SplittableCompressionCodec.READ_MODE;
+import org.apache.hadoop.io.compress.zlib.BuiltInZlibDeflater;
+import org.apache.hadoop.io.compress.zlib.BuiltInZlibInflater;
+import org.apache.hadoop.test.GenericTestUtils;
+import org.apache.hadoop.util.LineReader;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the frame layout and split handling of
+ * {@link SeekableZStandardCodec}. The framing does not depend on the frame
+ * compression, so most tests use the builtin zlib (de)compressor and run
+ * without native zstd.
+ */
+public class TestSeekableZStandardCodec {
+  private Configuration conf;
+  private FileSystem fs;
+  private Path file;
+
+  @Before
+  public void setup() throws IOException {
+    conf = new Configuration();
+    fs = FileSystem.getLocal(conf);
+    file = new Path(GenericTestUtils.getTempPath(
+        "TestSeekableZStandardCodec.szst"));
+    fs.delete(file, false);
+  }
+
+  private static List<String> generateLines(int count) {
+    Random random = new Random(count);
+    List<String> lines = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      StringBuilder line = new StringBuilder("line-").append(i).append('-');
+      for (int j = random.nextInt(200); j > 0; j--) {
+        line.append((char) ('a' + random.nextInt(26)));
+      }
+      lines.add(line.toString());
+    }
+    return lines;
+  }
+
+  private void writeLines(CompressionOutputStream out, List<String> lines)
+      throws IOException {
+    try {
+      for (String line : lines) {
+        out.write((line + "\n").getBytes("UTF-8"));
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+  private SeekableZStandardCodec.SeekableZStandardOutputStream
+      createZlibOutputStream(OutputStream out, int frameSize) {
+    return new SeekableZStandardCodec.SeekableZStandardOutputStream(out,
+        new BuiltInZlibDeflater(), frameSize);
+  }
+
+  private SplitCompressionInputStream openZlibSplit(long start, long end,
+      READ_MODE mode) throws IOException {
+    FSDataInputStream in = fs.open(file);
+    in.seek(start);
+    return new SeekableZStandardCodec.SeekableZStandardInputStream(in,
+        new BuiltInZlibInflater(), start, end, mode);
+  }
+
+  /**
+   * Read the records of one split the way LineRecordReader does: skip the
+   * first line unless at the start of the file, and read one line past the
+   * end of the split.
+   */
+  private static List<String> readSplit(SplitCompressionInputStream in)
+      throws IOException {
+    List<String> records = new ArrayList<>();
+    LineReader reader = new LineReader(in);
+    Text line = new Text();
+    if (in.getAdjustedStart() != 0) {
+      reader.readLine(line);
+    }
+    while (in.getPos() <= in.getAdjustedEnd()) {
+      if (reader.readLine(line) == 0) {
+        break;
+      }
+      records.add(line.toString());
+    }
+    in.close();
+    return records;
+  }
+
+  @Test
+  public void testContinuousRead() throws IOException {
+    List<String> lines = generateLines(1000);
+    writeLines(createZlibOutputStream(fs.create(file), 4096), lines);
+    assertEquals(lines, readSplit(openZlibSplit(0, Long.MAX_VALUE,
+        READ_MODE.CONTINUOUS)));
+  }
+
+  @Test
+  public void testSeekTable() throws IOException {
+    List<String> lines = generateLines(1000);
+    writeLines(createZlibOutputStream(fs.create(file), 4096), lines);
+    long length = fs.getFileStatus(file).getLen();
+    byte[] footer = new byte[9];
+    try (FSDataInputStream in = fs.open(file)) {
+      in.readFully(length - footer.length, footer);
+      ByteBuffer bb = ByteBuffer.wrap(footer).order(ByteOrder.LITTLE_ENDIAN);
+      int numFrames = bb.getInt();
+      assertEquals(0, bb.get());
+      assertEquals(SeekableZStandardCodec.SEEKABLE_MAGIC, bb.getInt());
+
+      // the entries add up to the position of the seek table
+      int tableSize = 8 * numFrames + footer.length;
+      byte[] table = new byte[8 + tableSize];
+      in.readFully(length - table.length, table);
+      bb = ByteBuffer.wrap(table).order(ByteOrder.LITTLE_ENDIAN);
+      assertEquals(SeekableZStandardCodec.SEEK_TABLE_MAGIC, bb.getInt());
+      assertEquals(tableSize, bb.getInt());
+      long compressed = 0;
+      long uncompressed = 0;
+      for (int i = 0; i < numFrames; i++) {
+        compressed += bb.getInt();
+        uncompressed += bb.getInt();
+      }
+      assertEquals(length - table.length, compressed);
+      long expected = 0;
+      for (String line : lines) {
+        expected += line.length() + 1;
+      }
+      assertEquals(expected, uncompressed);
+      assertTrue(numFrames > 1);
+    }
+  }
+
+  @Test
+  public void testSplits() throws IOException {
+    List<String> lines = generateLines(3000);
+    writeLines(createZlibOutputStream(fs.create(file), 5000), lines);
+    long length = fs.getFileStatus(file).getLen();
+
+    for (long splitSize : new long[] {97, 1000, 4321, length / 3, length}) {
+      List<String> records = new ArrayList<>();
+      for (long start = 0; start < length; start += splitSize) {
+        long end = Math.min(start + splitSize, length);
+        records.addAll(readSplit(
+            openZlibSplit(start, end, READ_MODE.BYBLOCK)));
+      }
+      assertEquals("split size " + splitSize, lines, records);
+    }
+  }
+
+  /** Frame start offsets, from the seek table. */
+  private List<Long> readFrameStarts() throws IOException {
+    long length = fs.getFileStatus(file).getLen();
+    List<Long> starts = new ArrayList<>();
+    try (FSDataInputStream in = fs.open(file)) {
+      byte[] footer = new byte[9];
+      in.readFully(length - footer.length, footer);
+      int numFrames = ByteBuffer.wrap(footer)
+          .order(ByteOrder.LITTLE_ENDIAN).getInt();
+      byte[] entries = new byte[8 * numFrames];
+      in.readFully(length - footer.length - entries.length, entries);
+      ByteBuffer bb = ByteBuffer.wrap(entries).order(ByteOrder.LITTLE_ENDIAN);
+      long offset = 0;
+      for (int i = 0; i < numFrames; i++) {
+        starts.add(offset);
+        offset += bb.getInt();
+        bb.getInt();
+      }
+    }
+    return starts;
+  }
+
+  @Test
+  public void testSplitsAtFrameBoundaries() throws IOException {
+    List<String> lines = generateLines(500);
+    writeLines(createZlibOutputStream(fs.create(file), 3000), lines);
+    long length = fs.getFileStatus(file).getLen();
+    List<Long> frameStarts = readFrameStarts();
+    assertTrue(frameStarts.size() > 2);
+
+    for (long frameStart : frameStarts.subList(1, frameStarts.size())) {
+      for (long split = frameStart - 1; split <= frameStart + 1; split++) {
+        List<String> records = new ArrayList<>();
+        records.addAll(readSplit(
+            openZlibSplit(0, split, READ_MODE.BYBLOCK)));
+        records.addAll(readSplit(
+            openZlibSplit(split, length, READ_MODE.BYBLOCK)));
+        assertEquals("split at " + split, lines, records);
+      }
+    }
+  }
+
+  @Test
+  public void testEmptyStream() throws IOException {
+    writeLines(createZlibOutputStream(fs.create(file), 4096),
+        new ArrayList<String>());
+    long length = fs.getFileStatus(file).getLen();
+    assertTrue(readSplit(openZlibSplit(0, length,
+        READ_MODE.BYBLOCK)).isEmpty());
+    assertTrue(readSplit(openZlibSplit(1, length,
+        READ_MODE.BYBLOCK)).isEmpty());
+  }
+
+  @Test
+  public void testNativeCodec() throws IOException {
+    assumeTrue(ZStandardCodec.isNativeCodeLoaded());
+    conf.setInt(
+        CommonConfigurationKeys.IO_COMPRESSION_CODEC_ZSTD_SEEKABLE_FRAME_SIZE_KEY,
+        8192);
+    SeekableZStandardCodec codec = new SeekableZStandardCodec();
+    codec.setConf(conf);
+    List<String> lines = generateLines(2000);
+    writeLines(codec.createOutputStream(fs.create(file)), lines);
+
+    // the output is also a plain zstd stream
+    ZStandardCodec plain = new ZStandardCodec();
+    plain.setConf(conf);
+    try (FSDataInputStream in = fs.open(file)) {
+      CompressionInputStream cin = plain.createInputStream(in);
+      LineReader reader = new LineReader(cin);
+      Text line = new Text();
+      for (String expected : lines) {
+        reader.readLine(line);
+        assertEquals(expected, line.toString());
+      }
+      assertEquals(0, reader.readLine(line));
+    }
+
+    long length = fs.getFileStatus(file).getLen();
+    List<String> records = new ArrayList<>();
+    Decompressor decompressor = CodecPool.getDecompressor(codec);
+    try {
+      for (long start = 0; start < length; start += 1000) {
+        records.addAll(readSplit(codec.createInputStream(fs.open(file),
+            decompressor, start, Math.min(start + 1000, length),
+            READ_MODE.BYBLOCK)));
+      }
+    } finally {
+      CodecPool.returnDecompressor(decompressor);
+    }
+    assertEquals(lines, records);
+  }
+}
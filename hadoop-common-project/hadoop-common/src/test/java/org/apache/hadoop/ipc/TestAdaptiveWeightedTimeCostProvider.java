@@ -0,0 +1,103 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.ipc;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.ipc.ProcessingDetails.Timing;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.apache.hadoop.ipc.WeightedTimeCostProvider.DEFAULT_LOCKEXCLUSIVE_WEIGHT;
+import static org.apache.hadoop.ipc.WeightedTimeCostProvider.DEFAULT_LOCKFREE_WEIGHT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for {@link AdaptiveWeightedTimeCostProvider}. */
+public class TestAdaptiveWeightedTimeCostProvider {
+
+  private static final int LOCKFREE_TIME = 5;
+  private static final int LOCKEXCLUSIVE_TIME = 11;
+
+  private AdaptiveWeightedTimeCostProvider costProvider;
+
+  @Before
+  public void setup() {
+    costProvider = new AdaptiveWeightedTimeCostProvider();
+  }
+
+  private static ProcessingDetails newDetails(long lockWait) {
+    ProcessingDetails details = new ProcessingDetails(TimeUnit.MILLISECONDS);
+    details.set(Timing.LOCKFREE, LOCKFREE_TIME);
+    details.set(Timing.LOCKEXCLUSIVE, LOCKEXCLUSIVE_TIME);
+    details.set(Timing.LOCKWAIT, lockWait);
+    return details;
+  }
+
+  @Test
+  public void testUncontendedLock() {
+    costProvider.init("foo", new Configuration());
+    long actualCost = costProvider.getCost(newDetails(0));
+    assertEquals(0.0, costProvider.getContention(), 0.0);
+    long expectedCost = DEFAULT_LOCKFREE_WEIGHT
+        * (LOCKFREE_TIME + LOCKEXCLUSIVE_TIME);
+    assertEquals(expectedCost, actualCost);
+  }
+
+  @Test
+  public void testContendedLock() {
+    Configuration conf = new Configuration();
+    conf.setDouble("foo" + AdaptiveWeightedTimeCostProvider.SMOOTHING_CONFIG_KEY,
+        1.0);
+    costProvider.init("foo", conf);
+    // Calls wait for the lock three times as long as they hold it.
+    long actualCost = costProvider.getCost(newDetails(3 * LOCKEXCLUSIVE_TIME));
+    assertEquals(0.75, costProvider.getContention(), 1e-9);
+    double lockWeight = DEFAULT_LOCKFREE_WEIGHT
+        + (DEFAULT_LOCKEXCLUSIVE_WEIGHT - DEFAULT_LOCKFREE_WEIGHT) * 0.75;
+    long expectedCost = Math.round(DEFAULT_LOCKFREE_WEIGHT * LOCKFREE_TIME
+        + lockWeight * LOCKEXCLUSIVE_TIME);
+    assertEquals(expectedCost, actualCost);
+    assertTrue(actualCost < DEFAULT_LOCKFREE_WEIGHT * LOCKFREE_TIME
+        + DEFAULT_LOCKEXCLUSIVE_WEIGHT * LOCKEXCLUSIVE_TIME);
+  }
+
+  @Test
+  public void testContentionFollowsRecentCalls() {
+    Configuration conf = new Configuration();
+    conf.setDouble("foo" + AdaptiveWeightedTimeCostProvider.SMOOTHING_CONFIG_KEY,
+        0.5);
+    costProvider.init("foo", conf);
+    for (int i = 0; i < 50; i++) {
+      costProvider.getCost(newDetails(1000));
+    }
+    assertTrue(costProvider.getContention() > 0.95);
+    for (int i = 0; i < 50; i++) {
+      costProvider.getCost(newDetails(0));
+    }
+    assertTrue(costProvider.getContention() < 0.05);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidSmoothing() {
+    Configuration conf = new Configuration();
+    conf.setDouble("foo" + AdaptiveWeightedTimeCostProvider.SMOOTHING_CONFIG_KEY,
+        0);
+    costProvider.init("foo", conf);
+  }
+}
@@ -0,0 +1,250 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.ipc;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.Writable;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/** Tests for {@link CallCoalescer}. */
+public class TestCallCoalescer {
+
+  private static final String PROTOCOL = "proto";
+  private static final String METHOD = "method";
+
+  private CallCoalescer coalescer;
+
+  /** Records the deferred response it is sent. */
+  private static class TestCall extends Server.Call {
+    private Writable response;
+    private Throwable error;
+
+    TestCall() {
+    }
+
+    TestCall(String callerContext) {
+      super(RpcConstants.INVALID_CALL_ID, RpcConstants.INVALID_RETRY_COUNT,
+          RPC.RpcKind.RPC_BUILTIN, RpcConstants.DUMMY_CLIENT_ID, null,
+          new CallerContext.Builder(callerContext).build());
+    }
+
+    @Override
+    public void setDeferredResponse(Writable w) {
+      response = w;
+    }
+
+    @Override
+    public void setDeferredError(Throwable t) {
+      error = t;
+    }
+  }
+
+  @Before
+  public void setup() {
+    coalescer = new CallCoalescer(
+        Collections.singleton(PROTOCOL + "." + METHOD),
+        Collections.emptySet());
+  }
+
+  @Test
+  public void testIsCoalesced() {
+    assertTrue(coalescer.isCoalesced(PROTOCOL, METHOD));
+    assertFalse(coalescer.isCoalesced(PROTOCOL, "other"));
+    assertFalse(coalescer.isCoalesced("other", METHOD));
+  }
+
+  /** Records the calls it audits, and audits only {@link #METHOD}. */
+  private static class TestAuditor implements CoalescedCallAuditor {
+    private final List<String> entries = new ArrayList<>();
+
+    @Override
+    public boolean canAudit(String method) {
+      return METHOD.equals(method);
+    }
+
+    @Override
+    public void audit(String method, Object request, Throwable error) {
+      // the audited call is the current call
+      assertNotNull(Server.getCurCall().get());
+      entries.add(CallerContext.getCurrent().getContext() + ":" + method
+          + ":" + request + ":" + (error == null));
+    }
+  }
+
+  @Test
+  public void testAuditedProtocols() {
+    coalescer = new CallCoalescer(
+        Collections.singleton(PROTOCOL + "." + METHOD),
+        Collections.singleton(PROTOCOL));
+    // not coalesced without an auditor
+    assertFalse(coalescer.isCoalesced(PROTOCOL, METHOD));
+    coalescer.setAuditor(PROTOCOL, new TestAuditor());
+    assertTrue(coalescer.isCoalesced(PROTOCOL, METHOD));
+
+    // an auditor also limits unlisted protocols to the methods it audits
+    coalescer = new CallCoalescer(
+        Collections.singleton(PROTOCOL + ".other"), Collections.emptySet());
+    assertTrue(coalescer.isCoalesced(PROTOCOL, "other"));
+    coalescer.setAuditor(PROTOCOL, new TestAuditor());
+    assertFalse(coalescer.isCoalesced(PROTOCOL, "other"));
+  }
+
+  @Test
+  public void testWaitersAreAudited() {
+    TestAuditor auditor = new TestAuditor();
+    coalescer.setAuditor(PROTOCOL, auditor);
+    TestCall leader = new TestCall("leader");
+    TestCall waiter1 = new TestCall("waiter1");
+    TestCall waiter2 = new TestCall("waiter2");
+    TestCall waiter3 = new TestCall("waiter3");
+    CallCoalescer.Flight flight =
+        coalescer.join(leader, PROTOCOL, METHOD, "request", 0);
+    assertNull(coalescer.join(waiter1, PROTOCOL, METHOD, "request", 0));
+    assertNull(coalescer.join(waiter2, PROTOCOL, METHOD, "request", 0));
+
+    CallerContext leaderContext = new CallerContext.Builder("leader").build();
+    Server.getCurCall().set(leader);
+    CallerContext.setCurrent(leaderContext);
+    try {
+      flight.complete(new Text("response"));
+      // the leader's call and context are restored
+      assertSame(leader, Server.getCurCall().get());
+      assertSame(leaderContext, CallerContext.getCurrent());
+    } finally {
+      Server.getCurCall().set(null);
+      CallerContext.setCurrent(null);
+    }
+    assertEquals(2, auditor.entries.size());
+    assertEquals("waiter1:" + METHOD + ":request:true", auditor.entries.get(0));
+    assertEquals("waiter2:" + METHOD + ":request:true", auditor.entries.get(1));
+
+    // failed calls are audited with their error
+    flight = coalescer.join(leader, PROTOCOL, METHOD, "request", 0);
+    assertNull(coalescer.join(waiter3, PROTOCOL, METHOD, "request", 0));
+    flight.fail(new IOException("failed"));
+    assertEquals("waiter3:" + METHOD + ":request:false",
+        auditor.entries.get(2));
+    assertNull(Server.getCurCall().get());
+  }
+
+  @Test
+  public void testCoalesceIdenticalCalls() {
+    TestCall leader = new TestCall();
+    TestCall waiter = new TestCall();
+    TestCall other = new TestCall();
+    CallCoalescer.Flight flight =
+        coalescer.join(leader, PROTOCOL, METHOD, "request", 0);
+    assertNotNull(flight);
+    assertFalse(leader.isResponseDeferred());
+    assertNull(coalescer.join(waiter, PROTOCOL, METHOD, "request", 0));
+    assertTrue(waiter.isResponseDeferred());
+    // different request
+    CallCoalescer.Flight otherFlight =
+        coalescer.join(other, PROTOCOL, METHOD, "other request", 0);
+    assertNotNull(otherFlight);
+    assertEquals(2, coalescer.getNumInFlight());
+
+    Writable response = new Text("response");
+    flight.complete(response);
+    assertSame(response, waiter.response);
+    assertNull(other.response);
+    otherFlight.complete(new Text("other response"));
+    assertEquals(0, coalescer.getNumInFlight());
+    assertNull(leader.response);
+  }
+
+  @Test
+  public void testErrorIsShared() {
+    TestCall leader = new TestCall();
+    TestCall waiter = new TestCall();
+    CallCoalescer.Flight flight =
+        coalescer.join(leader, PROTOCOL, METHOD, "request", 0);
+    assertNull(coalescer.join(waiter, PROTOCOL, METHOD, "request", 0));
+    IOException error = new IOException("failed");
+    flight.fail(error);
+    assertSame(error, waiter.error);
+    assertEquals(0, coalescer.getNumInFlight());
+  }
+
+  @Test
+  public void testCallAheadOfFlightIsNotCoalesced() {
+    TestCall leader = new TestCall();
+    CallCoalescer.Flight flight =
+        coalescer.join(leader, PROTOCOL, METHOD, "request", 10);
+    // the client has seen a state the call in flight may not reflect
+    TestCall ahead = new TestCall();
+    ahead.markCallCoordinated(true);
+    ahead.setClientStateId(11);
+    TestCall waiter = new TestCall();
+    waiter.markCallCoordinated(true);
+    waiter.setClientStateId(11);
+    CallCoalescer.Flight aheadFlight =
+        coalescer.join(ahead, PROTOCOL, METHOD, "request", 11);
+    assertNotNull(aheadFlight);
+    assertNotSame(flight, aheadFlight);
+    assertFalse(ahead.isResponseDeferred());
+
+    // calls received before the call ahead started join it
+    assertNull(coalescer.join(waiter, PROTOCOL, METHOD, "request", 12));
+    flight.complete(new Text("stale"));
+    Writable response = new Text("response");
+    aheadFlight.complete(response);
+    assertSame(response, waiter.response);
+    assertEquals(0, coalescer.getNumInFlight());
+  }
+
+  @Test
+  public void testLaterCallIsNotCoalesced() throws Exception {
+    TestCall leader = new TestCall();
+    CallCoalescer.Flight flight =
+        coalescer.join(leader, PROTOCOL, METHOD, "request", 0);
+    Thread.sleep(1);
+    // received after the call in flight started, so it may have to see
+    // changes made since then
+    TestCall late = new TestCall();
+    TestCall waiter = new TestCall();
+    CallCoalescer.Flight lateFlight =
+        coalescer.join(late, PROTOCOL, METHOD, "request", 0);
+    assertNotNull(lateFlight);
+    assertNotSame(flight, lateFlight);
+    assertFalse(late.isResponseDeferred());
+
+    // calls received before the late call started join it
+    assertNull(coalescer.join(waiter, PROTOCOL, METHOD, "request", 0));
+    flight.complete(new Text("early"));
+    assertEquals(1, coalescer.getNumInFlight());
+    Writable response = new Text("late");
+    lateFlight.complete(response);
+    assertSame(response, waiter.response);
+    assertEquals(0, coalescer.getNumInFlight());
+  }
+}
@@ -0,0 +1,63 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.ipc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+/** Unit tests for DirectResponseBufferPool. */
+public class TestDirectResponseBufferPool {
+  @Test
+  public void testPool() {
+    DirectResponseBufferPool pool = new DirectResponseBufferPool(16, 2);
+
+    ByteBuffer b1 = pool.get(10);
+    assertTrue(b1.isDirect());
+    assertEquals(0, b1.position());
+    assertEquals(10, b1.remaining());
+    ByteBuffer b2 = pool.get(16);
+    assertEquals(2, pool.getNumAllocated());
+    assertEquals(2, pool.getNumInUse());
+
+    // too large, or no buffer left
+    assertNull(pool.get(17));
+    assertNull(pool.get(1));
+
+    // released buffers are reused rather than allocating more
+    b1.position(b1.limit());
+    pool.release(b1);
+    assertEquals(1, pool.getNumInUse());
+    ByteBuffer b3 = pool.get(4);
+    assertSame(b1, b3);
+    assertEquals(0, b3.position());
+    assertEquals(4, b3.remaining());
+    assertEquals(2, pool.getNumAllocated());
+
+    pool.release(b2);
+    pool.release(b3);
+    assertEquals(0, pool.getNumInUse());
+    assertEquals(2, pool.getNumAllocated());
+  }
+}
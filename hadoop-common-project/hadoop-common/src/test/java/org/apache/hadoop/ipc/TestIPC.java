@@ -21,6 +21,9 @@
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
@@ -79,7 +82,10 @@
 import org.apache.hadoop.ipc.RPC.RpcKind;
 import org.apache.hadoop.ipc.Server.Call;
 import org.apache.hadoop.ipc.Server.Connection;
+import org.apache.hadoop.ipc.metrics.RpcClientMetrics;
 import org.apache.hadoop.ipc.protobuf.RpcHeaderProtos.RpcResponseHeaderProto;
+import org.apache.hadoop.metrics2.lib.MutableHistogram;
+import org.apache.hadoop.metrics2.lib.MutableHistograms;
 import org.apache.hadoop.net.ConnectTimeoutException;
 import org.apache.hadoop.net.NetUtils;
 import org.apache.hadoop.security.KerberosInfo;
@@ -241,12 +247,19 @@ private static class SerialCaller extends Thread {
     private Client client;
     private InetSocketAddress server;
     private int count;
+    private Configuration callerConf;
     private boolean failed;
 
     public SerialCaller(Client client, InetSocketAddress server, int count) {
+      this(client, server, count, conf);
+    }
+
+    public SerialCaller(Client client, InetSocketAddress server, int count,
+        Configuration callerConf) {
       this.client = client;
       this.server = server;
       this.count = count;
+      this.callerConf = callerConf;
     }
 
     @Override
@@ -254,7 +267,7 @@ public void run() {
       for (int i = 0; i < count; i++) {
         try {
           final long param = RANDOM.nextLong();
-          LongWritable value = call(client, param, server, conf);
+          LongWritable value = call(client, param, server, callerConf);
           if (value.get() != param) {
             LOG.error("Call failed!");
             failed = true;
@@ -334,6 +347,168 @@ public void testSerial() throws IOException, InterruptedException {
     internalTestSerial(3, true, 2, 5, 10);
   }
 
+  @Test(timeout=60000)
+  public void testConnectionPool() throws Exception {
+    Configuration clientConf = new Configuration(conf);
+    clientConf.setInt(
+        CommonConfigurationKeys.IPC_CLIENT_CONNECTION_POOL_SIZE_KEY, 3);
+    Server server = new TestServer(3, false);
+    InetSocketAddress addr = NetUtils.getConnectAddress(server);
+    server.start();
+    Client client = new Client(LongWritable.class, clientConf);
+    try {
+      for (long i = 0; i < 10; i++) {
+        assertEquals(i, call(client, i, addr, clientConf).get());
+      }
+      // the calls were spread over one connection per pool slot
+      assertEquals(3, client.getConnectionIds().size());
+      assertEquals(3, server.getNumOpenConnections());
+      // proxies without a pool share another connection
+      call(client, 10, addr, conf);
+      assertEquals(4, client.getConnectionIds().size());
+    } finally {
+      client.stop();
+      server.stop();
+    }
+  }
+
+  @Test(timeout=60000)
+  public void testCallTimeHistograms() throws Exception {
+    Configuration clientConf = new Configuration(conf);
+    clientConf.setInt(
+        CommonConfigurationKeys.IPC_CLIENT_CONNECTION_POOL_SIZE_KEY, 2);
+    clientConf.setBoolean(
+        CommonConfigurationKeys.IPC_CLIENT_METRICS_HISTOGRAMS_ENABLE, true);
+    Server server = new TestServer(3, false);
+    InetSocketAddress addr = NetUtils.getConnectAddress(server);
+    server.start();
+    Client client = new Client(LongWritable.class, clientConf);
+    try {
+      // concurrent calls share the pooled connections
+      SerialCaller[] callers = new SerialCaller[4];
+      for (int i = 0; i < callers.length; i++) {
+        callers[i] = new SerialCaller(client, addr, 50, clientConf);
+        callers[i].start();
+      }
+      for (SerialCaller caller : callers) {
+        caller.join();
+        assertFalse(caller.failed);
+      }
+      assertEquals(2, server.getNumOpenConnections());
+
+      MutableHistograms histograms =
+          client.getMetrics().getCallTimeHistograms();
+      String suffix = "To" + addr.getHostString().replaceAll("[^A-Za-z0-9_]",
+          "_") + "_" + addr.getPort();
+      assertNotNull(histograms.get("Connection0" + suffix));
+      assertNotNull(histograms.get("Connection1" + suffix));
+    } finally {
+      client.stop();
+      server.stop();
+    }
+  }
+
+  @Test
+  public void testCallTimeHistogramOwnership() {
+    Configuration clientConf = new Configuration(conf);
+    clientConf.setBoolean(
+        CommonConfigurationKeys.IPC_CLIENT_METRICS_HISTOGRAMS_ENABLE, true);
+    RpcClientMetrics metrics = RpcClientMetrics.create("ownership",
+        clientConf);
+    try {
+      MutableHistograms histograms = metrics.getCallTimeHistograms();
+      // connections of the same name share the histogram until both close
+      MutableHistogram first = metrics.addConnection("c");
+      assertSame(first, metrics.addConnection("c"));
+      metrics.removeConnection("c", first);
+      assertSame(first, histograms.get("c"));
+      metrics.removeConnection("c", first);
+      assertNull(histograms.get("c"));
+
+      // a stale removal does not drop the histogram of a newer connection
+      MutableHistogram second = metrics.addConnection("c");
+      assertNotSame(first, second);
+      histograms.remove("c", first);
+      assertSame(second, histograms.get("c"));
+      metrics.removeConnection("c", second);
+      assertNull(histograms.get("c"));
+    } finally {
+      metrics.shutdown();
+    }
+  }
+
+  @Test(timeout=60000)
+  public void testRejectedSendClosesConnection() throws Exception {
+    Server server = new TestServer(1, false);
+    InetSocketAddress addr = NetUtils.getConnectAddress(server);
+    server.start();
+    Client client = new Client(LongWritable.class, conf);
+    ExecutorService sendParamsExecutor =
+        (ExecutorService) Whitebox.getInternalState(client,
+            "sendParamsExecutor");
+    ExecutorService rejecting = Executors.newSingleThreadExecutor();
+    rejecting.shutdown();
+    try {
+      assertEquals(1L, call(client, 1L, addr, conf).get());
+      Whitebox.setInternalState(client, "sendParamsExecutor", rejecting);
+      try {
+        call(client, 2L, addr, conf);
+        fail("Expected the call to fail");
+      } catch (IOException e) {
+        GenericTestUtils.assertExceptionContains(
+            "connection has been closed", e);
+      }
+      // the connection is closed, so no other queued call is left waiting
+      GenericTestUtils.waitFor(() -> client.getConnectionIds().isEmpty(),
+          10, 10000);
+
+      Whitebox.setInternalState(client, "sendParamsExecutor",
+          sendParamsExecutor);
+      assertEquals(3L, call(client, 3L, addr, conf).get());
+    } finally {
+      Whitebox.setInternalState(client, "sendParamsExecutor",
+          sendParamsExecutor);
+      client.stop();
+      server.stop();
+    }
+  }
+
+  @Test(timeout=60000)
+  public void testInterruptedCallerKeepsConnection() throws Exception {
+    Server server = new TestServer(1, true);
+    InetSocketAddress addr = NetUtils.getConnectAddress(server);
+    server.start();
+    Client client = new Client(LongWritable.class, conf);
+    try {
+      final AtomicBoolean done = new AtomicBoolean();
+      Thread interrupted = new Thread(() -> {
+        while (!done.get()) {
+          try {
+            call(client, RANDOM.nextLong(), addr, conf);
+          } catch (IOException e) {
+            // interrupted while sending or waiting for the response
+            Thread.interrupted();
+          }
+        }
+      });
+      interrupted.start();
+      for (int i = 0; i < 20; i++) {
+        interrupted.interrupt();
+        Thread.sleep(10);
+      }
+      done.set(true);
+      interrupted.interrupt();
+      interrupted.join();
+
+      // interrupting the caller did not close the shared connection
+      assertEquals(1L, call(client, 1L, addr, conf).get());
+      assertEquals(1, server.getNumOpenConnections());
+    } finally {
+      client.stop();
+      server.stop();
+    }
+  }
+
   public void internalTestSerial(int handlerCount, boolean handlerSleep,
                          int clientCount, int callerCount, int callCount)
     throws IOException, InterruptedException {
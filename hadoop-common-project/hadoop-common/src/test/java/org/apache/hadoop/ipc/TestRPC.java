@@ -36,6 +36,7 @@
 import org.apache.hadoop.metrics2.MetricsRecordBuilder;
 import org.apache.hadoop.metrics2.lib.MutableCounterLong;
 import org.apache.hadoop.net.NetUtils;
+import org.apache.hadoop.net.NativeEpoll;
 import org.apache.hadoop.security.AccessControlException;
 import org.apache.hadoop.security.SecurityUtil;
 import org.apache.hadoop.security.UserGroupInformation;
@@ -49,6 +50,7 @@
 import org.apache.hadoop.test.MetricsAsserts;
 import org.apache.hadoop.test.MockitoUtil;
 import org.apache.hadoop.test.Whitebox;
+import org.apache.hadoop.util.Time;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -84,6 +86,7 @@
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -92,12 +95,16 @@
 import static org.apache.hadoop.test.MetricsAsserts.assertGauge;
 import static org.apache.hadoop.test.MetricsAsserts.getDoubleGauge;
 import static org.apache.hadoop.test.MetricsAsserts.getLongCounter;
+import static org.apache.hadoop.test.MetricsAsserts.getLongGauge;
 import static org.apache.hadoop.test.MetricsAsserts.getMetrics;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.spy;
@@ -1554,6 +1561,351 @@ public RpcStatusProto getRpcStatusProto() {
     }
   }
 
+  @Test(timeout=30000)
+  public void testDispatchCallsToThreadFactory() throws Exception {
+    final int maxInflight = 3;
+    final AtomicInteger maxRunning = new AtomicInteger();
+    final RPC.Server server =
+        newServerBuilder(conf).setNumHandlers(1).build();
+    server.setCallThreadFactory(r -> {
+      Thread t = new Thread(() -> {
+        maxRunning.accumulateAndGet(server.getDispatchedCallCount(),
+            Math::max);
+        r.run();
+      });
+      t.setDaemon(true);
+      return t;
+    }, maxInflight);
+    server.start();
+    addr = NetUtils.getConnectAddress(server);
+
+    final TestRpcService proxy = getClient(addr, conf);
+    ExecutorService executor = Executors.newFixedThreadPool(2 * maxInflight);
+    try {
+      assertTrue(server.isDispatchingCalls());
+      List<Future<Void>> futures = new ArrayList<>();
+      for (int i = 0; i < 2 * maxInflight; i++) {
+        futures.add(executor.submit(() -> {
+          proxy.sleep(null, newSleepRequest(500));
+          return null;
+        }));
+      }
+      long start = Time.monotonicNow();
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+      // A single handler served the calls concurrently, and no more than
+      // maxInflight of them at once.
+      assertThat(maxRunning.get()).isGreaterThan(1);
+      assertThat(maxRunning.get()).isLessThanOrEqualTo(maxInflight);
+      assertThat(Time.monotonicNow() - start).isGreaterThanOrEqualTo(1000);
+    } finally {
+      executor.shutdownNow();
+      stop(server, proxy);
+    }
+  }
+
+  @Test(timeout=60000)
+  public void testStopInterruptsDispatchedCalls() throws Exception {
+    final RPC.Server server =
+        newServerBuilder(conf).setNumHandlers(1).build();
+    server.setCallThreadFactory(r -> {
+      Thread t = new Thread(r);
+      t.setDaemon(true);
+      return t;
+    }, 2);
+    server.start();
+    addr = NetUtils.getConnectAddress(server);
+
+    final TestRpcService proxy = getClient(addr, conf);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      for (int i = 0; i < 2; i++) {
+        executor.submit(() -> proxy.sleep(null, newSleepRequest(100000)));
+      }
+      GenericTestUtils.waitFor(() -> server.getDispatchedCallCount() == 2,
+          100, 10000);
+      // The sleeping calls are interrupted and joined by stop().
+      long start = Time.monotonicNow();
+      server.stop();
+      assertEquals(0, server.getDispatchedCallCount());
+      assertThat(Time.monotonicNow() - start).isLessThan(10000);
+    } finally {
+      executor.shutdownNow();
+      stop(server, proxy);
+    }
+  }
+
+  @Test
+  public void testVirtualThreadHandlers() throws Exception {
+    Configuration serverConf = new Configuration(conf);
+    serverConf.setBoolean(CommonConfigurationKeys.
+        IPC_SERVER_HANDLER_VIRTUAL_THREADS_ENABLED_KEY, true);
+    RPC.Server server = newServerBuilder(serverConf).build();
+    try {
+      // Calls are dispatched if and only if the JVM has virtual threads.
+      assertEquals(Server.newVirtualThreadFactory("test") != null,
+          server.isDispatchingCalls());
+    } finally {
+      server.stop();
+    }
+  }
+
+  @Test(timeout=30000)
+  public void testDirectResponseBuffers() throws Exception {
+    Configuration serverConf = new Configuration(conf);
+    serverConf.setInt(
+        CommonConfigurationKeys.IPC_SERVER_RESPONSE_DIRECT_BUFFERS_KEY, 2);
+    serverConf.setInt(
+        CommonConfigurationKeys.IPC_SERVER_RESPONSE_DIRECT_BUFFER_SIZE_KEY,
+        1024);
+    Server server = setupTestServer(serverConf, 2);
+    TestRpcService proxy = null;
+    try {
+      proxy = getClient(addr, conf);
+      for (int i = 0; i < 10; i++) {
+        String msg = "message " + i;
+        assertEquals(msg, proxy.echo(null, newEchoRequest(msg)).getMessage());
+      }
+      // too large for a pooled buffer
+      char[] large = new char[2048];
+      Arrays.fill(large, 'x');
+      String msg = new String(large);
+      assertEquals(msg, proxy.echo(null, newEchoRequest(msg)).getMessage());
+
+      GenericTestUtils.waitFor(
+          () -> server.getNumResponseBuffersInUse() == 0, 10, 10000);
+      assertThat(server.getNumResponseBuffersAllocated()).isBetween(1, 2);
+      assertCounter("RpcResponseBufferPoolMisses", 1L,
+          getMetrics(server.getRpcMetrics().name()));
+    } finally {
+      stop(server, proxy);
+    }
+  }
+
+  @Test(timeout=60000)
+  public void testReadMultipleRequestsPerSelect() throws Exception {
+    Configuration serverConf = new Configuration(conf);
+    serverConf.setInt(
+        CommonConfigurationKeys.IPC_SERVER_RPC_READ_MAX_REQUESTS_KEY, 16);
+    Server server = setupTestServer(serverConf, 5);
+    ExecutorService executor = Executors.newFixedThreadPool(10);
+    TestRpcService proxy = null;
+    try {
+      // The calls of all threads are pipelined on one connection.
+      final TestRpcService client = getClient(addr, conf);
+      proxy = client;
+      List<Future<Void>> futures = new ArrayList<>();
+      for (int t = 0; t < 10; t++) {
+        final int thread = t;
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 100; i++) {
+            String msg = "message " + thread + "." + i;
+            assertEquals(msg,
+                client.echo(null, newEchoRequest(msg)).getMessage());
+          }
+          return null;
+        }));
+      }
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+      assertEquals(1, server.getNumOpenConnections());
+    } finally {
+      executor.shutdownNow();
+      stop(server, proxy);
+    }
+  }
+
+  @Test(timeout=60000)
+  public void testNativeEpollReaders() throws Exception {
+    assumeTrue(NativeEpoll.isAvailable());
+    Server server = setupTestServer(getEpollReaderConf(), 5);
+    try {
+      assertTrue(server.isUsingNativeEpoll());
+      checkEpollReaders(server);
+    } finally {
+      stop(server, null);
+    }
+  }
+
+  @Test(timeout=60000)
+  public void testNativeEpollReadersFallback() throws Exception {
+    assumeFalse(NativeEpoll.isAvailable());
+    Server server = setupTestServer(getEpollReaderConf(), 5);
+    try {
+      // falls back to selectors without native epoll
+      assertFalse(server.isUsingNativeEpoll());
+      checkEpollReaders(server);
+    } finally {
+      stop(server, null);
+    }
+  }
+
+  private Configuration getEpollReaderConf() {
+    Configuration serverConf = new Configuration(conf);
+    serverConf.setBoolean(
+        CommonConfigurationKeys.IPC_SERVER_RPC_READ_NATIVE_EPOLL_KEY, true);
+    serverConf.setInt(
+        CommonConfigurationKeys.IPC_SERVER_RPC_READ_THREADS_KEY, 2);
+    serverConf.setInt(
+        CommonConfigurationKeys.IPC_SERVER_RPC_READ_MAX_REQUESTS_KEY, 4);
+    return serverConf;
+  }
+
+  private void checkEpollReaders(Server server) throws Exception {
+    Configuration clientConf = new Configuration(conf);
+    clientConf.setInt(
+        CommonConfigurationKeys.IPC_CLIENT_CONNECTION_POOL_SIZE_KEY, 4);
+    ExecutorService executor = Executors.newFixedThreadPool(10);
+    TestRpcService proxy = null;
+    try {
+      final TestRpcService client = getClient(addr, clientConf);
+      proxy = client;
+      List<Future<Void>> futures = new ArrayList<>();
+      for (int t = 0; t < 10; t++) {
+        final int thread = t;
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 100; i++) {
+            String msg = "message " + thread + "." + i;
+            assertEquals(msg,
+                client.echo(null, newEchoRequest(msg)).getMessage());
+          }
+          return null;
+        }));
+      }
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+      assertEquals(4, server.getNumOpenConnections());
+
+      // closed connections are no longer watched
+      RPC.stopProxy(proxy);
+      proxy = null;
+      GenericTestUtils.waitFor(() -> server.getNumOpenConnections() == 0,
+          10, 10000);
+      final TestRpcService other = getClient(addr, conf);
+      proxy = other;
+      assertEquals("again", other.echo(null, newEchoRequest("again"))
+          .getMessage());
+    } finally {
+      executor.shutdownNow();
+      if (proxy != null) {
+        RPC.stopProxy(proxy);
+      }
+    }
+  }
+
+  @Test(timeout=60000)
+  public void testNoCoalescingOfAuditedProtocols() throws Exception {
+    Configuration serverConf = new Configuration(conf);
+    serverConf.set(CommonConfigurationKeys.IPC_SERVER_COALESCED_METHODS_KEY,
+        TestRpcService.class.getName() + ".sleep," +
+        TestRpcService.class.getName() + ".echo");
+    serverConf.set(CommonConfigurationKeys.
+            IPC_SERVER_COALESCED_METHODS_AUDITED_PROTOCOLS_KEY,
+        TestRpcService.class.getName());
+    Server server = setupTestServer(serverConf, 2);
+    try {
+      CallCoalescer coalescer = server.getCallCoalescer();
+      assertFalse(coalescer.isCoalesced(
+          TestRpcService.class.getName(), "sleep"));
+      assertFalse(coalescer.isCoalesced(
+          TestRpcService.class.getName(), "echo"));
+
+      // the server audits the coalesced calls of the methods it can audit
+      server.setCoalescedCallAuditor(TestRpcService.class.getName(),
+          new CoalescedCallAuditor() {
+            @Override
+            public boolean canAudit(String method) {
+              return method.equals("sleep");
+            }
+
+            @Override
+            public void audit(String method, Object request,
+                Throwable error) {
+            }
+          });
+      assertTrue(coalescer.isCoalesced(
+          TestRpcService.class.getName(), "sleep"));
+      assertFalse(coalescer.isCoalesced(
+          TestRpcService.class.getName(), "echo"));
+    } finally {
+      stop(server, null);
+    }
+  }
+
+  @Test(timeout=60000)
+  public void testCoalesceIdenticalCalls() throws Exception {
+    Configuration serverConf = new Configuration(conf);
+    serverConf.set(CommonConfigurationKeys.IPC_SERVER_COALESCED_METHODS_KEY,
+        TestRpcService.class.getName() + ".sleep");
+    Server server = setupTestServer(serverConf, 2);
+    ExecutorService executor = Executors.newFixedThreadPool(7);
+    TestRpcService proxy = null;
+    try {
+      final TestRpcService client = getClient(addr, conf);
+      proxy = client;
+      List<Future<?>> futures = new ArrayList<>();
+      // Keep both handlers busy, the second one for longer, while identical
+      // calls queue up. The first of them runs on the first free handler and
+      // the others join it on the second.
+      futures.add(executor.submit(() ->
+          client.sleep(null, newSleepRequest(1000))));
+      Thread.sleep(100);
+      futures.add(executor.submit(() ->
+          client.sleep(null, newSleepRequest(1500))));
+      Thread.sleep(100);
+      for (int i = 0; i < 5; i++) {
+        futures.add(executor.submit(() ->
+            client.sleep(null, newSleepRequest(2000))));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+      assertCounter("RpcCoalescedCalls", 4L,
+          getMetrics(server.getRpcMetrics().name()));
+      assertEquals(0, server.getCallCoalescer().getNumInFlight());
+    } finally {
+      executor.shutdownNow();
+      stop(server, proxy);
+    }
+  }
+
+  @Test(timeout=60000)
+  public void testRpcHistograms() throws Exception {
+    Configuration serverConf = new Configuration(conf);
+    serverConf.setBoolean(
+        CommonConfigurationKeys.RPC_METRICS_HISTOGRAMS_ENABLE, true);
+    serverConf.setInt(
+        CommonConfigurationKeys.RPC_METRICS_HISTOGRAMS_INTERVAL_KEY, 1);
+    final Server server = setupTestServer(serverConf, 5);
+    TestRpcService proxy = null;
+    try {
+      proxy = getClient(addr, conf);
+      final int sleepMs = 100;
+      for (int i = 0; i < 3; i++) {
+        proxy.sleep(null, newSleepRequest(sleepMs));
+      }
+      // the calls show up once their interval rolls over, and are replaced
+      // by the next interval, so check the values of a single snapshot.
+      final MetricsRecordBuilder[] rb = new MetricsRecordBuilder[1];
+      GenericTestUtils.waitFor(() -> {
+        rb[0] = getMetrics(server.getRpcDetailedMetrics().name());
+        return getLongGauge("SleepProcessingTimeNumOps", rb[0]) > 0;
+      }, 100, 10000);
+      assertThat(getLongGauge("SleepProcessingTime999thPercentileLatency",
+          rb[0])).isGreaterThanOrEqualTo(sleepMs);
+      assertThat(getLongGauge("SleepProcessingTimeMaxLatency", rb[0]))
+          .isGreaterThanOrEqualTo(sleepMs);
+      assertThat(getLongGauge("SleepLockWaitTimeMaxLatency", rb[0])).isZero();
+      GenericTestUtils.waitFor(() -> getLongGauge("Priority0QueueTimeNumOps",
+          getMetrics(server.getRpcMetrics().name())) > 0, 100, 10000);
+    } finally {
+      stop(server, proxy);
+    }
+  }
+
   public static void main(String[] args) throws Exception {
     new TestRPC().testCallsInternal(conf);
   }
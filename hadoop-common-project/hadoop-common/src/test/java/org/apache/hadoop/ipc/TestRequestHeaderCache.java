@@ -0,0 +1,138 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.ipc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.hadoop.ipc.protobuf.ProtobufRpcEngine2Protos.RequestHeaderProto;
+import org.apache.hadoop.test.LambdaTestUtils;
+import org.apache.hadoop.thirdparty.protobuf.InvalidProtocolBufferException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/** Tests for {@link RequestHeaderCache}. */
+public class TestRequestHeaderCache {
+
+  private static RequestHeaderProto header(String method) {
+    return RequestHeaderProto.newBuilder()
+        .setMethodName(method)
+        .setDeclaringClassProtocolName("proto")
+        .setClientProtocolVersion(1)
+        .build();
+  }
+
+  /** A delimited header followed by a payload byte, at a non-zero offset. */
+  private static ByteBuffer buffer(RequestHeaderProto header)
+      throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    out.write(0);
+    header.writeDelimitedTo(out);
+    out.write(42);
+    ByteBuffer bb = ByteBuffer.wrap(out.toByteArray());
+    bb.position(1);
+    return bb.slice();
+  }
+
+  private static RequestHeaderProto decode(RequestHeaderCache cache,
+      ByteBuffer bb) throws IOException {
+    RequestHeaderProto header = cache.decode(bb);
+    assertEquals("buffer not advanced to the payload", 1, bb.remaining());
+    assertEquals(42, bb.get(bb.position()));
+    return header;
+  }
+
+  @Test
+  public void testReusesDecodedHeaders() throws IOException {
+    RequestHeaderCache cache = new RequestHeaderCache(16);
+    RequestHeaderProto first = decode(cache, buffer(header("getFileInfo")));
+    assertEquals(header("getFileInfo"), first);
+    assertSame(first, decode(cache, buffer(header("getFileInfo"))));
+
+    RequestHeaderProto other = decode(cache, buffer(header("mkdirs")));
+    assertEquals(header("mkdirs"), other);
+    assertSame(other, decode(cache, buffer(header("mkdirs"))));
+    assertSame(first.getMethodName(),
+        decode(cache, buffer(header("getFileInfo"))).getMethodName());
+  }
+
+  @Test
+  public void testCollisionsReplaceEntries() throws IOException {
+    // a single slot holds the last decoded header.
+    RequestHeaderCache cache = new RequestHeaderCache(1);
+    RequestHeaderProto a = decode(cache, buffer(header("a")));
+    RequestHeaderProto b = decode(cache, buffer(header("b")));
+    assertEquals(header("b"), b);
+    RequestHeaderProto a2 = decode(cache, buffer(header("a")));
+    assertEquals(a, a2);
+    assertNotSame(a, a2);
+    assertSame(a2, decode(cache, buffer(header("a"))));
+  }
+
+  @Test
+  public void testLongHeadersAreNotCached() throws IOException {
+    RequestHeaderCache cache = new RequestHeaderCache(16);
+    StringBuilder method = new StringBuilder();
+    while (method.length() <= RequestHeaderCache.MAX_CACHED_LENGTH) {
+      method.append("method");
+    }
+    RequestHeaderProto expected = header(method.toString());
+    RequestHeaderProto first = decode(cache, buffer(expected));
+    assertEquals(expected, first);
+    assertNotSame(first, decode(cache, buffer(expected)));
+  }
+
+  @Test
+  public void testBuffersWithoutArray() throws IOException {
+    RequestHeaderCache cache = new RequestHeaderCache(16);
+    ByteBuffer heap = buffer(header("getFileInfo"));
+    ByteBuffer direct = ByteBuffer.allocateDirect(heap.remaining());
+    direct.put(heap.duplicate()).flip();
+    RequestHeaderProto first = decode(cache, direct);
+    assertEquals(header("getFileInfo"), first);
+    RequestHeaderProto second = decode(cache, heap.asReadOnlyBuffer());
+    assertEquals(first, second);
+    // headers in buffers without an accessible array are not cached.
+    assertNotSame(first, second);
+  }
+
+  @Test
+  public void testMalformedHeaders() throws Exception {
+    final RequestHeaderCache cache = new RequestHeaderCache(16);
+    // truncated message.
+    final ByteBuffer truncated = buffer(header("getFileInfo"));
+    truncated.limit(truncated.limit() - 4);
+    LambdaTestUtils.intercept(InvalidProtocolBufferException.class,
+        () -> cache.decode(truncated));
+    // missing required fields.
+    final ByteBuffer partial = buffer(RequestHeaderProto.newBuilder()
+        .setMethodName("getFileInfo").buildPartial());
+    LambdaTestUtils.intercept(InvalidProtocolBufferException.class,
+        () -> cache.decode(partial));
+    // malformed length.
+    final ByteBuffer length = ByteBuffer.wrap(new byte[] {
+        (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff,
+        (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 1});
+    LambdaTestUtils.intercept(InvalidProtocolBufferException.class,
+        () -> cache.decode(length));
+  }
+}
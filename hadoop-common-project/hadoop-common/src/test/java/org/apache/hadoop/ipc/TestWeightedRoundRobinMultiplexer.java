@@ -26,7 +26,9 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import static org.apache.hadoop.ipc.WeightedRoundRobinMultiplexer.IPC_CALLQUEUE_WRRMUX_QUEUE_TIME_TARGETS_KEY;
 import static org.apache.hadoop.ipc.WeightedRoundRobinMultiplexer.IPC_CALLQUEUE_WRRMUX_WEIGHTS_KEY;
+import static org.apache.hadoop.ipc.WeightedRoundRobinMultiplexer.MAX_WEIGHT_SCALE;
 
 public class TestWeightedRoundRobinMultiplexer {
   public static final Logger LOG =
@@ -141,4 +143,62 @@ public void testCustomPattern() {
     } // Ensure pattern repeats
 
   }
-}
\ No newline at end of file
+
+  @Test(expected=IllegalArgumentException.class)
+  public void testInstantiateIllegalQueueTimeTargets() {
+    Configuration conf = new Configuration();
+    conf.setStrings("namespace." + IPC_CALLQUEUE_WRRMUX_QUEUE_TIME_TARGETS_KEY,
+      "10", "100", "1000");
+
+    // ask for 3 targets with 2 queues
+    mux = new WeightedRoundRobinMultiplexer(2, "namespace", conf);
+  }
+
+  @Test
+  public void testAdaptivePattern() {
+    Configuration conf = new Configuration();
+    conf.setStrings("test.adaptive." + IPC_CALLQUEUE_WRRMUX_WEIGHTS_KEY,
+      "2", "1");
+    conf.setStrings("test.adaptive." +
+      IPC_CALLQUEUE_WRRMUX_QUEUE_TIME_TARGETS_KEY, "10", "1000");
+
+    mux = new WeightedRoundRobinMultiplexer(2, "test.adaptive", conf);
+
+    // Within target: 2x0 1x1
+    for(int i = 0; i < 200; i++) {
+      mux.addQueueTime(0, 5);
+      mux.addQueueTime(1, 500);
+    }
+    for(int i = 0; i < 3; i++) {
+      assertThat(mux.getAndAdvanceCurrentIndex()).isZero();
+      assertThat(mux.getAndAdvanceCurrentIndex()).isZero();
+      assertThat(mux.getAndAdvanceCurrentIndex()).isOne();
+    }
+    assertThat(mux.getCurrentWeights()).containsExactly(2, 1);
+
+    // Queue 0 is 4 times over its target, so it takes effect from the next
+    // cycle: 8x0 1x1
+    for(int i = 0; i < 200; i++) {
+      mux.addQueueTime(0, 40);
+    }
+    assertThat(mux.getAndAdvanceCurrentIndex()).isZero();
+    assertThat(mux.getAndAdvanceCurrentIndex()).isZero();
+    assertThat(mux.getAndAdvanceCurrentIndex()).isOne();
+    for(int i = 0; i < 2; i++) {
+      for(int j = 0; j < 8; j++) {
+        assertThat(mux.getAndAdvanceCurrentIndex()).isZero();
+      }
+      assertThat(mux.getAndAdvanceCurrentIndex()).isOne();
+    }
+
+    // The scale is bounded
+    for(int i = 0; i < 200; i++) {
+      mux.addQueueTime(0, 100000);
+    }
+    for(int i = 0; i < 9; i++) {
+      mux.getAndAdvanceCurrentIndex();
+    }
+    assertThat(mux.getCurrentWeights())
+        .containsExactly(2 * MAX_WEIGHT_SCALE, 1);
+  }
+}
@@ -20,15 +20,19 @@
 
 import static org.apache.hadoop.metrics2.lib.Interns.info;
 import static org.apache.hadoop.test.MetricsAsserts.*;
+import static org.mockito.AdditionalMatchers.and;
 import static org.mockito.AdditionalMatchers.eq;
 import static org.mockito.AdditionalMatchers.geq;
 import static org.mockito.AdditionalMatchers.leq;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
 
+import java.lang.reflect.Method;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Random;
@@ -274,6 +278,47 @@ public void run() {
     secondSnapshotsFinished.countDown();
   }
 
+  @Test public void testMutableRatesWithAggregationVirtualThreads()
+      throws Exception {
+    Method startVirtualThread;
+    try {
+      startVirtualThread =
+          Thread.class.getMethod("startVirtualThread", Runnable.class);
+    } catch (NoSuchMethodException e) {
+      startVirtualThread = null;
+    }
+    assumeTrue("JVM has no virtual threads", startVirtualThread != null);
+    final MutableRatesWithAggregation rates = new MutableRatesWithAggregation();
+
+    final int n = 10;
+    long[] opCount = new long[n];
+    double[] opTotalTime = new double[n];
+    for (int i = 0; i < n; i++) {
+      rates.add("metric" + i, 0);
+    }
+
+    // Every sample is added from its own short lived virtual thread, whose
+    // samples must not be lost when it exits.
+    Thread[] threads = new Thread[1000];
+    for (int tIdx = 0; tIdx < threads.length; tIdx++) {
+      final int i = tIdx;
+      Runnable add =
+          () -> rates.add("metric" + (i % n), (i / n) % 2 == 0 ? 1 : 2);
+      threads[tIdx] = (Thread) startVirtualThread.invoke(null, add);
+      if (tIdx % 100 == 0) {
+        snapshotMutableRatesWithAggregation(rates, opCount, opTotalTime);
+      }
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    snapshotMutableRatesWithAggregation(rates, opCount, opTotalTime);
+    for (int i = 0; i < n; i++) {
+      assertEquals("metric" + i + " count", 101, opCount[i]);
+      assertEquals("metric" + i + " total", 150, opTotalTime[i], 1.0);
+    }
+  }
+
   private static void snapshotMutableRatesWithAggregation(
       MutableRatesWithAggregation rates, long[] opCount, double[] opTotalTime) {
     MetricsRecordBuilder rb = mockMetricsRecordBuilder();
@@ -439,4 +484,76 @@ public void testMutableQuantilesEmptyRollover() throws Exception {
     verify(mb, times(2)).addGauge(
         info("FooNumOps", "Number of ops for stat with 5s interval"), (long) 0);
   }
+
+  /**
+   * Test that {@link MutableHistogram} buckets values with bounded error.
+   */
+  @Test
+  public void testMutableHistogramBuckets() {
+    int previous = -1;
+    for (long value = 0; value < 100000; value++) {
+      int index = MutableHistogram.bucketIndex(value);
+      assertTrue(index == previous || index == previous + 1);
+      long highest = MutableHistogram.highestValue(index);
+      assertTrue(highest >= value);
+      assertTrue("value " + value + " in bucket up to " + highest,
+          highest - value <= value / 32);
+      previous = index;
+    }
+    assertEquals(Long.MAX_VALUE, MutableHistogram.highestValue(
+        MutableHistogram.bucketIndex(Long.MAX_VALUE)));
+  }
+
+  /**
+   * Test the percentiles {@link MutableHistogram} publishes for an interval.
+   */
+  @Test
+  public void testMutableHistogram() {
+    MetricsRecordBuilder mb = mockMetricsRecordBuilder();
+    MetricsRegistry registry = new MetricsRegistry("test");
+    MutableHistograms histograms = registry.newHistograms("histograms",
+        "Time", "Ops", "Latency", 3600, 1000000);
+    for (long i = 1; i <= 10000; i++) {
+      histograms.add("foo", i);
+    }
+    histograms.add("foo", 2000000);
+    MutableHistogram histogram = histograms.get("foo");
+    histogram.rollover();
+    registry.snapshot(mb, false);
+
+    String desc = "%s percentile latency with 3600 second interval for foo time";
+    verify(mb).addGauge(
+        info("FooTimeNumOps", "Number of ops for foo time with 3600s interval"),
+        10001L);
+    verify(mb).addGauge(eq(info("FooTime50thPercentileLatency",
+        String.format(desc, "50"))), and(geq(5000L), leq(5200L)));
+    verify(mb).addGauge(eq(info("FooTime99thPercentileLatency",
+        String.format(desc, "99"))), and(geq(9900L), leq(10300L)));
+    verify(mb).addGauge(eq(info("FooTime999thPercentileLatency",
+        String.format(desc, "99.9"))), and(geq(9990L), leq(10400L)));
+    // larger than the highest trackable value
+    verify(mb).addGauge(info("FooTimeMaxLatency",
+        "Maximum latency with 3600 second interval for foo time"), 1000000L);
+
+    // nothing was added in the next interval
+    histogram.rollover();
+    registry.snapshot(mb, false);
+    verify(mb).addGauge(
+        info("FooTimeNumOps", "Number of ops for foo time with 3600s interval"),
+        0L);
+
+    // a removed histogram is no longer published
+    // only the registered instance is removed
+    assertFalse(histograms.remove("foo", histograms.getOrCreate("bar")));
+    assertTrue(histograms.remove("foo", histogram));
+    assertNull(histograms.get("foo"));
+    mb = mockMetricsRecordBuilder();
+    registry.snapshot(mb, false);
+    verify(mb, never()).addGauge(eq(info("FooTimeNumOps",
+        "Number of ops for foo time with 3600s interval")), anyLong());
+    histograms.stop();
+    // nothing is created after stopping
+    histograms.add("baz", 1);
+    assertNull(histograms.get("baz"));
+  }
 }
@@ -0,0 +1,124 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import org.apache.hadoop.io.IOUtils;
+import org.apache.hadoop.util.Time;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/** Tests for {@link NativeEpoll}. */
+public class TestNativeEpoll {
+
+  private ServerSocketChannel server;
+  private SocketChannel client;
+  private SocketChannel accepted;
+  private NativeEpoll epoll;
+
+  @Before
+  public void before() throws IOException {
+    Assume.assumeTrue(NativeEpoll.isAvailable());
+    server = ServerSocketChannel.open();
+    server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    client = SocketChannel.open(server.getLocalAddress());
+    accepted = server.accept();
+    accepted.configureBlocking(false);
+    epoll = new NativeEpoll();
+  }
+
+  @After
+  public void after() {
+    IOUtils.closeStreams(epoll, accepted, client, server);
+  }
+
+  private void send(int bytes) throws IOException {
+    client.write(ByteBuffer.allocate(bytes));
+  }
+
+  @Test(timeout=30000)
+  public void testEdgeTriggered() throws IOException {
+    int fd = NativeEpoll.getFd(accepted);
+    epoll.add(fd);
+    assertEquals(0, epoll.waitForEvents(0));
+
+    send(10);
+    assertEquals(1, epoll.waitForEvents(-1));
+    assertEquals(fd, epoll.getReadyFd(0));
+    // not reported again until more data arrives, even if not read
+    assertEquals(0, epoll.waitForEvents(0));
+    send(10);
+    assertEquals(1, epoll.waitForEvents(-1));
+    ByteBuffer buf = ByteBuffer.allocate(100);
+    assertEquals(20, accepted.read(buf));
+    assertEquals(0, accepted.read(buf));
+
+    // a closed peer is reported
+    client.close();
+    assertEquals(1, epoll.waitForEvents(-1));
+    assertEquals(-1, accepted.read(buf));
+  }
+
+  @Test(timeout=30000)
+  public void testRemove() throws IOException {
+    int fd = NativeEpoll.getFd(accepted);
+    epoll.add(fd);
+    epoll.remove(fd);
+    send(10);
+    assertEquals(0, epoll.waitForEvents(100));
+
+    // closed sockets are ignored
+    accepted.close();
+    epoll.remove(fd);
+  }
+
+  @Test(timeout=30000)
+  public void testWakeup() throws Exception {
+    epoll.add(NativeEpoll.getFd(accepted));
+    Thread waker = new Thread(() -> {
+      try {
+        Thread.sleep(100);
+        epoll.wakeup();
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    });
+    waker.start();
+    assertEquals(0, epoll.waitForEvents(-1));
+    waker.join();
+
+    // wakeups are only reported once
+    epoll.wakeup();
+    epoll.wakeup();
+    assertEquals(0, epoll.waitForEvents(-1));
+    long start = Time.monotonicNow();
+    assertEquals(0, epoll.waitForEvents(200));
+    assertTrue(Time.monotonicNow() - start >= 100);
+  }
+}
@@ -0,0 +1,242 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.classification.InterfaceStability;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.Options;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.hdfs.DFSOpsCountStatistics.OpType;
+import org.apache.hadoop.hdfs.client.HdfsClientConfigKeys;
+import org.apache.hadoop.hdfs.protocol.HdfsFileStatus;
+import org.apache.hadoop.io.retry.AsyncCallHandler;
+import org.apache.hadoop.ipc.Client;
+import org.apache.hadoop.ipc.RemoteException;
+
+/****************************************************************
+ * Implementation of the asynchronous distributed file system.
+ * This instance of this class is the way end-user code interacts
+ * with a Hadoop DistributedFileSystem in an asynchronous manner.
+ *
+ * The calls are sent with the IPC client in asynchronous mode through the
+ * same retry proxy as the calls of {@link DistributedFileSystem}, so they
+ * get the same retry and failover handling, and the returned futures are
+ * completed by the async call processor of that proxy without a thread
+ * waiting for each call.
+ *
+ * At most {@link HdfsClientConfigKeys#DFS_CLIENT_ASYNC_CALLS_MAX_KEY} calls
+ * can be outstanding; further calls block until one of them completes.
+ * Dependent actions of the returned futures run in the processor thread
+ * unless the async variants of the {@link CompletableFuture} methods are
+ * used, so they must neither block nor make further calls with this object.
+ * Unlike {@link DistributedFileSystem}, symlinks are not resolved.
+ *
+ *****************************************************************/
+@InterfaceAudience.LimitedPrivate({ "MapReduce", "HBase", "Hive" })
+@InterfaceStability.Unstable
+public class AsyncDistributedFileSystem {
+
+  /** A call to the namenode, made while the client is in async mode. */
+  @FunctionalInterface
+  private interface AsyncCall {
+    void call() throws IOException;
+  }
+
+  /** Convert the value returned by the namenode. */
+  @FunctionalInterface
+  private interface Converter<R, T> {
+    T convert(R r) throws IOException;
+  }
+
+  private final DistributedFileSystem dfs;
+  private final Semaphore outstandingCalls;
+
+  AsyncDistributedFileSystem(final DistributedFileSystem dfs) {
+    this.dfs = dfs;
+    final int maxCalls = dfs.getConf().getInt(
+        HdfsClientConfigKeys.DFS_CLIENT_ASYNC_CALLS_MAX_KEY,
+        HdfsClientConfigKeys.DFS_CLIENT_ASYNC_CALLS_MAX_DEFAULT);
+    Preconditions.checkArgument(maxCalls > 0, "%s = %s <= 0",
+        HdfsClientConfigKeys.DFS_CLIENT_ASYNC_CALLS_MAX_KEY, maxCalls);
+    this.outstandingCalls = new Semaphore(maxCalls);
+  }
+
+  /**
+   * Make the given call in async mode and return a future of its
+   * converted return value. Block while there are too many outstanding calls.
+   */
+  private <R, T> CompletableFuture<T> submit(AsyncCall call,
+      Converter<R, T> converter) throws IOException {
+    try {
+      outstandingCalls.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw (IOException) new InterruptedIOException(
+          "Interrupted while waiting for outstanding async calls")
+          .initCause(e);
+    }
+
+    final CompletableFuture<R> returned;
+    final boolean isAsync = Client.isAsynchronousMode();
+    Client.setAsynchronousMode(true);
+    try {
+      call.call();
+      returned = AsyncCallHandler.getAsyncReturnFuture();
+    } catch (IOException | RuntimeException e) {
+      outstandingCalls.release();
+      throw e;
+    } finally {
+      Client.setAsynchronousMode(isAsync);
+    }
+
+    final CompletableFuture<T> future = new CompletableFuture<>();
+    returned.whenComplete((r, t) -> {
+      // release first so that the dependent actions may submit new calls.
+      outstandingCalls.release();
+      if (t != null) {
+        future.completeExceptionally(t instanceof RemoteException
+            ? ((RemoteException) t).unwrapRemoteException() : t);
+        return;
+      }
+      try {
+        future.complete(converter.convert(r));
+      } catch (Throwable e) {
+        future.completeExceptionally(e);
+      }
+    });
+    return future;
+  }
+
+  @VisibleForTesting
+  int getAvailableCalls() {
+    return outstandingCalls.availablePermits();
+  }
+
+  /**
+   * Asynchronously return a file status object that represents the path.
+   *
+   * @param f The path we want information from
+   * @return a future of the file status; it fails with
+   *         {@link FileNotFoundException} if the file does not exist.
+   * @throws IOException if the call cannot be submitted.
+   * @see DistributedFileSystem#getFileStatus(Path)
+   */
+  public CompletableFuture<FileStatus> getFileStatus(Path f)
+      throws IOException {
+    dfs.getFsStatistics().incrementReadOps(1);
+    dfs.getDFSOpsCountStatistics().incrementOpCounter(OpType.GET_FILE_STATUS);
+    final Path absF = dfs.fixRelativePart(f);
+    return submit(() -> dfs.getClient().getFileInfo(dfs.getPathName(absF)),
+        (HdfsFileStatus fi) -> {
+          if (fi == null) {
+            throw new FileNotFoundException("File does not exist: " + absF);
+          }
+          return fi.makeQualified(dfs.getUri(), absF);
+        });
+  }
+
+  /**
+   * Asynchronously rename src path to dst path with options.
+   *
+   * @param src path to be renamed
+   * @param dst new path after rename
+   * @param options rename options
+   * @return a future which completes once the rename is done.
+   * @throws IOException if the call cannot be submitted.
+   * @see DistributedFileSystem#rename(Path, Path, Options.Rename...)
+   */
+  public CompletableFuture<Void> rename(Path src, Path dst,
+      final Options.Rename... options) throws IOException {
+    dfs.getFsStatistics().incrementWriteOps(1);
+    dfs.getDFSOpsCountStatistics().incrementOpCounter(OpType.RENAME);
+    final Path absSrc = dfs.fixRelativePart(src);
+    final Path absDst = dfs.fixRelativePart(dst);
+    return submit(() -> dfs.getClient().rename(dfs.getPathName(absSrc),
+        dfs.getPathName(absDst), options), (Void v) -> v);
+  }
+
+  /**
+   * Asynchronously delete a file or directory.
+   *
+   * @param f the path to delete
+   * @param recursive if the path is a non-empty directory, whether to delete
+   *          its contents; otherwise the delete fails.
+   * @return a future of whether the delete succeeded.
+   * @throws IOException if the call cannot be submitted.
+   * @see DistributedFileSystem#delete(Path, boolean)
+   */
+  public CompletableFuture<Boolean> delete(Path f, final boolean recursive)
+      throws IOException {
+    dfs.getFsStatistics().incrementWriteOps(1);
+    dfs.getDFSOpsCountStatistics().incrementOpCounter(OpType.DELETE);
+    final Path absF = dfs.fixRelativePart(f);
+    return submit(() -> dfs.getClient().delete(dfs.getPathName(absF),
+        recursive), (Boolean deleted) -> deleted);
+  }
+
+  /**
+   * Asynchronously set permission of a path.
+   *
+   * @param p the path the permission is set to
+   * @param permission the permission set to the path
+   * @return a future which completes once the permission is set.
+   * @throws IOException if the call cannot be submitted.
+   * @see DistributedFileSystem#setPermission(Path, FsPermission)
+   */
+  public CompletableFuture<Void> setPermission(Path p,
+      final FsPermission permission) throws IOException {
+    dfs.getFsStatistics().incrementWriteOps(1);
+    dfs.getDFSOpsCountStatistics().incrementOpCounter(OpType.SET_PERMISSION);
+    final Path absPath = dfs.fixRelativePart(p);
+    return submit(() -> dfs.getClient().setPermission(
+        dfs.getPathName(absPath), permission), (Void v) -> v);
+  }
+
+  /**
+   * Asynchronously set owner of a path (i.e. a file or a directory). The
+   * parameters username and groupname cannot both be null.
+   *
+   * @param p the path the owner is set to
+   * @param username user name
+   * @param groupname group name
+   * @return a future which completes once the owner is set.
+   * @throws IOException if the call cannot be submitted.
+   * @see DistributedFileSystem#setOwner(Path, String, String)
+   */
+  public CompletableFuture<Void> setOwner(Path p, final String username,
+      final String groupname) throws IOException {
+    if (username == null && groupname == null) {
+      throw new IOException("username == null && groupname == null");
+    }
+    dfs.getFsStatistics().incrementWriteOps(1);
+    dfs.getDFSOpsCountStatistics().incrementOpCounter(OpType.SET_OWNER);
+    final Path absPath = dfs.fixRelativePart(p);
+    return submit(() -> dfs.getClient().setOwner(dfs.getPathName(absPath),
+        username, groupname), (Void v) -> v);
+  }
+}
@@ -79,6 +79,8 @@
 import org.apache.hadoop.hdfs.client.impl.CorruptFileBlockIterator;
 import org.apache.hadoop.hdfs.protocol.AddErasureCodingPolicyResponse;
 import org.apache.hadoop.hdfs.protocol.BatchedDirectoryListing;
+import org.apache.hadoop.hdfs.protocol.BatchedMetadataOp;
+import org.apache.hadoop.hdfs.protocol.BatchedMetadataResult;
 import org.apache.hadoop.hdfs.protocol.BlockStoragePolicy;
 import org.apache.hadoop.hdfs.protocol.CacheDirectiveEntry;
 import org.apache.hadoop.hdfs.protocol.CacheDirectiveInfo;
@@ -152,6 +154,7 @@ public class DistributedFileSystem extends FileSystem
   private boolean verifyChecksum = true;
 
   private DFSOpsCountStatistics storageStatistics;
+  private AsyncDistributedFileSystem asyncDfs;
 
   static{
     HdfsConfiguration.init();
@@ -1354,6 +1357,37 @@ public RemoteIterator<PartialListing<LocatedFileStatus>> batchedListLocatedStatu
     return new PartialListingIterator<>(absPaths, true);
   }
 
+  /**
+   * Execute many metadata operations with a single call to the namenode,
+   * which runs them under one namesystem lock acquisition. The paths of the
+   * operations may be relative to the working directory; symlinks are not
+   * resolved. A failed operation does not stop the following ones, its
+   * exception is returned in its result instead.
+   *
+   * @param ops the operations to execute
+   * @return the results of the operations, in the same order
+   * @throws IOException if the batch as a whole failed
+   * @see ClientProtocol#batchMetadataOps(BatchedMetadataOp[])
+   */
+  @InterfaceStability.Unstable
+  public BatchedMetadataResult[] batchMetadataOps(BatchedMetadataOp... ops)
+      throws IOException {
+    boolean readOnly = true;
+    final BatchedMetadataOp[] absOps = new BatchedMetadataOp[ops.length];
+    for (int i = 0; i < ops.length; i++) {
+      readOnly &= ops[i].getType().isReadOnly();
+      absOps[i] = ops[i].withSrc(
+          getPathName(fixRelativePart(new Path(ops[i].getSrc()))));
+    }
+    if (readOnly) {
+      statistics.incrementReadOps(1);
+    } else {
+      statistics.incrementWriteOps(1);
+    }
+    storageStatistics.incrementOpCounter(OpType.BATCH_METADATA_OPS);
+    return dfs.batchMetadataOps(absOps);
+  }
+
   private static final Logger LBI_LOG =
       LoggerFactory.getLogger(PartialListingIterator.class);
 
@@ -1525,6 +1559,16 @@ public DFSClient getClient() {
     return dfs;
   }
 
+  /** @return an {@link AsyncDistributedFileSystem} object. */
+  @InterfaceStability.Unstable
+  public synchronized AsyncDistributedFileSystem
+      getAsyncDistributedFileSystem() {
+    if (asyncDfs == null) {
+      asyncDfs = new AsyncDistributedFileSystem(this);
+    }
+    return asyncDfs;
+  }
+
   @Override
   public FsStatus getStatus(Path p) throws IOException {
     statistics.incrementReadOps(1);
@@ -0,0 +1,169 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.protocol;
+
+import com.google.common.base.Preconditions;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.classification.InterfaceStability;
+import org.apache.hadoop.fs.permission.FsPermission;
+
+/**
+ * A metadata operation to be executed by
+ * {@link ClientProtocol#batchMetadataOps(BatchedMetadataOp[])} together with
+ * other operations under a single namesystem lock acquisition.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Unstable
+public final class BatchedMetadataOp {
+
+  /** The types of operations which can be batched. */
+  public enum Type {
+    GET_FILE_INFO("getfileinfo", true),
+    SET_PERMISSION("setPermission", false),
+    SET_TIMES("setTimes", false),
+    DELETE("delete", false),
+    MKDIRS("mkdirs", false);
+
+    private final String operationName;
+    private final boolean readOnly;
+
+    Type(String operationName, boolean readOnly) {
+      this.operationName = operationName;
+      this.readOnly = readOnly;
+    }
+
+    /** @return the operation name as it appears in the audit log. */
+    public String getOperationName() {
+      return operationName;
+    }
+
+    /** @return whether the operation does not modify the namespace. */
+    public boolean isReadOnly() {
+      return readOnly;
+    }
+  }
+
+  private final Type type;
+  private final String src;
+  private final FsPermission permission;
+  private final long mtime;
+  private final long atime;
+  private final boolean recursive;
+
+  private BatchedMetadataOp(Type type, String src, FsPermission permission,
+      long mtime, long atime, boolean recursive) {
+    this.type = Preconditions.checkNotNull(type);
+    this.src = Preconditions.checkNotNull(src);
+    this.permission = permission;
+    this.mtime = mtime;
+    this.atime = atime;
+    this.recursive = recursive;
+  }
+
+  /** @see ClientProtocol#getFileInfo(String) */
+  public static BatchedMetadataOp getFileInfo(String src) {
+    return new BatchedMetadataOp(Type.GET_FILE_INFO, src, null, -1, -1,
+        false);
+  }
+
+  /** @see ClientProtocol#setPermission(String, FsPermission) */
+  public static BatchedMetadataOp setPermission(String src,
+      FsPermission permission) {
+    return new BatchedMetadataOp(Type.SET_PERMISSION, src,
+        Preconditions.checkNotNull(permission), -1, -1, false);
+  }
+
+  /** @see ClientProtocol#setTimes(String, long, long) */
+  public static BatchedMetadataOp setTimes(String src, long mtime,
+      long atime) {
+    return new BatchedMetadataOp(Type.SET_TIMES, src, null, mtime, atime,
+        false);
+  }
+
+  /** @see ClientProtocol#delete(String, boolean) */
+  public static BatchedMetadataOp delete(String src, boolean recursive) {
+    return new BatchedMetadataOp(Type.DELETE, src, null, -1, -1, recursive);
+  }
+
+  /**
+   * @param masked the permission of the directory, which is masked against
+   *               umask by the client if null.
+   * @see ClientProtocol#mkdirs(String, FsPermission, boolean)
+   */
+  public static BatchedMetadataOp mkdirs(String src, FsPermission masked,
+      boolean createParent) {
+    return new BatchedMetadataOp(Type.MKDIRS, src, masked, -1, -1,
+        createParent);
+  }
+
+  /** @return a copy of this operation with the given path. */
+  public BatchedMetadataOp withSrc(String newSrc) {
+    return new BatchedMetadataOp(type, newSrc, permission, mtime, atime,
+        recursive);
+  }
+
+  /** @return a copy of this operation with the given permission. */
+  public BatchedMetadataOp withPermission(FsPermission newPermission) {
+    return new BatchedMetadataOp(type, src, newPermission, mtime, atime,
+        recursive);
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public String getSrc() {
+    return src;
+  }
+
+  /** @return the permission of a SET_PERMISSION or MKDIRS operation. */
+  public FsPermission getPermission() {
+    return permission;
+  }
+
+  /** @return the modification time of a SET_TIMES operation. */
+  public long getMtime() {
+    return mtime;
+  }
+
+  /** @return the access time of a SET_TIMES operation. */
+  public long getAtime() {
+    return atime;
+  }
+
+  /**
+   * @return whether a DELETE operation is recursive, or whether a MKDIRS
+   *         operation creates the missing parents.
+   */
+  public boolean isRecursive() {
+    return recursive;
+  }
+
+  @Override
+  public String toString() {
+    return new ToStringBuilder(this)
+        .append("type", type)
+        .append("src", src)
+        .append("permission", permission)
+        .append("mtime", mtime)
+        .append("atime", atime)
+        .append("recursive", recursive)
+        .toString();
+  }
+}
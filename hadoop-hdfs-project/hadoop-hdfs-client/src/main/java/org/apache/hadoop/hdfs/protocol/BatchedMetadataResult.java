@@ -0,0 +1,92 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.protocol;
+
+import java.io.IOException;
+
+import com.google.common.base.Preconditions;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.classification.InterfaceStability;
+import org.apache.hadoop.ipc.RemoteException;
+
+/**
+ * The result of a {@link BatchedMetadataOp}: either the return value of the
+ * operation or the exception it failed with.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Unstable
+public final class BatchedMetadataResult {
+
+  private final boolean result;
+  private final HdfsFileStatus fileStatus;
+  private final RemoteException exception;
+
+  public BatchedMetadataResult(boolean result, HdfsFileStatus fileStatus) {
+    this(result, fileStatus, null);
+  }
+
+  public BatchedMetadataResult(RemoteException exception) {
+    this(false, null, Preconditions.checkNotNull(exception));
+  }
+
+  private BatchedMetadataResult(boolean result, HdfsFileStatus fileStatus,
+      RemoteException exception) {
+    this.result = result;
+    this.fileStatus = fileStatus;
+    this.exception = exception;
+  }
+
+  /**
+   * @return the boolean return value of a DELETE or MKDIRS operation, whether
+   *         a GET_FILE_INFO operation found the file, and true for the
+   *         other successful operations.
+   */
+  public boolean getResult() {
+    return result;
+  }
+
+  /**
+   * @return the file status of a GET_FILE_INFO operation, or null if the
+   *         file does not exist.
+   */
+  public HdfsFileStatus getFileStatus() {
+    return fileStatus;
+  }
+
+  /** @return the exception the operation failed with, if any. */
+  public RemoteException getException() {
+    return exception;
+  }
+
+  /** Throw the unwrapped exception if the operation failed. */
+  public void checkException() throws IOException {
+    if (exception != null) {
+      throw exception.unwrapRemoteException();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return new ToStringBuilder(this)
+        .append("result", result)
+        .append("fileStatus", fileStatus)
+        .append("exception", exception)
+        .toString();
+  }
+}
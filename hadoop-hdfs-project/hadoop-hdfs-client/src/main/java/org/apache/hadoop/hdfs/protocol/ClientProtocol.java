@@ -715,6 +715,28 @@ BatchedDirectoryListing getBatchedListing(
       byte[] startAfter,
       boolean needLocation) throws IOException;
 
+  /**
+   * Execute many metadata operations in one call. The operations are executed
+   * in order under a single namesystem lock acquisition, and the edits of
+   * the successful ones are synced once. A failed operation does not stop
+   * the following ones; its exception is returned in its result instead.
+   * <p>
+   * A call retried after a failover is not executed again if it deleted
+   * anything on the previous active namenode. Its results are lost with
+   * that namenode, so the retry fails with an IOException instead.
+   *
+   * @param ops the operations to execute
+   *
+   * @return the results of the operations, in the same order.
+   * @throws IllegalArgumentException if there are too many operations
+   * @throws org.apache.hadoop.ipc.StandbyException if the namenode cannot
+   *           serve the operations
+   * @throws IOException If an I/O error occurred
+   */
+  @AtMostOnce
+  BatchedMetadataResult[] batchMetadataOps(BatchedMetadataOp[] ops)
+      throws IOException;
+
   /**
    * Get the list of snapshottable directories that are owned
    * by the current user. Return all the snapshottable directories if the
@@ -54,6 +54,8 @@
 import org.apache.hadoop.hdfs.inotify.EventBatchList;
 import org.apache.hadoop.hdfs.protocol.AddErasureCodingPolicyResponse;
 import org.apache.hadoop.hdfs.protocol.BatchedDirectoryListing;
+import org.apache.hadoop.hdfs.protocol.BatchedMetadataOp;
+import org.apache.hadoop.hdfs.protocol.BatchedMetadataResult;
 import org.apache.hadoop.hdfs.protocol.BlockStoragePolicy;
 import org.apache.hadoop.hdfs.protocol.CacheDirectiveEntry;
 import org.apache.hadoop.hdfs.protocol.CacheDirectiveInfo;
@@ -98,6 +100,8 @@
 import org.apache.hadoop.hdfs.protocol.proto.AclProtos.SetAclRequestProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.AbandonBlockRequestProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.AddBlockRequestProto;
+import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.BatchMetadataOpsRequestProto;
+import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.BatchMetadataOpsResponseProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.AddCacheDirectiveRequestProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.AddCachePoolRequestProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.AllowSnapshotRequestProto;
@@ -112,6 +116,7 @@
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.CreateSnapshotRequestProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.CreateSymlinkRequestProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.DeleteRequestProto;
+import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.DeleteResponseProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.DeleteSnapshotRequestProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.DisallowSnapshotRequestProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.FinalizeUpgradeRequestProto;
@@ -652,7 +657,29 @@ public boolean delete(String src, boolean recursive) throws IOException {
     DeleteRequestProto req = DeleteRequestProto.newBuilder().setSrc(src)
         .setRecursive(recursive).build();
     try {
-      return rpcProxy.delete(null, req).getResult();
+      if (Client.isAsynchronousMode()) {
+        rpcProxy.delete(null, req);
+        final AsyncGet<Message, Exception> asyncReturnMessage
+            = ProtobufRpcEngine2.getAsyncReturnMessage();
+        final AsyncGet<Boolean, Exception> asyncGet
+            = new AsyncGet<Boolean, Exception>() {
+          @Override
+          public Boolean get(long timeout, TimeUnit unit) throws Exception {
+            final DeleteResponseProto res = (DeleteResponseProto)
+                asyncReturnMessage.get(timeout, unit);
+            return res.getResult();
+          }
+
+          @Override
+          public boolean isDone() {
+            return asyncReturnMessage.isDone();
+          }
+        };
+        AsyncCallHandler.setLowerLayerAsyncReturn(asyncGet);
+        return false;
+      } else {
+        return rpcProxy.delete(null, req).getResult();
+      }
     } catch (ServiceException e) {
       throw ProtobufHelper.getRemoteException(e);
     }
@@ -739,6 +766,28 @@ public BatchedDirectoryListing getBatchedListing(
     }
   }
 
+  @Override
+  public BatchedMetadataResult[] batchMetadataOps(BatchedMetadataOp[] ops)
+      throws IOException {
+    BatchMetadataOpsRequestProto.Builder req =
+        BatchMetadataOpsRequestProto.newBuilder();
+    for (BatchedMetadataOp op : ops) {
+      req.addOps(PBHelperClient.convert(op));
+    }
+    try {
+      BatchMetadataOpsResponseProto res =
+          rpcProxy.batchMetadataOps(null, req.build());
+      BatchedMetadataResult[] results =
+          new BatchedMetadataResult[res.getResultsCount()];
+      for (int i = 0; i < results.length; i++) {
+        results[i] = PBHelperClient.convert(res.getResults(i));
+      }
+      return results;
+    } catch (ServiceException e) {
+      throw ProtobufHelper.getRemoteException(e);
+    }
+  }
+
 
   @Override
   public void renewLease(String clientName) throws IOException {
@@ -962,6 +1011,28 @@ public HdfsFileStatus getFileInfo(String src) throws IOException {
         .setSrc(src)
         .build();
     try {
+      if (Client.isAsynchronousMode()) {
+        rpcProxy.getFileInfo(null, req);
+        final AsyncGet<Message, Exception> asyncReturnMessage
+            = ProtobufRpcEngine2.getAsyncReturnMessage();
+        final AsyncGet<HdfsFileStatus, Exception> asyncGet
+            = new AsyncGet<HdfsFileStatus, Exception>() {
+          @Override
+          public HdfsFileStatus get(long timeout, TimeUnit unit)
+              throws Exception {
+            final GetFileInfoResponseProto res = (GetFileInfoResponseProto)
+                asyncReturnMessage.get(timeout, unit);
+            return res.hasFs() ? PBHelperClient.convert(res.getFs()) : null;
+          }
+
+          @Override
+          public boolean isDone() {
+            return asyncReturnMessage.isDone();
+          }
+        };
+        AsyncCallHandler.setLowerLayerAsyncReturn(asyncGet);
+        return null;
+      }
       GetFileInfoResponseProto res = rpcProxy.getFileInfo(null, req);
       return res.hasFs() ? PBHelperClient.convert(res.getFs()) : null;
     } catch (ServiceException e) {
@@ -56,6 +56,7 @@
 import org.apache.hadoop.fs.permission.AclEntryType;
 import org.apache.hadoop.fs.permission.AclStatus;
 import org.apache.hadoop.fs.permission.FsAction;
+import org.apache.hadoop.fs.permission.FsCreateModes;
 import org.apache.hadoop.fs.permission.FsPermission;
 import org.apache.hadoop.hdfs.DFSUtilClient;
 import org.apache.hadoop.hdfs.DistributedFileSystem;
@@ -63,6 +64,8 @@
 import org.apache.hadoop.hdfs.inotify.EventBatch;
 import org.apache.hadoop.hdfs.inotify.EventBatchList;
 import org.apache.hadoop.hdfs.protocol.AddErasureCodingPolicyResponse;
+import org.apache.hadoop.hdfs.protocol.BatchedMetadataOp;
+import org.apache.hadoop.hdfs.protocol.BatchedMetadataResult;
 import org.apache.hadoop.hdfs.protocol.Block;
 import org.apache.hadoop.hdfs.protocol.BlockChecksumOptions;
 import org.apache.hadoop.hdfs.protocol.BlockChecksumType;
@@ -122,6 +125,8 @@
 import org.apache.hadoop.hdfs.protocol.proto.AclProtos.FsPermissionProto;
 import org.apache.hadoop.hdfs.protocol.proto.AclProtos.GetAclStatusResponseProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.AddBlockFlagProto;
+import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.BatchedMetadataOpProto;
+import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.BatchedMetadataResultProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.CacheDirectiveEntryProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.CacheDirectiveInfoExpirationProto;
 import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.CacheDirectiveInfoProto;
@@ -177,6 +182,7 @@
 import org.apache.hadoop.hdfs.protocol.proto.HdfsProtos.LocatedBlocksProto;
 import org.apache.hadoop.hdfs.protocol.proto.HdfsProtos.QuotaUsageProto;
 import org.apache.hadoop.hdfs.protocol.proto.HdfsProtos.ReencryptionInfoProto;
+import org.apache.hadoop.hdfs.protocol.proto.HdfsProtos.RemoteExceptionProto;
 import org.apache.hadoop.hdfs.protocol.proto.HdfsProtos.RollingUpgradeStatusProto;
 import org.apache.hadoop.hdfs.protocol.proto.HdfsProtos.SnapshotDiffReportListingEntryProto;
 import org.apache.hadoop.hdfs.protocol.proto.HdfsProtos.SnapshotDiffReportListingProto;
@@ -208,6 +214,7 @@
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.erasurecode.ECSchema;
 import org.apache.hadoop.ipc.ProtobufHelper;
+import org.apache.hadoop.ipc.RemoteException;
 import org.apache.hadoop.security.proto.SecurityProtos.TokenProto;
 import org.apache.hadoop.security.token.Token;
 import org.apache.hadoop.util.ChunkedArrayList;
@@ -3412,4 +3419,96 @@ public static List<OpenFilesTypeProto> convertOpenFileTypes(
     }
     return typeProtos;
   }
+
+  public static BatchedMetadataOpProto convert(BatchedMetadataOp op) {
+    final BatchedMetadataOpProto.Builder builder =
+        BatchedMetadataOpProto.newBuilder()
+            .setType(BatchedMetadataOpProto.OpType.valueOf(
+                op.getType().name()))
+            .setSrc(op.getSrc());
+    switch (op.getType()) {
+    case SET_PERMISSION:
+      builder.setPermission(convert(op.getPermission()));
+      break;
+    case SET_TIMES:
+      builder.setMtime(op.getMtime()).setAtime(op.getAtime());
+      break;
+    case DELETE:
+      builder.setRecursive(op.isRecursive());
+      break;
+    case MKDIRS:
+      builder.setRecursive(op.isRecursive());
+      if (op.getPermission() != null) {
+        builder.setPermission(convert(op.getPermission()));
+        final FsPermission unmasked = op.getPermission().getUnmasked();
+        if (unmasked != null) {
+          builder.setUnmasked(convert(unmasked));
+        }
+      }
+      break;
+    default:
+      break;
+    }
+    return builder.build();
+  }
+
+  public static BatchedMetadataOp convert(BatchedMetadataOpProto proto) {
+    final String src = proto.getSrc();
+    switch (proto.getType()) {
+    case GET_FILE_INFO:
+      return BatchedMetadataOp.getFileInfo(src);
+    case SET_PERMISSION:
+      return BatchedMetadataOp.setPermission(src,
+          convert(proto.getPermission()));
+    case SET_TIMES:
+      return BatchedMetadataOp.setTimes(src, proto.getMtime(),
+          proto.getAtime());
+    case DELETE:
+      return BatchedMetadataOp.delete(src, proto.getRecursive());
+    case MKDIRS:
+      FsPermission masked = null;
+      if (proto.hasPermission()) {
+        masked = proto.hasUnmasked() ?
+            FsCreateModes.create(convert(proto.getPermission()),
+                convert(proto.getUnmasked())) :
+            convert(proto.getPermission());
+      }
+      return BatchedMetadataOp.mkdirs(src, masked, proto.getRecursive());
+    default:
+      throw new IllegalArgumentException(
+          "Unexpected batched metadata op type " + proto.getType());
+    }
+  }
+
+  public static BatchedMetadataResultProto convert(
+      BatchedMetadataResult result) {
+    final BatchedMetadataResultProto.Builder builder =
+        BatchedMetadataResultProto.newBuilder();
+    final RemoteException ex = result.getException();
+    if (ex != null) {
+      final RemoteExceptionProto.Builder rexBuilder =
+          RemoteExceptionProto.newBuilder().setClassName(ex.getClassName());
+      if (ex.getMessage() != null) {
+        rexBuilder.setMessage(ex.getMessage());
+      }
+      builder.setException(rexBuilder);
+    } else {
+      builder.setResult(result.getResult());
+      if (result.getFileStatus() != null) {
+        builder.setFs(convert(result.getFileStatus()));
+      }
+    }
+    return builder.build();
+  }
+
+  public static BatchedMetadataResult convert(
+      BatchedMetadataResultProto proto) {
+    if (proto.hasException()) {
+      final RemoteExceptionProto reProto = proto.getException();
+      return new BatchedMetadataResult(
+          new RemoteException(reProto.getClassName(), reProto.getMessage()));
+    }
+    return new BatchedMetadataResult(proto.getResult(),
+        proto.hasFs() ? convert(proto.getFs()) : null);
+  }
 }
@@ -44,6 +44,8 @@
 import org.apache.hadoop.hdfs.inotify.EventBatchList;
 import org.apache.hadoop.hdfs.protocol.AddErasureCodingPolicyResponse;
 import org.apache.hadoop.hdfs.protocol.BatchedDirectoryListing;
+import org.apache.hadoop.hdfs.protocol.BatchedMetadataOp;
+import org.apache.hadoop.hdfs.protocol.BatchedMetadataResult;
 import org.apache.hadoop.hdfs.protocol.BlockStoragePolicy;
 import org.apache.hadoop.hdfs.protocol.CacheDirectiveEntry;
 import org.apache.hadoop.hdfs.protocol.CacheDirectiveInfo;
@@ -89,6 +91,7 @@
 import org.apache.hadoop.hdfs.server.protocol.DatanodeStorageReport;
 import org.apache.hadoop.io.EnumSetWritable;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.ipc.RemoteException;
 import org.apache.hadoop.net.ConnectTimeoutException;
 import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.hadoop.security.token.Token;
@@ -102,6 +105,7 @@
 import java.io.IOException;
 import java.net.ConnectException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
@@ -887,6 +891,123 @@ public BatchedDirectoryListing getBatchedListing(String[] srcs,
     throw new UnsupportedOperationException("Not implemented");
   }
 
+  /**
+   * The operations on paths with a single destination are grouped by
+   * nameservice and forwarded as one batch per nameservice, in their
+   * original order. The operations on mount points or on paths with several
+   * destinations are executed one by one like the corresponding single
+   * calls, after the operations before them.
+   */
+  @Override
+  public BatchedMetadataResult[] batchMetadataOps(BatchedMetadataOp[] ops)
+      throws IOException {
+    boolean readOnly = true;
+    for (BatchedMetadataOp op : ops) {
+      readOnly &= op.getType().isReadOnly();
+    }
+    rpcServer.checkOperation(readOnly ? NameNode.OperationCategory.READ
+        : NameNode.OperationCategory.WRITE);
+
+    final BatchedMetadataResult[] results =
+        new BatchedMetadataResult[ops.length];
+    // nameservice -> indexes of the pending operations in that nameservice
+    final Map<String, List<Integer>> pending = new LinkedHashMap<>();
+    final BatchedMetadataOp[] remoteOps = new BatchedMetadataOp[ops.length];
+    for (int i = 0; i < ops.length; i++) {
+      final BatchedMetadataOp op = ops[i];
+      final String src = op.getSrc();
+      final List<RemoteLocation> locations;
+      try {
+        locations = rpcServer.getLocationsForPath(src,
+            op.getType() == BatchedMetadataOp.Type.DELETE,
+            op.getType() == BatchedMetadataOp.Type.MKDIRS);
+        if (locations.size() == 1
+            && subclusterResolver.getMountPoints(src) == null) {
+          final RemoteLocation location = locations.get(0);
+          remoteOps[i] = op.withSrc(location.getDest());
+          pending.computeIfAbsent(location.getNameserviceId(),
+              k -> new ArrayList<>()).add(i);
+          continue;
+        }
+      } catch (IOException e) {
+        results[i] = failedBatchedOp(e);
+        continue;
+      }
+      invokeBatchedOps(pending, remoteOps, results);
+      pending.clear();
+      results[i] = invokeBatchedOp(op);
+    }
+    invokeBatchedOps(pending, remoteOps, results);
+    return results;
+  }
+
+  /**
+   * Forward the pending operations to their nameservices, one batch per
+   * nameservice, and store their results.
+   */
+  private void invokeBatchedOps(Map<String, List<Integer>> pending,
+      BatchedMetadataOp[] remoteOps, BatchedMetadataResult[] results)
+      throws IOException {
+    for (Map.Entry<String, List<Integer>> entry : pending.entrySet()) {
+      final List<Integer> indexes = entry.getValue();
+      final BatchedMetadataOp[] nsOps = new BatchedMetadataOp[indexes.size()];
+      for (int i = 0; i < nsOps.length; i++) {
+        nsOps[i] = remoteOps[indexes.get(i)];
+      }
+      RemoteMethod method = new RemoteMethod("batchMetadataOps",
+          new Class<?>[] {BatchedMetadataOp[].class}, (Object) nsOps);
+      BatchedMetadataResult[] nsResults;
+      try {
+        nsResults = rpcClient.invokeSingle(entry.getKey(), method,
+            BatchedMetadataResult[].class);
+      } catch (IOException e) {
+        BatchedMetadataResult failed = failedBatchedOp(e);
+        nsResults = new BatchedMetadataResult[nsOps.length];
+        Arrays.fill(nsResults, failed);
+      }
+      for (int i = 0; i < nsOps.length; i++) {
+        results[indexes.get(i)] = nsResults[i];
+      }
+    }
+  }
+
+  /** Execute a batched operation like the corresponding single call. */
+  private BatchedMetadataResult invokeBatchedOp(BatchedMetadataOp op) {
+    final String src = op.getSrc();
+    try {
+      switch (op.getType()) {
+      case GET_FILE_INFO:
+        HdfsFileStatus stat = getFileInfo(src);
+        return new BatchedMetadataResult(stat != null, stat);
+      case SET_PERMISSION:
+        setPermission(src, op.getPermission());
+        return new BatchedMetadataResult(true, null);
+      case SET_TIMES:
+        setTimes(src, op.getMtime(), op.getAtime());
+        return new BatchedMetadataResult(true, null);
+      case DELETE:
+        return new BatchedMetadataResult(
+            delete(src, op.isRecursive()), null);
+      case MKDIRS:
+        FsPermission masked = op.getPermission() != null ?
+            op.getPermission() : FsPermission.getDirDefault();
+        return new BatchedMetadataResult(
+            mkdirs(src, masked, op.isRecursive()), null);
+      default:
+        throw new IllegalArgumentException(
+            "Unexpected batched metadata op type " + op.getType());
+      }
+    } catch (IOException e) {
+      return failedBatchedOp(e);
+    }
+  }
+
+  private static BatchedMetadataResult failedBatchedOp(IOException e) {
+    return new BatchedMetadataResult(e instanceof RemoteException
+        ? (RemoteException) e
+        : new RemoteException(e.getClass().getName(), e.getMessage()));
+  }
+
   @Override
   public HdfsFileStatus getFileInfo(String src) throws IOException {
     rpcServer.checkOperation(NameNode.OperationCategory.READ);
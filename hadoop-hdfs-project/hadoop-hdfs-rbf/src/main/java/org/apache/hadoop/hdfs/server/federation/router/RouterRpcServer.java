@@ -80,6 +80,8 @@
 import org.apache.hadoop.hdfs.inotify.EventBatchList;
 import org.apache.hadoop.hdfs.protocol.AddErasureCodingPolicyResponse;
 import org.apache.hadoop.hdfs.protocol.BatchedDirectoryListing;
+import org.apache.hadoop.hdfs.protocol.BatchedMetadataOp;
+import org.apache.hadoop.hdfs.protocol.BatchedMetadataResult;
 import org.apache.hadoop.hdfs.protocol.BlockStoragePolicy;
 import org.apache.hadoop.hdfs.protocol.CacheDirectiveEntry;
 import org.apache.hadoop.hdfs.protocol.CacheDirectiveInfo;
@@ -870,6 +872,12 @@ public BatchedDirectoryListing getBatchedListing(
     throw new UnsupportedOperationException();
   }
 
+  @Override // ClientProtocol
+  public BatchedMetadataResult[] batchMetadataOps(BatchedMetadataOp[] ops)
+      throws IOException {
+    return clientProto.batchMetadataOps(ops);
+  }
+
   @Override // ClientProtocol
   public HdfsFileStatus getFileInfo(String src) throws IOException {
     return clientProto.getFileInfo(src);
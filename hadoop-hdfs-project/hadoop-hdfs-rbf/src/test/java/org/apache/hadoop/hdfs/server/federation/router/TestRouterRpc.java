@@ -34,6 +34,7 @@
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.lang.reflect.Method;
 import java.net.URISyntaxException;
@@ -72,6 +73,8 @@
 import org.apache.hadoop.hdfs.NameNodeProxies;
 import org.apache.hadoop.hdfs.client.HdfsDataOutputStream;
 import org.apache.hadoop.hdfs.protocol.AddErasureCodingPolicyResponse;
+import org.apache.hadoop.hdfs.protocol.BatchedMetadataOp;
+import org.apache.hadoop.hdfs.protocol.BatchedMetadataResult;
 import org.apache.hadoop.hdfs.protocol.BlockStoragePolicy;
 import org.apache.hadoop.hdfs.protocol.CacheDirectiveInfo;
 import org.apache.hadoop.hdfs.protocol.CachePoolEntry;
@@ -781,6 +784,38 @@ public void testProxyChmodFiles() throws Exception {
         new Object[] {badPath, permission});
   }
 
+  @Test
+  public void testProxyBatchMetadataOps() throws Exception {
+
+    FsPermission permission = new FsPermission("444");
+    String routerDir = cluster.getFederatedTestDirectoryForNS(ns) + "/batch";
+    String nnDir = cluster.getNamenodeTestDirectoryForNS(ns) + "/batch";
+    String badPath = "/unknownlocation/unknowndir";
+    BatchedMetadataResult[] results = routerProtocol.batchMetadataOps(
+        new BatchedMetadataOp[] {
+            BatchedMetadataOp.mkdirs(routerDir, permission, false),
+            BatchedMetadataOp.setPermission(routerFile, permission),
+            BatchedMetadataOp.getFileInfo(routerFile),
+            BatchedMetadataOp.setPermission(badPath, permission),
+            BatchedMetadataOp.delete(routerDir, false)});
+    assertEquals(5, results.length);
+
+    // Validate the operations were applied in the NN
+    assertTrue(results[0].getResult());
+    assertTrue(results[1].getResult());
+    assertEquals(permission, getFileStatus(nnFS, nnFile).getPermission());
+    assertEquals(32, results[2].getFileStatus().getLen());
+    assertEquals(permission, results[2].getFileStatus().getPermission());
+    assertTrue(results[4].getResult());
+    assertFalse(verifyFileExists(nnFS, nnDir));
+
+    // A failed operation does not fail the rest of the batch
+    assertFalse(results[3].getResult());
+    assertNotNull(results[3].getException());
+    LambdaTestUtils.intercept(FileNotFoundException.class,
+        () -> results[3].checkException());
+  }
+
   @Test
   public void testProxySetReplication() throws Exception {
 
@@ -388,6 +388,9 @@ public class DFSConfigKeys extends CommonConfigurationKeys {
   public static final String  DFS_NAMENODE_EDITS_ASYNC_LOGGING =
       "dfs.namenode.edits.asynclogging";
   public static final boolean DFS_NAMENODE_EDITS_ASYNC_LOGGING_DEFAULT = true;
+  public static final String  DFS_NAMENODE_EDITS_ASYNC_LOGGING_GROUP_COMMIT_WINDOW_KEY =
+      "dfs.namenode.edits.asynclogging.group-commit.window";
+  public static final long    DFS_NAMENODE_EDITS_ASYNC_LOGGING_GROUP_COMMIT_WINDOW_DEFAULT = 0;
 
   public static final String DFS_NAMENODE_PROVIDED_ENABLED = "dfs.namenode.provided.enabled";
   public static final boolean DFS_NAMENODE_PROVIDED_ENABLED_DEFAULT = false;
@@ -416,10 +419,21 @@ public class DFSConfigKeys extends CommonConfigurationKeys {
   public static final int     DFS_LIST_LIMIT_DEFAULT = 1000;
   public static final String  DFS_NAMENODE_BATCHED_LISTING_LIMIT = "dfs.batched.ls.limit";
   public static final int     DFS_NAMENODE_BATCHED_LISTING_LIMIT_DEFAULT = 100;
+  public static final String  DFS_NAMENODE_BATCHED_METADATA_OPS_LIMIT =
+      "dfs.batched.metadata.ops.limit";
+  public static final int     DFS_NAMENODE_BATCHED_METADATA_OPS_LIMIT_DEFAULT =
+      10000;
   public static final String  DFS_CONTENT_SUMMARY_LIMIT_KEY = "dfs.content-summary.limit";
   public static final int     DFS_CONTENT_SUMMARY_LIMIT_DEFAULT = 5000;
   public static final String  DFS_CONTENT_SUMMARY_SLEEP_MICROSEC_KEY = "dfs.content-summary.sleep-microsec";
   public static final long    DFS_CONTENT_SUMMARY_SLEEP_MICROSEC_DEFAULT = 500;
+  public static final String  DFS_CONTENT_SUMMARY_CACHE_MAX_STALENESS_KEY =
+      "dfs.content-summary.cache.max-staleness";
+  public static final long    DFS_CONTENT_SUMMARY_CACHE_MAX_STALENESS_DEFAULT =
+      0;
+  public static final String  DFS_CONTENT_SUMMARY_CACHE_SIZE_KEY =
+      "dfs.content-summary.cache.size";
+  public static final int     DFS_CONTENT_SUMMARY_CACHE_SIZE_DEFAULT = 1024;
   public static final String  DFS_DATANODE_FAILED_VOLUMES_TOLERATED_KEY = "dfs.datanode.failed.volumes.tolerated";
   public static final int     DFS_DATANODE_FAILED_VOLUMES_TOLERATED_DEFAULT = 0;
   public static final String
@@ -590,6 +604,10 @@ public class DFSConfigKeys extends CommonConfigurationKeys {
   public static final String DFS_NAMENODE_FSLOCK_FAIR_KEY =
       "dfs.namenode.fslock.fair";
   public static final boolean DFS_NAMENODE_FSLOCK_FAIR_DEFAULT = true;
+  public static final String DFS_NAMENODE_BLOCKMANAGER_LOCK_SPLIT_KEY =
+      "dfs.namenode.blockmanager.lock.split.enabled";
+  public static final boolean DFS_NAMENODE_BLOCKMANAGER_LOCK_SPLIT_DEFAULT =
+      false;
 
   public static final String  DFS_NAMENODE_LOCK_DETAILED_METRICS_KEY =
       "dfs.namenode.lock.detailed-metrics.enabled";
@@ -1173,6 +1191,9 @@ public class DFSConfigKeys extends CommonConfigurationKeys {
   public static final String  DFS_HA_TAILEDITS_INPROGRESS_KEY =
           "dfs.ha.tail-edits.in-progress";
   public static final boolean DFS_HA_TAILEDITS_INPROGRESS_DEFAULT = false;
+  public static final String DFS_NAMENODE_OBSERVER_STATUS_CACHE_SIZE_KEY =
+      "dfs.namenode.observer.status-cache.size";
+  public static final int DFS_NAMENODE_OBSERVER_STATUS_CACHE_SIZE_DEFAULT = 0;
   public static final String DFS_HA_TAILEDITS_ROLLEDITS_TIMEOUT_KEY =
       "dfs.ha.tail-edits.rolledits.timeout";
   public static final int DFS_HA_TAILEDITS_ROLLEDITS_TIMEOUT_DEFAULT = 60; // 1m
@@ -18,6 +18,7 @@
 package org.apache.hadoop.hdfs.qjournal.server;
 
 import org.apache.hadoop.thirdparty.protobuf.ByteString;
+import org.apache.hadoop.thirdparty.protobuf.UnsafeByteOperations;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
@@ -764,13 +765,16 @@ public GetJournaledEditsResponseProto getJournaledEdits(long sinceTxId,
       }
       metrics.txnsServedViaRpc.incr(txnCount);
       metrics.bytesServedViaRpc.incr(totalSize);
-      ByteString.Output output = ByteString.newOutput(totalSize);
+      // The cached buffers are never modified once stored, so they can be
+      // wrapped rather than copied; the response is only materialized when
+      // it is serialized onto the wire.
+      ByteString editLog = ByteString.EMPTY;
       for (ByteBuffer buf : buffers) {
-        output.write(buf.array(), buf.position(), buf.remaining());
+        editLog = editLog.concat(UnsafeByteOperations.unsafeWrap(buf));
       }
       return GetJournaledEditsResponseProto.newBuilder()
           .setTxnCount(txnCount)
-          .setEditLog(output.toByteString())
+          .setEditLog(editLog)
           .build();
     } catch (JournaledEditsCache.CacheMissException cme) {
       metrics.rpcRequestCacheMissAmount.add(cme.getCacheMissAmount());
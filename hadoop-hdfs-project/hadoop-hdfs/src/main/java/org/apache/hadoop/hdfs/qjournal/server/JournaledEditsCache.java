@@ -56,8 +56,9 @@
  *
  * <p>Batches of edits are stored in a {@link TreeMap} mapping the starting
  * transaction ID of the batch to the data buffer. Upon retrieval, the
- * relevant data buffers are concatenated together and a header is added
- * to construct a fully-formed edit data stream.
+ * relevant data buffers are wrapped (not copied), trimmed to the requested
+ * range of transactions, and prefixed with a header to construct a
+ * fully-formed edit data stream.
  *
  * <p>The cache is of a limited size capacity determined by
  * {@value DFSConfigKeys#DFS_JOURNALNODE_EDIT_CACHE_SIZE_KEY}. If the capacity
@@ -157,7 +158,9 @@ class JournaledEditsCache {
    *                          the first one will have this ID.
    * @param maxTxns The maximum number of transactions to return.
    * @param outputBuffers A list to populate with output buffers. When
-   *                      concatenated, these form a full response.
+   *                      concatenated, these form a full response. The
+   *                      buffers share their contents with the cache and
+   *                      must not be modified.
    * @return The number of transactions contained within the set of output
    *         buffers.
    * @throws IOException If transactions are requested which cannot be served
@@ -173,7 +176,7 @@ int retrieveEdits(long requestedStartTxn, int maxTxns,
       } else if (requestedStartTxn > highestTxnId) {
         return 0;
       }
-      outputBuffers.add(layoutHeader);
+      outputBuffers.add(layoutHeader.duplicate());
       Iterator<Map.Entry<Long, byte[]>> incrBuffIter =
           dataMap.tailMap(dataMap.floorKey(requestedStartTxn), true)
               .entrySet().iterator();
@@ -203,8 +206,8 @@ int retrieveEdits(long requestedStartTxn, int maxTxns,
         prevTxn = currTxn;
         prevBuf = currBuf;
       }
-      // Release the lock before doing operations on the buffers (deserializing
-      // to find transaction boundaries, and copying into an output buffer)
+      // Release the lock before doing operations on the buffers
+      // (deserializing to find transaction boundaries)
     }
     // Remove extra leading transactions in the first buffer
     ByteBuffer firstBuf = outputBuffers.get(1); // 0th is the header
@@ -42,6 +42,7 @@
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.ThreadLocalRandom;
@@ -110,6 +111,7 @@
 import org.apache.hadoop.hdfs.server.protocol.StorageReport;
 import org.apache.hadoop.hdfs.server.protocol.VolumeFailureSummary;
 import org.apache.hadoop.hdfs.util.FoldedTreeSet;
+import org.apache.hadoop.hdfs.util.RwLockMode;
 import org.apache.hadoop.hdfs.protocol.ErasureCodingPolicy;
 import org.apache.hadoop.hdfs.server.namenode.CacheManager;
 
@@ -361,6 +363,17 @@ public long getTotalECBlockGroups() {
   private final int blocksPerPostpondedRescan;
   private final ArrayList<Block> rescannedMisreplicatedBlocks;
 
+  /**
+   * Committed blocks which reached their minimum replication while only the
+   * block manager lock was held. Completing a block updates the quota usage
+   * of the file's ancestors, which needs the namespace lock, so they are
+   * completed by {@link #completeDeferredBlocks()} under the global lock
+   * once the block manager lock is released, see
+   * {@link Namesystem#runDeferredWork()}.
+   */
+  private final Set<BlockInfo> deferredCompletions =
+      ConcurrentHashMap.newKeySet();
+
   /**
    * Maps a StorageID to the set of blocks that are "extra" for this
    * DataNode. We'll eventually remove these extras.
@@ -794,7 +807,7 @@ public void refreshBlockPlacementPolicy(Configuration conf) {
 
   /** Dump meta data to out. */
   public void metaSave(PrintWriter out) {
-    assert namesystem.hasReadLock(); // TODO: block manager read lock and NS write lock
+    assert namesystem.hasReadLock(RwLockMode.BM);
     final List<DatanodeDescriptor> live = new ArrayList<DatanodeDescriptor>();
     final List<DatanodeDescriptor> dead = new ArrayList<DatanodeDescriptor>();
     datanodeManager.fetchDatanodes(live, dead, false);
@@ -1225,6 +1238,58 @@ private void completeBlock(BlockInfo curBlock, INodesInPath iip,
         curBlock);
   }
 
+  /**
+   * Complete a committed block which has reached its minimum replication.
+   * If the current thread holds only the block manager lock, the block is
+   * left committed and queued for {@link #completeDeferredBlocks()}.
+   * @param curBlock - block to be completed
+   * @throws IOException if the block cannot be completed.
+   */
+  private void completeBlockOrDefer(BlockInfo curBlock) throws IOException {
+    if (namesystem.hasWriteLock(RwLockMode.FS)) {
+      completeBlock(curBlock, null, false);
+    } else {
+      deferredCompletions.add(curBlock);
+    }
+  }
+
+  /**
+   * @return true if there are blocks whose completion was deferred until
+   *         the global lock is held.
+   */
+  public boolean hasDeferredCompletions() {
+    return !deferredCompletions.isEmpty();
+  }
+
+  /**
+   * Complete the blocks queued by {@link #completeBlockOrDefer}. Blocks
+   * which were deleted, completed or lost replicas in the meantime are
+   * skipped; a later block report completes the latter.
+   */
+  public void completeDeferredBlocks() {
+    assert namesystem.hasWriteLock(RwLockMode.GLOBAL);
+    Iterator<BlockInfo> it = deferredCompletions.iterator();
+    while (it.hasNext()) {
+      BlockInfo block = it.next();
+      it.remove();
+      if (block.isDeleted()
+          || block.getBlockUCState() != BlockUCState.COMMITTED) {
+        continue;
+      }
+      NumberReplicas num = countNodes(block);
+      int numUsableReplicas = num.liveReplicas() +
+          num.decommissioning() + num.liveEnteringMaintenanceReplicas();
+      if (!hasMinStorage(block, numUsableReplicas)) {
+        continue;
+      }
+      try {
+        completeBlock(block, null, false);
+      } catch (IOException e) {
+        LOG.warn("Failed to complete block {}", block, e);
+      }
+    }
+  }
+
   /**
    * Convert a specified block of the file to a complete block.
    * Skips validity checking and safe mode block total updates; use
@@ -1490,7 +1555,7 @@ public LocatedBlocks createLocatedBlocks(final BlockInfo[] blocks,
       final boolean inSnapshot, FileEncryptionInfo feInfo,
       ErasureCodingPolicy ecPolicy)
       throws IOException {
-    assert namesystem.hasReadLock();
+    assert namesystem.hasReadLock(RwLockMode.BM);
     if (blocks == null) {
       return null;
     } else if (blocks.length == 0) {
@@ -1707,7 +1772,7 @@ void removeBlocksAssociatedTo(final DatanodeDescriptor node) {
 
   /** Remove the blocks associated to the given DatanodeStorageInfo. */
   void removeBlocksAssociatedTo(final DatanodeStorageInfo storageInfo) {
-    assert namesystem.hasWriteLock();
+    assert namesystem.hasWriteLock(RwLockMode.BM);
     final Iterator<BlockInfo> it = storageInfo.getBlockIterator();
     DatanodeDescriptor node = storageInfo.getDatanodeDescriptor();
     Collection<BlockInfo> toRemove = new ArrayList<>();
@@ -1781,7 +1846,7 @@ private Block getBlockOnStorage(BlockInfo storedBlock,
    */
   public void findAndMarkBlockAsCorrupt(final ExtendedBlock blk,
       final DatanodeInfo dn, String storageID, String reason) throws IOException {
-    assert namesystem.hasWriteLock();
+    assert namesystem.hasWriteLock(RwLockMode.BM);
     final Block reportedBlock = blk.getLocalBlock();
     final BlockInfo storedBlock = getStoredBlock(reportedBlock);
     if (storedBlock == null) {
@@ -1969,7 +2034,7 @@ int computeInvalidateWork(int nodesToProcess) {
    */
   int computeBlockReconstructionWork(int blocksToProcess) {
     List<List<BlockInfo>> blocksToReconstruct = null;
-    namesystem.writeLock();
+    namesystem.writeLock(RwLockMode.BM);
     try {
       boolean reset = false;
       if (replQueueResetToHeadThreshold > 0) {
@@ -1984,7 +2049,7 @@ int computeBlockReconstructionWork(int blocksToProcess) {
       blocksToReconstruct = neededReconstruction
           .chooseLowRedundancyBlocks(blocksToProcess, reset);
     } finally {
-      namesystem.writeUnlock();
+      namesystem.writeUnlock(RwLockMode.BM);
     }
     return computeReconstructionWorkForBlocks(blocksToReconstruct);
   }
@@ -2003,7 +2068,7 @@ int computeReconstructionWorkForBlocks(
     List<BlockReconstructionWork> reconWork = new ArrayList<>();
 
     // Step 1: categorize at-risk blocks into replication and EC tasks
-    namesystem.writeLock();
+    namesystem.writeLock(RwLockMode.BM);
     try {
       synchronized (neededReconstruction) {
         for (int priority = 0; priority < blocksToReconstruct
@@ -2018,7 +2083,7 @@ int computeReconstructionWorkForBlocks(
         }
       }
     } finally {
-      namesystem.writeUnlock();
+      namesystem.writeUnlock(RwLockMode.BM);
     }
 
     // Step 2: choose target nodes for each reconstruction task
@@ -2043,7 +2108,7 @@ int computeReconstructionWorkForBlocks(
     }
 
     // Step 3: add tasks to the DN
-    namesystem.writeLock();
+    namesystem.writeLock(RwLockMode.BM);
     try {
       for (BlockReconstructionWork rw : reconWork) {
         final DatanodeStorageInfo[] targets = rw.getTargets();
@@ -2059,7 +2124,7 @@ int computeReconstructionWorkForBlocks(
         }
       }
     } finally {
-      namesystem.writeUnlock();
+      namesystem.writeUnlock(RwLockMode.BM);
     }
 
     if (blockLog.isDebugEnabled()) {
@@ -2523,7 +2588,7 @@ DatanodeDescriptor[] chooseSourceDatanodes(BlockInfo block,
   void processPendingReconstructions() {
     BlockInfo[] timedOutItems = pendingReconstruction.getTimedOutBlocks();
     if (timedOutItems != null) {
-      namesystem.writeLock();
+      namesystem.writeLock(RwLockMode.BM);
       try {
         for (int i = 0; i < timedOutItems.length; i++) {
           /*
@@ -2542,7 +2607,7 @@ void processPendingReconstructions() {
           }
         }
       } finally {
-        namesystem.writeUnlock();
+        namesystem.writeUnlock(RwLockMode.BM);
       }
       /* If we know the target datanodes where the replication timedout,
        * we could invoke decBlocksScheduled() on it. Its ok for now.
@@ -2551,7 +2616,7 @@ void processPendingReconstructions() {
   }
 
   public long requestBlockReportLeaseId(DatanodeRegistration nodeReg) {
-    assert namesystem.hasReadLock();
+    assert namesystem.hasReadLock(RwLockMode.BM);
     DatanodeDescriptor node = null;
     try {
       node = datanodeManager.getDatanode(nodeReg);
@@ -2573,7 +2638,7 @@ public long requestBlockReportLeaseId(DatanodeRegistration nodeReg) {
 
   public void registerDatanode(DatanodeRegistration nodeReg)
       throws IOException {
-    assert namesystem.hasWriteLock();
+    assert namesystem.hasWriteLock(RwLockMode.BM);
     datanodeManager.registerDatanode(nodeReg);
     bmSafeMode.checkSafeMode();
   }
@@ -2623,7 +2688,7 @@ public long getBytesInFutureECBlockGroups() {
    *               list of blocks that need to be removed from blocksMap
    */
   public void removeBlocksAndUpdateSafemodeTotal(BlocksMapUpdateInfo blocks) {
-    assert namesystem.hasWriteLock();
+    assert namesystem.hasWriteLock(RwLockMode.BM);
     // In the case that we are a Standby tailing edits from the
     // active while in safe-mode, we need to track the total number
     // of blocks and safe blocks in the system.
@@ -2732,7 +2797,7 @@ public boolean processReport(final DatanodeID nodeID,
       final DatanodeStorage storage,
       final BlockListAsLongs newReport,
       BlockReportContext context) throws IOException {
-    namesystem.writeLock();
+    namesystem.writeLock(RwLockMode.BM);
     final long startTime = Time.monotonicNow(); //after acquiring write lock
     final long endTime;
     DatanodeDescriptor node;
@@ -2788,7 +2853,7 @@ public boolean processReport(final DatanodeID nodeID,
       storageInfo.receivedBlockReport();
     } finally {
       endTime = Time.monotonicNow();
-      namesystem.writeUnlock();
+      namesystem.writeUnlock(RwLockMode.BM);
     }
 
     for (Block b : invalidatedBlocks) {
@@ -2812,7 +2877,7 @@ public boolean processReport(final DatanodeID nodeID,
 
   public void removeBRLeaseIfNeeded(final DatanodeID nodeID,
       final BlockReportContext context) throws IOException {
-    namesystem.writeLock();
+    namesystem.writeLock(RwLockMode.BM);
     DatanodeDescriptor node;
     try {
       node = datanodeManager.getDatanode(nodeID);
@@ -2829,7 +2894,7 @@ public void removeBRLeaseIfNeeded(final DatanodeID nodeID,
             context.getTotalRpcs(), Long.toHexString(context.getReportId()));
       }
     } finally {
-      namesystem.writeUnlock();
+      namesystem.writeUnlock(RwLockMode.BM);
     }
   }
 
@@ -2840,7 +2905,7 @@ void rescanPostponedMisreplicatedBlocks() {
     if (getPostponedMisreplicatedBlocksCount() == 0) {
       return;
     }
-    namesystem.writeLock();
+    namesystem.writeLock(RwLockMode.BM);
     long startTime = Time.monotonicNow();
     long startSize = postponedMisreplicatedBlocks.size();
     try {
@@ -2867,7 +2932,7 @@ void rescanPostponedMisreplicatedBlocks() {
       postponedMisreplicatedBlocks.addAll(rescannedMisreplicatedBlocks);
       rescannedMisreplicatedBlocks.clear();
       long endSize = postponedMisreplicatedBlocks.size();
-      namesystem.writeUnlock();
+      namesystem.writeUnlock(RwLockMode.BM);
       LOG.info("Rescan of postponedMisreplicatedBlocks completed in {}" +
           " msecs. {} blocks are left. {} blocks were removed.",
           (Time.monotonicNow() - startTime), endSize, (startSize - endSize));
@@ -2954,7 +3019,7 @@ public void markBlockReplicasAsCorrupt(Block oldBlock,
       BlockInfo block,
       long oldGenerationStamp, long oldNumBytes, 
       DatanodeStorageInfo[] newStorages) throws IOException {
-    assert namesystem.hasWriteLock();
+    assert namesystem.hasWriteLock(RwLockMode.BM);
     BlockToMarkCorrupt b = null;
     if (block.getGenerationStamp() != oldGenerationStamp) {
       b = new BlockToMarkCorrupt(oldBlock, block, oldGenerationStamp,
@@ -3002,7 +3067,7 @@ void processFirstBlockReport(
       final DatanodeStorageInfo storageInfo,
       final BlockListAsLongs report) throws IOException {
     if (report == null) return;
-    assert (namesystem.hasWriteLock());
+    assert (namesystem.hasWriteLock(RwLockMode.BM));
     assert (storageInfo.getBlockReportCount() == 0);
 
     for (BlockReportReplica iblk : report) {
@@ -3423,7 +3488,7 @@ void addStoredBlockUnderConstruction(StatefulBlockInfo ucBlock,
   private void addStoredBlockImmediate(BlockInfo storedBlock, Block reported,
       DatanodeStorageInfo storageInfo)
   throws IOException {
-    assert (storedBlock != null && namesystem.hasWriteLock());
+    assert (storedBlock != null && namesystem.hasWriteLock(RwLockMode.BM));
     if (!namesystem.isInStartupSafeMode()
         || isPopulatingReplQueues()) {
       addStoredBlock(storedBlock, reported, storageInfo, null, false);
@@ -3437,7 +3502,7 @@ private void addStoredBlockImmediate(BlockInfo storedBlock, Block reported,
     int numCurrentReplica = countLiveNodes(storedBlock);
     if (storedBlock.getBlockUCState() == BlockUCState.COMMITTED
         && hasMinStorage(storedBlock, numCurrentReplica)) {
-      completeBlock(storedBlock, null, false);
+      completeBlockOrDefer(storedBlock);
     } else if (storedBlock.isComplete() && result == AddBlockResult.ADDED) {
       // check whether safe replication is reached for the block
       // only complete blocks are counted towards that.
@@ -3458,7 +3523,7 @@ private Block addStoredBlock(final BlockInfo block,
                                DatanodeDescriptor delNodeHint,
                                boolean logEveryBlock)
   throws IOException {
-    assert block != null && namesystem.hasWriteLock();
+    assert block != null && namesystem.hasWriteLock(RwLockMode.BM);
     BlockInfo storedBlock;
     DatanodeDescriptor node = storageInfo.getDatanodeDescriptor();
     if (!block.isComplete()) {
@@ -3515,7 +3580,7 @@ private Block addStoredBlock(final BlockInfo block,
     if(storedBlock.getBlockUCState() == BlockUCState.COMMITTED &&
         hasMinStorage(storedBlock, numUsableReplicas)) {
       addExpectedReplicasToPending(storedBlock);
-      completeBlock(storedBlock, null, false);
+      completeBlockOrDefer(storedBlock);
     } else if (storedBlock.isComplete() && result == AddBlockResult.ADDED) {
       // check whether safe replication is reached for the block
       // only complete blocks are counted towards that
@@ -3618,7 +3683,7 @@ private void invalidateCorruptReplicas(BlockInfo blk, Block reported,
    * extra or low redundancy. Place it into the respective queue.
    */
   public void processMisReplicatedBlocks() {
-    assert namesystem.hasWriteLock();
+    assert namesystem.hasWriteLock(RwLockMode.BM);
     stopReconstructionInitializer();
     neededReconstruction.clear();
     reconstructionQueuesInitializer = new Daemon() {
@@ -3677,7 +3742,7 @@ private void processMisReplicatesAsync() throws InterruptedException {
 
     while (namesystem.isRunning() && !Thread.currentThread().isInterrupted()) {
       int processed = 0;
-      namesystem.writeLockInterruptibly();
+      namesystem.writeLockInterruptibly(RwLockMode.BM);
       try {
         while (processed < numBlocksPerIteration && blocksItr.hasNext()) {
           BlockInfo block = blocksItr.next();
@@ -3734,7 +3799,7 @@ private void processMisReplicatesAsync() throws InterruptedException {
           break;
         }
       } finally {
-        namesystem.writeUnlock();
+        namesystem.writeUnlock(RwLockMode.BM);
         // Make sure it is out of the write lock for sufficiently long time.
         Thread.sleep(sleepDuration);
       }
@@ -3779,7 +3844,7 @@ public int processMisReplicatedBlocks(List<BlockInfo> blocks) {
               && !Thread.currentThread().isInterrupted()
               && iter.hasNext()) {
         int limit = processed + numBlocksPerIteration;
-        namesystem.writeLockInterruptibly();
+        namesystem.writeLockInterruptibly(RwLockMode.BM);
         try {
           while (iter.hasNext() && processed < limit) {
             BlockInfo blk = iter.next();
@@ -3789,7 +3854,7 @@ public int processMisReplicatedBlocks(List<BlockInfo> blocks) {
                     "Re-scanned block {}, result is {}", blk, r);
           }
         } finally {
-          namesystem.writeUnlock();
+          namesystem.writeUnlock(RwLockMode.BM);
         }
       }
     } catch (InterruptedException ex) {
@@ -3872,7 +3937,7 @@ public void setReplication(
   private void processExtraRedundancyBlock(final BlockInfo block,
       final short replication, final DatanodeDescriptor addedNode,
       DatanodeDescriptor delNodeHint) {
-    assert namesystem.hasWriteLock();
+    assert namesystem.hasWriteLock(RwLockMode.BM);
     if (addedNode == delNodeHint) {
       delNodeHint = null;
     }
@@ -3909,7 +3974,7 @@ private void chooseExcessRedundancies(
       BlockInfo storedBlock, short replication,
       DatanodeDescriptor addedNode,
       DatanodeDescriptor delNodeHint) {
-    assert namesystem.hasWriteLock();
+    assert namesystem.hasWriteLock(RwLockMode.BM);
     // first form a rack to datanodes map and
     BlockCollection bc = getBlockCollection(storedBlock);
     if (storedBlock.isStriped()) {
@@ -4064,7 +4129,7 @@ private void removeStoredBlock(DatanodeStorageInfo storageInfo, Block block,
    */
   public void removeStoredBlock(BlockInfo storedBlock, DatanodeDescriptor node) {
     blockLog.debug("BLOCK* removeStoredBlock: {} from {}", storedBlock, node);
-    assert (namesystem.hasWriteLock());
+    assert (namesystem.hasWriteLock(RwLockMode.BM));
     {
       if (storedBlock == null || !blocksMap.removeNode(storedBlock, node)) {
         blockLog.debug("BLOCK* removeStoredBlock: {} has already been" +
@@ -4273,7 +4338,7 @@ private boolean processAndHandleReportedBlock(
    */
   public void processIncrementalBlockReport(final DatanodeID nodeID,
       final StorageReceivedDeletedBlocks srdb) throws IOException {
-    assert namesystem.hasWriteLock();
+    assert namesystem.hasWriteLock(RwLockMode.BM);
     final DatanodeDescriptor node = datanodeManager.getDatanode(nodeID);
     if (node == null || !node.isRegistered()) {
       blockLog.warn("BLOCK* processIncrementalBlockReport"
@@ -4592,7 +4657,7 @@ public int getTotalBlocks() {
   }
 
   public void removeBlock(BlockInfo block) {
-    assert namesystem.hasWriteLock();
+    assert namesystem.hasWriteLock(RwLockMode.BM);
     // No need to ACK blocks that are being removed entirely
     // from the namespace, since the removal of the associated
     // file already removes them from the block map below.
@@ -4635,7 +4700,7 @@ public void updateLastBlock(BlockInfo lastBlock, ExtendedBlock newBlock) {
   /** updates a block in needed reconstruction queue. */
   private void updateNeededReconstructions(final BlockInfo block,
       final int curReplicasDelta, int expectedReplicasDelta) {
-    namesystem.writeLock();
+    namesystem.writeLock(RwLockMode.BM);
     try {
       if (!isPopulatingReplQueues() || !block.isComplete()) {
         return;
@@ -4654,7 +4719,7 @@ private void updateNeededReconstructions(final BlockInfo block,
             repl.outOfServiceReplicas(), oldExpectedReplicas);
       }
     } finally {
-      namesystem.writeUnlock();
+      namesystem.writeUnlock(RwLockMode.BM);
     }
   }
 
@@ -4687,7 +4752,7 @@ public void checkRedundancy(BlockCollection bc) {
   private int invalidateWorkForOneNode(DatanodeInfo dn) {
     final List<Block> toInvalidate;
     
-    namesystem.writeLock();
+    namesystem.writeLock(RwLockMode.BM);
     try {
       // blocks should not be replicated or removed if safe mode is on
       if (namesystem.isInSafeMode()) {
@@ -4711,7 +4776,7 @@ private int invalidateWorkForOneNode(DatanodeInfo dn) {
         return 0;
       }
     } finally {
-      namesystem.writeUnlock();
+      namesystem.writeUnlock(RwLockMode.BM);
     }
     blockLog.debug("BLOCK* {}: ask {} to delete {}", getClass().getSimpleName(),
         dn, toInvalidate);
@@ -4931,6 +4996,7 @@ private class RedundancyMonitor implements Runnable {
     public void run() {
       while (namesystem.isRunning()) {
         try {
+          namesystem.runDeferredWork();
           // Process recovery work only when active NN is out of safe mode.
           if (isPopulatingReplQueues()) {
             computeDatanodeWork();
@@ -4997,7 +5063,7 @@ private void scanAndCompactStorages() throws InterruptedException {
           : datanodeManager.getDatanodeListForReport(DatanodeReportType.ALL)) {
         for (DatanodeStorageInfo storage : node.getStorageInfos()) {
           try {
-            namesystem.readLock();
+            namesystem.readLock(RwLockMode.BM);
             double ratio = storage.treeSetFillRatio();
             if (ratio < storageInfoDefragmentRatio) {
               datanodesAndStorages.add(node.getDatanodeUuid());
@@ -5008,13 +5074,13 @@ private void scanAndCompactStorages() throws InterruptedException {
                      (ratio < storageInfoDefragmentRatio)
                      ? " (queued for defragmentation)" : "");
           } finally {
-            namesystem.readUnlock();
+            namesystem.readUnlock(RwLockMode.BM);
           }
         }
       }
       if (!datanodesAndStorages.isEmpty()) {
         for (int i = 0; i < datanodesAndStorages.size(); i += 2) {
-          namesystem.writeLock();
+          namesystem.writeLock(RwLockMode.BM);
           try {
             final DatanodeDescriptor dn = datanodeManager.
                 getDatanode(datanodesAndStorages.get(i));
@@ -5036,7 +5102,7 @@ private void scanAndCompactStorages() throws InterruptedException {
                        aborted ? " (aborted)" : "");
             }
           } finally {
-            namesystem.writeUnlock();
+            namesystem.writeUnlock(RwLockMode.BM);
           }
           // Wait between each iteration
           Thread.sleep(1000);
@@ -5070,12 +5136,12 @@ int computeDatanodeWork() {
     int workFound = this.computeBlockReconstructionWork(blocksToProcess);
 
     // Update counters
-    namesystem.writeLock();
+    namesystem.writeLock(RwLockMode.BM);
     try {
       this.updateState();
       this.scheduledReplicationBlocksCount = workFound;
     } finally {
-      namesystem.writeUnlock();
+      namesystem.writeUnlock(RwLockMode.BM);
     }
     workFound += this.computeInvalidateWork(nodesToProcess);
     return workFound;
@@ -5300,7 +5366,7 @@ private void processQueue() {
           // batch as many operations in the write lock until the queue
           // runs dry, or the max lock hold is reached.
           int processed = 0;
-          namesystem.writeLock();
+          namesystem.writeLock(RwLockMode.BM);
           metrics.setBlockOpsQueued(queue.size() + 1);
           try {
             long start = Time.monotonicNow();
@@ -5313,7 +5379,7 @@ private void processQueue() {
               action = queue.poll();
             } while (action != null);
           } finally {
-            namesystem.writeUnlock();
+            namesystem.writeUnlock(RwLockMode.BM);
             metrics.addBlockOpsBatched(processed - 1);
           }
         } catch (InterruptedException e) {
@@ -0,0 +1,60 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.server.namenode;
+
+import java.io.IOException;
+
+import org.apache.hadoop.hdfs.protocol.proto.ClientNamenodeProtocolProtos.GetFileInfoRequestProto;
+import org.apache.hadoop.ipc.CoalescedCallAuditor;
+import org.apache.hadoop.security.AccessControlException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Audits the ClientProtocol calls answered with the result of an identical
+ * call, as {@link FSNamesystem} audits the calls it runs.
+ */
+class ClientCallAuditor implements CoalescedCallAuditor {
+  private static final Logger LOG =
+      LoggerFactory.getLogger(ClientCallAuditor.class);
+
+  private final FSNamesystem namesystem;
+
+  ClientCallAuditor(FSNamesystem namesystem) {
+    this.namesystem = namesystem;
+  }
+
+  @Override
+  public boolean canAudit(String method) {
+    return "getFileInfo".equals(method);
+  }
+
+  @Override
+  public void audit(String method, Object request, Throwable error) {
+    String src = ((GetFileInfoRequestProto) request).getSrc();
+    try {
+      if (error == null) {
+        namesystem.logAuditEvent(true, "getfileinfo", src);
+      } else if (error instanceof AccessControlException) {
+        namesystem.logAuditEvent(false, "getfileinfo", src);
+      }
+    } catch (IOException e) {
+      LOG.warn("Failed to audit getfileinfo of {}", src, e);
+    }
+  }
+}
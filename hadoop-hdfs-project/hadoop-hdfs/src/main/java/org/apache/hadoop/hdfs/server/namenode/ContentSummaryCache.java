@@ -0,0 +1,184 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.server.namenode;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.fs.ContentSummary;
+import org.apache.hadoop.hdfs.DFSConfigKeys;
+import org.apache.hadoop.util.Time;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * A cache of directory content summaries with a bounded staleness, enabled by
+ * setting {@value DFSConfigKeys#DFS_CONTENT_SUMMARY_CACHE_MAX_STALENESS_KEY}
+ * to a positive duration.
+ *
+ * <p>Computing the content summary of a large subtree walks every inode
+ * beneath it; even though {@link ContentSummaryComputationContext} yields the
+ * lock periodically, repeated {@code du} calls on the same large directories
+ * keep the namesystem busy for minutes. With this cache, a summary computed
+ * less than the staleness bound ago is returned without walking the subtree.
+ * Once a summary is older than half of the bound, the next request for it
+ * triggers a refresh on a background thread, so frequently requested
+ * summaries are kept fresh without clients waiting for the walk. Only
+ * summaries older than the bound are recomputed in the caller.
+ *
+ * <p>Entries are keyed by inode ID, so renaming a directory keeps its entry
+ * and a deleted directory's entry is never returned again. Callers are
+ * responsible for only caching summaries which do not depend on the
+ * permissions of the requesting user, and for checking access to the
+ * directory itself on every request.
+ */
+@InterfaceAudience.Private
+class ContentSummaryCache implements Closeable {
+  static final Logger LOG = LoggerFactory.getLogger(ContentSummaryCache.class);
+
+  private static final class Entry {
+    private final ContentSummary summary;
+    /** When the computation of the summary started. */
+    private final long computeTimeMs;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    Entry(ContentSummary summary, long computeTimeMs) {
+      this.summary = summary;
+      this.computeTimeMs = computeTimeMs;
+    }
+  }
+
+  private final FSDirectory fsd;
+  private final long maxStalenessMs;
+  private final Map<Long, Entry> entries;
+  private final ExecutorService refresher;
+
+  ContentSummaryCache(FSDirectory fsd, long maxStalenessMs,
+      final int maxEntries) {
+    this.fsd = fsd;
+    this.maxStalenessMs = maxStalenessMs;
+    this.entries = new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+        return size() > maxEntries;
+      }
+    };
+    this.refresher = Executors.newSingleThreadExecutor(
+        new ThreadFactoryBuilder().setDaemon(true)
+            .setNameFormat("ContentSummaryCacheRefresher").build());
+  }
+
+  /**
+   * @return the cached summary of the given directory if it was computed
+   * within the staleness bound, otherwise null. Schedules a background
+   * refresh if the summary is older than half of the bound.
+   */
+  ContentSummary get(long inodeId) {
+    final Entry entry;
+    synchronized (entries) {
+      entry = entries.get(inodeId);
+    }
+    if (entry == null) {
+      return null;
+    }
+    long age = Time.monotonicNow() - entry.computeTimeMs;
+    if (age > maxStalenessMs) {
+      return null;
+    }
+    if (age > maxStalenessMs / 2
+        && entry.refreshing.compareAndSet(false, true)) {
+      try {
+        refresher.execute(() -> refresh(inodeId));
+      } catch (RejectedExecutionException e) {
+        LOG.debug("Not refreshing content summary of inode {}", inodeId, e);
+      }
+    }
+    return entry.summary;
+  }
+
+  /**
+   * Cache a summary whose computation started at {@code computeTimeMs}, as
+   * given by {@link Time#monotonicNow()}. A summary whose computation started
+   * before that of the cached one is ignored.
+   */
+  void put(long inodeId, ContentSummary summary, long computeTimeMs) {
+    synchronized (entries) {
+      Entry previous = entries.get(inodeId);
+      if (previous == null || previous.computeTimeMs < computeTimeMs) {
+        entries.put(inodeId, new Entry(summary, computeTimeMs));
+      }
+    }
+  }
+
+  void remove(long inodeId) {
+    synchronized (entries) {
+      entries.remove(inodeId);
+    }
+  }
+
+  @VisibleForTesting
+  void refresh(long inodeId) {
+    final FSNamesystem fsn = fsd.getFSNamesystem();
+    final long computeTimeMs = Time.monotonicNow();
+    fsn.readLock();
+    try {
+      INode inode = fsd.getInode(inodeId);
+      if (inode == null || !inode.isDirectory()) {
+        remove(inodeId);
+        return;
+      }
+      ContentSummary summary = FSDirStatAndListingOp.computeContentSummary(
+          fsd, null, INodesInPath.fromINode(inode));
+      put(inodeId, summary, computeTimeMs);
+    } catch (IOException e) {
+      LOG.warn("Failed to refresh content summary of inode {}", inodeId, e);
+      remove(inodeId);
+    } finally {
+      fsn.readUnlock("refreshContentSummary");
+    }
+  }
+
+  @VisibleForTesting
+  int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  @VisibleForTesting
+  boolean isClosed() {
+    return refresher.isShutdown();
+  }
+
+  @Override
+  public void close() {
+    refresher.shutdownNow();
+  }
+}
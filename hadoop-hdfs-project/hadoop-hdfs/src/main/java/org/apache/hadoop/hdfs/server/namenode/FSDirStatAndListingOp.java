@@ -26,6 +26,7 @@
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.permission.FsAction;
 import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.ha.HAServiceProtocol.HAServiceState;
 import org.apache.hadoop.fs.QuotaUsage;
 import org.apache.hadoop.hdfs.DFSUtil;
 import org.apache.hadoop.hdfs.protocol.ClientProtocol;
@@ -42,6 +43,7 @@
 import org.apache.hadoop.hdfs.server.namenode.snapshot.Snapshot;
 import org.apache.hadoop.hdfs.util.ReadOnlyList;
 import org.apache.hadoop.security.AccessControlException;
+import org.apache.hadoop.util.Time;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -78,7 +80,18 @@ static DirectoryListing getListingInt(FSDirectory fsd, FSPermissionChecker pc,
         fsd.checkPathAccess(pc, iip, FsAction.READ_EXECUTE);
       }
     }
-    return getListing(fsd, iip, startAfter, needLocation);
+    final ObserverStatusCache cache = startAfter.length == 0 && !needLocation
+        ? getObserverStatusCache(fsd, srcArg, iip) : null;
+    if (cache == null) {
+      return getListing(fsd, iip, startAfter, needLocation);
+    }
+    final String path = iip.getPath();
+    DirectoryListing listing = cache.getListing(path);
+    if (listing == null) {
+      listing = getListing(fsd, iip, startAfter, needLocation);
+      cache.putListing(path, listing);
+    }
+    return listing;
   }
 
   /**
@@ -111,7 +124,35 @@ static HdfsFileStatus getFileInfo(FSDirectory fsd, FSPermissionChecker pc,
     } else {
       iip = fsd.resolvePath(pc, srcArg, dirOp);
     }
-    return getFileInfo(fsd, iip, needLocation, needBlockToken);
+    final ObserverStatusCache cache = !needLocation
+        ? getObserverStatusCache(fsd, srcArg, iip) : null;
+    if (cache == null) {
+      return getFileInfo(fsd, iip, needLocation, needBlockToken);
+    }
+    final String path = iip.getPath();
+    HdfsFileStatus status = cache.getFileInfo(path);
+    if (status == null) {
+      status = getFileInfo(fsd, iip, needLocation, needBlockToken);
+      cache.putFileInfo(path, status);
+    }
+    return status;
+  }
+
+  /**
+   * @return the observer status cache if results for the given path may be
+   * served from and added to it, otherwise null. Must be called with the
+   * read lock held, after the path has been resolved and access checked.
+   */
+  private static ObserverStatusCache getObserverStatusCache(FSDirectory fsd,
+      String src, INodesInPath iip) {
+    final ObserverStatusCache cache = fsd.getObserverStatusCache();
+    if (cache == null || fsd.hasAttributeProvider()
+        || fsd.getFSNamesystem().getState() != HAServiceState.OBSERVER
+        || iip.isSnapshot() || iip.isDotSnapshotDir()
+        || FSDirectory.isReservedName(src)) {
+      return null;
+    }
+    return cache;
   }
 
   /**
@@ -507,6 +548,26 @@ private static HdfsFileStatus createFileStatus(
 
   private static ContentSummary getContentSummaryInt(FSDirectory fsd,
       FSPermissionChecker pc, INodesInPath iip) throws IOException {
+    final ContentSummaryCache cache = fsd.getContentSummaryCache();
+    final INode targetNode = iip.getLastINode();
+    // Only summaries which do not depend on the caller's access to the
+    // subtree may be shared through the cache.
+    if (cache == null || targetNode == null || !targetNode.isDirectory()
+        || iip.isSnapshot() || (pc != null && fsd.isPermissionEnabled()
+            && !pc.isSuperUser())) {
+      return computeContentSummary(fsd, pc, iip);
+    }
+    ContentSummary cs = cache.get(targetNode.getId());
+    if (cs == null) {
+      final long computeTimeMs = Time.monotonicNow();
+      cs = computeContentSummary(fsd, pc, iip);
+      cache.put(targetNode.getId(), cs, computeTimeMs);
+    }
+    return cs;
+  }
+
+  static ContentSummary computeContentSummary(FSDirectory fsd,
+      FSPermissionChecker pc, INodesInPath iip) throws IOException {
     fsd.readLock();
     try {
       INode targetNode = iip.getLastINode();
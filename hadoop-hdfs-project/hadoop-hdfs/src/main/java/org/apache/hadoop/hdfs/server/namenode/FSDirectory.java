@@ -63,6 +63,7 @@
 import org.apache.hadoop.hdfs.util.ByteArray;
 import org.apache.hadoop.hdfs.util.EnumCounters;
 import org.apache.hadoop.hdfs.util.ReadOnlyList;
+import org.apache.hadoop.hdfs.util.RwLockMode;
 import org.apache.hadoop.security.AccessControlException;
 import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.hadoop.util.Time;
@@ -83,6 +84,7 @@
 import java.util.TreeSet;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
 
 import static org.apache.hadoop.fs.CommonConfigurationKeys.FS_PROTECTED_DIRECTORIES;
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_ACCESSTIME_PRECISION_DEFAULT;
@@ -157,6 +159,10 @@ private static INodeDirectory createRoot(FSNamesystem namesystem) {
   private final int maxComponentLength;
   private final int maxDirItems;
   private final int lsLimit;  // max list limit
+  /** Cache of file status and listing results; null if disabled. */
+  private final ObserverStatusCache observerStatusCache;
+  /** Cache of directory content summaries; null if disabled. */
+  private final ContentSummaryCache contentSummaryCache;
   private final int contentCountLimit; // max content summary counts per run
   private final long contentSleepMicroSec;
   private final INodeMap inodeMap; // Synchronized by dirLock
@@ -372,12 +378,28 @@ public enum DirOp {
         DFSConfigKeys.DFS_LIST_LIMIT, DFSConfigKeys.DFS_LIST_LIMIT_DEFAULT);
     this.lsLimit = configuredLimit>0 ?
         configuredLimit : DFSConfigKeys.DFS_LIST_LIMIT_DEFAULT;
+    int statusCacheSize = conf.getInt(
+        DFSConfigKeys.DFS_NAMENODE_OBSERVER_STATUS_CACHE_SIZE_KEY,
+        DFSConfigKeys.DFS_NAMENODE_OBSERVER_STATUS_CACHE_SIZE_DEFAULT);
+    this.observerStatusCache = statusCacheSize > 0 ?
+        new ObserverStatusCache(statusCacheSize) : null;
     this.contentCountLimit = conf.getInt(
         DFSConfigKeys.DFS_CONTENT_SUMMARY_LIMIT_KEY,
         DFSConfigKeys.DFS_CONTENT_SUMMARY_LIMIT_DEFAULT);
     this.contentSleepMicroSec = conf.getLong(
         DFSConfigKeys.DFS_CONTENT_SUMMARY_SLEEP_MICROSEC_KEY,
         DFSConfigKeys.DFS_CONTENT_SUMMARY_SLEEP_MICROSEC_DEFAULT);
+    long contentSummaryMaxStalenessMs = conf.getTimeDuration(
+        DFSConfigKeys.DFS_CONTENT_SUMMARY_CACHE_MAX_STALENESS_KEY,
+        DFSConfigKeys.DFS_CONTENT_SUMMARY_CACHE_MAX_STALENESS_DEFAULT,
+        TimeUnit.MILLISECONDS);
+    int contentSummaryCacheSize = conf.getInt(
+        DFSConfigKeys.DFS_CONTENT_SUMMARY_CACHE_SIZE_KEY,
+        DFSConfigKeys.DFS_CONTENT_SUMMARY_CACHE_SIZE_DEFAULT);
+    this.contentSummaryCache =
+        contentSummaryMaxStalenessMs > 0 && contentSummaryCacheSize > 0 ?
+            new ContentSummaryCache(this, contentSummaryMaxStalenessMs,
+                contentSummaryCacheSize) : null;
     
     // filesystem limits
     this.maxComponentLength = (int) conf.getLongBytes(
@@ -637,10 +659,34 @@ int getLsLimit() {
     return lsLimit;
   }
 
+  /**
+   * @return the cache of file status and listing results, or null if it is
+   * disabled. The cache may only be read while in the observer state; see
+   * {@link ObserverStatusCache}.
+   */
+  ObserverStatusCache getObserverStatusCache() {
+    return observerStatusCache;
+  }
+
+  /**
+   * @return true if an {@link INodeAttributeProvider} is configured, in
+   * which case file attributes may change without any edits being logged.
+   */
+  boolean hasAttributeProvider() {
+    return attributeProvider != null;
+  }
+
   int getContentCountLimit() {
     return contentCountLimit;
   }
 
+  /**
+   * @return the cache of directory content summaries, or null if disabled.
+   */
+  ContentSummaryCache getContentSummaryCache() {
+    return contentSummaryCache;
+  }
+
   long getContentSleepMicroSec() {
     return contentSleepMicroSec;
   }
@@ -657,7 +703,11 @@ FSEditLog getEditLog() {
    * Shutdown the filestore
    */
   @Override
-  public void close() throws IOException {}
+  public void close() throws IOException {
+    if (contentSummaryCache != null) {
+      contentSummaryCache.close();
+    }
+  }
 
   void markNameCacheInitialized() {
     writeLock();
@@ -1103,7 +1153,7 @@ static void unprotectedUpdateCount(INodesInPath inodesInPath,
    */
   public void updateSpaceForCompleteBlock(BlockInfo completeBlk,
       INodesInPath inodes) throws IOException {
-    assert namesystem.hasWriteLock();
+    assert namesystem.hasWriteLock(RwLockMode.GLOBAL);
     INodesInPath iip = inodes != null ? inodes :
         INodesInPath.fromINode(namesystem.getBlockCollection(completeBlk));
     INodeFile fileINode = iip.getLastINode().asFile();
@@ -1620,6 +1670,9 @@ void cacheName(INode inode) {
   void shutdown() {
     nameCache.reset();
     inodeMap.clear();
+    if (contentSummaryCache != null) {
+      contentSummaryCache.close();
+    }
   }
   
   /**
@@ -25,12 +25,15 @@
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hdfs.DFSConfigKeys;
+import org.apache.hadoop.hdfs.server.namenode.metrics.NameNodeMetrics;
 import org.apache.hadoop.ipc.Server;
 import org.apache.hadoop.util.ExitUtil;
 import com.google.common.annotations.VisibleForTesting;
@@ -53,10 +56,24 @@ class FSEditLogAsync extends FSEditLog implements Runnable {
   // of the edit log buffer - ie. a sync will eventually be forced.
   private final Deque<Edit> syncWaitQ = new ArrayDeque<Edit>();
 
+  // how long a sync may be held back to gather more edits into it. zero
+  // syncs as soon as the pending queue runs dry.
+  private final long groupCommitWindowNanos;
+  // only accessed by syncing thread.  when the first edit of the current
+  // batch was dequeued, and how many edits the previous sync carried.
+  private long batchStartNanos;
+  private int lastSyncBatchSize;
+
   FSEditLogAsync(Configuration conf, NNStorage storage, List<URI> editsDirs) {
     super(conf, storage, editsDirs);
     // op instances cannot be shared due to queuing for background thread.
     cache.disableCache();
+    long windowMicros = conf.getTimeDuration(
+        DFSConfigKeys.DFS_NAMENODE_EDITS_ASYNC_LOGGING_GROUP_COMMIT_WINDOW_KEY,
+        DFSConfigKeys.DFS_NAMENODE_EDITS_ASYNC_LOGGING_GROUP_COMMIT_WINDOW_DEFAULT,
+        TimeUnit.MICROSECONDS);
+    groupCommitWindowNanos =
+        TimeUnit.MICROSECONDS.toNanos(Math.max(0, windowMicros));
   }
 
   private boolean isSyncThreadAlive() {
@@ -218,7 +235,26 @@ private void enqueueEdit(Edit edit) {
 
   private Edit dequeueEdit() throws InterruptedException {
     // only block for next edit if no pending syncs.
-    return syncWaitQ.isEmpty() ? editPendingQ.take() : editPendingQ.poll();
+    if (syncWaitQ.isEmpty()) {
+      return editPendingQ.take();
+    }
+    Edit edit = editPendingQ.poll();
+    // the queue ran dry.  if the last sync was shared by concurrent writers
+    // then more are likely on the way, so hold the sync open until the
+    // window of the current batch closes.  a lone writer never waits.
+    if (edit == null && groupCommitWindowNanos > 0 && lastSyncBatchSize > 1) {
+      long start = System.nanoTime();
+      long waitNanos = batchStartNanos + groupCommitWindowNanos - start;
+      if (waitNanos > 0) {
+        edit = editPendingQ.poll(waitNanos, TimeUnit.NANOSECONDS);
+        NameNodeMetrics metrics = NameNode.getNameNodeMetrics();
+        if (metrics != null) {
+          metrics.addGroupCommitWait(
+              TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+        }
+      }
+    }
+    return edit;
   }
 
   @Override
@@ -228,6 +264,9 @@ public void run() {
         boolean doSync;
         Edit edit = dequeueEdit();
         if (edit != null) {
+          if (syncWaitQ.isEmpty()) {
+            batchStartNanos = System.nanoTime();
+          }
           // sync if requested by edit log.
           doSync = edit.logEdit();
           syncWaitQ.add(edit);
@@ -244,6 +283,7 @@ public void run() {
           } catch (RuntimeException ex) {
             syncEx = ex;
           }
+          lastSyncBatchSize = syncWaitQ.size();
           while ((edit = syncWaitQ.poll()) != null) {
             edit.logSyncNotify(syncEx);
           }
@@ -388,6 +388,10 @@ private long applyEditLogOp(FSEditLogOp op, FSDirectory fsDir,
       LOG.trace("replaying edit log: " + op);
     }
     final boolean toAddRetryCache = fsNamesys.hasRetryCache() && op.hasRpcIds();
+    final ObserverStatusCache statusCache = fsDir.getObserverStatusCache();
+    if (statusCache != null) {
+      statusCache.invalidate(op);
+    }
 
     switch (op.opCode) {
     case OP_ADD: {
@@ -629,7 +633,10 @@ private long applyEditLogOp(FSEditLogOp op, FSDirectory fsDir,
       FSDirDeleteOp.deleteForEditLog(fsDir, iip, deleteOp.timestamp);
 
       if (toAddRetryCache) {
-        fsNamesys.addCacheEntry(deleteOp.rpcClientId, deleteOp.rpcCallId);
+        // the rpc ids may also be those of a batchMetadataOps call, which
+        // looks its entry up with a payload, so add one without results.
+        fsNamesys.addCacheEntryWithPayload(deleteOp.rpcClientId,
+            deleteOp.rpcCallId, null);
       }
       break;
     }
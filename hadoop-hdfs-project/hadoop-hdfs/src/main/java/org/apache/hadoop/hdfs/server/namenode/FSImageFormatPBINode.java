@@ -216,8 +216,8 @@ public static void updateBlocksMap(INodeFile file, BlockManager bm) {
     }
 
     void loadINodeDirectorySectionInParallel(ExecutorService service,
-        ArrayList<FileSummary.Section> sections, String compressionCodec)
-        throws IOException {
+        ArrayList<FileSummary.Section> sections, String compressionCodec,
+        Counter counter) throws IOException {
       LOG.info("Loading the INodeDirectory section in parallel with {} sub-" +
               "sections", sections.size());
       CountDownLatch latch = new CountDownLatch(sections.size());
@@ -229,7 +229,7 @@ void loadINodeDirectorySectionInParallel(ExecutorService service,
           try {
             ins = parent.getInputStreamForSection(s,
                 compressionCodec);
-            loadINodeDirectorySection(ins);
+            loadINodeDirectorySection(ins, counter);
           } catch (Exception e) {
             LOG.error("An exception occurred loading INodeDirectories in " +
                 "parallel", e);
@@ -260,7 +260,8 @@ void loadINodeDirectorySectionInParallel(ExecutorService service,
       LOG.info("Completed loading all INodeDirectory sub-sections");
     }
 
-    void loadINodeDirectorySection(InputStream in) throws IOException {
+    void loadINodeDirectorySection(InputStream in, Counter counter)
+        throws IOException {
       final List<INodeReference> refList = parent.getLoaderContext()
           .getRefList();
       ArrayList<INode> inodeList = new ArrayList<>();
@@ -303,6 +304,9 @@ void loadINodeDirectorySection(InputStream in) throws IOException {
                 ref.getId(), p.getId());
           }
         }
+        if (counter != null) {
+          counter.increment();
+        }
       }
       addToCacheAndBlockMap(inodeList);
     }
@@ -385,12 +385,6 @@ public int compare(FileSummary.Section s1, FileSummary.Section s2) {
       });
 
       StartupProgress prog = NameNode.getStartupProgress();
-      /**
-       * beginStep() and the endStep() calls do not match the boundary of the
-       * sections. This is because that the current implementation only allows
-       * a particular step to be started for once.
-       */
-      Step currentStep = null;
       boolean loadInParallel = enableParallelSaveAndLoad(conf);
 
       ExecutorService executorService = null;
@@ -423,42 +417,67 @@ public int compare(FileSummary.Section s1, FileSummary.Section s2) {
           loadStringTableSection(in);
           break;
         case INODE: {
-          currentStep = new Step(StepType.INODES);
-          prog.beginStep(Phase.LOADING_FSIMAGE, currentStep);
+          Step step = new Step(StepType.INODES);
+          prog.beginStep(Phase.LOADING_FSIMAGE, step);
           stageSubSections = getSubSectionsOfName(
               subSections, SectionName.INODE_SUB);
           if (loadInParallel && (stageSubSections.size() > 0)) {
             inodeLoader.loadINodeSectionInParallel(executorService,
-                stageSubSections, summary.getCodec(), prog, currentStep);
+                stageSubSections, summary.getCodec(), prog, step);
           } else {
-            inodeLoader.loadINodeSection(in, prog, currentStep);
+            inodeLoader.loadINodeSection(in, prog, step);
           }
+          prog.endStep(Phase.LOADING_FSIMAGE, step);
         }
           break;
-        case INODE_REFERENCE:
+        case INODE_REFERENCE: {
+          Step step = new Step(StepType.INODE_REFERENCES);
+          prog.beginStep(Phase.LOADING_FSIMAGE, step);
           snapshotLoader.loadINodeReferenceSection(in);
+          prog.endStep(Phase.LOADING_FSIMAGE, step);
+        }
           break;
-        case INODE_DIR:
+        case INODE_DIR: {
+          Step step = new Step(StepType.INODE_DIRECTORIES);
+          prog.beginStep(Phase.LOADING_FSIMAGE, step);
+          Counter counter = prog.getCounter(Phase.LOADING_FSIMAGE, step);
           stageSubSections = getSubSectionsOfName(
               subSections, SectionName.INODE_DIR_SUB);
           if (loadInParallel && stageSubSections.size() > 0) {
             inodeLoader.loadINodeDirectorySectionInParallel(executorService,
-                stageSubSections, summary.getCodec());
+                stageSubSections, summary.getCodec(), counter);
           } else {
-            inodeLoader.loadINodeDirectorySection(in);
+            inodeLoader.loadINodeDirectorySection(in, counter);
           }
+          prog.endStep(Phase.LOADING_FSIMAGE, step);
+        }
           break;
         case FILES_UNDERCONSTRUCTION:
           inodeLoader.loadFilesUnderConstructionSection(in);
           break;
-        case SNAPSHOT:
+        case SNAPSHOT: {
+          Step step = new Step(StepType.SNAPSHOTS);
+          prog.beginStep(Phase.LOADING_FSIMAGE, step);
           snapshotLoader.loadSnapshotSection(in);
+          prog.endStep(Phase.LOADING_FSIMAGE, step);
+        }
           break;
-        case SNAPSHOT_DIFF:
-          snapshotLoader.loadSnapshotDiffSection(in);
+        case SNAPSHOT_DIFF: {
+          Step step = new Step(StepType.SNAPSHOT_DIFFS);
+          prog.beginStep(Phase.LOADING_FSIMAGE, step);
+          Counter counter = prog.getCounter(Phase.LOADING_FSIMAGE, step);
+          stageSubSections = getSubSectionsOfName(
+              subSections, SectionName.SNAPSHOT_DIFF_SUB);
+          if (loadInParallel && stageSubSections.size() > 0) {
+            snapshotLoader.loadSnapshotDiffSectionInParallel(executorService,
+                stageSubSections, summary.getCodec(), counter);
+          } else {
+            snapshotLoader.loadSnapshotDiffSection(in, counter);
+          }
+          prog.endStep(Phase.LOADING_FSIMAGE, step);
+        }
           break;
         case SECRET_MANAGER: {
-          prog.endStep(Phase.LOADING_FSIMAGE, currentStep);
           Step step = new Step(StepType.DELEGATION_TOKENS);
           prog.beginStep(Phase.LOADING_FSIMAGE, step);
           loadSecretManagerSection(in, prog, step);
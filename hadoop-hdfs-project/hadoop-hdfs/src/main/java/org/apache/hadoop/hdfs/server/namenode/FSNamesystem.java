@@ -30,6 +30,8 @@
 import static org.apache.hadoop.fs.CommonConfigurationKeysPublic.IO_FILE_BUFFER_SIZE_KEY;
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_BLOCK_SIZE_DEFAULT;
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_BLOCK_SIZE_KEY;
+import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_BLOCKMANAGER_LOCK_SPLIT_DEFAULT;
+import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_BLOCKMANAGER_LOCK_SPLIT_KEY;
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_STORAGE_POLICY_ENABLED_DEFAULT;
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_STORAGE_POLICY_PERMISSIONS_SUPERUSER_ONLY_DEFAULT;
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_STORAGE_POLICY_PERMISSIONS_SUPERUSER_ONLY_KEY;
@@ -110,6 +112,8 @@
 import com.google.common.collect.Maps;
 import org.apache.hadoop.thirdparty.protobuf.ByteString;
 import org.apache.hadoop.hdfs.protocol.BatchedDirectoryListing;
+import org.apache.hadoop.hdfs.protocol.BatchedMetadataOp;
+import org.apache.hadoop.hdfs.protocol.BatchedMetadataResult;
 import org.apache.hadoop.hdfs.protocol.HdfsPartialListing;
 import org.apache.hadoop.hdfs.protocol.OpenFilesIterator.OpenFilesType;
 import org.apache.hadoop.hdfs.protocol.ReplicatedBlockStats;
@@ -304,6 +308,7 @@
 import org.apache.hadoop.hdfs.server.protocol.StorageReport;
 import org.apache.hadoop.hdfs.server.protocol.VolumeFailureSummary;
 import org.apache.hadoop.hdfs.util.LightWeightHashSet;
+import org.apache.hadoop.hdfs.util.RwLockMode;
 import org.apache.hadoop.hdfs.web.JsonUtil;
 import org.apache.hadoop.io.IOUtils;
 import org.apache.hadoop.io.Text;
@@ -564,12 +569,27 @@ private void logAuditEvent(boolean succeeded,
 
   // Maximum number of paths that can be listed per batched call.
   private final int batchedListingLimit;
+  private final int batchedMetadataOpsLimit;
 
   private final int numCommittedAllowed;
 
   /** Lock to protect FSNamesystem. */
   private final FSNamesystemLock fsLock;
 
+  /**
+   * Lock to protect the block manager state. This is the same instance as
+   * {@link #fsLock} unless
+   * {@link DFSConfigKeys#DFS_NAMENODE_BLOCKMANAGER_LOCK_SPLIT_KEY} is set,
+   * in which case it is always acquired after fsLock.
+   */
+  private final FSNamesystemLock bmLock;
+
+  /**
+   * Set when safe mode was left while only {@link #bmLock} was held, so the
+   * secret manager is started by {@link #runDeferredWork()}.
+   */
+  private volatile boolean secretManagerStartDeferred = false;
+
   /** 
    * Checkpoint lock to protect FSNamesystem modification on standby NNs.
    * Unlike fsLock, it does not affect block updates. On active NNs, this lock
@@ -819,6 +839,14 @@ static FSNamesystem loadFromDisk(Configuration conf) throws IOException {
       enableAsyncAuditLog();
     }
     fsLock = new FSNamesystemLock(conf, detailedLockHoldTimeMetrics);
+    if (conf.getBoolean(DFS_NAMENODE_BLOCKMANAGER_LOCK_SPLIT_KEY,
+        DFS_NAMENODE_BLOCKMANAGER_LOCK_SPLIT_DEFAULT)) {
+      LOG.info("Block manager lock is split from the namespace lock");
+      bmLock = new FSNamesystemLock(conf, FSNamesystemLock.BM_LOCK_NAME,
+          detailedLockHoldTimeMetrics);
+    } else {
+      bmLock = fsLock;
+    }
     cond = fsLock.newWriteLockCondition();
     cpLock = new ReentrantLock();
 
@@ -916,6 +944,13 @@ static FSNamesystem loadFromDisk(Configuration conf) throws IOException {
           batchedListingLimit > 0,
           DFSConfigKeys.DFS_NAMENODE_BATCHED_LISTING_LIMIT +
               " must be greater than zero");
+      this.batchedMetadataOpsLimit = conf.getInt(
+          DFSConfigKeys.DFS_NAMENODE_BATCHED_METADATA_OPS_LIMIT,
+          DFSConfigKeys.DFS_NAMENODE_BATCHED_METADATA_OPS_LIMIT_DEFAULT);
+      Preconditions.checkArgument(
+          batchedMetadataOpsLimit > 0,
+          DFSConfigKeys.DFS_NAMENODE_BATCHED_METADATA_OPS_LIMIT +
+              " must be greater than zero");
       this.numCommittedAllowed = conf.getInt(
           DFSConfigKeys.DFS_NAMENODE_FILE_CLOSE_NUM_COMMITTED_ALLOWED_KEY,
           DFSConfigKeys.DFS_NAMENODE_FILE_CLOSE_NUM_COMMITTED_ALLOWED_DEFAULT);
@@ -1241,7 +1276,16 @@ private void startSecretManager() {
   
   @Override
   public void startSecretManagerIfNecessary() {
-    assert hasWriteLock() : "Starting secret manager needs write lock";
+    if (!hasWriteLock(RwLockMode.FS)) {
+      // Safe mode was left by a block report holding only the block manager
+      // lock. Starting the secret manager logs a new master key, which needs
+      // the namespace lock, and taking it here would break the lock order.
+      // The start is left to runDeferredWork() once the lock is released.
+      assert hasWriteLock(RwLockMode.BM) :
+          "Starting secret manager needs write lock";
+      secretManagerStartDeferred = true;
+      return;
+    }
     boolean shouldRun = shouldUseDelegationTokens() &&
       !isInSafeMode() && getEditLog().isOpenForWrite();
     boolean running = dtSecretManager.isRunning();
@@ -1492,6 +1536,10 @@ void startStandbyServices(final Configuration conf, boolean isObserver)
 
     // Disable quota checks while in standby.
     dir.disableQuotaChecks();
+    // Results cached before an earlier term as active may be stale.
+    if (dir.getObserverStatusCache() != null) {
+      dir.getObserverStatusCache().invalidateAll();
+    }
     editLogTailer = new EditLogTailer(this, conf);
     editLogTailer.start();
     if (!isObserver && standbyShouldCheckpoint) {
@@ -1533,6 +1581,9 @@ void stopStandbyServices() throws IOException {
     if (editLogTailer != null) {
       editLogTailer.stop();
     }
+    if (dir != null && dir.getObserverStatusCache() != null) {
+      dir.getObserverStatusCache().invalidateAll();
+    }
     if (dir != null && getFSImage() != null && getFSImage().editLog != null) {
       getFSImage().editLog.close();
     }
@@ -1698,71 +1749,313 @@ public static List<URI> getSharedEditsDirs(Configuration conf) {
 
   @Override
   public void readLock() {
-    this.fsLock.readLock();
+    readLock(RwLockMode.GLOBAL);
+  }
+
+  @Override
+  public void readLock(RwLockMode mode) {
+    if (needsFSLock(mode)) {
+      checkLockOrder();
+      this.fsLock.readLock();
+    }
+    if (needsBMLock(mode)) {
+      this.bmLock.readLock();
+    }
   }
 
   @Override
   public void readLockInterruptibly() throws InterruptedException {
+    checkLockOrder();
     this.fsLock.readLockInterruptibly();
+    if (isBMLockSplit()) {
+      try {
+        this.bmLock.readLockInterruptibly();
+      } catch (InterruptedException e) {
+        this.fsLock.readUnlock();
+        throw e;
+      }
+    }
   }
 
   @Override
   public void readUnlock() {
-    this.fsLock.readUnlock();
+    readUnlock(RwLockMode.GLOBAL, FSNamesystemLock.OP_NAME_OTHER);
+  }
+
+  @Override
+  public void readUnlock(RwLockMode mode) {
+    readUnlock(mode, FSNamesystemLock.OP_NAME_OTHER);
   }
 
   public void readUnlock(String opName) {
-    this.fsLock.readUnlock(opName);
+    readUnlock(RwLockMode.GLOBAL, opName);
+  }
+
+  public void readUnlock(RwLockMode mode, String opName) {
+    readUnlock(mode, opName, null);
   }
 
   public void readUnlock(String opName,
       Supplier<String> lockReportInfoSupplier) {
-    this.fsLock.readUnlock(opName, lockReportInfoSupplier);
+    readUnlock(RwLockMode.GLOBAL, opName, lockReportInfoSupplier);
+  }
+
+  public void readUnlock(RwLockMode mode, String opName,
+      Supplier<String> lockReportInfoSupplier) {
+    if (needsBMLock(mode)) {
+      this.bmLock.readUnlock(opName, lockReportInfoSupplier);
+    }
+    if (needsFSLock(mode)) {
+      this.fsLock.readUnlock(opName, lockReportInfoSupplier);
+    }
   }
 
   @Override
   public void writeLock() {
-    this.fsLock.writeLock();
+    writeLock(RwLockMode.GLOBAL);
+  }
+
+  @Override
+  public void writeLock(RwLockMode mode) {
+    if (needsFSLock(mode)) {
+      checkLockOrder();
+      this.fsLock.writeLock();
+    }
+    if (needsBMLock(mode)) {
+      this.bmLock.writeLock();
+    }
   }
 
   @Override
   public void writeLockInterruptibly() throws InterruptedException {
-    this.fsLock.writeLockInterruptibly();
+    writeLockInterruptibly(RwLockMode.GLOBAL);
+  }
+
+  @Override
+  public void writeLockInterruptibly(RwLockMode mode)
+      throws InterruptedException {
+    if (needsFSLock(mode)) {
+      checkLockOrder();
+      this.fsLock.writeLockInterruptibly();
+    }
+    if (needsBMLock(mode)) {
+      try {
+        this.bmLock.writeLockInterruptibly();
+      } catch (InterruptedException e) {
+        if (needsFSLock(mode)) {
+          this.fsLock.writeUnlock();
+        }
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * Run the work which a block manager lock holder deferred because it needs
+   * the namespace lock: completing the blocks queued for
+   * {@link BlockManager#completeDeferredBlocks()}, and starting the secret
+   * manager when a block report left safe mode. The deferring thread runs it
+   * as soon as it released the block manager lock, see
+   * {@link #writeUnlock(RwLockMode, String, boolean)}, so the deferred state
+   * is not visible after the block report which caused it returned. A thread
+   * which still holds a lock cannot take the global lock without breaking the
+   * lock order, the redundancy monitor runs the work for it instead.
+   */
+  @Override
+  public void runDeferredWork() {
+    if (!isBMLockSplit() || blockManager == null || hasReadLock()) {
+      return;
+    }
+    if (!blockManager.hasDeferredCompletions() && !secretManagerStartDeferred) {
+      return;
+    }
+    writeLock();
+    try {
+      if (blockManager.hasDeferredCompletions()) {
+        blockManager.completeDeferredBlocks();
+      }
+      if (secretManagerStartDeferred) {
+        secretManagerStartDeferred = false;
+        startSecretManagerIfNecessary();
+      }
+    } finally {
+      writeUnlock("runDeferredWork");
+    }
   }
 
   @Override
   public void writeUnlock() {
-    this.fsLock.writeUnlock();
+    writeUnlock(RwLockMode.GLOBAL, FSNamesystemLock.OP_NAME_OTHER);
+  }
+
+  @Override
+  public void writeUnlock(RwLockMode mode) {
+    writeUnlock(mode, FSNamesystemLock.OP_NAME_OTHER);
   }
 
   public void writeUnlock(String opName) {
-    this.fsLock.writeUnlock(opName);
+    writeUnlock(RwLockMode.GLOBAL, opName);
+  }
+
+  public void writeUnlock(RwLockMode mode, String opName) {
+    writeUnlock(mode, opName, false);
   }
 
   public void writeUnlock(String opName, boolean suppressWriteLockReport) {
-    this.fsLock.writeUnlock(opName, suppressWriteLockReport);
+    writeUnlock(RwLockMode.GLOBAL, opName, suppressWriteLockReport);
+  }
+
+  public void writeUnlock(RwLockMode mode, String opName,
+      boolean suppressWriteLockReport) {
+    if (needsBMLock(mode)) {
+      this.bmLock.writeUnlock(opName, suppressWriteLockReport);
+    }
+    if (needsFSLock(mode)) {
+      this.fsLock.writeUnlock(opName, suppressWriteLockReport);
+    }
+    if (mode == RwLockMode.BM) {
+      runDeferredWork();
+    }
   }
 
   public void writeUnlock(String opName,
       Supplier<String> lockReportInfoSupplier) {
+    if (isBMLockSplit()) {
+      this.bmLock.writeUnlock(opName, lockReportInfoSupplier);
+    }
     this.fsLock.writeUnlock(opName, lockReportInfoSupplier);
   }
 
+  /**
+   * Check if the current thread holds the global write lock, like
+   * {@link #getWriteHoldCount()}. Use {@link #hasWriteLock(RwLockMode)} to
+   * check the namespace or block manager lock alone.
+   */
   @Override
   public boolean hasWriteLock() {
-    return this.fsLock.isWriteLockedByCurrentThread();
+    return hasWriteLock(RwLockMode.GLOBAL);
+  }
+
+  @Override
+  public boolean hasWriteLock(RwLockMode mode) {
+    switch (mode) {
+    case FS:
+      return this.fsLock.isWriteLockedByCurrentThread();
+    case BM:
+      return this.bmLock.isWriteLockedByCurrentThread();
+    default:
+      return this.fsLock.isWriteLockedByCurrentThread()
+          && this.bmLock.isWriteLockedByCurrentThread();
+    }
   }
+
+  /**
+   * Check if the current thread may read the namespace. Namespace
+   * modifications hold both locks, so holding either lock is sufficient.
+   */
   @Override
   public boolean hasReadLock() {
-    return this.fsLock.getReadHoldCount() > 0 || hasWriteLock();
+    return hasReadLock(RwLockMode.FS) || hasReadLock(RwLockMode.BM);
   }
 
+  @Override
+  public boolean hasReadLock(RwLockMode mode) {
+    switch (mode) {
+    case FS:
+      return this.fsLock.getReadHoldCount() > 0 || hasWriteLock(mode);
+    case BM:
+      return this.bmLock.getReadHoldCount() > 0 || hasWriteLock(mode);
+    default:
+      return hasReadLock(RwLockMode.FS) && hasReadLock(RwLockMode.BM);
+    }
+  }
+
+  /**
+   * @return the read hold count of the global lock, see
+   *         {@link #getReadHoldCount(RwLockMode)}.
+   */
   public int getReadHoldCount() {
-    return this.fsLock.getReadHoldCount();
+    return getReadHoldCount(RwLockMode.GLOBAL);
   }
 
+  /**
+   * @param mode the lock to report on.
+   * @return the number of read holds of the lock by the current thread. For
+   *         {@link RwLockMode#GLOBAL} this is the number of holds of both
+   *         the namespace and block manager locks.
+   */
+  public int getReadHoldCount(RwLockMode mode) {
+    switch (mode) {
+    case FS:
+      return this.fsLock.getReadHoldCount();
+    case BM:
+      return this.bmLock.getReadHoldCount();
+    default:
+      return Math.min(this.fsLock.getReadHoldCount(),
+          this.bmLock.getReadHoldCount());
+    }
+  }
+
+  /**
+   * @return the write hold count of the global lock, see
+   *         {@link #getWriteHoldCount(RwLockMode)}.
+   */
   public int getWriteHoldCount() {
-    return this.fsLock.getWriteHoldCount();
+    return getWriteHoldCount(RwLockMode.GLOBAL);
+  }
+
+  /**
+   * @param mode the lock to report on.
+   * @return the number of write holds of the lock by the current thread. For
+   *         {@link RwLockMode#GLOBAL} this is the number of holds of both
+   *         the namespace and block manager locks.
+   */
+  public int getWriteHoldCount(RwLockMode mode) {
+    switch (mode) {
+    case FS:
+      return this.fsLock.getWriteHoldCount();
+    case BM:
+      return this.bmLock.getWriteHoldCount();
+    default:
+      return Math.min(this.fsLock.getWriteHoldCount(),
+          this.bmLock.getWriteHoldCount());
+    }
+  }
+
+  private static boolean needsFSLock(RwLockMode mode) {
+    return mode != RwLockMode.BM;
+  }
+
+  /**
+   * When the locks are not split, {@link #bmLock} is {@link #fsLock} and is
+   * only taken once for {@link RwLockMode#GLOBAL}.
+   */
+  private boolean needsBMLock(RwLockMode mode) {
+    return mode == RwLockMode.BM
+        || (mode == RwLockMode.GLOBAL && isBMLockSplit());
+  }
+
+  /**
+   * The namespace lock must always be acquired before the block manager
+   * lock, otherwise a block report holding the BM lock could deadlock with a
+   * namespace operation holding the FS lock.
+   * @throws IllegalStateException if the current thread holds only the
+   *         block manager lock.
+   */
+  private void checkLockOrder() {
+    if (isBMLockSplit() && !hasReadLock(RwLockMode.FS)
+        && hasReadLock(RwLockMode.BM)) {
+      throw new IllegalStateException(
+          "Acquiring the namespace lock while holding the block manager lock");
+    }
+  }
+
+  /**
+   * @return true if the block manager state is guarded by its own lock
+   *         rather than by the namespace lock.
+   */
+  public boolean isBMLockSplit() {
+    return bmLock != fsLock;
   }
 
   /** Lock the checkpoint lock */
@@ -3379,14 +3672,17 @@ HdfsFileStatus getFileInfo(final String src, boolean resolveLink,
     HdfsFileStatus stat = null;
     final FSPermissionChecker pc = getPermissionChecker();
     FSPermissionChecker.setOperationType(operationName);
+    // block locations are the only block manager state read here
+    final RwLockMode lockMode =
+        needLocation ? RwLockMode.GLOBAL : RwLockMode.FS;
     try {
-      readLock();
+      readLock(lockMode);
       try {
         checkOperation(OperationCategory.READ);
         stat = FSDirStatAndListingOp.getFileInfo(
             dir, pc, src, resolveLink, needLocation, needBlockToken);
       } finally {
-        readUnlock(operationName, getLockReportInfoSupplier(src));
+        readUnlock(lockMode, operationName, getLockReportInfoSupplier(src));
       }
     } catch (AccessControlException e) {
       logAuditEvent(false, operationName, src);
@@ -4091,13 +4387,15 @@ DirectoryListing getListing(String src, byte[] startAfter,
     DirectoryListing dl = null;
     final FSPermissionChecker pc = getPermissionChecker();
     FSPermissionChecker.setOperationType(operationName);
+    final RwLockMode lockMode =
+        needLocation ? RwLockMode.GLOBAL : RwLockMode.FS;
     try {
-      readLock();
+      readLock(lockMode);
       try {
         checkOperation(NameNode.OperationCategory.READ);
         dl = getListingInt(dir, pc, src, startAfter, needLocation);
       } finally {
-        readUnlock(operationName, getLockReportInfoSupplier(src));
+        readUnlock(lockMode, operationName, getLockReportInfoSupplier(src));
       }
     } catch (AccessControlException e) {
       logAuditEvent(false, operationName, src);
@@ -4251,6 +4549,158 @@ BatchedDirectoryListing getBatchedListing(String[] srcs, byte[] startAfter,
     return bdl;
   }
 
+  /** @return whether none of the given operations modify the namespace. */
+  static boolean isReadOnly(BatchedMetadataOp[] ops) {
+    for (BatchedMetadataOp op : ops) {
+      if (!op.getType().isReadOnly()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Execute the given metadata operations in order under a single lock
+   * acquisition, and sync the edits once. The exception of a failed operation
+   * is returned in its result, and the following operations are still
+   * executed.
+   *
+   * @param ops the operations to execute
+   * @param logRetryCache whether to record the rpc ids of the call in the
+   *                      edits of the deletes, like {@link #delete} does
+   * @see ClientProtocol#batchMetadataOps(BatchedMetadataOp[])
+   */
+  BatchedMetadataResult[] batchMetadataOps(BatchedMetadataOp[] ops,
+      boolean logRetryCache) throws IOException {
+    if (ops.length > batchedMetadataOpsLimit) {
+      String msg = String.format("Too many metadata operations (%d > %d)",
+          ops.length, batchedMetadataOpsLimit);
+      throw new IllegalArgumentException(msg);
+    }
+
+    final String operationName = "batchMetadataOps";
+    final boolean readOnly = isReadOnly(ops);
+    final OperationCategory category =
+        readOnly ? OperationCategory.READ : OperationCategory.WRITE;
+    final BatchedMetadataResult[] results =
+        new BatchedMetadataResult[ops.length];
+    final FileStatus[] auditStats = new FileStatus[ops.length];
+    final boolean[] accessDenied = new boolean[ops.length];
+    final List<BlocksMapUpdateInfo> toRemovedBlocks = new ArrayList<>();
+    checkOperation(category);
+    final FSPermissionChecker pc = getPermissionChecker();
+    // only the file info without block locations is read, so a read only
+    // batch does not need the block manager lock.
+    if (readOnly) {
+      readLock(RwLockMode.FS);
+    } else {
+      writeLock();
+    }
+    try {
+      try {
+        checkOperation(category);
+        executeBatchedMetadataOps(ops, pc, logRetryCache, results,
+            auditStats, accessDenied, toRemovedBlocks);
+      } finally {
+        if (readOnly) {
+          readUnlock(RwLockMode.FS, operationName,
+              getLockReportInfoSupplier(null));
+        } else {
+          writeUnlock(operationName, getLockReportInfoSupplier(null));
+        }
+      }
+    } finally {
+      // the ops executed before an abort already changed the namespace, so
+      // their edits, block removals and audit entries are still processed.
+      if (!readOnly) {
+        getEditLog().logSync();
+      }
+      for (BlocksMapUpdateInfo blocks : toRemovedBlocks) {
+        removeBlocks(blocks); // Incremental deletion of blocks
+      }
+      for (int i = 0; i < ops.length; i++) {
+        if (results[i] == null) {
+          continue;
+        }
+        final String cmd = ops[i].getType().getOperationName();
+        if (results[i].getException() == null) {
+          logAuditEvent(true, cmd, ops[i].getSrc(), null, auditStats[i]);
+        } else if (accessDenied[i]) {
+          logAuditEvent(false, cmd, ops[i].getSrc());
+        }
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Execute the batched metadata operations, filling in their results. Must
+   * be called with the lock held by {@link #batchMetadataOps}.
+   */
+  private void executeBatchedMetadataOps(BatchedMetadataOp[] ops,
+      FSPermissionChecker pc, boolean logRetryCache,
+      BatchedMetadataResult[] results, FileStatus[] auditStats,
+      boolean[] accessDenied, List<BlocksMapUpdateInfo> toRemovedBlocks)
+      throws IOException {
+    for (int i = 0; i < ops.length; i++) {
+      final BatchedMetadataOp op = ops[i];
+      final String src = op.getSrc();
+      FSPermissionChecker.setOperationType(op.getType().getOperationName());
+      try {
+        switch (op.getType()) {
+        case GET_FILE_INFO:
+          HdfsFileStatus stat = FSDirStatAndListingOp.getFileInfo(
+              dir, pc, src, true, false, false);
+          results[i] = new BatchedMetadataResult(stat != null, stat);
+          break;
+        case SET_PERMISSION:
+          checkNameNodeSafeMode("Cannot set permission for " + src);
+          auditStats[i] = FSDirAttrOp.setPermission(
+              dir, pc, src, op.getPermission());
+          results[i] = new BatchedMetadataResult(true, null);
+          break;
+        case SET_TIMES:
+          checkNameNodeSafeMode("Cannot set times " + src);
+          auditStats[i] = FSDirAttrOp.setTimes(
+              dir, pc, src, op.getMtime(), op.getAtime());
+          results[i] = new BatchedMetadataResult(true, null);
+          break;
+        case DELETE:
+          checkNameNodeSafeMode("Cannot delete " + src);
+          // the other operations are idempotent, so only the deletes log
+          // the rpc ids for the standby to rebuild the retry cache entry.
+          BlocksMapUpdateInfo blocks = FSDirDeleteOp.delete(
+              this, pc, src, op.isRecursive(), logRetryCache);
+          if (blocks != null) {
+            toRemovedBlocks.add(blocks);
+          }
+          results[i] = new BatchedMetadataResult(blocks != null, null);
+          break;
+        case MKDIRS:
+          checkNameNodeSafeMode("Cannot create directory " + src);
+          FsPermission masked = op.getPermission() != null ?
+              op.getPermission() : FsPermission.getDirDefault();
+          auditStats[i] = FSDirMkdirOp.mkdirs(this, pc, src,
+              new PermissionStatus(pc.getUser(), null, masked),
+              op.isRecursive());
+          results[i] = new BatchedMetadataResult(true, null);
+          break;
+        default:
+          throw new IllegalArgumentException(
+              "Unexpected batched metadata op type " + op.getType());
+        }
+      } catch (IOException | RuntimeException e) {
+        // runtime exceptions such as InvalidPathException are per op
+        // failures too, they must not abort the ops already executed.
+        accessDenied[i] = e instanceof AccessControlException;
+        results[i] = new BatchedMetadataResult(
+            new RemoteException(e.getClass().getName(), e.getMessage()));
+        LOG.debug("Exception executing batched {} on {}",
+            op.getType(), src, e);
+      }
+    }
+  }
+
   /////////////////////////////////////////////////////////
   //
   // These methods are called by datanodes
@@ -4802,6 +5252,19 @@ public int getFsLockQueueLength() {
     return fsLock.getQueueLength();
   }
 
+  /**
+   * Returns the length of the wait Queue for the block manager lock. This is
+   * the same queue as {@link #getFsLockQueueLength()} unless
+   * {@link DFSConfigKeys#DFS_NAMENODE_BLOCKMANAGER_LOCK_SPLIT_KEY} is set.
+   *
+   * @return int - Number of Threads waiting to acquire the block manager lock
+   */
+  @Metric({"BlockManagerLockQueueLength", "Number of threads waiting to " +
+      "acquire the block manager lock"})
+  public int getBMLockQueueLength() {
+    return bmLock.getQueueLength();
+  }
+
   int getNumberOfDatanodes(DatanodeReportType type) {
     readLock();
     try {
@@ -5152,11 +5615,11 @@ NamenodeCommand startCheckpoint(NamenodeRegistration backupNode,
   public void processIncrementalBlockReport(final DatanodeID nodeID,
       final StorageReceivedDeletedBlocks srdb)
       throws IOException {
-    writeLock();
+    writeLock(RwLockMode.BM);
     try {
       blockManager.processIncrementalBlockReport(nodeID, srdb);
     } finally {
-      writeUnlock("processIncrementalBlockReport");
+      writeUnlock(RwLockMode.BM, "processIncrementalBlockReport");
     }
   }
   
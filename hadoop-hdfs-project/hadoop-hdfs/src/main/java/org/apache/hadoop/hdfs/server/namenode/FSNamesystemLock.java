@@ -112,23 +112,42 @@ public Long initialValue() {
 
   @VisibleForTesting
   static final String OP_NAME_OTHER = "OTHER";
-  private static final String READ_LOCK_METRIC_PREFIX = "FSNReadLock";
-  private static final String WRITE_LOCK_METRIC_PREFIX = "FSNWriteLock";
+  /** Lock name of the namespace lock, also used as its metric prefix. */
+  static final String FS_LOCK_NAME = "FSN";
+  /** Lock name of the block manager lock, also used as its metric prefix. */
+  static final String BM_LOCK_NAME = "BM";
+  private static final String READ_LOCK_METRIC_INFIX = "ReadLock";
+  private static final String WRITE_LOCK_METRIC_INFIX = "WriteLock";
   private static final String LOCK_METRIC_SUFFIX = "Nanos";
 
   private static final String OVERALL_METRIC_NAME = "Overall";
 
+  /** Name of this lock, used as the prefix of its hold time metrics. */
+  private final String lockName;
+
   FSNamesystemLock(Configuration conf,
       MutableRatesWithAggregation detailedHoldTimeMetrics) {
-    this(conf, detailedHoldTimeMetrics, new Timer());
+    this(conf, FS_LOCK_NAME, detailedHoldTimeMetrics);
+  }
+
+  FSNamesystemLock(Configuration conf, String lockName,
+      MutableRatesWithAggregation detailedHoldTimeMetrics) {
+    this(conf, lockName, detailedHoldTimeMetrics, new Timer());
   }
 
   @VisibleForTesting
   FSNamesystemLock(Configuration conf,
       MutableRatesWithAggregation detailedHoldTimeMetrics, Timer timer) {
+    this(conf, FS_LOCK_NAME, detailedHoldTimeMetrics, timer);
+  }
+
+  @VisibleForTesting
+  FSNamesystemLock(Configuration conf, String lockName,
+      MutableRatesWithAggregation detailedHoldTimeMetrics, Timer timer) {
     boolean fair = conf.getBoolean(DFS_NAMENODE_FSLOCK_FAIR_KEY,
         DFS_NAMENODE_FSLOCK_FAIR_DEFAULT);
-    FSNamesystem.LOG.info("fsLock is fair: " + fair);
+    FSNamesystem.LOG.info("{} lock is fair: {}", lockName, fair);
+    this.lockName = lockName;
     this.coarseLock = new ReentrantReadWriteLock(fair);
     this.timer = timer;
 
@@ -421,8 +440,9 @@ private static void updateProcessingDetails(Timing type, long deltaNanos) {
     }
   }
 
-  private static String getMetricName(String operationName, boolean isWrite) {
-    return (isWrite ? WRITE_LOCK_METRIC_PREFIX : READ_LOCK_METRIC_PREFIX) +
+  private String getMetricName(String operationName, boolean isWrite) {
+    return lockName +
+        (isWrite ? WRITE_LOCK_METRIC_INFIX : READ_LOCK_METRIC_INFIX) +
         org.apache.commons.lang3.StringUtils.capitalize(operationName) +
         LOCK_METRIC_SUFFIX;
   }
@@ -90,6 +90,8 @@
 import org.apache.hadoop.hdfs.protocol.AddErasureCodingPolicyResponse;
 import org.apache.hadoop.hdfs.protocol.AlreadyBeingCreatedException;
 import org.apache.hadoop.hdfs.protocol.BatchedDirectoryListing;
+import org.apache.hadoop.hdfs.protocol.BatchedMetadataOp;
+import org.apache.hadoop.hdfs.protocol.BatchedMetadataResult;
 import org.apache.hadoop.hdfs.protocol.BlockListAsLongs;
 import org.apache.hadoop.hdfs.protocol.BlockStoragePolicy;
 import org.apache.hadoop.hdfs.protocol.CacheDirectiveEntry;
@@ -111,6 +113,7 @@
 import org.apache.hadoop.hdfs.protocol.HdfsLocatedFileStatus;
 import org.apache.hadoop.hdfs.protocol.HdfsPartialListing;
 import org.apache.hadoop.hdfs.protocol.LastBlockWithStatus;
+import org.apache.hadoop.hdfs.protocol.HdfsConstants;
 import org.apache.hadoop.hdfs.protocol.HdfsConstants.DatanodeReportType;
 import org.apache.hadoop.hdfs.protocol.HdfsConstants.ReencryptAction;
 import org.apache.hadoop.hdfs.protocol.HdfsConstants.RollingUpgradeAction;
@@ -368,6 +371,9 @@ public NameNodeRpcServer(Configuration conf, NameNode nn)
           .setVerbose(false)
           .setSecretManager(namesystem.getDelegationTokenSecretManager())
           .build();
+      serviceRpcServer.setCoalescedCallAuditor(
+          HdfsConstants.CLIENT_NAMENODE_PROTOCOL_NAME,
+          new ClientCallAuditor(namesystem));
 
       // Add all the RPC protocols that the namenode implements
       DFSUtil.addPBProtocol(conf, HAServiceProtocolPB.class, haPbService,
@@ -473,6 +479,9 @@ public NameNodeRpcServer(Configuration conf, NameNode nn)
         .setSecretManager(namesystem.getDelegationTokenSecretManager())
         .setAlignmentContext(stateIdContext)
         .build();
+    clientRpcServer.setCoalescedCallAuditor(
+        HdfsConstants.CLIENT_NAMENODE_PROTOCOL_NAME,
+        new ClientCallAuditor(namesystem));
 
     // Add all the RPC protocols that the namenode implements
     DFSUtil.addPBProtocol(conf, HAServiceProtocolPB.class, haPbService,
@@ -1203,6 +1212,52 @@ public BatchedDirectoryListing getBatchedListing(
     return batchedListing;
   }
 
+  @Override // ClientProtocol
+  public BatchedMetadataResult[] batchMetadataOps(BatchedMetadataOp[] ops)
+      throws IOException {
+    checkNNStartup();
+    for (BatchedMetadataOp op : ops) {
+      if (op.getType() == BatchedMetadataOp.Type.MKDIRS
+          && !checkPathLength(op.getSrc())) {
+        throw new IOException("mkdirs: Pathname too long.  Limit "
+            + MAX_PATH_LENGTH + " characters, " + MAX_PATH_DEPTH + " levels.");
+      }
+    }
+    final boolean readOnly = FSNamesystem.isReadOnly(ops);
+    namesystem.checkOperation(
+        readOnly ? OperationCategory.READ : OperationCategory.WRITE);
+    CacheEntryWithPayload cacheEntry = readOnly ? null :
+        RetryCache.waitForCompletion(retryCache, null);
+    if (cacheEntry != null && cacheEntry.isSuccess()) {
+      if (cacheEntry.getPayload() == null) {
+        // rebuilt from the edits of the deletes by a former standby, which
+        // does not know the results of the operations.
+        throw new IOException("The metadata operations were already executed"
+            + " by the previous active NameNode; their results are unknown");
+      }
+      return (BatchedMetadataResult[]) cacheEntry.getPayload();
+    }
+
+    BatchedMetadataResult[] results = null;
+    try {
+      results = namesystem.batchMetadataOps(ops, cacheEntry != null);
+    } finally {
+      RetryCache.setState(cacheEntry, results != null, results);
+    }
+    for (int i = 0; i < ops.length; i++) {
+      if (results[i].getException() != null) {
+        continue;
+      }
+      if (ops[i].getType() == BatchedMetadataOp.Type.GET_FILE_INFO) {
+        metrics.incrFileInfoOps();
+      } else if (ops[i].getType() == BatchedMetadataOp.Type.DELETE
+          && results[i].getResult()) {
+        metrics.incrDeleteFileOps();
+      }
+    }
+    return results;
+  }
+
   @Override // ClientProtocol
   public HdfsFileStatus getFileInfo(String src) throws IOException {
     checkNNStartup();
@@ -36,6 +36,12 @@ public interface Namesystem extends RwLock, SafeMode {
 
   void startSecretManagerIfNecessary();
 
+  /**
+   * Run the work which block manager lock holders deferred until the global
+   * write lock can be taken. Must be called without holding any lock.
+   */
+  void runDeferredWork();
+
   boolean isInSnapshot(long blockCollectionID);
 
   CacheManager getCacheManager();
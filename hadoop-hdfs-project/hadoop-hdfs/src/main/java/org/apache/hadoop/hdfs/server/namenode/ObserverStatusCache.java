@@ -0,0 +1,353 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.server.namenode;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.hdfs.DFSConfigKeys;
+import org.apache.hadoop.hdfs.protocol.DirectoryListing;
+import org.apache.hadoop.hdfs.protocol.HdfsFileStatus;
+import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.AddBlockOp;
+import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.AddCloseOp;
+import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.AllowSnapshotOp;
+import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.AppendOp;
+import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.ClearNSQuotaOp;
+import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.ConcatDeleteOp;
+import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.CreateSnapshotOp;
+import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.DeleteOp;
+import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.DeleteSnapshotOp;
+import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.DisallowSnapshotOp;
+import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.MkdirOp;
+import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.ReassignLeaseOp;
+import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.RemoveXAttrOp;
+import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.RenameOldOp;
+import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.RenameOp;
+import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.RenameSnapshotOp;
+import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.SetAclOp;
+import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.SetNSQuotaOp;
+import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.SetOwnerOp;
+import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.SetPermissionsOp;
+import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.SetQuotaByStorageTypeOp;
+import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.SetQuotaOp;
+import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.SetReplicationOp;
+import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.SetStoragePolicyOp;
+import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.SetXAttrOp;
+import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.SymlinkOp;
+import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.TimesOp;
+import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.TruncateOp;
+import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.UpdateBlocksOp;
+import org.apache.hadoop.hdfs.server.namenode.metrics.NameNodeMetrics;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * A cache of the results of getFileInfo and getListing calls served by an
+ * Observer NameNode, enabled by setting
+ * {@value DFSConfigKeys#DFS_NAMENODE_OBSERVER_STATUS_CACHE_SIZE_KEY} to a
+ * positive number of entries.
+ *
+ * <p>An Observer only changes its namespace by applying edits tailed from the
+ * JournalNodes, so every edit is passed to {@link #invalidate(FSEditLogOp)}
+ * before it is applied. An edit to a path invalidates the cached results for
+ * that path and everything beneath it (covering renames, deletes and
+ * inherited attributes such as storage and erasure coding policies), the
+ * status and listing of its parent (modification time and child count) and
+ * the listing of its grandparent (which includes the parent's status). Edits
+ * that are not tied to a path and may affect file status, such as erasure
+ * coding policy changes, clear the whole cache.
+ *
+ * <p>Entries are populated while holding the namesystem read lock and
+ * invalidated while edits are applied under the write lock, so a stale result
+ * can never be inserted after the edit that invalidates it. Callers still
+ * resolve the path and check permissions on every call; only building the
+ * {@link HdfsFileStatus} objects is skipped. Results with block locations,
+ * listings past the first page, and snapshot or reserved paths are never
+ * cached.
+ *
+ * <p>When the cache is full, adding an entry evicts the entry of the same
+ * kind with the next higher path, wrapping around to the lowest one. This
+ * keeps eviction as cheap as a lookup while spreading evictions over the
+ * whole namespace; hot paths that get evicted are re-added by the next
+ * miss.
+ */
+@InterfaceAudience.Private
+class ObserverStatusCache {
+
+  private final int maxEntries;
+
+  private final ConcurrentNavigableMap<String, HdfsFileStatus> fileInfos =
+      new ConcurrentSkipListMap<>();
+  private final ConcurrentNavigableMap<String, DirectoryListing> listings =
+      new ConcurrentSkipListMap<>();
+  /** Total number of entries in both maps; size() is linear for skip lists. */
+  private final AtomicInteger numEntries = new AtomicInteger();
+
+  ObserverStatusCache(int maxEntries) {
+    this.maxEntries = maxEntries;
+  }
+
+  HdfsFileStatus getFileInfo(String path) {
+    return recordLookup(fileInfos.get(path));
+  }
+
+  DirectoryListing getListing(String path) {
+    return recordLookup(listings.get(path));
+  }
+
+  private static <V> V recordLookup(V value) {
+    NameNodeMetrics metrics = NameNode.getNameNodeMetrics();
+    if (metrics != null) {
+      if (value != null) {
+        metrics.incrObserverStatusCacheHits();
+      } else {
+        metrics.incrObserverStatusCacheMisses();
+      }
+    }
+    return value;
+  }
+
+  void putFileInfo(String path, HdfsFileStatus status) {
+    put(fileInfos, path, status);
+  }
+
+  void putListing(String path, DirectoryListing listing) {
+    put(listings, path, listing);
+  }
+
+  private <V> void put(ConcurrentNavigableMap<String, V> map, String path,
+      V value) {
+    if (value == null) {
+      return;
+    }
+    if (map.put(path, value) == null
+        && numEntries.incrementAndGet() > maxEntries) {
+      if (!evictAfter(map, path, true)) {
+        evictAfter(map == fileInfos ? listings : fileInfos, path, false);
+      }
+    }
+  }
+
+  /**
+   * Evict the entry following {@code path} in the given map, wrapping around
+   * to the lowest path.
+   * @return true if an entry was evicted
+   */
+  private boolean evictAfter(ConcurrentNavigableMap<String, ?> map,
+      String path, boolean keepPath) {
+    Map.Entry<String, ?> victim = map.higherEntry(path);
+    if (victim == null) {
+      victim = map.firstEntry();
+    }
+    if (victim == null || (keepPath && victim.getKey().equals(path))
+        || !map.remove(victim.getKey(), victim.getValue())) {
+      return false;
+    }
+    numEntries.decrementAndGet();
+    return true;
+  }
+
+  /**
+   * Invalidate all cached results which the given edit may change. Must be
+   * called with the namesystem write lock held, before the edit is applied.
+   */
+  void invalidate(FSEditLogOp op) {
+    switch (op.opCode) {
+    case OP_ADD:
+    case OP_CLOSE:
+      invalidate(((AddCloseOp) op).path);
+      break;
+    case OP_APPEND:
+      invalidate(((AppendOp) op).path);
+      break;
+    case OP_UPDATE_BLOCKS:
+      invalidate(((UpdateBlocksOp) op).getPath());
+      break;
+    case OP_ADD_BLOCK:
+      invalidate(((AddBlockOp) op).getPath());
+      break;
+    case OP_SET_REPLICATION:
+      invalidate(((SetReplicationOp) op).path);
+      break;
+    case OP_CONCAT_DELETE: {
+      ConcatDeleteOp concatDeleteOp = (ConcatDeleteOp) op;
+      invalidate(concatDeleteOp.trg);
+      for (String src : concatDeleteOp.srcs) {
+        invalidate(src);
+      }
+      break;
+    }
+    case OP_RENAME_OLD:
+      invalidate(((RenameOldOp) op).src);
+      invalidate(((RenameOldOp) op).dst);
+      break;
+    case OP_RENAME:
+      invalidate(((RenameOp) op).src);
+      invalidate(((RenameOp) op).dst);
+      break;
+    case OP_DELETE:
+      invalidate(((DeleteOp) op).path);
+      break;
+    case OP_MKDIR:
+      invalidate(((MkdirOp) op).path);
+      break;
+    case OP_SET_PERMISSIONS:
+      invalidate(((SetPermissionsOp) op).src);
+      break;
+    case OP_SET_OWNER:
+      invalidate(((SetOwnerOp) op).src);
+      break;
+    case OP_SET_NS_QUOTA:
+      invalidate(((SetNSQuotaOp) op).src);
+      break;
+    case OP_CLEAR_NS_QUOTA:
+      invalidate(((ClearNSQuotaOp) op).src);
+      break;
+    case OP_SET_QUOTA:
+      invalidate(((SetQuotaOp) op).src);
+      break;
+    case OP_SET_QUOTA_BY_STORAGETYPE:
+      invalidate(((SetQuotaByStorageTypeOp) op).src);
+      break;
+    case OP_TIMES:
+      invalidate(((TimesOp) op).path);
+      break;
+    case OP_SYMLINK:
+      invalidate(((SymlinkOp) op).path);
+      break;
+    case OP_REASSIGN_LEASE:
+      invalidate(((ReassignLeaseOp) op).path);
+      break;
+    case OP_CREATE_SNAPSHOT:
+      invalidate(((CreateSnapshotOp) op).snapshotRoot);
+      break;
+    case OP_DELETE_SNAPSHOT:
+      invalidate(((DeleteSnapshotOp) op).snapshotRoot);
+      break;
+    case OP_RENAME_SNAPSHOT:
+      invalidate(((RenameSnapshotOp) op).snapshotRoot);
+      break;
+    case OP_ALLOW_SNAPSHOT:
+      invalidate(((AllowSnapshotOp) op).snapshotRoot);
+      break;
+    case OP_DISALLOW_SNAPSHOT:
+      invalidate(((DisallowSnapshotOp) op).snapshotRoot);
+      break;
+    case OP_SET_ACL:
+      invalidate(((SetAclOp) op).src);
+      break;
+    case OP_SET_XATTR:
+      invalidate(((SetXAttrOp) op).src);
+      break;
+    case OP_REMOVE_XATTR:
+      invalidate(((RemoveXAttrOp) op).src);
+      break;
+    case OP_TRUNCATE:
+      invalidate(((TruncateOp) op).src);
+      break;
+    case OP_SET_STORAGE_POLICY:
+      invalidate(((SetStoragePolicyOp) op).path);
+      break;
+    case OP_START_LOG_SEGMENT:
+    case OP_END_LOG_SEGMENT:
+    case OP_SET_GENSTAMP_V1:
+    case OP_SET_GENSTAMP_V2:
+    case OP_ALLOCATE_BLOCK_ID:
+    case OP_GET_DELEGATION_TOKEN:
+    case OP_RENEW_DELEGATION_TOKEN:
+    case OP_CANCEL_DELEGATION_TOKEN:
+    case OP_UPDATE_MASTER_KEY:
+    case OP_ADD_CACHE_DIRECTIVE:
+    case OP_MODIFY_CACHE_DIRECTIVE:
+    case OP_REMOVE_CACHE_DIRECTIVE:
+    case OP_ADD_CACHE_POOL:
+    case OP_MODIFY_CACHE_POOL:
+    case OP_REMOVE_CACHE_POOL:
+    case OP_ROLLING_UPGRADE_START:
+    case OP_ROLLING_UPGRADE_FINALIZE:
+      // No effect on file status
+      break;
+    default:
+      invalidateAll();
+      break;
+    }
+  }
+
+  /**
+   * Invalidate the cached results for a path, everything beneath it, its
+   * parent, and the listing of its grandparent.
+   */
+  @VisibleForTesting
+  void invalidate(String path) {
+    if (path == null || path.isEmpty() || path.charAt(0) != '/'
+        || FSDirectory.isReservedName(path)) {
+      invalidateAll();
+      return;
+    }
+    if (path.length() > 1 && path.endsWith("/")) {
+      path = path.substring(0, path.length() - 1);
+    }
+    if (path.equals("/")) {
+      invalidateAll();
+      return;
+    }
+    removeSubtree(fileInfos, path);
+    removeSubtree(listings, path);
+    String parent = getParent(path);
+    remove(fileInfos, parent);
+    remove(listings, parent);
+    if (!parent.equals("/")) {
+      remove(listings, getParent(parent));
+    }
+  }
+
+  void invalidateAll() {
+    fileInfos.clear();
+    listings.clear();
+    numEntries.set(0);
+  }
+
+  @VisibleForTesting
+  int size() {
+    return numEntries.get();
+  }
+
+  private void remove(Map<String, ?> map, String path) {
+    if (map.remove(path) != null) {
+      numEntries.decrementAndGet();
+    }
+  }
+
+  private void removeSubtree(ConcurrentNavigableMap<String, ?> map,
+      String path) {
+    remove(map, path);
+    // All descendants sort between "path/" and "path0", as '0' follows '/'
+    Map<String, ?> descendants = map.subMap(path + "/", path + "0");
+    for (String descendant : descendants.keySet()) {
+      remove(map, descendant);
+    }
+  }
+
+  private static String getParent(String path) {
+    int lastSlash = path.lastIndexOf('/');
+    return lastSlash == 0 ? "/" : path.substring(0, lastSlash);
+  }
+}
@@ -59,6 +59,11 @@ public class NameNodeMetrics {
   @Metric MutableCounterLong createSymlinkOps;
   @Metric MutableCounterLong getLinkTargetOps;
   @Metric MutableCounterLong filesInGetListingOps;
+  @Metric("Number of getFileInfo and getListing calls served from the " +
+      "observer status cache")
+  MutableCounterLong observerStatusCacheHits;
+  @Metric("Number of observer status cache lookups that found no entry")
+  MutableCounterLong observerStatusCacheMisses;
   @Metric ("Number of successful re-replications")
   MutableCounterLong successfulReReplications;
   @Metric ("Number of times we failed to schedule a block re-replication.")
@@ -118,6 +123,8 @@ public long totalFileOps(){
   MutableCounterLong transactionsBatchedInSync;
   @Metric("Journal transactions batched in sync")
   final MutableQuantiles[] numTransactionsBatchedInSync;
+  @Metric("Time the edit log sync thread waited to group commit, in micros")
+  MutableRate groupCommitWait;
   @Metric("Number of blockReports from individual storages")
   MutableRate storageBlockReport;
   final MutableQuantiles[] storageBlockReportQuantiles;
@@ -288,6 +295,14 @@ public void incrFileInfoOps() {
     fileInfoOps.incr();
   }
 
+  public void incrObserverStatusCacheHits() {
+    observerStatusCacheHits.incr();
+  }
+
+  public void incrObserverStatusCacheMisses() {
+    observerStatusCacheMisses.incr();
+  }
+
   public void incrCreateSymlinkOps() {
     createSymlinkOps.incr();
   }
@@ -359,6 +374,10 @@ public void incTimeoutReReplications() {
     timeoutReReplications.incr();
   }
 
+  public void addGroupCommitWait(long elapsedMicros) {
+    groupCommitWait.add(elapsedMicros);
+  }
+
   public void addSync(long elapsed) {
     syncs.add(elapsed);
     for (MutableQuantiles q : syncsQuantiles) {
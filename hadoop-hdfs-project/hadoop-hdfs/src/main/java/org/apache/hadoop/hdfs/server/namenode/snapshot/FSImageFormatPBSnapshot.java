@@ -34,6 +34,10 @@
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.google.common.collect.ImmutableList;
 import org.apache.hadoop.classification.InterfaceAudience;
@@ -79,6 +83,7 @@
 import org.apache.hadoop.hdfs.server.namenode.snapshot.DirectoryWithSnapshotFeature.DirectoryDiff;
 import org.apache.hadoop.hdfs.server.namenode.snapshot.DirectoryWithSnapshotFeature.DirectoryDiffList;
 import org.apache.hadoop.hdfs.server.namenode.snapshot.Snapshot.Root;
+import org.apache.hadoop.hdfs.server.namenode.startupprogress.StartupProgress.Counter;
 import org.apache.hadoop.hdfs.server.namenode.XAttrFeature;
 import org.apache.hadoop.hdfs.util.EnumCounters;
 
@@ -95,6 +100,8 @@ public final static class Loader {
     private final FSDirectory fsDir;
     private final FSImageFormatProtobuf.Loader parent;
     private final Map<Integer, Snapshot> snapshotMap;
+    /** Guards the block manager when diff sub-sections load in parallel. */
+    private final ReentrantLock blockMapLock = new ReentrantLock(true);
 
     public Loader(FSNamesystem fsn, FSImageFormatProtobuf.Loader parent) {
       this.fsn = fsn;
@@ -180,10 +187,62 @@ private void loadSnapshots(InputStream in, int size) throws IOException {
       }
     }
 
+    /**
+     * Load the snapshot diff sub-sections of the fsimage in parallel. The
+     * diffs of an inode are never split across sub-sections, so every
+     * sub-section only touches the inodes it names; the block manager is the
+     * only shared state and is guarded by {@link #blockMapLock}.
+     */
+    public void loadSnapshotDiffSectionInParallel(ExecutorService service,
+        ArrayList<FileSummary.Section> sections, String compressionCodec,
+        Counter counter) throws IOException {
+      FSImage.LOG.info("Loading the SnapshotDiff section in parallel with {}" +
+          " sub-sections", sections.size());
+      CountDownLatch latch = new CountDownLatch(sections.size());
+      final CopyOnWriteArrayList<IOException> exceptions =
+          new CopyOnWriteArrayList<>();
+      for (FileSummary.Section s : sections) {
+        service.submit(() -> {
+          InputStream ins = null;
+          try {
+            ins = parent.getInputStreamForSection(s, compressionCodec);
+            loadSnapshotDiffSection(ins, counter);
+          } catch (Exception e) {
+            FSImage.LOG.error("An exception occurred loading SnapshotDiffs" +
+                " in parallel", e);
+            exceptions.add(new IOException(e));
+          } finally {
+            latch.countDown();
+            try {
+              if (ins != null) {
+                ins.close();
+              }
+            } catch (IOException ioe) {
+              FSImage.LOG.warn("Failed to close the input stream, ignoring",
+                  ioe);
+            }
+          }
+        });
+      }
+      try {
+        latch.await();
+      } catch (InterruptedException e) {
+        FSImage.LOG.error("Interrupted waiting for countdown latch", e);
+        throw new IOException(e);
+      }
+      if (exceptions.size() != 0) {
+        FSImage.LOG.error("{} exceptions occurred loading SnapshotDiffs",
+            exceptions.size());
+        throw exceptions.get(0);
+      }
+      FSImage.LOG.info("Completed loading all SnapshotDiff sub-sections");
+    }
+
     /**
      * Load the snapshot diff section from fsimage.
      */
-    public void loadSnapshotDiffSection(InputStream in) throws IOException {
+    public void loadSnapshotDiffSection(InputStream in, Counter counter)
+        throws IOException {
       final List<INodeReference> refList = parent.getLoaderContext()
           .getRefList();
       while (true) {
@@ -204,6 +263,9 @@ public void loadSnapshotDiffSection(InputStream in) throws IOException {
               refList);
           break;
         }
+        if (counter != null) {
+          counter.increment();
+        }
       }
     }
 
@@ -254,15 +316,20 @@ private void loadFileDiffList(InputStream in, INodeFile file, int size)
         List<BlockProto> bpl = pbf.getBlocksList();
         // in file diff there can only be contiguous blocks
         BlockInfo[] blocks = new BlockInfo[bpl.size()];
-        for(int j = 0, e = bpl.size(); j < e; ++j) {
-          Block blk = PBHelperClient.convert(bpl.get(j));
-          BlockInfo storedBlock = bm.getStoredBlock(blk);
-          if(storedBlock == null) {
-            storedBlock = (BlockInfoContiguous) fsn.getBlockManager()
-                .addBlockCollectionWithCheck(new BlockInfoContiguous(blk,
-                    copy.getFileReplication()), file);
+        blockMapLock.lock();
+        try {
+          for (int j = 0, e = bpl.size(); j < e; ++j) {
+            Block blk = PBHelperClient.convert(bpl.get(j));
+            BlockInfo storedBlock = bm.getStoredBlock(blk);
+            if (storedBlock == null) {
+              storedBlock = (BlockInfoContiguous) fsn.getBlockManager()
+                  .addBlockCollectionWithCheck(new BlockInfoContiguous(blk,
+                      copy.getFileReplication()), file);
+            }
+            blocks[j] = storedBlock;
           }
-          blocks[j] = storedBlock;
+        } finally {
+          blockMapLock.unlock();
         }
         if(blocks.length > 0) {
           diff.setBlocks(blocks);
@@ -271,10 +338,15 @@ private void loadFileDiffList(InputStream in, INodeFile file, int size)
       }
       file.addSnapshotFeature(diffs);
       short repl = file.getPreferredBlockReplication();
-      for (BlockInfo b : file.getBlocks()) {
-        if (b.getReplication() < repl) {
-          bm.setReplication(b.getReplication(), repl, b);
+      blockMapLock.lock();
+      try {
+        for (BlockInfo b : file.getBlocks()) {
+          if (b.getReplication() < repl) {
+            bm.setReplication(b.getReplication(), repl, b);
+          }
         }
+      } finally {
+        blockMapLock.unlock();
       }
     }
 
@@ -294,7 +366,12 @@ private List<INode> loadCreatedList(InputStream in, INodeDirectory dir,
     private void addToDeletedList(INode dnode, INodeDirectory parent) {
       dnode.setParent(parent);
       if (dnode.isFile()) {
-        updateBlocksMap(dnode.asFile(), fsn.getBlockManager());
+        blockMapLock.lock();
+        try {
+          updateBlocksMap(dnode.asFile(), fsn.getBlockManager());
+        } finally {
+          blockMapLock.unlock();
+        }
       }
     }
 
@@ -44,6 +44,27 @@ public enum StepType {
    */
   INODES("Inodes", "inodes"),
 
+  /**
+   * The namenode is performing an operation related to inode references.
+   */
+  INODE_REFERENCES("InodeReferences", "inode references"),
+
+  /**
+   * The namenode is performing an operation related to the children of
+   * inode directories.
+   */
+  INODE_DIRECTORIES("InodeDirectories", "inode directories"),
+
+  /**
+   * The namenode is performing an operation related to snapshots.
+   */
+  SNAPSHOTS("Snapshots", "snapshots"),
+
+  /**
+   * The namenode is performing an operation related to snapshot diffs.
+   */
+  SNAPSHOT_DIFFS("SnapshotDiffs", "snapshot diffs"),
+
   /**
    * The namenode is performing an operation related to cache pools.
    */
@@ -42,4 +42,43 @@ public interface RwLock {
 
   /** Check if the current thread holds write lock. */
   public boolean hasWriteLock();
+
+  /** Acquire read lock for the given lock domain. */
+  default void readLock(RwLockMode mode) {
+    readLock();
+  }
+
+  /** Release read lock for the given lock domain. */
+  default void readUnlock(RwLockMode mode) {
+    readUnlock();
+  }
+
+  /** Check if the current thread holds read lock of the given domain. */
+  default boolean hasReadLock(RwLockMode mode) {
+    return hasReadLock();
+  }
+
+  /** Acquire write lock for the given lock domain. */
+  default void writeLock(RwLockMode mode) {
+    writeLock();
+  }
+
+  /**
+   * Acquire write lock for the given lock domain, unless interrupted while
+   * waiting.
+   */
+  default void writeLockInterruptibly(RwLockMode mode)
+      throws InterruptedException {
+    writeLockInterruptibly();
+  }
+
+  /** Release write lock for the given lock domain. */
+  default void writeUnlock(RwLockMode mode) {
+    writeUnlock();
+  }
+
+  /** Check if the current thread holds write lock of the given domain. */
+  default boolean hasWriteLock(RwLockMode mode) {
+    return hasWriteLock();
+  }
 }
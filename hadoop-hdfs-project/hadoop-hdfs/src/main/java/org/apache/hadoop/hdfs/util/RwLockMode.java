@@ -0,0 +1,44 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.util;
+
+/**
+ * The lock domains guarded by a {@link RwLock}.
+ *
+ * Namespace state is guarded by the {@link #FS} lock and block state
+ * (blocks map, datanode storages, replication queues) by the {@link #BM}
+ * lock. Operations touching both take the {@link #GLOBAL} lock, which
+ * acquires the FS lock before the BM lock. A thread holding only the BM lock
+ * must never try to acquire the FS lock.
+ *
+ * Every namespace update, block completion included, holds the
+ * {@link #GLOBAL} lock, so a thread holding either lock may read namespace
+ * state. Work which needs the FS lock but is found while holding only the BM
+ * lock, like completing a block reported by a datanode, is deferred: see
+ * {@code BlockManager#completeBlockOrDefer} and
+ * {@link org.apache.hadoop.hdfs.server.namenode.Namesystem#runDeferredWork()},
+ * which runs it under the GLOBAL lock once the BM lock is released.
+ */
+public enum RwLockMode {
+  /** Both the namespace and the block manager lock. */
+  GLOBAL,
+  /** The namespace lock only. */
+  FS,
+  /** The block manager lock only. */
+  BM
+}
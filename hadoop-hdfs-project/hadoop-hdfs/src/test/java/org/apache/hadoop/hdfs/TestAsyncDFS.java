@@ -0,0 +1,190 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileAlreadyExistsException;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.Options.Rename;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.hdfs.client.HdfsClientConfigKeys;
+import org.apache.hadoop.hdfs.server.namenode.ha.HATestUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the asynchronous calls of {@link AsyncDistributedFileSystem}.
+ */
+public class TestAsyncDFS {
+  private static final int ASYNC_CALLS_MAX = 10;
+  private static final int NUM_FILES = 50;
+
+  private MiniDFSCluster cluster;
+  private DistributedFileSystem fs;
+  private AsyncDistributedFileSystem adfs;
+
+  @Before
+  public void setupCluster() throws Exception {
+    final Configuration conf = new HdfsConfiguration();
+    conf.setInt(HdfsClientConfigKeys.DFS_CLIENT_ASYNC_CALLS_MAX_KEY,
+        ASYNC_CALLS_MAX);
+    conf.setInt(DFSConfigKeys.DFS_HA_TAILEDITS_PERIOD_KEY, 1);
+    cluster = new MiniDFSCluster.Builder(conf)
+        .nnTopology(MiniDFSNNTopology.simpleHATopology())
+        .numDataNodes(1)
+        .build();
+    cluster.waitActive();
+    cluster.transitionToActive(0);
+    fs = HATestUtil.configureFailoverFs(cluster, conf);
+    adfs = fs.getAsyncDistributedFileSystem();
+  }
+
+  @After
+  public void shutdownCluster() throws IOException {
+    if (fs != null) {
+      fs.close();
+      fs = null;
+    }
+    if (cluster != null) {
+      cluster.shutdown();
+      cluster = null;
+    }
+  }
+
+  private static <T> T get(CompletableFuture<T> future) throws Exception {
+    return future.get(30, TimeUnit.SECONDS);
+  }
+
+  private static void assertFailsWith(CompletableFuture<?> future,
+      Class<? extends Throwable> expected) throws Exception {
+    try {
+      get(future);
+      fail("Expected " + expected.getSimpleName());
+    } catch (ExecutionException e) {
+      assertTrue("Unexpected " + e.getCause(),
+          expected.isInstance(e.getCause()));
+    }
+  }
+
+  @Test(timeout = 60000)
+  public void testAsyncCalls() throws Exception {
+    final Path dir = new Path("/testAsyncCalls");
+    final List<Path> srcs = new ArrayList<>();
+    for (int i = 0; i < NUM_FILES; i++) {
+      final Path src = new Path(dir, "src" + i);
+      DFSTestUtil.createFile(fs, src, 1, (short) 1, 0);
+      srcs.add(src);
+    }
+
+    // more calls than the limit in flight; the submission blocks instead of
+    // failing with AsyncCallLimitExceededException.
+    final FsPermission permission = new FsPermission((short) 0600);
+    final List<CompletableFuture<FileStatus>> statuses = new ArrayList<>();
+    for (Path src : srcs) {
+      statuses.add(adfs.setPermission(src, permission)
+          .thenComposeAsync(v -> {
+            try {
+              return adfs.getFileStatus(src);
+            } catch (IOException e) {
+              throw new IllegalStateException(e);
+            }
+          }));
+    }
+    for (int i = 0; i < NUM_FILES; i++) {
+      final FileStatus status = get(statuses.get(i));
+      assertEquals(fs.makeQualified(srcs.get(i)), status.getPath());
+      assertEquals(permission, status.getPermission());
+    }
+
+    final List<CompletableFuture<Void>> renames = new ArrayList<>();
+    for (int i = 0; i < NUM_FILES; i++) {
+      renames.add(adfs.rename(srcs.get(i), new Path(dir, "dst" + i)));
+    }
+    for (int i = 0; i < NUM_FILES; i++) {
+      get(renames.get(i));
+      assertFalse(fs.exists(srcs.get(i)));
+      assertTrue(fs.exists(new Path(dir, "dst" + i)));
+    }
+
+    final List<CompletableFuture<Boolean>> deletes = new ArrayList<>();
+    for (int i = 0; i < NUM_FILES; i++) {
+      deletes.add(adfs.delete(new Path(dir, "dst" + i), false));
+    }
+    for (int i = 0; i < NUM_FILES; i++) {
+      assertTrue(get(deletes.get(i)));
+    }
+    assertFalse(get(adfs.delete(new Path(dir, "dst0"), false)));
+    assertEquals(0, fs.listStatus(dir).length);
+    assertEquals(ASYNC_CALLS_MAX, adfs.getAvailableCalls());
+  }
+
+  @Test(timeout = 60000)
+  public void testAsyncExceptions() throws Exception {
+    final Path dir = new Path("/testAsyncExceptions");
+    final Path src = new Path(dir, "src");
+    final Path dst = new Path(dir, "dst");
+    DFSTestUtil.createFile(fs, src, 1, (short) 1, 0);
+    DFSTestUtil.createFile(fs, dst, 1, (short) 1, 0);
+
+    assertFailsWith(adfs.getFileStatus(new Path(dir, "missing")),
+        FileNotFoundException.class);
+    assertFailsWith(adfs.rename(src, dst), FileAlreadyExistsException.class);
+    assertFailsWith(adfs.delete(dir, false), IOException.class);
+    assertTrue(fs.exists(src));
+
+    get(adfs.rename(src, dst, Rename.OVERWRITE));
+    assertFalse(fs.exists(src));
+    assertEquals(ASYNC_CALLS_MAX, adfs.getAvailableCalls());
+  }
+
+  @Test(timeout = 60000)
+  public void testAsyncCallsAcrossFailover() throws Exception {
+    final Path dir = new Path("/testAsyncCallsAcrossFailover");
+    final Path src = new Path(dir, "src");
+    DFSTestUtil.createFile(fs, src, 1, (short) 1, 0);
+    assertEquals(1, get(adfs.getFileStatus(src)).getLen());
+
+    HATestUtil.waitForStandbyToCatchUp(cluster.getNameNode(0),
+        cluster.getNameNode(1));
+    cluster.shutdownNameNode(0);
+    cluster.transitionToActive(1);
+
+    // the async call fails over to the new active namenode the same way a
+    // synchronous call would.
+    assertEquals(1, get(adfs.getFileStatus(src)).getLen());
+    final Path dst = new Path(dir, "dst");
+    get(adfs.rename(src, dst));
+    assertTrue(get(adfs.delete(dst, false)));
+    assertFalse(fs.exists(dst));
+  }
+}
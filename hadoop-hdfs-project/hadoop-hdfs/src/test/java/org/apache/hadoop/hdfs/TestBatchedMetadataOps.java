@@ -0,0 +1,197 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.InvalidPathException;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.PathIsNotEmptyDirectoryException;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.hdfs.protocol.BatchedMetadataOp;
+import org.apache.hadoop.hdfs.protocol.BatchedMetadataResult;
+import org.apache.hadoop.hdfs.protocol.HdfsConstants;
+import org.apache.hadoop.ipc.RemoteException;
+import org.apache.hadoop.security.AccessControlException;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.hadoop.test.LambdaTestUtils;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.FileNotFoundException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the batched metadata operations API.
+ */
+public class TestBatchedMetadataOps {
+
+  private static final int OPS_LIMIT = 10;
+
+  private static MiniDFSCluster cluster;
+  private static DistributedFileSystem dfs;
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    Configuration conf = new HdfsConfiguration();
+    conf.setInt(DFSConfigKeys.DFS_NAMENODE_BATCHED_METADATA_OPS_LIMIT,
+        OPS_LIMIT);
+    cluster = new MiniDFSCluster.Builder(conf)
+        .numDataNodes(1)
+        .build();
+    dfs = cluster.getFileSystem();
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    if (cluster != null) {
+      cluster.shutdown();
+    }
+  }
+
+  @Test
+  public void testBatchedOps() throws Exception {
+    final Path dir = new Path("/testBatchedOps");
+    final Path file = new Path(dir, "file");
+    final Path newDir = new Path(dir, "a/b");
+    DFSTestUtil.createFile(dfs, file, 10, (short) 1, 0);
+    final FsPermission permission = new FsPermission((short) 0600);
+
+    BatchedMetadataResult[] results = dfs.batchMetadataOps(
+        BatchedMetadataOp.getFileInfo(file.toString()),
+        BatchedMetadataOp.getFileInfo(new Path(dir, "missing").toString()),
+        BatchedMetadataOp.setPermission(file.toString(), permission),
+        BatchedMetadataOp.setTimes(file.toString(), 1000L, 2000L),
+        BatchedMetadataOp.mkdirs(newDir.toString(), null, true),
+        BatchedMetadataOp.getFileInfo(file.toString()),
+        BatchedMetadataOp.delete(file.toString(), false),
+        BatchedMetadataOp.delete(file.toString(), false));
+    assertEquals(8, results.length);
+    for (BatchedMetadataResult result : results) {
+      result.checkException();
+    }
+
+    assertTrue(results[0].getResult());
+    assertEquals(10, results[0].getFileStatus().getLen());
+    assertFalse(results[1].getResult());
+    assertNull(results[1].getFileStatus());
+    assertTrue(results[2].getResult());
+    assertTrue(results[3].getResult());
+    assertTrue(results[4].getResult());
+    // the later ops see the changes of the earlier ones.
+    assertEquals(permission, results[5].getFileStatus().getPermission());
+    assertEquals(1000L, results[5].getFileStatus().getModificationTime());
+    assertEquals(2000L, results[5].getFileStatus().getAccessTime());
+    assertTrue(results[6].getResult());
+    assertFalse(results[7].getResult());
+
+    assertFalse(dfs.exists(file));
+    final FileStatus newDirStatus = dfs.getFileStatus(newDir);
+    assertTrue(newDirStatus.isDirectory());
+    // the permission of mkdirs is masked against the umask by the client.
+    assertEquals(FsPermission.getDirDefault().applyUMask(
+        FsPermission.getUMask(dfs.getConf())), newDirStatus.getPermission());
+  }
+
+  @Test
+  public void testRelativePaths() throws Exception {
+    final Path file = new Path("testRelativePaths");
+    DFSTestUtil.createFile(dfs, file, 1, (short) 1, 0);
+    BatchedMetadataResult[] results = dfs.batchMetadataOps(
+        BatchedMetadataOp.delete(file.toString(), false));
+    assertTrue(results[0].getResult());
+    assertFalse(dfs.exists(file));
+  }
+
+  @Test
+  public void testFailedOps() throws Exception {
+    final Path dir = new Path("/testFailedOps");
+    final Path file = new Path(dir, "file");
+    DFSTestUtil.createFile(dfs, file, 1, (short) 1, 0);
+    final Path privateDir = new Path("/testFailedOpsPrivate");
+    dfs.mkdirs(privateDir);
+    dfs.setPermission(privateDir, new FsPermission((short) 0700));
+
+    BatchedMetadataResult[] results = dfs.batchMetadataOps(
+        BatchedMetadataOp.delete(dir.toString(), false),
+        BatchedMetadataOp.setPermission(new Path(dir, "missing").toString(),
+            FsPermission.getFileDefault()),
+        BatchedMetadataOp.delete(file.toString(), false));
+    // a failed op does not stop the following ones.
+    LambdaTestUtils.intercept(PathIsNotEmptyDirectoryException.class,
+        () -> results[0].checkException());
+    LambdaTestUtils.intercept(FileNotFoundException.class,
+        () -> results[1].checkException());
+    results[2].checkException();
+    assertTrue(results[2].getResult());
+    assertFalse(dfs.exists(file));
+
+    final UserGroupInformation user = UserGroupInformation
+        .createUserForTesting("otheruser", new String[] {"othergroup"});
+    final DistributedFileSystem userFs = (DistributedFileSystem) DFSTestUtil
+        .getFileSystemAs(user, dfs.getConf());
+    BatchedMetadataResult[] userResults = userFs.batchMetadataOps(
+        BatchedMetadataOp.mkdirs(new Path(privateDir, "a").toString(),
+            null, false),
+        BatchedMetadataOp.getFileInfo(dir.toString()));
+    LambdaTestUtils.intercept(AccessControlException.class,
+        () -> userResults[0].checkException());
+    userResults[1].checkException();
+    assertTrue(userResults[1].getResult());
+  }
+
+  @Test
+  public void testReservedPathOps() throws Exception {
+    final Path file = new Path("/testReservedPathOps");
+    DFSTestUtil.createFile(dfs, file, 1, (short) 1, 0);
+
+    BatchedMetadataResult[] results = dfs.batchMetadataOps(
+        BatchedMetadataOp.delete(file.toString(), false),
+        BatchedMetadataOp.delete(
+            HdfsConstants.DOT_RESERVED_PATH_PREFIX, true),
+        BatchedMetadataOp.setPermission(
+            HdfsConstants.DOT_RESERVED_PATH_PREFIX,
+            FsPermission.getDirDefault()));
+    // the runtime exceptions of the reserved path are per op results, they
+    // do not fail the batch after the first delete was executed.
+    assertEquals(3, results.length);
+    results[0].checkException();
+    assertTrue(results[0].getResult());
+    assertFalse(dfs.exists(file));
+    assertEquals(InvalidPathException.class.getName(),
+        results[1].getException().getClassName());
+    assertEquals(InvalidPathException.class.getName(),
+        results[2].getException().getClassName());
+  }
+
+  @Test
+  public void testTooManyOps() throws Exception {
+    final BatchedMetadataOp[] ops = new BatchedMetadataOp[OPS_LIMIT + 1];
+    for (int i = 0; i < ops.length; i++) {
+      ops[i] = BatchedMetadataOp.getFileInfo("/");
+    }
+    RemoteException e = LambdaTestUtils.intercept(RemoteException.class,
+        () -> dfs.batchMetadataOps(ops));
+    assertEquals(IllegalArgumentException.class.getName(), e.getClassName());
+  }
+}
@@ -22,20 +22,28 @@
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
+import java.io.EOFException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileRange;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.StorageType;
+import org.apache.hadoop.fs.StreamCapabilities;
 import org.apache.hadoop.hdfs.client.HdfsClientConfigKeys;
 import org.apache.hadoop.hdfs.protocol.DatanodeID;
 import org.apache.hadoop.hdfs.protocol.DatanodeInfo;
@@ -287,4 +295,77 @@ public void testReadWithoutPreferredCachingReplica() throws IOException {
       cluster.shutdown();
     }
   }
+
+  @Test(timeout=60000)
+  public void testReadVectored() throws Exception {
+    Configuration conf = new Configuration();
+    conf.setLong(DFSConfigKeys.DFS_BLOCK_SIZE_KEY, 64 * 1024);
+    conf.setInt(HdfsClientConfigKeys.VectoredRead.MIN_SEEK_SIZE_KEY, 1024);
+    conf.setInt(HdfsClientConfigKeys.VectoredRead.MAX_MERGED_SIZE_KEY,
+        16 * 1024);
+    MiniDFSCluster cluster =
+        new MiniDFSCluster.Builder(conf).numDataNodes(1).build();
+    try {
+      DistributedFileSystem fs = cluster.getFileSystem();
+      Path file = new Path("/testReadVectored");
+      int fileLength = 256 * 1024;
+      byte[] fileContent = new byte[fileLength];
+      new Random(0xBEEF).nextBytes(fileContent);
+      try (FSDataOutputStream out = fs.create(file)) {
+        out.write(fileContent);
+      }
+      // Ranges that are merged, that span a block boundary, that are
+      // split by the maximum merged size and that are out of order.
+      List<FileRange> ranges = new ArrayList<>();
+      ranges.add(FileRange.createFileRange(200 * 1024, 100));
+      ranges.add(FileRange.createFileRange(0, 100));
+      ranges.add(FileRange.createFileRange(500, 100));
+      ranges.add(FileRange.createFileRange(64 * 1024 - 50, 100));
+      ranges.add(FileRange.createFileRange(100 * 1024, 40 * 1024));
+      ranges.add(FileRange.createFileRange(fileLength - 10, 10));
+      try (FSDataInputStream in = fs.open(file)) {
+        assertTrue(in.hasCapability(StreamCapabilities.VECTOREDIO));
+        in.readVectored(ranges, ByteBuffer::allocate);
+        assertRangesRead(fileContent, ranges);
+        assertEquals("readVectored must not move the stream", 0,
+            in.getPos());
+      }
+      try (FSDataInputStream in = fs.open(file)) {
+        in.readVectored(ranges, ByteBuffer::allocateDirect);
+        assertRangesRead(fileContent, ranges);
+      }
+      // A range past the end of the file fails only its own future.
+      List<FileRange> pastEof = Arrays.asList(
+          FileRange.createFileRange(0, 10),
+          FileRange.createFileRange(fileLength - 10, 20));
+      try (FSDataInputStream in = fs.open(file)) {
+        in.readVectored(pastEof, ByteBuffer::allocate);
+        assertRangesRead(fileContent, pastEof.subList(0, 1));
+        try {
+          pastEof.get(1).getData().get();
+          fail("Expected a failure reading past the end of the file");
+        } catch (ExecutionException e) {
+          assertTrue("Unexpected cause " + e.getCause(),
+              e.getCause() instanceof EOFException);
+        }
+      }
+    } finally {
+      cluster.shutdown();
+    }
+  }
+
+  private static void assertRangesRead(byte[] expected,
+      List<? extends FileRange> ranges) throws Exception {
+    for (FileRange range : ranges) {
+      ByteBuffer data = range.getData().get();
+      assertEquals("Length of range at " + range.getOffset(),
+          range.getLength(), data.remaining());
+      byte[] actual = new byte[data.remaining()];
+      data.get(actual);
+      int offset = (int) range.getOffset();
+      assertTrue("Data of range at " + offset, Arrays.equals(
+          Arrays.copyOfRange(expected, offset, offset + range.getLength()),
+          actual));
+    }
+  }
 }
@@ -498,6 +498,12 @@ public void testReadFromCache() throws Exception {
         NameNodeLayoutVersion.CURRENT_LAYOUT_VERSION);
     assertJournaledEditsTxnCountAndContents(1, 30, 15,
         NameNodeLayoutVersion.CURRENT_LAYOUT_VERSION);
+    // Responses wrap the cached buffers; trimming one response must not
+    // affect the buffers seen by subsequent requests.
+    assertJournaledEditsTxnCountAndContents(3, 10, 12,
+        NameNodeLayoutVersion.CURRENT_LAYOUT_VERSION);
+    assertJournaledEditsTxnCountAndContents(1, 30, 15,
+        NameNodeLayoutVersion.CURRENT_LAYOUT_VERSION);
 
     journal.finalizeLogSegment(makeRI(5), 1, 15);
     int newLayoutVersion = NameNodeLayoutVersion.CURRENT_LAYOUT_VERSION - 1;
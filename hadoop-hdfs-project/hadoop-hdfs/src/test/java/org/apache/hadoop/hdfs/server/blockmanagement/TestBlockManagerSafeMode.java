@@ -27,6 +27,7 @@
 import org.apache.hadoop.hdfs.server.common.HdfsServerConstants.NamenodeRole;
 import org.apache.hadoop.hdfs.server.namenode.FSNamesystem;
 import org.apache.hadoop.hdfs.server.namenode.NameNode;
+import org.apache.hadoop.hdfs.util.RwLockMode;
 import org.apache.hadoop.test.GenericTestUtils;
 import org.apache.hadoop.test.Whitebox;
 
@@ -93,7 +94,9 @@ public void setupMockCluster() throws IOException {
 
     fsn = mock(FSNamesystem.class);
     doReturn(true).when(fsn).hasWriteLock();
+    doReturn(true).when(fsn).hasWriteLock(any(RwLockMode.class));
     doReturn(true).when(fsn).hasReadLock();
+    doReturn(true).when(fsn).hasReadLock(any(RwLockMode.class));
     doReturn(true).when(fsn).isRunning();
     NameNode.initMetrics(conf, NamenodeRole.NAMENODE);
 
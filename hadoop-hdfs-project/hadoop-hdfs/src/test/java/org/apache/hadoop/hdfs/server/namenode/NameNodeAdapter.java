@@ -360,5 +360,13 @@ public static NamenodeCommand startCheckpoint(NameNode nn,
           throws IOException {
     return nn.getNamesystem().startCheckpoint(backupNode, activeNamenode);
   }
+
+  /**
+   * @return the number of entries in the observer status cache
+   */
+  public static int getObserverStatusCacheSize(NameNode nn) {
+    return nn.getNamesystem().getFSDirectory().getObserverStatusCache()
+        .size();
+  }
 }
 
@@ -26,13 +26,16 @@
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.permission.AclEntry;
 import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.hdfs.DFSClient;
 import org.apache.hadoop.hdfs.DFSTestUtil;
 import org.apache.hadoop.hdfs.HdfsConfiguration;
 import org.apache.hadoop.hdfs.MiniDFSCluster;
+import org.apache.hadoop.hdfs.protocol.HdfsConstants;
 import org.apache.hadoop.hdfs.server.namenode.top.TopAuditLogger;
 import org.apache.hadoop.hdfs.web.resources.GetOpParam;
 import org.apache.hadoop.ipc.CallerContext;
 import org.apache.hadoop.ipc.RemoteException;
+import org.apache.hadoop.ipc.Server;
 import org.apache.hadoop.net.NetUtils;
 import org.apache.hadoop.security.AccessControlException;
 import org.apache.hadoop.security.authorize.ProxyServers;
@@ -54,8 +57,16 @@
 import java.net.InetAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.List;
-
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.apache.hadoop.fs.CommonConfigurationKeys.IPC_SERVER_COALESCED_METHODS_KEY;
 import static org.apache.hadoop.fs.CommonConfigurationKeysPublic.HADOOP_CALLER_CONTEXT_ENABLED_KEY;
 import static org.apache.hadoop.fs.CommonConfigurationKeysPublic.HADOOP_CALLER_CONTEXT_MAX_SIZE_KEY;
 import static org.apache.hadoop.fs.CommonConfigurationKeysPublic.HADOOP_CALLER_CONTEXT_SIGNATURE_MAX_SIZE_KEY;
@@ -69,7 +80,11 @@
 import static org.apache.hadoop.fs.permission.FsAction.READ_EXECUTE;
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_ACLS_ENABLED_KEY;
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_AUDIT_LOGGERS_KEY;
+import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_DEFAULT_AUDIT_LOGGER_NAME;
+import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_HANDLER_COUNT_KEY;
 import static org.apache.hadoop.hdfs.DFSConfigKeys.NNTOP_ENABLED_KEY;
+import static org.apache.hadoop.test.MetricsAsserts.getLongCounter;
+import static org.apache.hadoop.test.MetricsAsserts.getMetrics;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
@@ -520,6 +535,75 @@ public void testAuditLogForAcls() throws Exception {
   }
 
 
+  /**
+   * Tests that getFileInfo calls answered with the result of an identical
+   * call are audited once per caller.
+   */
+  @Test(timeout = 60000)
+  public void testAuditLogOfCoalescedCalls() throws Exception {
+    Configuration conf = new HdfsConfiguration();
+    conf.setBoolean(HADOOP_CALLER_CONTEXT_ENABLED_KEY, true);
+    conf.set(IPC_SERVER_COALESCED_METHODS_KEY,
+        HdfsConstants.CLIENT_NAMENODE_PROTOCOL_NAME + ".getFileInfo");
+    conf.setInt(DFS_NAMENODE_HANDLER_COUNT_KEY, 2);
+    conf.set(DFS_NAMENODE_AUDIT_LOGGERS_KEY,
+        DFS_NAMENODE_DEFAULT_AUDIT_LOGGER_NAME + ","
+        + BlockingAuditLogger.class.getName());
+    MiniDFSCluster cluster =
+        new MiniDFSCluster.Builder(conf).numDataNodes(0).build();
+    LogCapturer auditlog = LogCapturer.captureLogs(FSNamesystem.auditLog);
+    ExecutorService executor = Executors.newFixedThreadPool(5);
+
+    try {
+      cluster.waitClusterUp();
+      final DFSClient client = cluster.getFileSystem().getClient();
+      final Server server = ((NameNodeRpcServer) cluster.getNameNodeRpc())
+          .getClientRpcServer();
+      cluster.getFileSystem().mkdirs(new Path("/dir"));
+      auditlog.clearOutput();
+
+      // Keep both handlers busy while identical calls queue up. The first of
+      // them runs on the first free handler and the others join it on the
+      // second.
+      List<Future<?>> futures = new ArrayList<>();
+      for (String src : new String[] {"/blocker1", "/blocker2", "/dir"}) {
+        BlockingAuditLogger.block(src);
+      }
+      for (String src : new String[] {"/blocker1", "/blocker2"}) {
+        futures.add(executor.submit(() -> client.getFileInfo(src)));
+        BlockingAuditLogger.awaitBlocked(src);
+      }
+      for (int i = 0; i < 3; i++) {
+        final String caller = "caller" + i;
+        futures.add(executor.submit(() -> {
+          CallerContext.setCurrent(new CallerContext.Builder(caller).build());
+          return client.getFileInfo("/dir");
+        }));
+      }
+      GenericTestUtils.waitFor(() -> server.getCallQueueLen() == 3, 10, 10000);
+      BlockingAuditLogger.unblock("/blocker1");
+      BlockingAuditLogger.awaitBlocked("/dir");
+      BlockingAuditLogger.unblock("/blocker2");
+      GenericTestUtils.waitFor(() -> getLongCounter("RpcCoalescedCalls",
+          getMetrics(server.getRpcMetrics().name())) == 2, 10, 10000);
+      BlockingAuditLogger.unblock("/dir");
+      for (Future<?> future : futures) {
+        future.get();
+      }
+
+      String output = auditlog.getOutput();
+      for (int i = 0; i < 3; i++) {
+        assertEquals(1, StringUtils.countMatches(output,
+            String.format("cmd=getfileinfo\tsrc=/dir\tdst=null\tperm=null\t"
+                + "proto=rpc\tcallerContext=caller%d%n", i)));
+      }
+    } finally {
+      BlockingAuditLogger.reset();
+      executor.shutdownNow();
+      cluster.shutdown();
+    }
+  }
+
   /**
    * Tests that a broken audit logger causes requests to fail.
    */
@@ -582,6 +666,59 @@ public static String getLastCommand() {
 
   }
 
+  /**
+   * Blocks the first audit event of each blocked path until it is unblocked.
+   */
+  public static class BlockingAuditLogger implements AuditLogger {
+    private static final Map<String, CountDownLatch> BLOCKED =
+        new ConcurrentHashMap<>();
+    private static final Map<String, CountDownLatch> UNBLOCKED =
+        new ConcurrentHashMap<>();
+
+    static void block(String src) {
+      BLOCKED.put(src, new CountDownLatch(1));
+      UNBLOCKED.put(src, new CountDownLatch(1));
+    }
+
+    static void awaitBlocked(String src) throws InterruptedException {
+      BLOCKED.get(src).await();
+    }
+
+    static void unblock(String src) {
+      UNBLOCKED.remove(src).countDown();
+    }
+
+    static void reset() {
+      BLOCKED.clear();
+      for (CountDownLatch latch : UNBLOCKED.values()) {
+        latch.countDown();
+      }
+      UNBLOCKED.clear();
+    }
+
+    public void initialize(Configuration conf) {
+      // No op.
+    }
+
+    public void logAuditEvent(boolean succeeded, String userName,
+        InetAddress addr, String cmd, String src, String dst,
+        FileStatus stat) {
+      CountDownLatch blocked = BLOCKED.get(src);
+      CountDownLatch unblocked = UNBLOCKED.get(src);
+      if (blocked == null || unblocked == null
+          || blocked.getCount() == 0) {
+        return;
+      }
+      blocked.countDown();
+      try {
+        unblocked.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+  }
+
   public static class BrokenAuditLogger implements AuditLogger {
 
     public void initialize(Configuration conf) {
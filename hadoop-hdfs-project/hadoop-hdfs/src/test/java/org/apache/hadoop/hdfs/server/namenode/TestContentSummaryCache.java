@@ -0,0 +1,163 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.server.namenode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FileNotFoundException;
+import java.security.PrivilegedExceptionAction;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.ContentSummary;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.hdfs.DFSConfigKeys;
+import org.apache.hadoop.hdfs.DFSTestUtil;
+import org.apache.hadoop.hdfs.DistributedFileSystem;
+import org.apache.hadoop.hdfs.MiniDFSCluster;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.hadoop.test.GenericTestUtils;
+import org.apache.hadoop.test.LambdaTestUtils;
+import org.apache.hadoop.util.Time;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests serving content summaries from the {@link ContentSummaryCache}.
+ */
+public class TestContentSummaryCache {
+  private static final long MAX_STALENESS_MS = TimeUnit.HOURS.toMillis(1);
+
+  private MiniDFSCluster cluster;
+  private DistributedFileSystem dfs;
+  private FSDirectory fsd;
+  private ContentSummaryCache cache;
+
+  @Before
+  public void setUp() throws Exception {
+    Configuration conf = new Configuration();
+    conf.setTimeDuration(
+        DFSConfigKeys.DFS_CONTENT_SUMMARY_CACHE_MAX_STALENESS_KEY,
+        MAX_STALENESS_MS, TimeUnit.MILLISECONDS);
+    cluster = new MiniDFSCluster.Builder(conf).numDataNodes(0).build();
+    cluster.waitActive();
+    dfs = cluster.getFileSystem();
+    fsd = cluster.getNamesystem().getFSDirectory();
+    cache = fsd.getContentSummaryCache();
+    assertNotNull(cache);
+  }
+
+  @After
+  public void tearDown() {
+    if (cluster != null) {
+      cluster.shutdown();
+      cluster = null;
+    }
+  }
+
+  private long getInodeId(Path path) throws Exception {
+    return fsd.getINode(path.toString()).getId();
+  }
+
+  @Test
+  public void testServedWithinStalenessBound() throws Exception {
+    final Path dir = new Path("/dir");
+    DFSTestUtil.createFile(dfs, new Path(dir, "f1"), 0, (short) 1, 0L);
+    DFSTestUtil.createFile(dfs, new Path(dir, "f2"), 0, (short) 1, 0L);
+    assertEquals(2, dfs.getContentSummary(dir).getFileCount());
+    assertEquals(1, cache.size());
+
+    // A new file is not reflected until the cached summary expires
+    DFSTestUtil.createFile(dfs, new Path(dir, "f3"), 0, (short) 1, 0L);
+    assertEquals(2, dfs.getContentSummary(dir).getFileCount());
+    assertEquals(3, dfs.getQuotaUsage(dir).getFileAndDirectoryCount());
+
+    // Entries are keyed by inode, so they follow renames
+    final Path renamed = new Path("/renamed");
+    dfs.rename(dir, renamed);
+    assertEquals(2, dfs.getContentSummary(renamed).getFileCount());
+
+    // Files are never cached
+    assertEquals(1,
+        dfs.getContentSummary(new Path(renamed, "f1")).getFileCount());
+    assertEquals(1, cache.size());
+
+    dfs.delete(renamed, true);
+    LambdaTestUtils.intercept(FileNotFoundException.class,
+        () -> dfs.getContentSummary(renamed));
+  }
+
+  @Test
+  public void testRefreshedInBackground() throws Exception {
+    final Path dir = new Path("/dir");
+    DFSTestUtil.createFile(dfs, new Path(dir, "f1"), 0, (short) 1, 0L);
+    final long id = getInodeId(dir);
+    final ContentSummary stale = dfs.getContentSummary(dir);
+    DFSTestUtil.createFile(dfs, new Path(dir, "f2"), 0, (short) 1, 0L);
+
+    // Pretend the summary was computed a while ago, but still within the
+    // bound; it is served, and a refresh is started in the background.
+    cache.remove(id);
+    cache.put(id, stale, Time.monotonicNow() - MAX_STALENESS_MS * 3 / 4);
+    assertEquals(1, dfs.getContentSummary(dir).getFileCount());
+    GenericTestUtils.waitFor(
+        () -> cache.get(id).getFileCount() == 2, 10, 10000);
+
+    // Summaries older than the bound are recomputed by the caller
+    DFSTestUtil.createFile(dfs, new Path(dir, "f3"), 0, (short) 1, 0L);
+    cache.remove(id);
+    cache.put(id, stale, Time.monotonicNow() - MAX_STALENESS_MS * 2);
+    assertNull(cache.get(id));
+    assertEquals(3, dfs.getContentSummary(dir).getFileCount());
+    assertEquals(3, cache.get(id).getFileCount());
+
+    // A refresh of a deleted directory drops its entry
+    dfs.delete(dir, true);
+    cache.refresh(id);
+    assertNull(cache.get(id));
+  }
+
+  @Test
+  public void testNotCachedForSubtreePermissionChecks() throws Exception {
+    final Path dir = new Path("/dir");
+    dfs.mkdirs(dir);
+    dfs.setPermission(dir, new FsPermission((short) 0777));
+    DFSTestUtil.createFile(dfs, new Path(dir, "f1"), 0, (short) 1, 0L);
+    UserGroupInformation user = UserGroupInformation.createUserForTesting(
+        "user", new String[] {"group"});
+    PrivilegedExceptionAction<ContentSummary> getContentSummary =
+        () -> cluster.getNameNodeRpc().getContentSummary(dir.toString());
+
+    assertEquals(1, user.doAs(getContentSummary).getFileCount());
+    DFSTestUtil.createFile(dfs, new Path(dir, "f2"), 0, (short) 1, 0L);
+    assertEquals(2, user.doAs(getContentSummary).getFileCount());
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testClosedOnShutdown() {
+    cluster.shutdown();
+    cluster = null;
+    assertTrue(cache.isClosed());
+  }
+}
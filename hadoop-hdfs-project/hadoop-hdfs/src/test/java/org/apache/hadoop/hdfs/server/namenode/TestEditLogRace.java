@@ -20,6 +20,8 @@
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.apache.hadoop.test.MetricsAsserts.getLongCounter;
+import static org.apache.hadoop.test.MetricsAsserts.getMetrics;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.spy;
 
@@ -223,8 +225,23 @@ private void stopTransactionWorkers() {
    */
   @Test
   public void testEditLogRolling() throws Exception {
-    // start a cluster 
+    testEditLogRolling(getConf());
+  }
+
+  /**
+   * Tests rolling edit logs while transactions are ongoing and syncs are held
+   * open to group commit concurrent transactions.
+   */
+  @Test
+  public void testEditLogRollingWithGroupCommit() throws Exception {
     Configuration conf = getConf();
+    conf.set(DFSConfigKeys.DFS_NAMENODE_EDITS_ASYNC_LOGGING_GROUP_COMMIT_WINDOW_KEY,
+        "500us");
+    testEditLogRolling(conf);
+  }
+
+  private void testEditLogRolling(Configuration conf) throws Exception {
+    // start a cluster
     final MiniDFSCluster cluster =
         new MiniDFSCluster.Builder(conf).numDataNodes(NUM_DATA_NODES).build();
     FileSystem fileSys = null;
@@ -261,6 +278,17 @@ public void testEditLogRolling() throws Exception {
         File expectedLog = NNStorage.getInProgressEditsFile(sd, previousLogTxId);
         assertTrue("Expect " + expectedLog + " to exist", expectedLog.exists());
       }
+
+      long groupCommitWaits = getLongCounter("GroupCommitWaitNumOps",
+          getMetrics("NameNodeActivity"));
+      if (useAsyncEditLog && conf.getTimeDuration(
+          DFSConfigKeys.DFS_NAMENODE_EDITS_ASYNC_LOGGING_GROUP_COMMIT_WINDOW_KEY,
+          0, TimeUnit.MICROSECONDS) > 0) {
+        assertTrue("Expected syncs to be held open for group commit",
+            groupCommitWaits > 0);
+      } else {
+        assertEquals(0, groupCommitWaits);
+      }
     } finally {
       stopTransactionWorkers();
       if (caughtErr.get() != null) {
@@ -1136,6 +1136,71 @@ public void testNoParallelSectionsWithCompressionEnabled()
     }
   }
 
+  @Test
+  public void testParallelSaveAndLoadWithSnapshotDiffs() throws IOException {
+    Configuration conf = new Configuration();
+    conf.set(DFSConfigKeys.DFS_IMAGE_PARALLEL_LOAD_KEY, "true");
+    conf.set(DFSConfigKeys.DFS_IMAGE_PARALLEL_INODE_THRESHOLD_KEY, "1");
+    conf.set(DFSConfigKeys.DFS_IMAGE_PARALLEL_TARGET_SECTIONS_KEY, "4");
+    conf.set(DFSConfigKeys.DFS_IMAGE_PARALLEL_THREADS_KEY, "4");
+
+    MiniDFSCluster cluster = null;
+    try {
+      cluster = new MiniDFSCluster.Builder(conf).build();
+      cluster.waitActive();
+      DistributedFileSystem fs = cluster.getFileSystem();
+
+      // Create 10 directories, each containing 5 files, then snapshot the
+      // parent and delete one file per directory so that every directory
+      // carries a diff.
+      Path base = new Path("/abc/def");
+      for (int i = 0; i < 10; i++) {
+        for (int j = 0; j < 5; j++) {
+          DFSTestUtil.createFile(fs, new Path(base, i + "/" + j), 1, (short) 1,
+              0L);
+        }
+      }
+      fs.allowSnapshot(base);
+      fs.createSnapshot(base, "s0");
+      for (int i = 0; i < 10; i++) {
+        fs.delete(new Path(base, i + "/0"), false);
+      }
+      fs.createSnapshot(base, "s1");
+
+      fs.setSafeMode(SafeModeAction.SAFEMODE_ENTER);
+      fs.saveNamespace();
+      fs.setSafeMode(SafeModeAction.SAFEMODE_LEAVE);
+
+      FsImageProto.FileSummary summary = FSImageTestUtil.
+          getLatestImageSummary(cluster);
+      ArrayList<Section> sections = Lists.newArrayList(
+          summary.getSectionsList());
+      ArrayList<Section> diffSubSections =
+          getSubSectionsOfName(sections, SectionName.SNAPSHOT_DIFF_SUB);
+      Section diffSection = getSubSectionsOfName(sections,
+          SectionName.SNAPSHOT_DIFF).get(0);
+      assertTrue(diffSubSections.size() > 1);
+      ensureSubSectionsAlignWithParent(diffSubSections, diffSection);
+
+      cluster.restartNameNode();
+      cluster.waitActive();
+      fs = cluster.getFileSystem();
+
+      for (int i = 0; i < 10; i++) {
+        assertFalse(fs.exists(new Path(base, i + "/0")));
+        assertTrue(fs.exists(new Path(base, ".snapshot/s0/" + i + "/0")));
+        assertFalse(fs.exists(new Path(base, ".snapshot/s1/" + i + "/0")));
+        assertTrue(fs.exists(new Path(base, ".snapshot/s1/" + i + "/1")));
+        assertEquals(1, fs.getFileStatus(
+            new Path(base, ".snapshot/s0/" + i + "/0")).getLen());
+      }
+    } finally {
+      if (cluster != null) {
+        cluster.shutdown();
+      }
+    }
+  }
+
   private void ensureSubSectionsAlignWithParent(ArrayList<Section> subSec,
       Section parent) {
     // For each sub-section, check its offset + length == the next section
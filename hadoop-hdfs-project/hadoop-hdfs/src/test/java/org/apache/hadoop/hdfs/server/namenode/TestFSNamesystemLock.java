@@ -403,6 +403,39 @@ public void testDetailedHoldMetrics() throws Exception {
     assertCounter("FSNWriteLockOverallNanosNumOps", 1L, rb);
   }
 
+  @Test
+  public void testDetailedHoldMetricsPerLockName() throws Exception {
+    Configuration conf = new Configuration();
+    conf.setBoolean(DFSConfigKeys.DFS_NAMENODE_LOCK_DETAILED_METRICS_KEY, true);
+    FakeTimer timer = new FakeTimer();
+    MetricsRegistry registry = new MetricsRegistry("Test");
+    MutableRatesWithAggregation rates =
+        registry.newRatesWithAggregation("Test");
+    FSNamesystemLock fsLock = new FSNamesystemLock(conf, rates, timer);
+    FSNamesystemLock bmLock = new FSNamesystemLock(conf,
+        FSNamesystemLock.BM_LOCK_NAME, rates, timer);
+
+    fsLock.readLock();
+    timer.advance(1);
+    fsLock.readUnlock("foo");
+    bmLock.writeLock();
+    timer.advance(2);
+    bmLock.writeUnlock("foo", false);
+    bmLock.readLock();
+    timer.advance(3);
+    bmLock.readUnlock("bar");
+
+    MetricsRecordBuilder rb = MetricsAsserts.mockMetricsRecordBuilder();
+    rates.snapshot(rb, true);
+
+    assertGauge("FSNReadLockFooNanosAvgTime", 1000000.0, rb);
+    assertCounter("FSNReadLockOverallNanosNumOps", 1L, rb);
+    assertGauge("BMWriteLockFooNanosAvgTime", 2000000.0, rb);
+    assertCounter("BMWriteLockOverallNanosNumOps", 1L, rb);
+    assertGauge("BMReadLockBarNanosAvgTime", 3000000.0, rb);
+    assertCounter("BMReadLockOverallNanosNumOps", 1L, rb);
+  }
+
   /**
    * Test to suppress FSNameSystem write lock report when it is held for long
    * time.
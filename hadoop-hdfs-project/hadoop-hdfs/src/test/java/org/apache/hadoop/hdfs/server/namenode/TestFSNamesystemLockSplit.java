@@ -0,0 +1,322 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hdfs.server.namenode;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hdfs.DFSTestUtil;
+import org.apache.hadoop.hdfs.DistributedFileSystem;
+import org.apache.hadoop.hdfs.HdfsConfiguration;
+import org.apache.hadoop.hdfs.MiniDFSCluster;
+import org.apache.hadoop.hdfs.protocol.HdfsConstants;
+import org.apache.hadoop.hdfs.security.token.delegation.DelegationTokenSecretManager;
+import org.apache.hadoop.hdfs.server.blockmanagement.BlockInfo;
+import org.apache.hadoop.hdfs.server.common.HdfsServerConstants.BlockUCState;
+import org.apache.hadoop.hdfs.server.datanode.DataNode;
+import org.apache.hadoop.hdfs.server.datanode.DataNodeTestUtils;
+import org.apache.hadoop.hdfs.util.RwLockMode;
+import org.apache.hadoop.test.GenericTestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_BLOCKMANAGER_LOCK_SPLIT_KEY;
+import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_DELEGATION_TOKEN_ALWAYS_USE_KEY;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the NameNode with the block manager lock split from the namespace
+ * lock.
+ */
+public class TestFSNamesystemLockSplit {
+
+  private static final short REPLICATION = 3;
+
+  private Configuration conf;
+  private MiniDFSCluster cluster;
+  private FileSystem fs;
+  private FSNamesystem fsn;
+
+  @Before
+  public void setUp() throws Exception {
+    conf = new HdfsConfiguration();
+    conf.setBoolean(DFS_NAMENODE_BLOCKMANAGER_LOCK_SPLIT_KEY, true);
+    conf.setBoolean(DFS_NAMENODE_DELEGATION_TOKEN_ALWAYS_USE_KEY, true);
+    cluster = new MiniDFSCluster.Builder(conf).numDataNodes(REPLICATION)
+        .build();
+    cluster.waitActive();
+    fs = cluster.getFileSystem();
+    fsn = cluster.getNamesystem();
+  }
+
+  @After
+  public void cleanUp() throws Exception {
+    if (fs != null) {
+      fs.close();
+      fs = null;
+    }
+    if (cluster != null) {
+      cluster.shutdown();
+      cluster = null;
+    }
+  }
+
+  @Test
+  public void testLockModes() {
+    assertTrue(fsn.isBMLockSplit());
+
+    fsn.writeLock(RwLockMode.BM);
+    try {
+      assertTrue(fsn.hasWriteLock(RwLockMode.BM));
+      assertFalse(fsn.hasWriteLock(RwLockMode.FS));
+      assertFalse(fsn.hasWriteLock(RwLockMode.GLOBAL));
+      assertFalse(fsn.hasReadLock(RwLockMode.FS));
+      // the namespace may be read under either lock
+      assertTrue(fsn.hasReadLock());
+    } finally {
+      fsn.writeUnlock(RwLockMode.BM);
+    }
+
+    fsn.readLock(RwLockMode.FS);
+    try {
+      assertTrue(fsn.hasReadLock());
+      assertFalse(fsn.hasReadLock(RwLockMode.BM));
+    } finally {
+      fsn.readUnlock(RwLockMode.FS);
+    }
+
+    fsn.writeLock();
+    try {
+      assertTrue(fsn.hasWriteLock(RwLockMode.GLOBAL));
+      assertTrue(fsn.hasReadLock(RwLockMode.BM));
+    } finally {
+      fsn.writeUnlock();
+    }
+    assertFalse(fsn.hasReadLock(RwLockMode.GLOBAL));
+  }
+
+  @Test(timeout = 60000)
+  public void testNamespaceReadsDoNotWaitForBlockManager() throws Exception {
+    final Path file = new Path("/dir/file");
+    DFSTestUtil.createFile(fs, file, 1024, REPLICATION, 0L);
+
+    CountDownLatch locked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<?> holder = executor.submit(() -> {
+        fsn.writeLock(RwLockMode.BM);
+        try {
+          locked.countDown();
+          release.await();
+        } finally {
+          fsn.writeUnlock(RwLockMode.BM);
+        }
+        return null;
+      });
+      assertTrue(locked.await(30, TimeUnit.SECONDS));
+
+      // getFileInfo and getListing without locations only need the FS lock
+      assertEquals(1024, fs.getFileStatus(file).getLen());
+      assertEquals(1, fs.listStatus(file.getParent()).length);
+
+      release.countDown();
+      holder.get();
+    } finally {
+      release.countDown();
+      executor.shutdownNow();
+    }
+  }
+
+  @Test(timeout = 120000)
+  public void testBlockReportsWithSplitLock() throws Exception {
+    final Path dir = new Path("/reports");
+    for (int i = 0; i < 5; i++) {
+      DFSTestUtil.createFile(fs, new Path(dir, "file" + i), 4096,
+          REPLICATION, i);
+    }
+    cluster.triggerBlockReports();
+    cluster.restartDataNode(0, true);
+    cluster.waitActive();
+    cluster.triggerBlockReports();
+
+    for (int i = 0; i < 5; i++) {
+      Path file = new Path(dir, "file" + i);
+      DFSTestUtil.waitReplication(fs, file, REPLICATION);
+      assertEquals(4096, DFSTestUtil.readFileAsBytes(fs, file).length);
+    }
+    assertEquals(0, fsn.getBlockManager().getMissingBlocksCount());
+  }
+
+  @Test
+  public void testLockOrderIsEnforced() {
+    fsn.writeLock(RwLockMode.BM);
+    try {
+      fsn.readLock();
+      fail("Acquired the namespace lock while holding the BM lock");
+    } catch (IllegalStateException e) {
+      GenericTestUtils.assertExceptionContains("block manager lock", e);
+    } finally {
+      fsn.writeUnlock(RwLockMode.BM);
+    }
+    assertFalse(fsn.hasReadLock(RwLockMode.FS));
+    assertFalse(fsn.hasReadLock(RwLockMode.BM));
+  }
+
+  @Test
+  public void testHoldCounts() {
+    fsn.readLock(RwLockMode.FS);
+    try {
+      assertEquals(1, fsn.getReadHoldCount(RwLockMode.FS));
+      assertEquals(0, fsn.getReadHoldCount(RwLockMode.BM));
+      assertEquals(0, fsn.getReadHoldCount());
+      fsn.readLock();
+      try {
+        assertEquals(2, fsn.getReadHoldCount(RwLockMode.FS));
+        assertEquals(1, fsn.getReadHoldCount(RwLockMode.BM));
+        assertEquals(1, fsn.getReadHoldCount());
+      } finally {
+        fsn.readUnlock();
+      }
+    } finally {
+      fsn.readUnlock(RwLockMode.FS);
+    }
+
+    fsn.writeLock(RwLockMode.BM);
+    try {
+      assertEquals(1, fsn.getWriteHoldCount(RwLockMode.BM));
+      assertEquals(0, fsn.getWriteHoldCount(RwLockMode.FS));
+      assertEquals(0, fsn.getWriteHoldCount());
+      // the no-arg checks agree on the global lock
+      assertFalse(fsn.hasWriteLock());
+    } finally {
+      fsn.writeUnlock(RwLockMode.BM);
+    }
+    fsn.writeLock();
+    try {
+      assertEquals(1, fsn.getWriteHoldCount());
+      assertTrue(fsn.hasWriteLock());
+    } finally {
+      fsn.writeUnlock();
+    }
+  }
+
+  /**
+   * Blocks committed before their replicas are reported are completed by
+   * incremental block reports, which hold only the BM lock. The quota usage
+   * update is deferred until the report released the BM lock and took the
+   * global lock.
+   */
+  @Test(timeout = 120000)
+  public void testQuotaOfBlocksCompletedByBlockReports() throws Exception {
+    final Path dir = new Path("/quota");
+    final Path file = new Path(dir, "file");
+    final int fileLength = 4096;
+    DistributedFileSystem dfs = cluster.getFileSystem();
+    dfs.mkdirs(dir);
+    dfs.setQuota(dir, HdfsConstants.QUOTA_DONT_SET, Long.MAX_VALUE / 2);
+
+    for (DataNode dn : cluster.getDataNodes()) {
+      DataNodeTestUtils.pauseIBR(dn);
+    }
+    FSDataOutputStream out = dfs.create(file, REPLICATION);
+    out.write(new byte[fileLength]);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      // close() commits the last block and retries complete() until the
+      // replicas have been reported
+      Future<?> closer = executor.submit(() -> {
+        out.close();
+        return null;
+      });
+      GenericTestUtils.waitFor(() -> {
+        try {
+          BlockInfo last = lastBlock(file);
+          return last != null
+              && last.getBlockUCState() == BlockUCState.COMMITTED;
+        } catch (IOException e) {
+          return false;
+        }
+      }, 100, 30000);
+      for (DataNode dn : cluster.getDataNodes()) {
+        DataNodeTestUtils.resumeIBR(dn);
+        DataNodeTestUtils.triggerHeartbeat(dn);
+      }
+      closer.get();
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertTrue(lastBlock(file).isComplete());
+    // complete() may have completed the block before the report drained it
+    GenericTestUtils.waitFor(
+        () -> !fsn.getBlockManager().hasDeferredCompletions(), 100, 30000);
+    assertEquals(fileLength * REPLICATION,
+        dfs.getQuotaUsage(dir).getSpaceConsumed());
+    assertEquals(fileLength * REPLICATION,
+        dfs.getContentSummary(dir).getSpaceConsumed());
+  }
+
+  /**
+   * Safe mode may be left by a block report holding only the BM lock. The
+   * secret manager is then started by the same thread once it released the
+   * lock.
+   */
+  @Test
+  public void testSecretManagerStartedWhenBMLockIsReleased() {
+    DelegationTokenSecretManager dtsm = fsn.getDelegationTokenSecretManager();
+    dtsm.stopThreads();
+    assertFalse(dtsm.isRunning());
+
+    fsn.writeLock(RwLockMode.BM);
+    try {
+      fsn.startSecretManagerIfNecessary();
+      fsn.writeLock(RwLockMode.BM);
+      fsn.writeUnlock(RwLockMode.BM);
+      // the outer hold still prevents taking the namespace lock
+      assertFalse(dtsm.isRunning());
+    } finally {
+      fsn.writeUnlock(RwLockMode.BM);
+    }
+    assertFalse(fsn.hasReadLock());
+    assertTrue(dtsm.isRunning());
+  }
+
+  private BlockInfo lastBlock(Path file) throws IOException {
+    fsn.readLock();
+    try {
+      return fsn.getFSDirectory().getINode(file.toString()).asFile()
+          .getLastBlock();
+    } finally {
+      fsn.readUnlock();
+    }
+  }
+}
@@ -42,6 +42,8 @@
 import org.apache.hadoop.hdfs.HdfsConfiguration;
 import org.apache.hadoop.hdfs.MiniDFSCluster;
 import org.apache.hadoop.hdfs.MiniDFSNNTopology;
+import org.apache.hadoop.hdfs.protocol.BatchedMetadataOp;
+import org.apache.hadoop.hdfs.protocol.BatchedMetadataResult;
 import org.apache.hadoop.hdfs.protocol.DatanodeID;
 import org.apache.hadoop.hdfs.protocol.ErasureCodingPolicy;
 import org.apache.hadoop.hdfs.protocol.ExtendedBlock;
@@ -198,6 +200,41 @@ public void testDelete() throws Exception {
     Assert.assertFalse(nnRpc.delete(dir, false));
   }
   
+  /**
+   * Tests for batchMetadataOps call
+   */
+  @Test
+  public void testBatchMetadataOps() throws Exception {
+    String dir = "/testNamenodeRetryCache/testBatchMetadataOps";
+    BatchedMetadataOp[] ops = new BatchedMetadataOp[] {
+        BatchedMetadataOp.mkdirs(dir + "/a", perm, true),
+        BatchedMetadataOp.delete(dir + "/a", false)};
+    // Retried calls get the results of the first call
+    newCall();
+    BatchedMetadataResult[] results = nnRpc.batchMetadataOps(ops);
+    Assert.assertTrue(results[1].getResult());
+    Assert.assertSame(results, nnRpc.batchMetadataOps(ops));
+
+    // non-retried call deletes nothing
+    newCall();
+    Assert.assertFalse(nnRpc.batchMetadataOps(
+        new BatchedMetadataOp[] {BatchedMetadataOp.delete(dir + "/a", false)})
+        [0].getResult());
+
+    // The rebuilt retry cache has the deletes, but not their results
+    newCall();
+    nnRpc.batchMetadataOps(ops);
+    cluster.restartNameNode();
+    cluster.waitActive();
+    nnRpc = cluster.getNameNode().getRpcServer();
+    try {
+      nnRpc.batchMetadataOps(ops);
+      Assert.fail("testBatchMetadataOps - expected exception is not thrown");
+    } catch (IOException e) {
+      GenericTestUtils.assertExceptionContains("already executed", e);
+    }
+  }
+
   /**
    * Test for createSymlink
    */
@@ -0,0 +1,140 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hdfs.server.namenode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.apache.hadoop.hdfs.protocol.DirectoryListing;
+import org.apache.hadoop.hdfs.protocol.HdfsFileStatus;
+import org.apache.hadoop.hdfs.server.namenode.FSEditLogOp.OpInstanceCache;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the invalidation rules of {@link ObserverStatusCache}.
+ */
+public class TestObserverStatusCache {
+
+  private static final HdfsFileStatus STATUS =
+      new HdfsFileStatus.Builder().build();
+  private static final DirectoryListing LISTING =
+      new DirectoryListing(new HdfsFileStatus[] {STATUS}, 0);
+
+  private ObserverStatusCache cache;
+
+  @Before
+  public void setUp() {
+    cache = new ObserverStatusCache(100);
+    for (String path : new String[] {"/", "/a", "/a/b", "/a/b/c",
+        "/a/b/c/d", "/a/bb", "/a/b0", "/x"}) {
+      cache.putFileInfo(path, STATUS);
+      cache.putListing(path, LISTING);
+    }
+    assertEquals(16, cache.size());
+  }
+
+  @Test
+  public void testInvalidatePath() {
+    cache.invalidate("/a/b/c");
+    // The path and its subtree
+    assertNull(cache.getFileInfo("/a/b/c"));
+    assertNull(cache.getListing("/a/b/c"));
+    assertNull(cache.getFileInfo("/a/b/c/d"));
+    assertNull(cache.getListing("/a/b/c/d"));
+    // The parent's status and listing
+    assertNull(cache.getFileInfo("/a/b"));
+    assertNull(cache.getListing("/a/b"));
+    // The grandparent's listing, which includes the parent's status
+    assertNotNull(cache.getFileInfo("/a"));
+    assertNull(cache.getListing("/a"));
+    // Siblings sharing a name prefix are unaffected
+    assertNotNull(cache.getFileInfo("/a/bb"));
+    assertNotNull(cache.getFileInfo("/a/b0"));
+    assertNotNull(cache.getListing("/"));
+    assertNotNull(cache.getFileInfo("/x"));
+    assertEquals(9, cache.size());
+  }
+
+  @Test
+  public void testInvalidateTopLevelPath() {
+    cache.invalidate("/a");
+    assertNull(cache.getFileInfo("/"));
+    assertNull(cache.getListing("/"));
+    assertNull(cache.getFileInfo("/a/bb"));
+    assertNotNull(cache.getFileInfo("/x"));
+    assertNotNull(cache.getListing("/x"));
+    assertEquals(2, cache.size());
+  }
+
+  @Test
+  public void testInvalidateRootOrReservedPath() {
+    cache.invalidate("/");
+    assertEquals(0, cache.size());
+    setUp();
+    cache.invalidate("/.reserved/.inodes/16387");
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testInvalidateByEditLogOp() {
+    OpInstanceCache ops = new OpInstanceCache();
+    cache.invalidate(FSEditLogOp.RenameOp.getInstance(ops)
+        .setSource("/a/b/c").setDestination("/x/c"));
+    assertNull(cache.getFileInfo("/a/b/c/d"));
+    assertNull(cache.getFileInfo("/x"));
+    assertNotNull(cache.getFileInfo("/a"));
+
+    // Edits that do not touch the namespace leave the cache alone
+    int size = cache.size();
+    cache.invalidate(FSEditLogOp.GetDelegationTokenOp.getInstance(ops));
+    assertEquals(size, cache.size());
+
+    // Edits which may affect any file status clear the cache
+    cache.invalidate(
+        FSEditLogOp.EnableErasureCodingPolicyOp.getInstance(ops));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testEviction() {
+    cache = new ObserverStatusCache(4);
+    for (int i = 0; i < 10; i++) {
+      cache.putFileInfo("/f" + i, STATUS);
+      cache.putListing("/d" + i, LISTING);
+      assertEquals(Math.min(4, 2 * (i + 1)), cache.size());
+      // The entries just added are never the ones evicted
+      assertNotNull(cache.getFileInfo("/f" + i));
+      assertNotNull(cache.getListing("/d" + i));
+    }
+    // Re-adding an existing entry does not grow the cache
+    cache.putListing("/d9", LISTING);
+    assertEquals(4, cache.size());
+
+    // A single-entry cache replaces its entry
+    cache = new ObserverStatusCache(1);
+    cache.putFileInfo("/f0", STATUS);
+    cache.putFileInfo("/f1", STATUS);
+    assertEquals(1, cache.size());
+    assertNotNull(cache.getFileInfo("/f1"));
+    cache.putListing("/d0", LISTING);
+    assertEquals(1, cache.size());
+    assertNotNull(cache.getListing("/d0"));
+  }
+}
@@ -17,10 +17,12 @@
  */
 package org.apache.hadoop.hdfs.server.namenode.ha;
 
+import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_OBSERVER_STATUS_CACHE_SIZE_KEY;
 import static org.apache.hadoop.hdfs.DFSConfigKeys.DFS_NAMENODE_STATE_CONTEXT_ENABLED_KEY;
 import static org.apache.hadoop.hdfs.server.namenode.NameNodeAdapter.getServiceState;
 import static org.apache.hadoop.hdfs.server.namenode.ha.ObserverReadProxyProvider.*;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
@@ -86,6 +88,7 @@ public class TestObserverNode {
   public static void startUpCluster() throws Exception {
     conf = new Configuration();
     conf.setBoolean(DFS_NAMENODE_STATE_CONTEXT_ENABLED_KEY, true);
+    conf.setInt(DFS_NAMENODE_OBSERVER_STATUS_CACHE_SIZE_KEY, 100);
     // Set observer probe retry period to 0. Required by the tests that restart
     // Observer and immediately try to read from it.
     conf.setTimeDuration(
@@ -163,6 +166,41 @@ public void testSimpleRead() throws Exception {
     assertSentTo(0);
   }
 
+  @Test
+  public void testStatusCache() throws Exception {
+    Path dir = new Path(testPath, "dir");
+    Path file = new Path(dir, "file");
+    dfs.mkdirs(dir);
+    DFSTestUtil.createFile(dfs, file, 0, (short) 1, 0L);
+    dfsCluster.rollEditLogAndTail(0);
+
+    assertEquals(1, dfs.listStatus(dir).length);
+    assertEquals(0, dfs.getFileStatus(file).getLen());
+    assertSentTo(2);
+    assertTrue(NameNodeAdapter.getObserverStatusCacheSize(
+        dfsCluster.getNameNode(2)) > 0);
+
+    // Changes tailed from the active must invalidate cached results
+    dfs.setPermission(file, new FsPermission((short) 0600));
+    dfsCluster.rollEditLogAndTail(0);
+    assertEquals(0600, dfs.getFileStatus(file).getPermission().toShort());
+    DFSTestUtil.appendFile(dfs, file, "data");
+    dfsCluster.rollEditLogAndTail(0);
+    assertEquals(4, dfs.getFileStatus(file).getLen());
+    assertEquals(4, dfs.listStatus(dir)[0].getLen());
+    DFSTestUtil.createFile(dfs, new Path(dir, "file2"), 0, (short) 1, 0L);
+    dfsCluster.rollEditLogAndTail(0);
+    assertEquals(2, dfs.listStatus(dir).length);
+
+    Path renamed = new Path(testPath, "renamed");
+    dfs.rename(dir, renamed);
+    dfsCluster.rollEditLogAndTail(0);
+    assertTrue(dfs.exists(new Path(renamed, "file")));
+    assertFalse(dfs.exists(file));
+    assertEquals(1, dfs.listStatus(testPath).length);
+    assertSentTo(2);
+  }
+
   @Test
   public void testFailover() throws Exception {
     Path testPath2 = new Path(testPath, "test2");
@@ -255,6 +255,8 @@ public class S3AFileSystem extends FileSystem implements StreamCapabilities,
   private final S3AStorageStatistics storageStatistics =
       createStorageStatistics();
   private long readAhead;
+  private int vectoredReadMinSeekSize;
+  private int vectoredReadMaxMergedSize;
   private S3AInputPolicy inputPolicy;
   private ChangeDetectionPolicy changeDetectionPolicy;
   private final AtomicBoolean closed = new AtomicBoolean(false);
@@ -374,6 +376,12 @@ public void initialize(URI name, Configuration originalConf)
 
       readAhead = longBytesOption(conf, READAHEAD_RANGE,
           DEFAULT_READAHEAD_RANGE, 0);
+      vectoredReadMinSeekSize = (int) longBytesOption(conf,
+          AWS_S3_VECTOR_READS_MIN_SEEK_SIZE,
+          DEFAULT_AWS_S3_VECTOR_READS_MIN_SEEK_SIZE, 0);
+      vectoredReadMaxMergedSize = (int) longBytesOption(conf,
+          AWS_S3_VECTOR_READS_MAX_MERGED_READ_SIZE,
+          DEFAULT_AWS_S3_VECTOR_READS_MAX_MERGED_READ_SIZE, 0);
 
       initThreadPools(conf);
 
@@ -1147,7 +1155,11 @@ private S3AReadOpContext createReadContext(
         fileStatus,
         seekPolicy,
         changePolicy,
-        readAheadRange);
+        readAheadRange,
+        new SemaphoredDelegatingExecutor(boundedThreadPool,
+            executorCapacity, true),
+        vectoredReadMinSeekSize,
+        vectoredReadMaxMergedSize);
   }
 
   /**
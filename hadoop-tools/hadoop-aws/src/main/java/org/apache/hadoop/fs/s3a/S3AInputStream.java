@@ -34,8 +34,10 @@
 import org.apache.hadoop.fs.CanUnbuffer;
 import org.apache.hadoop.fs.FSExceptionMessages;
 import org.apache.hadoop.fs.FSInputStream;
+import org.apache.hadoop.fs.FileRange;
 import org.apache.hadoop.fs.PathIOException;
 import org.apache.hadoop.fs.StreamCapabilities;
+import org.apache.hadoop.fs.VectoredReadUtils;
 import org.apache.hadoop.fs.s3a.impl.ChangeTracker;
 
 import org.slf4j.Logger;
@@ -43,7 +45,11 @@
 
 import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.function.IntFunction;
 
 import static org.apache.commons.lang3.StringUtils.isNotEmpty;
 import static org.apache.hadoop.util.StringUtils.toLowerCase;
@@ -740,6 +746,103 @@ public void readFully(long position, byte[] buffer, int offset, int length)
     }
   }
 
+  @Override
+  public int minSeekForVectorReads() {
+    return context.getVectoredReadMinSeekSize();
+  }
+
+  @Override
+  public int maxReadSizeForVectorReads() {
+    return context.getVectoredReadMaxMergedSize();
+  }
+
+  /**
+   * {@inheritDoc}
+   * Each merged range is fetched with its own ranged GET request,
+   * issued in parallel through the filesystem's bounded thread pool;
+   * the stream's own HTTP connection and position are not used.
+   */
+  @Override
+  public void readVectored(List<? extends FileRange> ranges,
+      IntFunction<ByteBuffer> allocate) throws IOException {
+    checkNotClosed();
+    LOG.debug("Starting vectored read on path {} for ranges {} ",
+        pathStr, ranges);
+    VectoredReadUtils.readVectored(ranges, allocate,
+        minSeekForVectorReads(), maxReadSizeForVectorReads(),
+        this::readRangeFromS3, context.getVectoredReadExecutor());
+  }
+
+  /**
+   * Read a range of the object with a single GET request into the buffer.
+   * @param position start of the range.
+   * @param buffer buffer to fill; flipped on return.
+   * @throws IOException failure to open or read the object.
+   */
+  @Retries.OnceTranslated
+  private void readRangeFromS3(long position, ByteBuffer buffer)
+      throws IOException {
+    int length = buffer.remaining();
+    if (position + length > contentLength) {
+      throw new EOFException("Requested range [" + position + ", "
+          + (position + length) + ") is beyond the end of " + uri
+          + " of length " + contentLength);
+    }
+    if (length == 0) {
+      buffer.flip();
+      return;
+    }
+    GetObjectRequest request = new GetObjectRequest(bucket, key)
+        .withRange(position, position + length - 1);
+    if (S3AEncryptionMethods.SSE_C.equals(serverSideEncryptionAlgorithm) &&
+        StringUtils.isNotBlank(serverSideEncryptionKey)){
+      request.setSSECustomerKey(new SSECustomerKey(serverSideEncryptionKey));
+    }
+    String operation = "readVectored";
+    synchronized (changeTracker) {
+      changeTracker.maybeApplyConstraint(request);
+    }
+    S3Object object = Invoker.once(
+        String.format("%s %s at %d", operation, uri, position), uri,
+        () -> client.getObject(request));
+    synchronized (changeTracker) {
+      changeTracker.processResponse(object, operation, position);
+    }
+    try (InputStream in = object.getObjectContent()) {
+      if (in == null) {
+        throw new PathIOException(uri,
+            "Null IO stream from " + operation + " at " + position);
+      }
+      byte[] tmp = buffer.hasArray()
+          ? buffer.array()
+          : new byte[Math.min(length, 64 * 1024)];
+      int offset = buffer.hasArray()
+          ? buffer.arrayOffset() + buffer.position()
+          : 0;
+      while (buffer.hasRemaining()) {
+        int toRead = buffer.hasArray()
+            ? buffer.remaining()
+            : Math.min(tmp.length, buffer.remaining());
+        int nread = in.read(tmp, offset, toRead);
+        if (nread < 0) {
+          throw new EOFException(FSExceptionMessages.EOF_IN_READ_FULLY);
+        }
+        if (buffer.hasArray()) {
+          offset += nread;
+          buffer.position(buffer.position() + nread);
+        } else {
+          buffer.put(tmp, 0, nread);
+        }
+      }
+    }
+    synchronized (this) {
+      // the statistics are updated under the stream lock
+      streamStatistics.streamOpened();
+      streamStatistics.bytesRead(length);
+    }
+    buffer.flip();
+  }
+
   /**
    * Access the input stream statistics.
    * This is for internal testing and may be removed without warning.
@@ -840,6 +943,7 @@ public boolean hasCapability(String capability) {
     switch (toLowerCase(capability)) {
     case StreamCapabilities.READAHEAD:
     case StreamCapabilities.UNBUFFER:
+    case StreamCapabilities.VECTOREDIO:
       return true;
     default:
       return false;
@@ -25,6 +25,8 @@
 
 import javax.annotation.Nullable;
 
+import java.util.concurrent.Executor;
+
 import com.google.common.base.Preconditions;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -54,6 +56,17 @@ public class S3AReadOpContext extends S3AOpContext {
    */
   private final long readahead;
 
+  /**
+   * Executor for the parallel GET requests of vectored reads.
+   */
+  private final Executor vectoredReadExecutor;
+
+  /**
+   * Minimum seek and maximum merged size of vectored reads.
+   */
+  private final int vectoredReadMinSeekSize;
+  private final int vectoredReadMaxMergedSize;
+
   /**
    * Instantiate.
    * @param path path of read
@@ -66,6 +79,9 @@ public class S3AReadOpContext extends S3AOpContext {
    * @param inputPolicy the input policy
    * @param readahead readahead for GET operations/skip, etc.
    * @param changeDetectionPolicy change detection policy.
+   * @param vectoredReadExecutor executor for vectored reads.
+   * @param vectoredReadMinSeekSize minimum seek for vectored reads.
+   * @param vectoredReadMaxMergedSize maximum merged size of vectored reads.
    */
   public S3AReadOpContext(
       final Path path,
@@ -77,7 +93,10 @@ public S3AReadOpContext(
       FileStatus dstFileStatus,
       S3AInputPolicy inputPolicy,
       ChangeDetectionPolicy changeDetectionPolicy,
-      final long readahead) {
+      final long readahead,
+      final Executor vectoredReadExecutor,
+      final int vectoredReadMinSeekSize,
+      final int vectoredReadMaxMergedSize) {
     super(isS3GuardEnabled, invoker, s3guardInvoker, stats, instrumentation,
         dstFileStatus);
     this.path = checkNotNull(path);
@@ -86,6 +105,9 @@ public S3AReadOpContext(
     this.inputPolicy = checkNotNull(inputPolicy);
     this.changeDetectionPolicy = checkNotNull(changeDetectionPolicy);
     this.readahead = readahead;
+    this.vectoredReadExecutor = checkNotNull(vectoredReadExecutor);
+    this.vectoredReadMinSeekSize = vectoredReadMinSeekSize;
+    this.vectoredReadMaxMergedSize = vectoredReadMaxMergedSize;
   }
 
   /**
@@ -131,6 +153,30 @@ public long getReadahead() {
     return readahead;
   }
 
+  /**
+   * Get the executor for the GET requests of vectored reads.
+   * @return an executor.
+   */
+  public Executor getVectoredReadExecutor() {
+    return vectoredReadExecutor;
+  }
+
+  /**
+   * Get the minimum seek of vectored reads.
+   * @return a value {@literal >=} 0
+   */
+  public int getVectoredReadMinSeekSize() {
+    return vectoredReadMinSeekSize;
+  }
+
+  /**
+   * Get the maximum merged size of vectored reads.
+   * @return a value {@literal >=} 0
+   */
+  public int getVectoredReadMaxMergedSize() {
+    return vectoredReadMaxMergedSize;
+  }
+
   @Override
   public String toString() {
     final StringBuilder sb = new StringBuilder(
@@ -0,0 +1,172 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.fs.s3a;
+
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileRange;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.StreamCapabilities;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Uses mocks to check that {@link S3AInputStream#readVectored} merges
+ * nearby ranges into ranged GET requests and slices the data returned back
+ * to the requested ranges.
+ */
+public class TestS3AVectoredRead extends AbstractS3AMockTest {
+
+  private static final int FILE_LENGTH = 64 * 1024;
+
+  private final byte[] fileContent = new byte[FILE_LENGTH];
+
+  private final List<long[]> requestedRanges = new ArrayList<>();
+
+  @Before
+  @Override
+  public void setup() throws Exception {
+    super.setup();
+    new Random(0xBEEF).nextBytes(fileContent);
+
+    ObjectMetadata meta = mock(ObjectMetadata.class);
+    when(meta.getContentLength()).thenReturn((long) FILE_LENGTH);
+    when(meta.getLastModified()).thenReturn(new Date(2L));
+    when(meta.getETag()).thenReturn("mock-etag");
+    when(s3.getObjectMetadata(any())).thenReturn(meta);
+
+    // Every GET returns the bytes of the range it asked for.
+    when(s3.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+      GetObjectRequest request = invocation.getArgument(0);
+      long[] range = request.getRange();
+      synchronized (requestedRanges) {
+        requestedRanges.add(range);
+      }
+      ByteArrayInputStream data = new ByteArrayInputStream(fileContent,
+          (int) range[0], (int) (range[1] - range[0] + 1));
+      S3ObjectInputStream objectStream = mock(S3ObjectInputStream.class);
+      when(objectStream.read(any(byte[].class), anyInt(), anyInt()))
+          .thenAnswer(read -> data.read(read.getArgument(0),
+              read.<Integer>getArgument(1), read.<Integer>getArgument(2)));
+      S3Object s3Object = mock(S3Object.class);
+      when(s3Object.getObjectContent()).thenReturn(objectStream);
+      when(s3Object.getObjectMetadata()).thenReturn(meta);
+      return s3Object;
+    });
+  }
+
+  @Test
+  public void testReadVectored() throws Exception {
+    List<FileRange> ranges = new ArrayList<>();
+    ranges.add(FileRange.createFileRange(32 * 1024, 100));
+    ranges.add(FileRange.createFileRange(0, 100));
+    ranges.add(FileRange.createFileRange(200, 100));
+    ranges.add(FileRange.createFileRange(FILE_LENGTH - 10, 10));
+    try (FSDataInputStream in = fs.open(new Path("/file"))) {
+      assertTrue(in.hasCapability(StreamCapabilities.VECTOREDIO));
+      in.readVectored(ranges, ByteBuffer::allocate);
+      assertRangesRead(ranges);
+      assertEquals("readVectored must not move the stream", 0, in.getPos());
+    }
+    // [0, 100) and [200, 300) are merged into one GET request
+    assertEquals("GET requests " + describeRequests(), 3,
+        requestedRanges.size());
+  }
+
+  @Test
+  public void testReadVectoredDirectBuffers() throws Exception {
+    List<FileRange> ranges = Arrays.asList(
+        FileRange.createFileRange(1000, 20 * 1024),
+        FileRange.createFileRange(40 * 1024, 1));
+    try (FSDataInputStream in = fs.open(new Path("/file"))) {
+      in.readVectored(ranges, ByteBuffer::allocateDirect);
+      assertRangesRead(ranges);
+    }
+  }
+
+  @Test
+  public void testReadVectoredPastEOF() throws Exception {
+    List<FileRange> ranges = Arrays.asList(
+        FileRange.createFileRange(0, 10),
+        FileRange.createFileRange(FILE_LENGTH - 10, 20));
+    try (FSDataInputStream in = fs.open(new Path("/file"))) {
+      in.readVectored(ranges, ByteBuffer::allocate);
+      assertRangesRead(ranges.subList(0, 1));
+      try {
+        ranges.get(1).getData().get();
+        fail("Expected a failure reading past the end of the file");
+      } catch (ExecutionException e) {
+        assertTrue("Unexpected cause " + e.getCause(),
+            e.getCause() instanceof EOFException);
+      }
+    }
+    // the range past the end of the object is not requested at all
+    assertEquals("GET requests " + describeRequests(), 1,
+        requestedRanges.size());
+  }
+
+  private void assertRangesRead(List<? extends FileRange> ranges)
+      throws Exception {
+    for (FileRange range : ranges) {
+      ByteBuffer data = range.getData().get();
+      assertEquals("Length of range at " + range.getOffset(),
+          range.getLength(), data.remaining());
+      byte[] actual = new byte[data.remaining()];
+      data.get(actual);
+      int offset = (int) range.getOffset();
+      assertArrayEquals("Data of range at " + offset,
+          Arrays.copyOfRange(fileContent, offset, offset + range.getLength()),
+          actual);
+    }
+  }
+
+  private String describeRequests() {
+    StringBuilder sb = new StringBuilder();
+    synchronized (requestedRanges) {
+      for (long[] range : requestedRanges) {
+        sb.append(Arrays.toString(range));
+      }
+    }
+    return sb.toString();
+  }
+}
@@ -189,6 +189,22 @@
       DefaultValue = DEFAULT_READ_AHEAD_QUEUE_DEPTH)
   private int readAheadQueueDepth;
 
+  @IntegerConfigurationValidatorAnnotation(ConfigurationKey = FS_AZURE_VECTORED_READ_THREADS,
+      MinValue = 1,
+      DefaultValue = DEFAULT_VECTORED_READ_THREADS)
+  private int vectoredReadThreads;
+
+  @IntegerConfigurationValidatorAnnotation(ConfigurationKey = FS_AZURE_VECTORED_READ_MIN_SEEK_SIZE,
+      MinValue = 0,
+      DefaultValue = DEFAULT_VECTORED_READ_MIN_SEEK_SIZE)
+  private int vectoredReadMinSeekSize;
+
+  @IntegerConfigurationValidatorAnnotation(ConfigurationKey = FS_AZURE_VECTORED_READ_MAX_MERGED_SIZE,
+      MinValue = 1,
+      MaxValue = MAX_BUFFER_SIZE,
+      DefaultValue = DEFAULT_VECTORED_READ_MAX_MERGED_SIZE)
+  private int vectoredReadMaxMergedSize;
+
   @BooleanConfigurationValidatorAnnotation(ConfigurationKey = FS_AZURE_ENABLE_FLUSH,
       DefaultValue = DEFAULT_ENABLE_FLUSH)
   private boolean enableFlush;
@@ -583,6 +599,18 @@ public int getReadAheadQueueDepth() {
     return this.readAheadQueueDepth;
   }
 
+  public int getVectoredReadThreads() {
+    return this.vectoredReadThreads;
+  }
+
+  public int getVectoredReadMinSeekSize() {
+    return this.vectoredReadMinSeekSize;
+  }
+
+  public int getVectoredReadMaxMergedSize() {
+    return this.vectoredReadMaxMergedSize;
+  }
+
   public boolean isFlushEnabled() {
     return this.enableFlush;
   }
@@ -47,6 +47,9 @@
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
@@ -109,6 +112,8 @@
 import org.apache.hadoop.fs.permission.FsPermission;
 import org.apache.hadoop.io.IOUtils;
 import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.hadoop.util.BlockingThreadPoolExecutorService;
+import org.apache.hadoop.util.concurrent.HadoopExecutors;
 import org.apache.http.client.utils.URIBuilder;
 
 import static org.apache.hadoop.fs.azurebfs.constants.AbfsHttpConstants.CHAR_EQUALS;
@@ -146,6 +151,7 @@ public class AzureBlobFileSystemStore implements Closeable {
   private final UserGroupInformation userGroupInformation;
   private final IdentityTransformerInterface identityTransformer;
   private final AbfsPerfTracker abfsPerfTracker;
+  private final ThreadPoolExecutor vectoredReadThreadPool;
 
   /**
    * The set of directories where we should store files as append blobs.
@@ -193,6 +199,13 @@ public AzureBlobFileSystemStore(URI uri, boolean isSecureScheme,
     boolean useHttps = (usingOauth || abfsConfiguration.isHttpsAlwaysUsed()) ? true : isSecureScheme;
     this.abfsPerfTracker = new AbfsPerfTracker(fileSystemName, accountName, this.abfsConfiguration);
     initializeClient(uri, fileSystemName, accountName, useHttps, abfsCounters);
+    int vectoredReadThreads = abfsConfiguration.getVectoredReadThreads();
+    this.vectoredReadThreadPool = new ThreadPoolExecutor(
+        vectoredReadThreads, vectoredReadThreads, 60L, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(),
+        BlockingThreadPoolExecutorService.newDaemonThreadFactory(
+            "abfs-vectored-read"));
+    this.vectoredReadThreadPool.allowCoreThreadTimeOut(true);
     final Class<? extends IdentityTransformerInterface> identityTransformerClass =
         configuration.getClass(FS_AZURE_IDENTITY_TRANSFORM_CLASS, IdentityTransformer.class,
             IdentityTransformerInterface.class);
@@ -238,6 +251,7 @@ public String getPrimaryGroup() {
 
   @Override
   public void close() throws IOException {
+    HadoopExecutors.shutdown(vectoredReadThreadPool, LOG, 0, TimeUnit.SECONDS);
     IOUtils.cleanupWithLogger(LOG, client);
   }
 
@@ -546,6 +560,9 @@ private AbfsInputStreamContext populateAbfsInputStreamContext() {
             .withReadBufferSize(abfsConfiguration.getReadBufferSize())
             .withReadAheadQueueDepth(abfsConfiguration.getReadAheadQueueDepth())
             .withTolerateOobAppends(abfsConfiguration.getTolerateOobAppends())
+            .withVectoredReadExecutor(vectoredReadThreadPool)
+            .withVectoredReadMinSeekSize(abfsConfiguration.getVectoredReadMinSeekSize())
+            .withVectoredReadMaxMergedSize(abfsConfiguration.getVectoredReadMaxMergedSize())
             .withStreamStatistics(new AbfsInputStreamStatisticsImpl())
             .build();
   }
@@ -69,6 +69,12 @@ public final class ConfigurationKeys {
    *  Default is empty. **/
   public static final String FS_AZURE_APPEND_BLOB_KEY = "fs.azure.appendblob.directories";
   public static final String FS_AZURE_READ_AHEAD_QUEUE_DEPTH = "fs.azure.readaheadqueue.depth";
+  /** Number of threads issuing the merged ranges of vectored reads in parallel. **/
+  public static final String FS_AZURE_VECTORED_READ_THREADS = "fs.azure.vectored.read.threads";
+  /** Ranges of a vectored read closer than this many bytes are merged. **/
+  public static final String FS_AZURE_VECTORED_READ_MIN_SEEK_SIZE = "fs.azure.vectored.read.min.seek.size";
+  /** Maximum size of a read formed by merging ranges of a vectored read. **/
+  public static final String FS_AZURE_VECTORED_READ_MAX_MERGED_SIZE = "fs.azure.vectored.read.max.merged.size";
   /** Provides a config control to enable or disable ABFS Flush operations -
    *  HFlush and HSync. Default is true. **/
   public static final String FS_AZURE_ENABLE_FLUSH = "fs.azure.enable.flush";
@@ -73,6 +73,9 @@ public final class FileSystemConfigurations {
   public static final String DEFAULT_FS_AZURE_APPEND_BLOB_DIRECTORIES = "";
 
   public static final int DEFAULT_READ_AHEAD_QUEUE_DEPTH = -1;
+  public static final int DEFAULT_VECTORED_READ_THREADS = 8;
+  public static final int DEFAULT_VECTORED_READ_MIN_SEEK_SIZE = 4 * ONE_KB;  // 4 KB
+  public static final int DEFAULT_VECTORED_READ_MAX_MERGED_SIZE = 4 * ONE_MB;  // 4 MB
   public static final boolean DEFAULT_ENABLE_FLUSH = true;
   public static final boolean DEFAULT_DISABLE_OUTPUTSTREAM_FLUSH = true;
   public static final boolean DEFAULT_ENABLE_AUTOTHROTTLING = true;
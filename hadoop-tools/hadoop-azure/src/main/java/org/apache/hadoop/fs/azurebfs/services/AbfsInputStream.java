@@ -22,6 +22,10 @@
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.HttpURLConnection;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.IntFunction;
 
 import com.google.common.base.Preconditions;
 import com.google.common.annotations.VisibleForTesting;
@@ -32,8 +36,10 @@
 import org.apache.hadoop.fs.CanUnbuffer;
 import org.apache.hadoop.fs.FSExceptionMessages;
 import org.apache.hadoop.fs.FSInputStream;
+import org.apache.hadoop.fs.FileRange;
 import org.apache.hadoop.fs.FileSystem.Statistics;
 import org.apache.hadoop.fs.StreamCapabilities;
+import org.apache.hadoop.fs.VectoredReadUtils;
 import org.apache.hadoop.fs.azurebfs.contracts.exceptions.AbfsRestOperationException;
 import org.apache.hadoop.fs.azurebfs.contracts.exceptions.AzureBlobFileSystemException;
 import org.apache.hadoop.fs.azurebfs.utils.CachedSASToken;
@@ -56,6 +62,9 @@ public class AbfsInputStream extends FSInputStream implements CanUnbuffer,
   private final String eTag;                  // eTag of the path when InputStream are created
   private final boolean tolerateOobAppends; // whether tolerate Oob Appends
   private final boolean readAheadEnabled; // whether enable readAhead;
+  private final Executor vectoredReadExecutor; // may be null: read inline
+  private final int vectoredReadMinSeekSize;
+  private final int vectoredReadMaxMergedSize;
 
   // SAS tokens can be re-used until they expire
   private CachedSASToken cachedSasToken;
@@ -90,6 +99,9 @@ public AbfsInputStream(
     this.cachedSasToken = new CachedSASToken(
         abfsInputStreamContext.getSasTokenRenewPeriodForStreamsInSeconds());
     this.streamStatistics = abfsInputStreamContext.getStreamStatistics();
+    this.vectoredReadExecutor = abfsInputStreamContext.getVectoredReadExecutor();
+    this.vectoredReadMinSeekSize = abfsInputStreamContext.getVectoredReadMinSeekSize();
+    this.vectoredReadMaxMergedSize = abfsInputStreamContext.getVectoredReadMaxMergedSize();
   }
 
   public String getPath() {
@@ -305,6 +317,61 @@ int readRemote(long position, byte[] b, int offset, int length) throws IOExcepti
     return (int) bytesRead;
   }
 
+  @Override
+  public int minSeekForVectorReads() {
+    return vectoredReadMinSeekSize;
+  }
+
+  @Override
+  public int maxReadSizeForVectorReads() {
+    return vectoredReadMaxMergedSize > 0
+        ? vectoredReadMaxMergedSize
+        : super.maxReadSizeForVectorReads();
+  }
+
+  /**
+   * Reads the merged ranges with remote reads issued in parallel on the
+   * filesystem's vectored read pool, bypassing the stream buffer and the
+   * read-ahead queue.
+   */
+  @Override
+  public void readVectored(List<? extends FileRange> ranges,
+      IntFunction<ByteBuffer> allocate) throws IOException {
+    if (closed) {
+      throw new IOException(FSExceptionMessages.STREAM_IS_CLOSED);
+    }
+    VectoredReadUtils.readVectored(ranges, allocate,
+        minSeekForVectorReads(), maxReadSizeForVectorReads(),
+        this::readRangeRemote, vectoredReadExecutor);
+  }
+
+  /**
+   * Fill the buffer from the given position with remote reads.
+   * @param position position in the file.
+   * @param buf buffer to fill; flipped on return.
+   * @throws IOException failure, including EOF before the buffer is full.
+   */
+  private void readRangeRemote(long position, ByteBuffer buf)
+      throws IOException {
+    int length = buf.remaining();
+    byte[] b = buf.hasArray() ? buf.array() : new byte[length];
+    int offset = buf.hasArray() ? buf.arrayOffset() + buf.position() : 0;
+    int nread = 0;
+    while (nread < length) {
+      int n = readRemote(position + nread, b, offset + nread, length - nread);
+      if (n <= 0) {
+        throw new EOFException(FSExceptionMessages.EOF_IN_READ_FULLY);
+      }
+      nread += n;
+    }
+    if (buf.hasArray()) {
+      buf.position(buf.position() + length);
+    } else {
+      buf.put(b, 0, length);
+    }
+    buf.flip();
+  }
+
   /**
    * Increment Read Operations.
    */
@@ -481,7 +548,13 @@ public synchronized void unbuffer() {
 
   @Override
   public boolean hasCapability(String capability) {
-    return StreamCapabilities.UNBUFFER.equals(toLowerCase(capability));
+    switch (toLowerCase(capability)) {
+    case StreamCapabilities.UNBUFFER:
+    case StreamCapabilities.VECTOREDIO:
+      return true;
+    default:
+      return false;
+    }
   }
 
   byte[] getBuffer() {
@@ -18,6 +18,8 @@
 
 package org.apache.hadoop.fs.azurebfs.services;
 
+import java.util.concurrent.Executor;
+
 /**
  * Class to hold extra input stream configs.
  */
@@ -31,6 +33,12 @@ public class AbfsInputStreamContext extends AbfsStreamContext {
 
   private AbfsInputStreamStatistics streamStatistics;
 
+  private Executor vectoredReadExecutor;
+
+  private int vectoredReadMinSeekSize;
+
+  private int vectoredReadMaxMergedSize;
+
   public AbfsInputStreamContext(final long sasTokenRenewPeriodForStreamsInSeconds) {
     super(sasTokenRenewPeriodForStreamsInSeconds);
   }
@@ -54,6 +62,24 @@ public AbfsInputStreamContext withTolerateOobAppends(
     return this;
   }
 
+  public AbfsInputStreamContext withVectoredReadExecutor(
+          final Executor vectoredReadExecutor) {
+    this.vectoredReadExecutor = vectoredReadExecutor;
+    return this;
+  }
+
+  public AbfsInputStreamContext withVectoredReadMinSeekSize(
+          final int vectoredReadMinSeekSize) {
+    this.vectoredReadMinSeekSize = vectoredReadMinSeekSize;
+    return this;
+  }
+
+  public AbfsInputStreamContext withVectoredReadMaxMergedSize(
+          final int vectoredReadMaxMergedSize) {
+    this.vectoredReadMaxMergedSize = vectoredReadMaxMergedSize;
+    return this;
+  }
+
   public AbfsInputStreamContext withStreamStatistics(
       final AbfsInputStreamStatistics streamStatistics) {
     this.streamStatistics = streamStatistics;
@@ -80,4 +106,16 @@ public boolean isTolerateOobAppends() {
   public AbfsInputStreamStatistics getStreamStatistics() {
     return streamStatistics;
   }
+
+  public Executor getVectoredReadExecutor() {
+    return vectoredReadExecutor;
+  }
+
+  public int getVectoredReadMinSeekSize() {
+    return vectoredReadMinSeekSize;
+  }
+
+  public int getVectoredReadMaxMergedSize() {
+    return vectoredReadMaxMergedSize;
+  }
 }
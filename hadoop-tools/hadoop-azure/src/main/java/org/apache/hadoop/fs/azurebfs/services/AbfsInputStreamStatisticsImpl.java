@@ -18,6 +18,8 @@
 
 package org.apache.hadoop.fs.azurebfs.services;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Stats for the AbfsInputStream.
  */
@@ -32,9 +34,10 @@
   private long seekInBuffer;
   private long readOperations;
   private long bytesReadFromBuffer;
-  private long remoteReadOperations;
   private long readAheadBytesRead;
-  private long remoteBytesRead;
+  // updated concurrently by the remote reads of vectored read ranges
+  private final AtomicLong remoteReadOperations = new AtomicLong();
+  private final AtomicLong remoteBytesRead = new AtomicLong();
 
   /**
    * Seek backwards, incrementing the seek and backward seek counters.
@@ -150,7 +153,7 @@ public void readAheadBytesRead(long bytes) {
   @Override
   public void remoteBytesRead(long bytes) {
     if (bytes > 0) {
-      remoteBytesRead += bytes;
+      remoteBytesRead.addAndGet(bytes);
     }
   }
 
@@ -161,7 +164,7 @@ public void remoteBytesRead(long bytes) {
    */
   @Override
   public void remoteReadOperation() {
-    remoteReadOperations++;
+    remoteReadOperations.incrementAndGet();
   }
 
   public long getSeekOperations() {
@@ -201,7 +204,7 @@ public long getBytesReadFromBuffer() {
   }
 
   public long getRemoteReadOperations() {
-    return remoteReadOperations;
+    return remoteReadOperations.get();
   }
 
   public long getReadAheadBytesRead() {
@@ -209,7 +212,7 @@ public long getReadAheadBytesRead() {
   }
 
   public long getRemoteBytesRead() {
-    return remoteBytesRead;
+    return remoteBytesRead.get();
   }
 
   /**
@@ -232,9 +235,9 @@ public String toString() {
     sb.append(", BytesRead=").append(bytesRead);
     sb.append(", ReadOperations=").append(readOperations);
     sb.append(", bytesReadFromBuffer=").append(bytesReadFromBuffer);
-    sb.append(", remoteReadOperations=").append(remoteReadOperations);
+    sb.append(", remoteReadOperations=").append(remoteReadOperations.get());
     sb.append(", readAheadBytesRead=").append(readAheadBytesRead);
-    sb.append(", remoteBytesRead=").append(remoteBytesRead);
+    sb.append(", remoteBytesRead=").append(remoteBytesRead.get());
     sb.append('}');
     return sb.toString();
   }
@@ -18,17 +18,28 @@
 
 package org.apache.hadoop.fs.azurebfs.services;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import org.apache.hadoop.fs.FileRange;
+import org.apache.hadoop.fs.StreamCapabilities;
 import org.apache.hadoop.fs.azurebfs.AbstractAbfsIntegrationTest;
 import org.apache.hadoop.fs.azurebfs.contracts.exceptions.AzureBlobFileSystemException;
 import org.apache.hadoop.fs.azurebfs.contracts.exceptions.TimeoutException;
 import org.apache.hadoop.fs.azurebfs.utils.TestCachedSASToken;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
@@ -447,4 +458,83 @@ public void testReadAheadManagerForSuccessfulReadAhead() throws Exception {
     checkEvictedStatus(inputStream, 0, true);
   }
 
-}
\ No newline at end of file
+  /**
+   * The test expects readVectored to merge nearby ranges into single remote
+   * reads, issue them on the vectored read executor and complete every
+   * range with its own data.
+   * @throws Exception
+   */
+  @Test
+  public void testReadVectored() throws Exception {
+    byte[] fileContent = new byte[THREE_KB];
+    new Random(0xBEEF).nextBytes(fileContent);
+    AbfsClient client = getMockAbfsClient();
+
+    // Stub : every remote read returns the requested bytes of the file
+    doAnswer(invocation -> {
+      long position = invocation.getArgument(1);
+      byte[] buffer = invocation.getArgument(2);
+      int offset = invocation.getArgument(3);
+      int length = Math.min(invocation.<Integer>getArgument(4),
+          THREE_KB - (int) position);
+      System.arraycopy(fileContent, (int) position, buffer, offset, length);
+      AbfsRestOperation op = getMockRestOp();
+      when(op.getResult().getBytesReceived()).thenReturn((long) length);
+      return op;
+    }).when(client)
+        .read(any(String.class), any(Long.class), any(byte[].class),
+            any(Integer.class), any(Integer.class), any(String.class),
+            any(String.class));
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      AbfsInputStream inputStream = new AbfsInputStream(
+          client,
+          null,
+          FORWARD_SLASH + "testReadVectored.txt",
+          THREE_KB,
+          new AbfsInputStreamContext(-1)
+              .withReadBufferSize(ONE_KB)
+              .withReadAheadQueueDepth(0)
+              .withVectoredReadExecutor(executor)
+              .withVectoredReadMinSeekSize(100)
+              .withVectoredReadMaxMergedSize(ONE_KB),
+          "eTag");
+      inputStream.setCachedSasToken(
+          TestCachedSASToken.getTestCachedSASTokenInstance());
+      Assert.assertTrue(
+          inputStream.hasCapability(StreamCapabilities.VECTOREDIO));
+
+      // [0, 10) and [50, 60) are merged; the rest are read on their own
+      List<FileRange> ranges = Arrays.asList(
+          FileRange.createFileRange(TWO_KB, 100),
+          FileRange.createFileRange(50, 10),
+          FileRange.createFileRange(0, 10),
+          FileRange.createFileRange(ONE_KB, 500));
+      inputStream.readVectored(ranges, ByteBuffer::allocateDirect);
+      for (FileRange range : ranges) {
+        ByteBuffer data = range.getData().get();
+        byte[] actual = new byte[data.remaining()];
+        data.get(actual);
+        int offset = (int) range.getOffset();
+        Assert.assertArrayEquals("Data of range at " + offset,
+            Arrays.copyOfRange(fileContent, offset,
+                offset + range.getLength()),
+            actual);
+      }
+      Assert.assertEquals("readVectored must not move the stream",
+          0, inputStream.getPos());
+      verifyReadCallCount(client, 3);
+
+      // A range past the end of the file fails with an EOFException.
+      FileRange pastEof = FileRange.createFileRange(THREE_KB - 10, 20);
+      inputStream.readVectored(Arrays.asList(pastEof), ByteBuffer::allocate);
+      ExecutionException e = intercept(ExecutionException.class,
+          () -> pastEof.getData().get());
+      Assert.assertTrue("Unexpected cause " + e.getCause(),
+          e.getCause() instanceof EOFException);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}